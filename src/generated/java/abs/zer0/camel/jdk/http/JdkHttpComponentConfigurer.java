@@ -50,12 +50,24 @@ public class JdkHttpComponentConfigurer extends PropertyConfigurerSupport implem
         case "redirectPolicy": target.setRedirectPolicy(property(camelContext, java.net.http.HttpClient.Redirect.class, value)); return true;
         case "responsebodyasbytearray":
         case "responseBodyAsByteArray": target.setResponseBodyAsByteArray(property(camelContext, boolean.class, value)); return true;
+        case "responsememorybudget":
+        case "responseMemoryBudget": target.setResponseMemoryBudget(property(camelContext, long.class, value)); return true;
+        case "responsememorybudgetmaxwait":
+        case "responseMemoryBudgetMaxWait": target.setResponseMemoryBudgetMaxWait(property(camelContext, java.time.Duration.class, value)); return true;
+        case "responsememorybudgetpolicy":
+        case "responseMemoryBudgetPolicy": target.setResponseMemoryBudgetPolicy(property(camelContext, abs.zer0.camel.jdk.http.JdkHttpMemoryBudgetPolicy.class, value)); return true;
         case "responsetimeout":
         case "responseTimeout": target.setResponseTimeout(property(camelContext, java.time.Duration.class, value)); return true;
         case "sslcontextparameters":
         case "sslContextParameters": target.setSslContextParameters(property(camelContext, org.apache.camel.support.jsse.SSLContextParameters.class, value)); return true;
         case "throwexceptiononfailure":
         case "throwExceptionOnFailure": target.setThrowExceptionOnFailure(property(camelContext, boolean.class, value)); return true;
+        case "tlsclientcachesize":
+        case "tlsClientCacheSize": target.setTlsClientCacheSize(property(camelContext, int.class, value)); return true;
+        case "tlsclientidletimeout":
+        case "tlsClientIdleTimeout": target.setTlsClientIdleTimeout(property(camelContext, java.time.Duration.class, value)); return true;
+        case "totalbandwidthlimit":
+        case "totalBandwidthLimit": target.setTotalBandwidthLimit(property(camelContext, long.class, value)); return true;
         case "useglobalsslcontextparameters":
         case "useGlobalSslContextParameters": target.setUseGlobalSslContextParameters(property(camelContext, boolean.class, value)); return true;
         case "usesystemproperties":
@@ -94,12 +106,24 @@ public class JdkHttpComponentConfigurer extends PropertyConfigurerSupport implem
         case "redirectPolicy": return java.net.http.HttpClient.Redirect.class;
         case "responsebodyasbytearray":
         case "responseBodyAsByteArray": return boolean.class;
+        case "responsememorybudget":
+        case "responseMemoryBudget": return long.class;
+        case "responsememorybudgetmaxwait":
+        case "responseMemoryBudgetMaxWait": return java.time.Duration.class;
+        case "responsememorybudgetpolicy":
+        case "responseMemoryBudgetPolicy": return abs.zer0.camel.jdk.http.JdkHttpMemoryBudgetPolicy.class;
         case "responsetimeout":
         case "responseTimeout": return java.time.Duration.class;
         case "sslcontextparameters":
         case "sslContextParameters": return org.apache.camel.support.jsse.SSLContextParameters.class;
         case "throwexceptiononfailure":
         case "throwExceptionOnFailure": return boolean.class;
+        case "tlsclientcachesize":
+        case "tlsClientCacheSize": return int.class;
+        case "tlsclientidletimeout":
+        case "tlsClientIdleTimeout": return java.time.Duration.class;
+        case "totalbandwidthlimit":
+        case "totalBandwidthLimit": return long.class;
         case "useglobalsslcontextparameters":
         case "useGlobalSslContextParameters": return boolean.class;
         case "usesystemproperties":
@@ -139,12 +163,24 @@ public class JdkHttpComponentConfigurer extends PropertyConfigurerSupport implem
         case "redirectPolicy": return target.getRedirectPolicy();
         case "responsebodyasbytearray":
         case "responseBodyAsByteArray": return target.isResponseBodyAsByteArray();
+        case "responsememorybudget":
+        case "responseMemoryBudget": return target.getResponseMemoryBudget();
+        case "responsememorybudgetmaxwait":
+        case "responseMemoryBudgetMaxWait": return target.getResponseMemoryBudgetMaxWait();
+        case "responsememorybudgetpolicy":
+        case "responseMemoryBudgetPolicy": return target.getResponseMemoryBudgetPolicy();
         case "responsetimeout":
         case "responseTimeout": return target.getResponseTimeout();
         case "sslcontextparameters":
         case "sslContextParameters": return target.getSslContextParameters();
         case "throwexceptiononfailure":
         case "throwExceptionOnFailure": return target.isThrowExceptionOnFailure();
+        case "tlsclientcachesize":
+        case "tlsClientCacheSize": return target.getTlsClientCacheSize();
+        case "tlsclientidletimeout":
+        case "tlsClientIdleTimeout": return target.getTlsClientIdleTimeout();
+        case "totalbandwidthlimit":
+        case "totalBandwidthLimit": return target.getTotalBandwidthLimit();
         case "useglobalsslcontextparameters":
         case "useGlobalSslContextParameters": return target.isUseGlobalSslContextParameters();
         case "usesystemproperties":
@@ -23,11 +23,65 @@ public class JdkHttpEndpointConfigurer extends PropertyConfigurerSupport impleme
     public boolean configure(CamelContext camelContext, Object obj, String name, Object value, boolean ignoreCase) {
         JdkHttpEndpoint target = (JdkHttpEndpoint) obj;
         switch (ignoreCase ? name.toLowerCase() : name) {
+        case "abandonedcheckinterval":
+        case "abandonedCheckInterval": target.setAbandonedCheckInterval(property(camelContext, java.time.Duration.class, value)); return true;
+        case "adaptiveconcurrency":
+        case "adaptiveConcurrency": target.setAdaptiveConcurrency(property(camelContext, boolean.class, value)); return true;
+        case "adaptiveconcurrencyminlimit":
+        case "adaptiveConcurrencyMinLimit": target.setAdaptiveConcurrencyMinLimit(property(camelContext, int.class, value)); return true;
+        case "adaptiveconcurrencyrtttolerance":
+        case "adaptiveConcurrencyRttTolerance": target.setAdaptiveConcurrencyRttTolerance(property(camelContext, double.class, value)); return true;
+        case "adaptivetimeout":
+        case "adaptiveTimeout": target.setAdaptiveTimeout(property(camelContext, boolean.class, value)); return true;
+        case "adaptivetimeoutceiling":
+        case "adaptiveTimeoutCeiling": target.setAdaptiveTimeoutCeiling(property(camelContext, java.time.Duration.class, value)); return true;
+        case "adaptivetimeoutfloor":
+        case "adaptiveTimeoutFloor": target.setAdaptiveTimeoutFloor(property(camelContext, java.time.Duration.class, value)); return true;
+        case "adaptivetimeoutmultiplier":
+        case "adaptiveTimeoutMultiplier": target.setAdaptiveTimeoutMultiplier(property(camelContext, double.class, value)); return true;
+        case "adaptivetimeoutpercentile":
+        case "adaptiveTimeoutPercentile": target.setAdaptiveTimeoutPercentile(property(camelContext, double.class, value)); return true;
+        case "adaptivetimeoutwindow":
+        case "adaptiveTimeoutWindow": target.setAdaptiveTimeoutWindow(property(camelContext, java.time.Duration.class, value)); return true;
         case "async": target.setAsync(property(camelContext, boolean.class, value)); return true;
+        case "bandwidthlimit":
+        case "bandwidthLimit": target.setBandwidthLimit(property(camelContext, long.class, value)); return true;
+        case "batchencoder":
+        case "batchEncoder": target.setBatchEncoder(property(camelContext, abs.zer0.camel.jdk.http.JdkHttpBatchEncoder.class, value)); return true;
+        case "batchlinger":
+        case "batchLinger": target.setBatchLinger(property(camelContext, java.time.Duration.class, value)); return true;
+        case "batchmaxbytes":
+        case "batchMaxBytes": target.setBatchMaxBytes(property(camelContext, long.class, value)); return true;
+        case "batchsize":
+        case "batchSize": target.setBatchSize(property(camelContext, int.class, value)); return true;
+        case "completionexecutorservice":
+        case "completionExecutorService": target.setCompletionExecutorService(property(camelContext, java.util.concurrent.ExecutorService.class, value)); return true;
+        case "completionthreadpoolprofile":
+        case "completionThreadPoolProfile": target.setCompletionThreadPoolProfile(property(camelContext, java.lang.String.class, value)); return true;
         case "connecttimeout":
         case "connectTimeout": target.setConnectTimeout(property(camelContext, java.time.Duration.class, value)); return true;
+        case "deadlineheader":
+        case "deadlineHeader": target.setDeadlineHeader(property(camelContext, java.lang.String.class, value)); return true;
+        case "deadlinepropagationheader":
+        case "deadlinePropagationHeader": target.setDeadlinePropagationHeader(property(camelContext, java.lang.String.class, value)); return true;
         case "disablestreamcache":
         case "disableStreamCache": target.setDisableStreamCache(property(camelContext, java.lang.Boolean.class, value)); return true;
+        case "downloaddirectory":
+        case "downloadDirectory": target.setDownloadDirectory(property(camelContext, java.lang.String.class, value)); return true;
+        case "downloadparallelism":
+        case "downloadParallelism": target.setDownloadParallelism(property(camelContext, int.class, value)); return true;
+        case "downloadresumeretries":
+        case "downloadResumeRetries": target.setDownloadResumeRetries(property(camelContext, int.class, value)); return true;
+        case "downloadsegmentretries":
+        case "downloadSegmentRetries": target.setDownloadSegmentRetries(property(camelContext, int.class, value)); return true;
+        case "downloadsegmentsize":
+        case "downloadSegmentSize": target.setDownloadSegmentSize(property(camelContext, long.class, value)); return true;
+        case "earliestdeadlinefirst":
+        case "earliestDeadlineFirst": target.setEarliestDeadlineFirst(property(camelContext, boolean.class, value)); return true;
+        case "errorbodymaxsize":
+        case "errorBodyMaxSize": target.setErrorBodyMaxSize(property(camelContext, int.class, value)); return true;
+        case "failuremode":
+        case "failureMode": target.setFailureMode(property(camelContext, abs.zer0.camel.jdk.http.JdkHttpFailureMode.class, value)); return true;
         case "headerfilterstrategy":
         case "headerFilterStrategy": target.setHeaderFilterStrategy(property(camelContext, org.apache.camel.spi.HeaderFilterStrategy.class, value)); return true;
         case "http2priority":
@@ -38,28 +92,91 @@ public class JdkHttpEndpointConfigurer extends PropertyConfigurerSupport impleme
         case "httpMethod": target.setHttpMethod(property(camelContext, java.lang.String.class, value)); return true;
         case "httpversion":
         case "httpVersion": target.setHttpVersion(property(camelContext, java.net.http.HttpClient.Version.class, value)); return true;
+        case "inflightoverflowpolicy":
+        case "inFlightOverflowPolicy": target.setInFlightOverflowPolicy(property(camelContext, abs.zer0.camel.jdk.http.JdkHttpOverflowPolicy.class, value)); return true;
+        case "inflightstoptimeout":
+        case "inFlightStopTimeout": target.setInFlightStopTimeout(property(camelContext, java.time.Duration.class, value)); return true;
+        case "keepwarminterval":
+        case "keepWarmInterval": target.setKeepWarmInterval(property(camelContext, java.time.Duration.class, value)); return true;
+        case "lazyresponseheaders":
+        case "lazyResponseHeaders": target.setLazyResponseHeaders(property(camelContext, boolean.class, value)); return true;
         case "lazystartproducer":
         case "lazyStartProducer": target.setLazyStartProducer(property(camelContext, boolean.class, value)); return true;
         case "maxconnections":
         case "maxConnections": target.setMaxConnections(property(camelContext, int.class, value)); return true;
+        case "maxinflight":
+        case "maxInFlight": target.setMaxInFlight(property(camelContext, int.class, value)); return true;
+        case "maxinflightqueuesize":
+        case "maxInFlightQueueSize": target.setMaxInFlightQueueSize(property(camelContext, int.class, value)); return true;
+        case "maxinflightwait":
+        case "maxInFlightWait": target.setMaxInFlightWait(property(camelContext, java.time.Duration.class, value)); return true;
+        case "maxresponsebodysize":
+        case "maxResponseBodySize": target.setMaxResponseBodySize(property(camelContext, long.class, value)); return true;
         case "okstatuscoderanges":
         case "okStatusCodeRanges": target.setOkStatusCodeRanges(property(camelContext, java.lang.String.class, value)); return true;
+        case "phasetimings":
+        case "phaseTimings": target.setPhaseTimings(property(camelContext, boolean.class, value)); return true;
+        case "priority": target.setPriority(property(camelContext, abs.zer0.camel.jdk.http.JdkHttpPriority.class, value)); return true;
+        case "priorityweights":
+        case "priorityWeights": target.setPriorityWeights(property(camelContext, java.lang.String.class, value)); return true;
         case "proxyhost":
         case "proxyHost": target.setProxyHost(property(camelContext, java.lang.String.class, value)); return true;
         case "proxyport":
         case "proxyPort": target.setProxyPort(property(camelContext, java.lang.Integer.class, value)); return true;
+        case "rangeddownload":
+        case "rangedDownload": target.setRangedDownload(property(camelContext, boolean.class, value)); return true;
+        case "ratelimit":
+        case "rateLimit": target.setRateLimit(property(camelContext, double.class, value)); return true;
+        case "ratelimitburst":
+        case "rateLimitBurst": target.setRateLimitBurst(property(camelContext, int.class, value)); return true;
+        case "ratelimitkey":
+        case "rateLimitKey": target.setRateLimitKey(property(camelContext, abs.zer0.camel.jdk.http.JdkHttpRateLimitKey.class, value)); return true;
+        case "ratelimitmaxwait":
+        case "rateLimitMaxWait": target.setRateLimitMaxWait(property(camelContext, java.time.Duration.class, value)); return true;
         case "redirectpolicy":
         case "redirectPolicy": target.setRedirectPolicy(property(camelContext, java.net.http.HttpClient.Redirect.class, value)); return true;
         case "responsebodyasbytearray":
         case "responseBodyAsByteArray": target.setResponseBodyAsByteArray(property(camelContext, java.lang.Boolean.class, value)); return true;
+        case "responsesizepolicy":
+        case "responseSizePolicy": target.setResponseSizePolicy(property(camelContext, abs.zer0.camel.jdk.http.JdkHttpResponseSizePolicy.class, value)); return true;
         case "responsetimeout":
         case "responseTimeout": target.setResponseTimeout(property(camelContext, java.time.Duration.class, value)); return true;
+        case "resumabledownload":
+        case "resumableDownload": target.setResumableDownload(property(camelContext, boolean.class, value)); return true;
+        case "slowrequestsampleinterval":
+        case "slowRequestSampleInterval": target.setSlowRequestSampleInterval(property(camelContext, java.time.Duration.class, value)); return true;
+        case "slowrequestsamplelimit":
+        case "slowRequestSampleLimit": target.setSlowRequestSampleLimit(property(camelContext, int.class, value)); return true;
+        case "slowrequestthreshold":
+        case "slowRequestThreshold": target.setSlowRequestThreshold(property(camelContext, java.time.Duration.class, value)); return true;
         case "sslcontextparameters":
         case "sslContextParameters": target.setSslContextParameters(property(camelContext, org.apache.camel.support.jsse.SSLContextParameters.class, value)); return true;
+        case "streamingbodydelimiter":
+        case "streamingBodyDelimiter": target.setStreamingBodyDelimiter(property(camelContext, java.lang.String.class, value)); return true;
+        case "streamingupload":
+        case "streamingUpload": target.setStreamingUpload(property(camelContext, boolean.class, value)); return true;
+        case "streaminguploadbuffersize":
+        case "streamingUploadBufferSize": target.setStreamingUploadBufferSize(property(camelContext, int.class, value)); return true;
+        case "streaminguploadmaxage":
+        case "streamingUploadMaxAge": target.setStreamingUploadMaxAge(property(camelContext, java.time.Duration.class, value)); return true;
+        case "streaminguploadmaxbytes":
+        case "streamingUploadMaxBytes": target.setStreamingUploadMaxBytes(property(camelContext, long.class, value)); return true;
+        case "streaminguploadmaxwait":
+        case "streamingUploadMaxWait": target.setStreamingUploadMaxWait(property(camelContext, java.time.Duration.class, value)); return true;
         case "throwexceptiononfailure":
         case "throwExceptionOnFailure": target.setThrowExceptionOnFailure(property(camelContext, java.lang.Boolean.class, value)); return true;
+        case "timeoutbudget":
+        case "timeoutBudget": target.setTimeoutBudget(property(camelContext, java.time.Duration.class, value)); return true;
         case "usesystemproperties":
         case "useSystemProperties": target.setUseSystemProperties(property(camelContext, boolean.class, value)); return true;
+        case "warmupconnections":
+        case "warmUpConnections": target.setWarmUpConnections(property(camelContext, int.class, value)); return true;
+        case "warmupmethod":
+        case "warmUpMethod": target.setWarmUpMethod(property(camelContext, java.lang.String.class, value)); return true;
+        case "warmuprequest":
+        case "warmUpRequest": target.setWarmUpRequest(property(camelContext, java.net.http.HttpRequest.class, value)); return true;
+        case "warmuptimeout":
+        case "warmUpTimeout": target.setWarmUpTimeout(property(camelContext, java.time.Duration.class, value)); return true;
         default: return false;
         }
     }
@@ -67,11 +184,65 @@ public class JdkHttpEndpointConfigurer extends PropertyConfigurerSupport impleme
     @Override
     public Class<?> getOptionType(String name, boolean ignoreCase) {
         switch (ignoreCase ? name.toLowerCase() : name) {
+        case "abandonedcheckinterval":
+        case "abandonedCheckInterval": return java.time.Duration.class;
+        case "adaptiveconcurrency":
+        case "adaptiveConcurrency": return boolean.class;
+        case "adaptiveconcurrencyminlimit":
+        case "adaptiveConcurrencyMinLimit": return int.class;
+        case "adaptiveconcurrencyrtttolerance":
+        case "adaptiveConcurrencyRttTolerance": return double.class;
+        case "adaptivetimeout":
+        case "adaptiveTimeout": return boolean.class;
+        case "adaptivetimeoutceiling":
+        case "adaptiveTimeoutCeiling": return java.time.Duration.class;
+        case "adaptivetimeoutfloor":
+        case "adaptiveTimeoutFloor": return java.time.Duration.class;
+        case "adaptivetimeoutmultiplier":
+        case "adaptiveTimeoutMultiplier": return double.class;
+        case "adaptivetimeoutpercentile":
+        case "adaptiveTimeoutPercentile": return double.class;
+        case "adaptivetimeoutwindow":
+        case "adaptiveTimeoutWindow": return java.time.Duration.class;
         case "async": return boolean.class;
+        case "bandwidthlimit":
+        case "bandwidthLimit": return long.class;
+        case "batchencoder":
+        case "batchEncoder": return abs.zer0.camel.jdk.http.JdkHttpBatchEncoder.class;
+        case "batchlinger":
+        case "batchLinger": return java.time.Duration.class;
+        case "batchmaxbytes":
+        case "batchMaxBytes": return long.class;
+        case "batchsize":
+        case "batchSize": return int.class;
+        case "completionexecutorservice":
+        case "completionExecutorService": return java.util.concurrent.ExecutorService.class;
+        case "completionthreadpoolprofile":
+        case "completionThreadPoolProfile": return java.lang.String.class;
         case "connecttimeout":
         case "connectTimeout": return java.time.Duration.class;
+        case "deadlineheader":
+        case "deadlineHeader": return java.lang.String.class;
+        case "deadlinepropagationheader":
+        case "deadlinePropagationHeader": return java.lang.String.class;
         case "disablestreamcache":
         case "disableStreamCache": return java.lang.Boolean.class;
+        case "downloaddirectory":
+        case "downloadDirectory": return java.lang.String.class;
+        case "downloadparallelism":
+        case "downloadParallelism": return int.class;
+        case "downloadresumeretries":
+        case "downloadResumeRetries": return int.class;
+        case "downloadsegmentretries":
+        case "downloadSegmentRetries": return int.class;
+        case "downloadsegmentsize":
+        case "downloadSegmentSize": return long.class;
+        case "earliestdeadlinefirst":
+        case "earliestDeadlineFirst": return boolean.class;
+        case "errorbodymaxsize":
+        case "errorBodyMaxSize": return int.class;
+        case "failuremode":
+        case "failureMode": return abs.zer0.camel.jdk.http.JdkHttpFailureMode.class;
         case "headerfilterstrategy":
         case "headerFilterStrategy": return org.apache.camel.spi.HeaderFilterStrategy.class;
         case "http2priority":
@@ -82,28 +253,91 @@ public class JdkHttpEndpointConfigurer extends PropertyConfigurerSupport impleme
         case "httpMethod": return java.lang.String.class;
         case "httpversion":
         case "httpVersion": return java.net.http.HttpClient.Version.class;
+        case "inflightoverflowpolicy":
+        case "inFlightOverflowPolicy": return abs.zer0.camel.jdk.http.JdkHttpOverflowPolicy.class;
+        case "inflightstoptimeout":
+        case "inFlightStopTimeout": return java.time.Duration.class;
+        case "keepwarminterval":
+        case "keepWarmInterval": return java.time.Duration.class;
+        case "lazyresponseheaders":
+        case "lazyResponseHeaders": return boolean.class;
         case "lazystartproducer":
         case "lazyStartProducer": return boolean.class;
         case "maxconnections":
         case "maxConnections": return int.class;
+        case "maxinflight":
+        case "maxInFlight": return int.class;
+        case "maxinflightqueuesize":
+        case "maxInFlightQueueSize": return int.class;
+        case "maxinflightwait":
+        case "maxInFlightWait": return java.time.Duration.class;
+        case "maxresponsebodysize":
+        case "maxResponseBodySize": return long.class;
         case "okstatuscoderanges":
         case "okStatusCodeRanges": return java.lang.String.class;
+        case "phasetimings":
+        case "phaseTimings": return boolean.class;
+        case "priority": return abs.zer0.camel.jdk.http.JdkHttpPriority.class;
+        case "priorityweights":
+        case "priorityWeights": return java.lang.String.class;
         case "proxyhost":
         case "proxyHost": return java.lang.String.class;
         case "proxyport":
         case "proxyPort": return java.lang.Integer.class;
+        case "rangeddownload":
+        case "rangedDownload": return boolean.class;
+        case "ratelimit":
+        case "rateLimit": return double.class;
+        case "ratelimitburst":
+        case "rateLimitBurst": return int.class;
+        case "ratelimitkey":
+        case "rateLimitKey": return abs.zer0.camel.jdk.http.JdkHttpRateLimitKey.class;
+        case "ratelimitmaxwait":
+        case "rateLimitMaxWait": return java.time.Duration.class;
         case "redirectpolicy":
         case "redirectPolicy": return java.net.http.HttpClient.Redirect.class;
         case "responsebodyasbytearray":
         case "responseBodyAsByteArray": return java.lang.Boolean.class;
+        case "responsesizepolicy":
+        case "responseSizePolicy": return abs.zer0.camel.jdk.http.JdkHttpResponseSizePolicy.class;
         case "responsetimeout":
         case "responseTimeout": return java.time.Duration.class;
+        case "resumabledownload":
+        case "resumableDownload": return boolean.class;
+        case "slowrequestsampleinterval":
+        case "slowRequestSampleInterval": return java.time.Duration.class;
+        case "slowrequestsamplelimit":
+        case "slowRequestSampleLimit": return int.class;
+        case "slowrequestthreshold":
+        case "slowRequestThreshold": return java.time.Duration.class;
         case "sslcontextparameters":
         case "sslContextParameters": return org.apache.camel.support.jsse.SSLContextParameters.class;
+        case "streamingbodydelimiter":
+        case "streamingBodyDelimiter": return java.lang.String.class;
+        case "streamingupload":
+        case "streamingUpload": return boolean.class;
+        case "streaminguploadbuffersize":
+        case "streamingUploadBufferSize": return int.class;
+        case "streaminguploadmaxage":
+        case "streamingUploadMaxAge": return java.time.Duration.class;
+        case "streaminguploadmaxbytes":
+        case "streamingUploadMaxBytes": return long.class;
+        case "streaminguploadmaxwait":
+        case "streamingUploadMaxWait": return java.time.Duration.class;
         case "throwexceptiononfailure":
         case "throwExceptionOnFailure": return java.lang.Boolean.class;
+        case "timeoutbudget":
+        case "timeoutBudget": return java.time.Duration.class;
         case "usesystemproperties":
         case "useSystemProperties": return boolean.class;
+        case "warmupconnections":
+        case "warmUpConnections": return int.class;
+        case "warmupmethod":
+        case "warmUpMethod": return java.lang.String.class;
+        case "warmuprequest":
+        case "warmUpRequest": return java.net.http.HttpRequest.class;
+        case "warmuptimeout":
+        case "warmUpTimeout": return java.time.Duration.class;
         default: return null;
         }
     }
@@ -112,11 +346,65 @@ public class JdkHttpEndpointConfigurer extends PropertyConfigurerSupport impleme
     public Object getOptionValue(Object obj, String name, boolean ignoreCase) {
         JdkHttpEndpoint target = (JdkHttpEndpoint) obj;
         switch (ignoreCase ? name.toLowerCase() : name) {
+        case "abandonedcheckinterval":
+        case "abandonedCheckInterval": return target.getAbandonedCheckInterval();
+        case "adaptiveconcurrency":
+        case "adaptiveConcurrency": return target.isAdaptiveConcurrency();
+        case "adaptiveconcurrencyminlimit":
+        case "adaptiveConcurrencyMinLimit": return target.getAdaptiveConcurrencyMinLimit();
+        case "adaptiveconcurrencyrtttolerance":
+        case "adaptiveConcurrencyRttTolerance": return target.getAdaptiveConcurrencyRttTolerance();
+        case "adaptivetimeout":
+        case "adaptiveTimeout": return target.isAdaptiveTimeout();
+        case "adaptivetimeoutceiling":
+        case "adaptiveTimeoutCeiling": return target.getAdaptiveTimeoutCeiling();
+        case "adaptivetimeoutfloor":
+        case "adaptiveTimeoutFloor": return target.getAdaptiveTimeoutFloor();
+        case "adaptivetimeoutmultiplier":
+        case "adaptiveTimeoutMultiplier": return target.getAdaptiveTimeoutMultiplier();
+        case "adaptivetimeoutpercentile":
+        case "adaptiveTimeoutPercentile": return target.getAdaptiveTimeoutPercentile();
+        case "adaptivetimeoutwindow":
+        case "adaptiveTimeoutWindow": return target.getAdaptiveTimeoutWindow();
         case "async": return target.isAsync();
+        case "bandwidthlimit":
+        case "bandwidthLimit": return target.getBandwidthLimit();
+        case "batchencoder":
+        case "batchEncoder": return target.getBatchEncoder();
+        case "batchlinger":
+        case "batchLinger": return target.getBatchLinger();
+        case "batchmaxbytes":
+        case "batchMaxBytes": return target.getBatchMaxBytes();
+        case "batchsize":
+        case "batchSize": return target.getBatchSize();
+        case "completionexecutorservice":
+        case "completionExecutorService": return target.getCompletionExecutorService();
+        case "completionthreadpoolprofile":
+        case "completionThreadPoolProfile": return target.getCompletionThreadPoolProfile();
         case "connecttimeout":
         case "connectTimeout": return target.getConnectTimeout();
+        case "deadlineheader":
+        case "deadlineHeader": return target.getDeadlineHeader();
+        case "deadlinepropagationheader":
+        case "deadlinePropagationHeader": return target.getDeadlinePropagationHeader();
         case "disablestreamcache":
         case "disableStreamCache": return target.getDisableStreamCache();
+        case "downloaddirectory":
+        case "downloadDirectory": return target.getDownloadDirectory();
+        case "downloadparallelism":
+        case "downloadParallelism": return target.getDownloadParallelism();
+        case "downloadresumeretries":
+        case "downloadResumeRetries": return target.getDownloadResumeRetries();
+        case "downloadsegmentretries":
+        case "downloadSegmentRetries": return target.getDownloadSegmentRetries();
+        case "downloadsegmentsize":
+        case "downloadSegmentSize": return target.getDownloadSegmentSize();
+        case "earliestdeadlinefirst":
+        case "earliestDeadlineFirst": return target.isEarliestDeadlineFirst();
+        case "errorbodymaxsize":
+        case "errorBodyMaxSize": return target.getErrorBodyMaxSize();
+        case "failuremode":
+        case "failureMode": return target.getFailureMode();
         case "headerfilterstrategy":
         case "headerFilterStrategy": return target.getHeaderFilterStrategy();
         case "http2priority":
@@ -127,28 +415,91 @@ public class JdkHttpEndpointConfigurer extends PropertyConfigurerSupport impleme
         case "httpMethod": return target.getHttpMethod();
         case "httpversion":
         case "httpVersion": return target.getHttpVersion();
+        case "inflightoverflowpolicy":
+        case "inFlightOverflowPolicy": return target.getInFlightOverflowPolicy();
+        case "inflightstoptimeout":
+        case "inFlightStopTimeout": return target.getInFlightStopTimeout();
+        case "keepwarminterval":
+        case "keepWarmInterval": return target.getKeepWarmInterval();
+        case "lazyresponseheaders":
+        case "lazyResponseHeaders": return target.isLazyResponseHeaders();
         case "lazystartproducer":
         case "lazyStartProducer": return target.isLazyStartProducer();
         case "maxconnections":
         case "maxConnections": return target.getMaxConnections();
+        case "maxinflight":
+        case "maxInFlight": return target.getMaxInFlight();
+        case "maxinflightqueuesize":
+        case "maxInFlightQueueSize": return target.getMaxInFlightQueueSize();
+        case "maxinflightwait":
+        case "maxInFlightWait": return target.getMaxInFlightWait();
+        case "maxresponsebodysize":
+        case "maxResponseBodySize": return target.getMaxResponseBodySize();
         case "okstatuscoderanges":
         case "okStatusCodeRanges": return target.getOkStatusCodeRanges();
+        case "phasetimings":
+        case "phaseTimings": return target.isPhaseTimings();
+        case "priority": return target.getPriority();
+        case "priorityweights":
+        case "priorityWeights": return target.getPriorityWeights();
         case "proxyhost":
         case "proxyHost": return target.getProxyHost();
         case "proxyport":
         case "proxyPort": return target.getProxyPort();
+        case "rangeddownload":
+        case "rangedDownload": return target.isRangedDownload();
+        case "ratelimit":
+        case "rateLimit": return target.getRateLimit();
+        case "ratelimitburst":
+        case "rateLimitBurst": return target.getRateLimitBurst();
+        case "ratelimitkey":
+        case "rateLimitKey": return target.getRateLimitKey();
+        case "ratelimitmaxwait":
+        case "rateLimitMaxWait": return target.getRateLimitMaxWait();
         case "redirectpolicy":
         case "redirectPolicy": return target.getRedirectPolicy();
         case "responsebodyasbytearray":
         case "responseBodyAsByteArray": return target.getResponseBodyAsByteArray();
+        case "responsesizepolicy":
+        case "responseSizePolicy": return target.getResponseSizePolicy();
         case "responsetimeout":
         case "responseTimeout": return target.getResponseTimeout();
+        case "resumabledownload":
+        case "resumableDownload": return target.isResumableDownload();
+        case "slowrequestsampleinterval":
+        case "slowRequestSampleInterval": return target.getSlowRequestSampleInterval();
+        case "slowrequestsamplelimit":
+        case "slowRequestSampleLimit": return target.getSlowRequestSampleLimit();
+        case "slowrequestthreshold":
+        case "slowRequestThreshold": return target.getSlowRequestThreshold();
         case "sslcontextparameters":
         case "sslContextParameters": return target.getSslContextParameters();
+        case "streamingbodydelimiter":
+        case "streamingBodyDelimiter": return target.getStreamingBodyDelimiter();
+        case "streamingupload":
+        case "streamingUpload": return target.isStreamingUpload();
+        case "streaminguploadbuffersize":
+        case "streamingUploadBufferSize": return target.getStreamingUploadBufferSize();
+        case "streaminguploadmaxage":
+        case "streamingUploadMaxAge": return target.getStreamingUploadMaxAge();
+        case "streaminguploadmaxbytes":
+        case "streamingUploadMaxBytes": return target.getStreamingUploadMaxBytes();
+        case "streaminguploadmaxwait":
+        case "streamingUploadMaxWait": return target.getStreamingUploadMaxWait();
         case "throwexceptiononfailure":
         case "throwExceptionOnFailure": return target.getThrowExceptionOnFailure();
+        case "timeoutbudget":
+        case "timeoutBudget": return target.getTimeoutBudget();
         case "usesystemproperties":
         case "useSystemProperties": return target.isUseSystemProperties();
+        case "warmupconnections":
+        case "warmUpConnections": return target.getWarmUpConnections();
+        case "warmupmethod":
+        case "warmUpMethod": return target.getWarmUpMethod();
+        case "warmuprequest":
+        case "warmUpRequest": return target.getWarmUpRequest();
+        case "warmuptimeout":
+        case "warmUpTimeout": return target.getWarmUpTimeout();
         default: return null;
         }
     }
@@ -23,27 +23,86 @@ public class JdkHttpEndpointUriFactory extends org.apache.camel.support.componen
     private static final Set<String> SECRET_PROPERTY_NAMES;
     private static final Set<String> MULTI_VALUE_PREFIXES;
     static {
-        Set<String> props = new HashSet<>(20);
+        Set<String> props = new HashSet<>(79);
+        props.add("abandonedCheckInterval");
+        props.add("adaptiveConcurrency");
+        props.add("adaptiveConcurrencyMinLimit");
+        props.add("adaptiveConcurrencyRttTolerance");
+        props.add("adaptiveTimeout");
+        props.add("adaptiveTimeoutCeiling");
+        props.add("adaptiveTimeoutFloor");
+        props.add("adaptiveTimeoutMultiplier");
+        props.add("adaptiveTimeoutPercentile");
+        props.add("adaptiveTimeoutWindow");
         props.add("async");
+        props.add("bandwidthLimit");
+        props.add("batchEncoder");
+        props.add("batchLinger");
+        props.add("batchMaxBytes");
+        props.add("batchSize");
+        props.add("completionExecutorService");
+        props.add("completionThreadPoolProfile");
         props.add("connectTimeout");
+        props.add("deadlineHeader");
+        props.add("deadlinePropagationHeader");
         props.add("disableStreamCache");
+        props.add("downloadDirectory");
+        props.add("downloadParallelism");
+        props.add("downloadResumeRetries");
+        props.add("downloadSegmentRetries");
+        props.add("downloadSegmentSize");
+        props.add("earliestDeadlineFirst");
+        props.add("errorBodyMaxSize");
+        props.add("failureMode");
         props.add("headerFilterStrategy");
         props.add("http2Priority");
         props.add("httpClient");
         props.add("httpMethod");
         props.add("httpUri");
         props.add("httpVersion");
+        props.add("inFlightOverflowPolicy");
+        props.add("inFlightStopTimeout");
+        props.add("keepWarmInterval");
+        props.add("lazyResponseHeaders");
         props.add("lazyStartProducer");
         props.add("maxConnections");
+        props.add("maxInFlight");
+        props.add("maxInFlightQueueSize");
+        props.add("maxInFlightWait");
+        props.add("maxResponseBodySize");
         props.add("okStatusCodeRanges");
+        props.add("phaseTimings");
+        props.add("priority");
+        props.add("priorityWeights");
         props.add("proxyHost");
         props.add("proxyPort");
+        props.add("rangedDownload");
+        props.add("rateLimit");
+        props.add("rateLimitBurst");
+        props.add("rateLimitKey");
+        props.add("rateLimitMaxWait");
         props.add("redirectPolicy");
         props.add("responseBodyAsByteArray");
+        props.add("responseSizePolicy");
         props.add("responseTimeout");
+        props.add("resumableDownload");
+        props.add("slowRequestSampleInterval");
+        props.add("slowRequestSampleLimit");
+        props.add("slowRequestThreshold");
         props.add("sslContextParameters");
+        props.add("streamingBodyDelimiter");
+        props.add("streamingUpload");
+        props.add("streamingUploadBufferSize");
+        props.add("streamingUploadMaxAge");
+        props.add("streamingUploadMaxBytes");
+        props.add("streamingUploadMaxWait");
         props.add("throwExceptionOnFailure");
+        props.add("timeoutBudget");
         props.add("useSystemProperties");
+        props.add("warmUpConnections");
+        props.add("warmUpMethod");
+        props.add("warmUpRequest");
+        props.add("warmUpTimeout");
         PROPERTY_NAMES = Collections.unmodifiableSet(props);
         SECRET_PROPERTY_NAMES = Collections.emptySet();
         MULTI_VALUE_PREFIXES = Collections.emptySet();
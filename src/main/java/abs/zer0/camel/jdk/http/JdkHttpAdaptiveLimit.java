@@ -0,0 +1,120 @@
+package abs.zer0.camel.jdk.http;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Estimates the concurrency an upstream can handle from the round-trip times and failures of its requests.
+ * <br/>
+ * The limit follows an AIMD scheme driven by a latency gradient:
+ * while the round-trip time stays within the tolerance of the minimum round-trip time and the limit is used,
+ * the limit grows additively by about one per window of requests.
+ * When the round-trip time exceeds the tolerance, or a request fails, times out or is throttled by the upstream,
+ * the limit shrinks multiplicatively, at most once per round-trip time.
+ * The minimum round-trip time is re-measured periodically, so the limit adapts when the upstream changes.
+ *
+ * @see JdkHttpInFlightLimiter
+ */
+public class JdkHttpAdaptiveLimit {
+
+    private static final int INITIAL_LIMIT = 20;
+    private static final double DROP_BACKOFF = 0.7;
+    private static final double LATENCY_BACKOFF = 0.9;
+    private static final long MIN_RTT_RESET_NANOS = TimeUnit.SECONDS.toNanos(30);
+    private static final double SMOOTHING = 0.2;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double rttTolerance;
+
+    private double estimate;
+    private long minRttNanos = Long.MAX_VALUE;
+    private long minRttResetNanos = System.nanoTime() + MIN_RTT_RESET_NANOS;
+    private double smoothedRttNanos;
+    private long lastDecreaseNanos;
+
+    /**
+     * Creates a new adaptive limit.
+     *
+     * @param minLimit     the lowest limit. Must be greater than 0.
+     * @param maxLimit     the highest limit. Must not be less than the lowest limit.
+     * @param rttTolerance the ratio of the round-trip time to the minimum round-trip time above which the upstream is considered congested.
+     *                     Must be greater than 1.
+     */
+    public JdkHttpAdaptiveLimit(int minLimit, int maxLimit, double rttTolerance) {
+        if (minLimit < 1) {
+            throw new IllegalArgumentException("Minimum adaptive limit cannot be less than 1");
+        }
+        if (maxLimit < minLimit) {
+            throw new IllegalArgumentException("Maximum adaptive limit cannot be less than the minimum limit");
+        }
+        if (rttTolerance <= 1) {
+            throw new IllegalArgumentException("Adaptive limit RTT tolerance must be greater than 1");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.rttTolerance = rttTolerance;
+        this.estimate = Math.max(minLimit, Math.min(maxLimit, INITIAL_LIMIT));
+    }
+
+    public int getMinLimit() {
+        return minLimit;
+    }
+
+    public int getMaxLimit() {
+        return maxLimit;
+    }
+
+    public double getRttTolerance() {
+        return rttTolerance;
+    }
+
+    /**
+     * Updates the limit with the outcome of a request.
+     *
+     * @param rttNanos the round-trip time of the request in nanoseconds.
+     * @param dropped  whether the request failed, timed out or was throttled by the upstream.
+     * @param inFlight the number of requests in flight when the request completed.
+     * @return the new limit.
+     */
+    public synchronized int update(long rttNanos, boolean dropped, int inFlight) {
+        final long now = System.nanoTime();
+        smoothedRttNanos = smoothedRttNanos == 0 ? rttNanos : smoothedRttNanos + SMOOTHING * (rttNanos - smoothedRttNanos);
+
+        if (dropped) {
+            decrease(now, DROP_BACKOFF);
+            return getLimit();
+        }
+
+        if (now - minRttResetNanos > 0) {
+            minRttNanos = Long.MAX_VALUE;
+            minRttResetNanos = now + MIN_RTT_RESET_NANOS;
+        }
+        minRttNanos = Math.min(minRttNanos, rttNanos);
+
+        if (rttNanos > minRttNanos * rttTolerance) {
+            decrease(now, LATENCY_BACKOFF);
+        } else if (inFlight * 2 >= estimate) {
+            estimate = Math.min(maxLimit, estimate + 1 / estimate);
+        }
+
+        return getLimit();
+    }
+
+    public synchronized int getLimit() {
+        return (int) estimate;
+    }
+
+    public synchronized long getMinRtt() {
+        return minRttNanos == Long.MAX_VALUE ? 0 : TimeUnit.NANOSECONDS.toMillis(minRttNanos);
+    }
+
+
+    private void decrease(long now, double backoff) {
+        if (now - lastDecreaseNanos < smoothedRttNanos) {
+            return;
+        }
+        lastDecreaseNanos = now;
+        estimate = Math.max(minLimit, estimate * backoff);
+    }
+
+}
@@ -0,0 +1,110 @@
+package abs.zer0.camel.jdk.http;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Derives the response timeout of an endpoint from the latencies it observes.
+ * <br/>
+ * The time to receive the response headers of every request is recorded in a {@link JdkHttpLatencyHistogram}.
+ * The timeout is the given percentile of the recent latencies times the multiplier, clamped between the floor and the ceiling.
+ * A timed out request is recorded with its timeout as latency, so the timeout grows again when the upstream slows down,
+ * unless its timeout was capped by the deadline of its exchange, see {@link JdkHttpBinding#onResponseTimeout}.
+ * While there are not enough samples within the window, the last timeout is kept, which is the ceiling before the first estimate.
+ * <br/>
+ * The timeout is recomputed at most every {@value #REFRESH_MILLIS} milliseconds, so reading it is cheap.
+ */
+public class JdkHttpAdaptiveTimeout {
+
+    private static final int MIN_SAMPLES = 10;
+    private static final long REFRESH_MILLIS = 100;
+
+    private final JdkHttpLatencyHistogram histogram;
+    private final double percentile;
+    private final double multiplier;
+    private final long floorNanos;
+    private final long ceilingNanos;
+
+    private volatile long timeoutNanos;
+    private volatile long refreshNanos = System.nanoTime();
+
+    /**
+     * Creates a new adaptive timeout.
+     *
+     * @param window     the time window of the latencies. Must not be {@code null}.
+     * @param percentile the percentile of the latencies, between 0 exclusive and 100 inclusive.
+     * @param multiplier the multiplier of the percentile. Must not be less than 1.
+     * @param floor      the lowest timeout. Must not be {@code null}.
+     * @param ceiling    the highest timeout. Must not be {@code null} and must not be less than the floor.
+     */
+    public JdkHttpAdaptiveTimeout(Duration window, double percentile, double multiplier, Duration floor, Duration ceiling) {
+        if (percentile <= 0 || percentile > 100) {
+            throw new IllegalArgumentException("Adaptive timeout percentile must be greater than 0 and not greater than 100");
+        }
+        if (multiplier < 1) {
+            throw new IllegalArgumentException("Adaptive timeout multiplier cannot be less than 1");
+        }
+        Objects.requireNonNull(floor, "Adaptive timeout floor cannot be null");
+        Objects.requireNonNull(ceiling, "Adaptive timeout ceiling cannot be null");
+        if (ceiling.compareTo(floor) < 0) {
+            throw new IllegalArgumentException("Adaptive timeout ceiling cannot be less than the floor");
+        }
+        this.histogram = new JdkHttpLatencyHistogram(window);
+        this.percentile = percentile;
+        this.multiplier = multiplier;
+        this.floorNanos = floor.toNanos();
+        this.ceilingNanos = ceiling.toNanos();
+        this.timeoutNanos = ceilingNanos;
+    }
+
+    /**
+     * Records the time to receive the response headers of a request.
+     *
+     * @param latencyNanos the latency in nanoseconds.
+     */
+    public void record(long latencyNanos) {
+        histogram.record(latencyNanos);
+    }
+
+    /**
+     * Records a request which timed out.
+     *
+     * @param timeout the timeout of the request, or {@code null} if unknown.
+     */
+    public void recordTimeout(Duration timeout) {
+        histogram.record(timeout != null ? timeout.toNanos() : getTimeout().toNanos());
+    }
+
+    /**
+     * Gets the current timeout.
+     *
+     * @return the {@link Duration} timeout.
+     */
+    public Duration getTimeout() {
+        final long now = System.nanoTime();
+        if (now - refreshNanos >= 0) {
+            refreshNanos = now + TimeUnit.MILLISECONDS.toNanos(REFRESH_MILLIS);
+            timeoutNanos = computeTimeoutNanos();
+        }
+
+        return Duration.ofNanos(timeoutNanos);
+    }
+
+    public JdkHttpLatencyHistogram getHistogram() {
+        return histogram;
+    }
+
+
+    private long computeTimeoutNanos() {
+        if (histogram.getCount() < MIN_SAMPLES) {
+            return timeoutNanos;
+        }
+
+        final long latencyNanos = histogram.getValueAtPercentile(percentile);
+        final double scaled = latencyNanos * multiplier;
+
+        return (long) Math.max(floorNanos, Math.min(ceilingNanos, scaled));
+    }
+
+}
@@ -3,38 +3,162 @@ package abs.zer0.camel.jdk.http;
 import org.apache.camel.AsyncCallback;
 import org.apache.camel.CamelExchangeException;
 import org.apache.camel.Exchange;
+import org.apache.camel.spi.Synchronization;
 import org.apache.camel.support.DefaultAsyncProducer;
 import org.apache.camel.support.SynchronizationAdapter;
+import org.apache.camel.support.UnitOfWorkHelper;
 import org.apache.camel.util.IOHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.Closeable;
-import java.io.InputStream;
+import java.io.IOException;
 import java.net.URISyntaxException;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-import java.util.function.BiFunction;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 public class JdkHttpAsyncProducer extends DefaultAsyncProducer {
 
-    private final HttpClient httpClient;
+    private static final Logger LOG = LoggerFactory.getLogger(JdkHttpAsyncProducer.class);
+
     private final JdkHttpBinding httpBinding;
+    private final Map<Exchange, CompletableFuture<?>> inFlightRequests = new ConcurrentHashMap<>();
+    private JdkHttpBatcher batcher;
+    private ScheduledFuture<?> abandonedCheckFuture;
 
-    public JdkHttpAsyncProducer(JdkHttpEndpoint endpoint, HttpClient httpClient, JdkHttpBinding httpBinding) {
+    public JdkHttpAsyncProducer(JdkHttpEndpoint endpoint, JdkHttpBinding httpBinding) {
         super(endpoint);
-        this.httpClient = Objects.requireNonNull(httpClient, "HTTP client cannot be null");
         this.httpBinding = Objects.requireNonNull(httpBinding, "JdkHttpBinding cannot be null");
     }
 
+    @Override
+    public JdkHttpEndpoint getEndpoint() {
+        return (JdkHttpEndpoint) super.getEndpoint();
+    }
+
+    @Override
+    protected void doStart() throws Exception {
+        super.doStart();
+
+        if (getEndpoint().getBatchSize() > 0) {
+            batcher = new JdkHttpBatcher(getEndpoint().getBatchEncoder(), getEndpoint().getBatchSize(),
+                    getEndpoint().getBatchMaxBytes(), getEndpoint().getBatchLinger(),
+                    getEndpoint().getComponent().getScheduledExecutorService(), httpBinding::getRequestShapingHeaders, this::sendBatch);
+        }
+
+        final Duration abandonedCheckInterval = getEndpoint().getAbandonedCheckInterval();
+        if (!abandonedCheckInterval.isZero()) {
+            abandonedCheckFuture = getEndpoint().getComponent().getScheduledExecutorService().scheduleWithFixedDelay(
+                    this::cancelAbandonedRequests,
+                    abandonedCheckInterval.toNanos(), abandonedCheckInterval.toNanos(), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    protected void doStop() throws Exception {
+        if (batcher != null) {
+            // closed before the final flush, so an exchange added concurrently is sent on its own instead of being left in the batcher
+            batcher.close();
+            batcher = null;
+        }
+        if (abandonedCheckFuture != null) {
+            abandonedCheckFuture.cancel(false);
+            abandonedCheckFuture = null;
+        }
+
+        // the ShutdownStrategy already waits for the inflight exchanges of the routes, so by default nothing is awaited here
+        final Duration stopTimeout = getEndpoint().getInFlightStopTimeout();
+        if (!stopTimeout.isZero() && !inFlightRequests.isEmpty()) {
+            try {
+                CompletableFuture.allOf(inFlightRequests.values().toArray(CompletableFuture[]::new))
+                        .get(stopTimeout.toNanos(), TimeUnit.NANOSECONDS);
+            } catch (ExecutionException | TimeoutException e) {
+                // failed requests are completed, the others are cancelled below
+            }
+        }
+        if (!inFlightRequests.isEmpty()) {
+            LOG.info("Cancelling {} in-flight requests not completed within {}", inFlightRequests.size(), getEndpoint().getInFlightStopTimeout());
+            inFlightRequests.values().forEach(this::cancelRequest);
+        }
+
+        super.doStop();
+    }
+
+    /**
+     * Gets the number of requests of this producer which are in flight.
+     *
+     * @return the number of in-flight requests.
+     */
+    public int getInFlightRequestCount() {
+        return inFlightRequests.size();
+    }
+
     @Override
     public boolean process(Exchange exchange, AsyncCallback callback) {
+        final JdkHttpBatcher currentBatcher = batcher;
+        if (currentBatcher == null) {
+            return processExchange(exchange, callback);
+        }
+
         try {
-            final HttpRequest httpRequest = httpBinding.httpRequestFromExchange(exchange);
-            final Object requestBody = exchange.getMessage().getBody();
+            if (!currentBatcher.add(exchange, callback)) {
+                return processExchange(exchange, callback);
+            }
+        } catch (Exception e) {
+            exchange.setException(e);
+            callback.done(true);
+
+            return true;
+        }
+
+        return false;
+    }
+
+    private boolean processExchange(Exchange exchange, AsyncCallback callback) {
+        final JdkHttpPhaseTimings timings = getEndpoint().createPhaseTimings();
+        if (timings == null) {
+            return processExchange(exchange, callback, null);
+        }
+
+        return processExchange(exchange, doneSync -> {
+            if (exchange.getException() != null) {
+                timings.onFailed(exchange.getException());
+            } else {
+                timings.onBound();
+            }
+            getEndpoint().onPhaseTimings(exchange, timings);
+            callback.done(doneSync);
+        }, timings);
+    }
 
-            httpClient.sendAsync(httpRequest, HttpResponse.BodyHandlers.ofInputStream())
-                    .handle(asyncHandler(exchange, callback, requestBody));
+    private boolean processExchange(Exchange exchange, AsyncCallback callback, JdkHttpPhaseTimings timings) {
+        final HttpRequest httpRequest;
+        final JdkHttpPriority priority;
+        try {
+            priority = getEndpoint().resolvePriority(exchange);
+            final JdkHttpFlightEvents.RequestBuilt builtEvent = new JdkHttpFlightEvents.RequestBuilt();
+            builtEvent.begin();
+            httpRequest = httpBinding.httpRequestFromExchange(exchange);
+            JdkHttpFlightEvents.commitRequestBuilt(builtEvent, getEndpoint(), httpRequest);
+            if (timings != null) {
+                timings.onBuilt(httpRequest.method(), httpRequest.uri());
+            }
         } catch (CamelExchangeException | URISyntaxException e) {
             exchange.setException(e);
             callback.done(true);
@@ -42,38 +166,345 @@ public class JdkHttpAsyncProducer extends DefaultAsyncProducer {
             return true;
         }
 
+        final Object requestBody = exchange.getMessage().getBody();
+        if (getEndpoint().isStreamingUpload()) {
+            return upload(exchange, callback, httpRequest, requestBody);
+        }
+
+        final JdkHttpInFlightLimiter inFlightLimiter = getEndpoint().resolveInFlightLimiter(httpRequest.uri());
+        if (inFlightLimiter == null || inFlightLimiter.tryAcquire()) {
+            return dispatch(exchange, callback, httpRequest, requestBody, inFlightLimiter, timings, true);
+        }
+
+        switch (getEndpoint().getInFlightOverflowPolicy()) {
+            case CALLER_RUNS:
+                send(exchange, callback, httpRequest, requestBody, timings);
+                return true;
+            case REJECT:
+                inFlightLimiter.reject();
+                closeRequestBody(requestBody);
+                exchange.setException(new CamelExchangeException(
+                        "Maximum number of in-flight requests is reached: " + inFlightLimiter.getLimit(), exchange));
+                callback.done(true);
+                return true;
+            default:
+                final Instant deadline = httpBinding.resolveDeadline(exchange);
+                final Duration maxWait = earliest(getEndpoint().getMaxInFlightWait(), deadline != null ? Duration.between(Instant.now(), deadline) : null);
+                final boolean parked = inFlightLimiter.acquire(
+                        () -> dispatch(exchange, callback, httpRequest, requestBody, inFlightLimiter, timings, false),
+                        () -> {
+                            closeRequestBody(requestBody);
+                            exchange.setException(new CamelExchangeException(
+                                    "In-flight permit is not available within " + maxWait, exchange));
+                            callback.done(false);
+                        },
+                        maxWait,
+                        getEndpoint().getComponent().getScheduledExecutorService(),
+                        priority,
+                        deadline,
+                        getEndpoint().getDispatchExecutor());
+                if (!parked) {
+                    closeRequestBody(requestBody);
+                    exchange.setException(new CamelExchangeException(
+                            "In-flight queue is full: " + inFlightLimiter.getMaxQueueSize(), exchange));
+                    callback.done(true);
+                    return true;
+                }
+                return false;
+        }
+    }
+
+    private boolean dispatch(Exchange exchange, AsyncCallback callback, HttpRequest httpRequest, Object requestBody,
+                             JdkHttpInFlightLimiter inFlightLimiter, JdkHttpPhaseTimings timings, boolean doneSync) {
+        final JdkHttpRateLimiter rateLimiter = getEndpoint().resolveRateLimiter(httpRequest.uri());
+        if (rateLimiter != null) {
+            final Duration remaining = httpBinding.getRemainingBudget(exchange);
+            final long waitNanos = rateLimiter.reserve(earliest(getEndpoint().getRateLimitMaxWait(), remaining));
+            if (waitNanos < 0) {
+                if (inFlightLimiter != null) {
+                    inFlightLimiter.release();
+                }
+                closeRequestBody(requestBody);
+                exchange.setException(rateLimitUnavailable(exchange, remaining));
+                callback.done(doneSync);
+
+                return true;
+            } else if (waitNanos > 0) {
+                getEndpoint().getComponent().getScheduledExecutorService().schedule(
+                        () -> sendAsync(exchange, callback, httpRequest, requestBody, rateLimiter, inFlightLimiter, timings),
+                        waitNanos, TimeUnit.NANOSECONDS);
+
+                return false;
+            }
+        }
+
+        sendAsync(exchange, callback, httpRequest, requestBody, rateLimiter, inFlightLimiter, timings);
+
         return false;
     }
 
-    private BiFunction<HttpResponse<InputStream>, Throwable, Void> asyncHandler(Exchange exchange, AsyncCallback callback, Object requestBody) {
-        return (httpResponse, throwable) -> {
-            if (requestBody instanceof Closeable closeable) {
-                IOHelper.close(closeable);
+    private boolean upload(Exchange exchange, AsyncCallback callback, HttpRequest httpRequest, Object requestBody) {
+        final CompletableFuture<Void> uploaded;
+        try {
+            uploaded = getEndpoint().uploadAsync(getEndpoint().resolveHttpClient(exchange), httpRequest, exchange);
+        } catch (Exception e) {
+            closeRequestBody(requestBody);
+            exchange.setException(e);
+            callback.done(true);
+
+            return true;
+        }
+        closeRequestBody(requestBody);
+
+        if (uploaded.isDone()) {
+            completeUpload(exchange, callback, uploaded, true);
+
+            return true;
+        }
+        // the body waits for buffer space or for the HTTP client, so the exchange completes once the client takes it
+        uploaded.whenComplete((unused, throwable) ->
+                getEndpoint().runCompletion(() -> completeUpload(exchange, callback, uploaded, false)));
+
+        return false;
+    }
+
+    private static void completeUpload(Exchange exchange, AsyncCallback callback, CompletableFuture<Void> uploaded, boolean doneSync) {
+        try {
+            uploaded.join();
+        } catch (CompletionException e) {
+            exchange.setException(e.getCause());
+        }
+        callback.done(doneSync);
+    }
+
+    private void sendAsync(Exchange exchange, AsyncCallback callback, HttpRequest httpRequest, Object requestBody,
+                           JdkHttpRateLimiter rateLimiter, JdkHttpInFlightLimiter inFlightLimiter, JdkHttpPhaseTimings timings) {
+        // may run on the scheduler after a rate limit delay, so the callback is completed on every failure
+        try {
+            doSendAsync(exchange, callback, httpRequest, requestBody, rateLimiter, inFlightLimiter, timings);
+        } catch (RuntimeException e) {
+            inFlightRequests.remove(exchange);
+            handleResponse(exchange, callback, requestBody, rateLimiter, inFlightLimiter, null, e, false);
+        }
+    }
+
+    private void doSendAsync(Exchange exchange, AsyncCallback callback, HttpRequest builtRequest, Object requestBody,
+                             JdkHttpRateLimiter rateLimiter, JdkHttpInFlightLimiter inFlightLimiter, JdkHttpPhaseTimings timings) {
+        final HttpClient httpClient;
+        final HttpRequest httpRequest;
+        try {
+            httpClient = getEndpoint().resolveHttpClient(exchange);
+            // the request may have waited for a permit since it was built, so its timeout and propagated budget are recomputed
+            httpRequest = httpBinding.applyRemainingBudget(exchange, builtRequest);
+        } catch (GeneralSecurityException | IOException | CamelExchangeException e) {
+            handleResponse(exchange, callback, requestBody, rateLimiter, inFlightLimiter, null, e, false);
+            return;
+        }
+
+        getEndpoint().onRequestSent();
+        if (timings != null) {
+            timings.onSent();
+        }
+        final JdkHttpFlightEvents.Tracker tracker = JdkHttpFlightEvents.onRequestSent(getEndpoint(), httpRequest);
+        final CompletableFuture<? extends HttpResponse<?>> responseFuture;
+        if (getEndpoint().isDownload(httpRequest)) {
+            try {
+                responseFuture = getEndpoint().downloadAsync(httpClient, httpRequest, exchange);
+            } catch (IOException e) {
+                if (tracker != null) {
+                    tracker.onFailed(e);
+                }
+                handleResponse(exchange, callback, requestBody, rateLimiter, inFlightLimiter, null, e, false);
+                return;
             }
+        } else {
+            responseFuture = httpClient.sendAsync(httpRequest, httpBinding.createResponseBodyHandler(tracker, timings));
+        }
 
-            if (throwable != null) {
-                exchange.setException(throwable);
-                callback.done(false);
-            } else {
-                try {
-                    httpBinding.httpResponseToExchange(httpResponse, exchange);
-                } catch (Exception e) {
-                    exchange.setException(e);
-                } finally {
-                    exchange.getExchangeExtension().addOnCompletion(new SynchronizationAdapter() {
-                        @Override
-                        public void onDone(Exchange exchange) {
-                            super.onDone(exchange);
-
-                            IOHelper.close(httpResponse.body());
+        // a download spans several requests and cancelled requests have no meaningful latency, so neither is sampled
+        final boolean sampled = inFlightLimiter != null && !getEndpoint().isDownload(httpRequest);
+        final long sentNanos = System.nanoTime();
+        inFlightRequests.put(exchange, responseFuture);
+        responseFuture.handle((httpResponse, throwable) -> {
+            inFlightRequests.remove(exchange);
+            if (tracker != null && throwable != null) {
+                tracker.onFailed(throwable);
+            }
+            if (timings != null && httpResponse != null) {
+                timings.onHeaders(httpResponse.statusCode());
+            }
+            if (JdkHttpHelper.isResponseTimeout(throwable)) {
+                httpBinding.onResponseTimeout(exchange, httpRequest);
+            }
+            if (sampled && !(throwable instanceof CancellationException)) {
+                inFlightLimiter.onSample(System.nanoTime() - sentNanos, JdkHttpHelper.isDropped(httpResponse, throwable));
+            }
+            final Throwable failure = throwable instanceof CancellationException ?
+                    new CamelExchangeException("HTTP request was cancelled", exchange, throwable) :
+                    throwable;
+            getEndpoint().runCompletion(() ->
+                    handleResponse(exchange, callback, requestBody, rateLimiter, inFlightLimiter, httpResponse, failure, false));
+            return null;
+        });
+    }
+
+    private void send(Exchange exchange, AsyncCallback callback, HttpRequest builtRequest, Object requestBody, JdkHttpPhaseTimings timings) {
+        final JdkHttpRateLimiter rateLimiter = getEndpoint().resolveRateLimiter(builtRequest.uri());
+
+        HttpRequest httpRequest = builtRequest;
+        HttpResponse<?> httpResponse = null;
+        Throwable throwable = null;
+        JdkHttpFlightEvents.Tracker tracker = null;
+        try {
+            if (rateLimiter != null) {
+                final Duration remaining = httpBinding.getRemainingBudget(exchange);
+                if (!rateLimiter.acquire(earliest(getEndpoint().getRateLimitMaxWait(), remaining))) {
+                    throw rateLimitUnavailable(exchange, remaining);
+                }
+                httpRequest = httpBinding.applyRemainingBudget(exchange, httpRequest);
+            }
+
+            getEndpoint().onRequestSent();
+            final HttpClient httpClient = getEndpoint().resolveHttpClient(exchange);
+            if (timings != null) {
+                timings.onSent();
+            }
+            tracker = JdkHttpFlightEvents.onRequestSent(getEndpoint(), httpRequest);
+            httpResponse = getEndpoint().isDownload(httpRequest) ?
+                    getEndpoint().download(httpClient, httpRequest, exchange) :
+                    httpClient.send(httpRequest, httpBinding.createResponseBodyHandler(tracker, timings));
+            if (timings != null) {
+                timings.onHeaders(httpResponse.statusCode());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throwable = e;
+        } catch (IOException | GeneralSecurityException | CamelExchangeException e) {
+            if (JdkHttpHelper.isResponseTimeout(e)) {
+                httpBinding.onResponseTimeout(exchange, httpRequest);
+            }
+            throwable = e;
+        } catch (RuntimeException e) {
+            throwable = e;
+        }
+        if (tracker != null && throwable != null) {
+            tracker.onFailed(throwable);
+        }
+
+        handleResponse(exchange, callback, requestBody, rateLimiter, null, httpResponse, throwable, true);
+    }
+
+    private void handleResponse(Exchange exchange, AsyncCallback callback, Object requestBody,
+                                JdkHttpRateLimiter rateLimiter, JdkHttpInFlightLimiter inFlightLimiter,
+                                HttpResponse<?> httpResponse, Throwable throwable, boolean doneSync) {
+        closeRequestBody(requestBody);
+
+        if (rateLimiter != null && httpResponse != null) {
+            rateLimiter.onResponse(httpResponse.statusCode(), JdkHttpHelper.parseRetryAfter(
+                    httpResponse.headers().firstValue(JdkHttpConstants.RETRY_AFTER).orElse(null)));
+        }
+
+        if (throwable != null) {
+            if (inFlightLimiter != null) {
+                inFlightLimiter.release();
+            }
+            exchange.setException(throwable);
+            callback.done(doneSync);
+        } else {
+            try {
+                httpBinding.httpResponseToExchange(httpResponse, exchange);
+            } catch (Exception e) {
+                exchange.setException(e);
+            } finally {
+                exchange.getExchangeExtension().addOnCompletion(new SynchronizationAdapter() {
+                    @Override
+                    public void onDone(Exchange exchange) {
+                        super.onDone(exchange);
+
+                        if (httpResponse.body() instanceof Closeable closeable) {
+                            IOHelper.close(closeable);
                         }
-                    });
-                    callback.done(false);
+                    }
+                });
+                if (inFlightLimiter != null) {
+                    inFlightLimiter.release();
                 }
+                callback.done(doneSync);
             }
+        }
+    }
 
-            return null;
-        };
+    private void sendBatch(List<JdkHttpBatcher.Item> items) {
+        final JdkHttpBatchEncoder encoder = getEndpoint().getBatchEncoder();
+        final List<byte[]> encodedItems = new ArrayList<>(items.size());
+        items.forEach(item -> encodedItems.add(item.data()));
+
+        final Exchange batchExchange = getEndpoint().createExchange();
+        // the exchanges of a batch have equal request headers
+        httpBinding.getRequestShapingHeaders(items.get(0).exchange()).forEach(batchExchange.getMessage()::setHeader);
+        batchExchange.setProperty(JdkHttpConstants.BATCH_SIZE, items.size());
+        batchExchange.getMessage().setBody(new JdkHttpBatcher.BatchBody(encoder.encodeBatch(encodedItems), encoder.getContentType()));
+
+        processExchange(batchExchange, doneSync -> completeBatch(batchExchange, items));
+    }
+
+    private void completeBatch(Exchange batchExchange, List<JdkHttpBatcher.Item> items) {
+        final List<Exchange> exchanges = new ArrayList<>(items.size());
+        items.forEach(item -> exchanges.add(item.exchange()));
+
+        try {
+            if (batchExchange.getException() == null) {
+                getEndpoint().getBatchEncoder().decode(batchExchange, exchanges);
+            }
+        } catch (Exception e) {
+            batchExchange.setException(e);
+        } finally {
+            final List<Synchronization> completions = batchExchange.getExchangeExtension().handoverCompletions();
+            if (completions != null) {
+                UnitOfWorkHelper.doneSynchronizations(batchExchange, completions);
+            }
+        }
+
+        for (JdkHttpBatcher.Item item : items) {
+            item.exchange().setProperty(JdkHttpConstants.BATCH_SIZE, items.size());
+            if (batchExchange.getException() != null) {
+                item.exchange().setException(batchExchange.getException());
+            }
+            item.callback().done(false);
+        }
+    }
+
+    private static Duration earliest(Duration maxWait, Duration remaining) {
+        return remaining != null && remaining.compareTo(maxWait) < 0 ? remaining : maxWait;
+    }
+
+    private CamelExchangeException rateLimitUnavailable(Exchange exchange, Duration remaining) {
+        final Duration maxWait = getEndpoint().getRateLimitMaxWait();
+        return remaining != null && remaining.compareTo(maxWait) < 0 ?
+                new CamelExchangeException("Rate limit permit is not available before the deadline of the exchange, the request is skipped", exchange) :
+                new CamelExchangeException("Rate limit permit is not available within " + maxWait, exchange);
+    }
+
+    private void cancelAbandonedRequests() {
+        inFlightRequests.forEach((exchange, responseFuture) -> {
+            if (exchange.isRouteStop() || exchange.isRollbackOnly() || exchange.isRollbackOnlyLast()
+                    || exchange.getExchangeExtension().isInterrupted()) {
+                LOG.debug("Cancelling in-flight request of abandoned exchange {}", exchange.getExchangeId());
+                cancelRequest(responseFuture);
+            }
+        });
+    }
+
+    private void cancelRequest(CompletableFuture<?> responseFuture) {
+        if (responseFuture.cancel(true)) {
+            getEndpoint().onRequestCancelled();
+        }
+    }
+
+    private void closeRequestBody(Object requestBody) {
+        if (requestBody instanceof Closeable closeable) {
+            IOHelper.close(closeable);
+        }
     }
 
 }
@@ -0,0 +1,75 @@
+package abs.zer0.camel.jdk.http;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket limiting the number of body bytes transferred per second.
+ * <br/>
+ * Bytes are handed out as reservations: a transfer which cannot get its bytes immediately still reserves them,
+ * going into debt, and is told how long to wait before delivering them, so concurrent transfers share the bandwidth in FIFO order.
+ * The bucket holds at most a tenth of a second worth of bytes, which bounds the burst after an idle period.
+ *
+ * @see JdkHttpBandwidthThrottle
+ */
+public class JdkHttpBandwidthLimiter {
+
+    private static final long MIN_BURST = 16384;
+
+    private final long rate;
+    private final double burst;
+
+    private double tokens;
+    private long lastRefillNanos;
+    private long bytes;
+    private long throttleNanos;
+
+    /**
+     * Creates a new bandwidth limiter.
+     *
+     * @param rate the number of bytes per second. Must be greater than 0.
+     */
+    public JdkHttpBandwidthLimiter(long rate) {
+        if (rate < 1) {
+            throw new IllegalArgumentException("Bandwidth limit cannot be less than 1");
+        }
+        this.rate = rate;
+        this.burst = Math.max(rate / 10.0, MIN_BURST);
+        this.tokens = burst;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    /**
+     * Reserves the given number of bytes.
+     *
+     * @param count the number of bytes to transfer.
+     * @return the time in nanoseconds the caller must wait before transferring the bytes, {@code 0} if they can be transferred immediately.
+     */
+    public synchronized long reserve(long count) {
+        final long now = System.nanoTime();
+        tokens = Math.min(burst, tokens + (now - lastRefillNanos) * rate / (double) TimeUnit.SECONDS.toNanos(1));
+        lastRefillNanos = now;
+
+        tokens -= count;
+        bytes += count;
+        if (tokens >= 0) {
+            return 0;
+        }
+
+        final long waitNanos = (long) Math.ceil(-tokens / rate * TimeUnit.SECONDS.toNanos(1));
+        throttleNanos += waitNanos;
+        return waitNanos;
+    }
+
+    public long getRate() {
+        return rate;
+    }
+
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    public synchronized long getThrottleNanos() {
+        return throttleNanos;
+    }
+
+}
@@ -0,0 +1,250 @@
+package abs.zer0.camel.jdk.http;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+
+/**
+ * Paces the request and response bodies of an endpoint through one or more {@link JdkHttpBandwidthLimiter}s,
+ * e.g. the limiter of the endpoint and the limiter shared by all endpoints of the component.
+ * <br/>
+ * Every buffer reserves its bytes from all limiters and is delivered when the longest reservation is due.
+ * Delayed buffers are delivered on the given executor once the scheduler signals they are due, instead of parking the thread of the HTTP client,
+ * so a slow body subscriber does not hold up the scheduler.
+ * A failure of the subscriber receiving a buffer cancels the transfer and is signalled to it as an error.
+ * Buffers of a transfer are delivered in order, and a response body is not requested further until its buffers are delivered,
+ * so a throttled download also slows down the sender through TCP flow control.
+ */
+public class JdkHttpBandwidthThrottle {
+
+    private static final Logger LOG = LoggerFactory.getLogger(JdkHttpBandwidthThrottle.class);
+    private static final CompletableFuture<Void> DELIVERED = CompletableFuture.completedFuture(null);
+
+    private final List<JdkHttpBandwidthLimiter> limiters;
+    private final ScheduledExecutorService scheduler;
+    private final Executor executor;
+
+    private volatile long lastTransferRate;
+
+    /**
+     * Creates a new bandwidth throttle.
+     *
+     * @param limiters  the limiters every buffer reserves its bytes from. Must not be {@code null} or empty.
+     * @param scheduler the scheduler signalling when delayed buffers are due. Must not be {@code null}.
+     * @param executor  the executor delivering delayed buffers, usually the executor of the HTTP client. Must not be {@code null}.
+     */
+    public JdkHttpBandwidthThrottle(List<JdkHttpBandwidthLimiter> limiters, ScheduledExecutorService scheduler, Executor executor) {
+        Objects.requireNonNull(limiters, "Bandwidth limiters cannot be null");
+        if (limiters.isEmpty()) {
+            throw new IllegalArgumentException("Bandwidth limiters cannot be empty");
+        }
+        this.limiters = List.copyOf(limiters);
+        this.scheduler = Objects.requireNonNull(scheduler, "Scheduler cannot be null");
+        this.executor = Objects.requireNonNull(executor, "Executor cannot be null");
+    }
+
+    /**
+     * Wraps a request body publisher, pacing the buffers it publishes.
+     *
+     * @param bodyPublisher the request body publisher. Must not be {@code null}.
+     * @return the throttled body publisher.
+     */
+    public HttpRequest.BodyPublisher throttle(HttpRequest.BodyPublisher bodyPublisher) {
+        Objects.requireNonNull(bodyPublisher, "Body publisher cannot be null");
+
+        return new HttpRequest.BodyPublisher() {
+            @Override
+            public long contentLength() {
+                return bodyPublisher.contentLength();
+            }
+
+            @Override
+            public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+                bodyPublisher.subscribe(new PacedSubscriber<ByteBuffer>(subscriber, ByteBuffer::remaining));
+            }
+        };
+    }
+
+    /**
+     * Wraps a response body handler, pacing the buffers delivered to its body subscriber.
+     *
+     * @param bodyHandler the response body handler. Must not be {@code null}.
+     * @param <T>         the type of the response body.
+     * @return the throttled body handler.
+     */
+    public <T> HttpResponse.BodyHandler<T> throttle(HttpResponse.BodyHandler<T> bodyHandler) {
+        Objects.requireNonNull(bodyHandler, "Body handler cannot be null");
+
+        return responseInfo -> {
+            final HttpResponse.BodySubscriber<T> bodySubscriber = bodyHandler.apply(responseInfo);
+            final PacedSubscriber<List<ByteBuffer>> pacedSubscriber = new PacedSubscriber<>(bodySubscriber, JdkHttpBandwidthThrottle::remaining);
+
+            return new HttpResponse.BodySubscriber<>() {
+                @Override
+                public CompletionStage<T> getBody() {
+                    return bodySubscriber.getBody();
+                }
+
+                @Override
+                public void onSubscribe(Flow.Subscription subscription) {
+                    pacedSubscriber.onSubscribe(subscription);
+                }
+
+                @Override
+                public void onNext(List<ByteBuffer> item) {
+                    pacedSubscriber.onNext(item);
+                }
+
+                @Override
+                public void onError(Throwable throwable) {
+                    pacedSubscriber.onError(throwable);
+                }
+
+                @Override
+                public void onComplete() {
+                    pacedSubscriber.onComplete();
+                }
+            };
+        };
+    }
+
+    /**
+     * Gets the effective rate of the last completed transfer, of any exchange.
+     * Transfers still in progress are not reflected, and concurrent transfers overwrite each other as they complete.
+     *
+     * @return the number of bytes per second of the last completed transfer, or {@code 0} if no transfer completed yet.
+     */
+    public long getLastTransferRate() {
+        return lastTransferRate;
+    }
+
+
+    private long reserve(long count) {
+        long waitNanos = 0;
+        for (JdkHttpBandwidthLimiter limiter : limiters) {
+            waitNanos = Math.max(waitNanos, limiter.reserve(count));
+        }
+
+        return waitNanos;
+    }
+
+    private static long remaining(List<ByteBuffer> buffers) {
+        long remaining = 0;
+        for (ByteBuffer buffer : buffers) {
+            remaining += buffer.remaining();
+        }
+
+        return remaining;
+    }
+
+    /**
+     * Subscriber delaying the items of a single transfer until their bytes are due, preserving their order.
+     */
+    private final class PacedSubscriber<T> implements Flow.Subscriber<T> {
+
+        private final Flow.Subscriber<? super T> subscriber;
+        private final ToLongFunction<T> sizeFunction;
+        private CompletableFuture<Void> tail = DELIVERED;
+        private Flow.Subscription subscription;
+        private volatile boolean failed;
+        private long startNanos;
+        private long bytes;
+
+        private PacedSubscriber(Flow.Subscriber<? super T> subscriber, ToLongFunction<T> sizeFunction) {
+            this.subscriber = subscriber;
+            this.sizeFunction = sizeFunction;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            startNanos = System.nanoTime();
+            subscriber.onSubscribe(subscription);
+        }
+
+        @Override
+        public void onNext(T item) {
+            final long size = sizeFunction.applyAsLong(item);
+            bytes += size;
+            enqueue(() -> subscriber.onNext(item), System.nanoTime() + reserve(size), false);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            enqueue(() -> subscriber.onError(throwable), System.nanoTime(), true);
+        }
+
+        @Override
+        public void onComplete() {
+            enqueue(() -> {
+                final long elapsedNanos = Math.max(1, System.nanoTime() - startNanos);
+                lastTransferRate = bytes * TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+                LOG.debug("Throttled transfer of {} bytes completed at {} bytes/s", bytes, lastTransferRate);
+
+                subscriber.onComplete();
+            }, System.nanoTime(), true);
+        }
+
+        private synchronized void enqueue(Runnable signal, long dueNanos, boolean terminal) {
+            tail = tail.thenCompose(ignored -> {
+                final long remainingNanos = dueNanos - System.nanoTime();
+                if (remainingNanos <= 0) {
+                    deliver(signal, terminal);
+                    return DELIVERED;
+                }
+
+                final CompletableFuture<Void> delivered = new CompletableFuture<>();
+                scheduler.schedule(() -> execute(() -> {
+                    try {
+                        deliver(signal, terminal);
+                    } finally {
+                        delivered.complete(null);
+                    }
+                }), remainingNanos, TimeUnit.NANOSECONDS);
+                return delivered;
+            });
+        }
+
+        private void execute(Runnable delivery) {
+            try {
+                executor.execute(delivery);
+            } catch (RejectedExecutionException e) {
+                delivery.run();
+            }
+        }
+
+        private void deliver(Runnable signal, boolean terminal) {
+            if (failed) {
+                return;
+            }
+
+            try {
+                signal.run();
+            } catch (RuntimeException e) {
+                failed = true;
+                if (terminal) {
+                    LOG.warn("Error completing throttled body transfer", e);
+                    return;
+                }
+                // the subscriber failed on a buffer, so the transfer is cancelled and the subscriber sees the failure
+                subscription.cancel();
+                subscriber.onError(e);
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,51 @@
+package abs.zer0.camel.jdk.http;
+
+import org.apache.camel.Exchange;
+
+import java.net.http.HttpRequest;
+import java.util.List;
+
+/**
+ * Encodes the exchanges of a batch into the body of a single bulk request
+ * and demultiplexes the bulk response back onto the exchanges.
+ *
+ * @see JdkHttpBatcher
+ * @see JdkHttpNdjsonBatchEncoder
+ */
+public interface JdkHttpBatchEncoder {
+
+    /**
+     * Gets the content type of the bulk request body.
+     *
+     * @return the value of the {@code Content-Type} header of the bulk request.
+     */
+    String getContentType();
+
+    /**
+     * Encodes the message of a single exchange when it is added to a batch.
+     * The size of the encoded item counts towards the byte limit of the batch.
+     *
+     * @param exchange the exchange to encode.
+     * @return the encoded item.
+     * @throws Exception if the message cannot be encoded.
+     */
+    byte[] encodeItem(Exchange exchange) throws Exception;
+
+    /**
+     * Combines the encoded items of a batch into the body of the bulk request.
+     *
+     * @param items the encoded items in the order the exchanges were added.
+     * @return the body of the bulk request.
+     */
+    HttpRequest.BodyPublisher encodeBatch(List<byte[]> items);
+
+    /**
+     * Demultiplexes the response of a successful bulk request onto the exchanges of the batch.
+     *
+     * @param batchExchange the exchange of the bulk request holding the response.
+     * @param exchanges     the exchanges of the batch in the order they were added.
+     * @throws Exception if the response cannot be demultiplexed.
+     */
+    void decode(Exchange batchExchange, List<Exchange> exchanges) throws Exception;
+
+}
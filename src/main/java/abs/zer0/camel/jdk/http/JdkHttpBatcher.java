@@ -0,0 +1,246 @@
+package abs.zer0.camel.jdk.http;
+
+import org.apache.camel.AsyncCallback;
+import org.apache.camel.Exchange;
+
+import java.net.http.HttpRequest;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Buffers exchanges into batches which are sent as a single bulk request.
+ * <br/>
+ * An exchange is encoded by the {@link JdkHttpBatchEncoder} when it is added.
+ * Exchanges are batched together only if they have the same batch key, e.g. the headers which shape their request,
+ * so a bulk request can carry the headers of all its exchanges.
+ * A batch is flushed when it reaches the maximum number of exchanges, when adding an exchange would exceed the maximum number of bytes,
+ * or when the linger time elapsed since its first exchange was added, whichever comes first.
+ * The flushed batch is passed to the flush handler outside the lock of the batcher.
+ * Once closed, the batcher accepts no more exchanges.
+ */
+public class JdkHttpBatcher {
+
+    private final JdkHttpBatchEncoder encoder;
+    private final int maxSize;
+    private final long maxBytes;
+    private final Duration linger;
+    private final ScheduledExecutorService scheduler;
+    private final Function<Exchange, Object> keyFunction;
+    private final Consumer<List<Item>> flushHandler;
+
+    private final Map<Object, Batch> batches = new LinkedHashMap<>();
+    private long flushCount;
+    private boolean closed;
+
+    /**
+     * Creates a new batcher.
+     *
+     * @param encoder      the encoder of the exchanges. Must not be {@code null}.
+     * @param maxSize      the maximum number of exchanges in a batch. Must be greater than 0.
+     * @param maxBytes     the maximum number of encoded bytes in a batch, or {@code 0} for no limit. Must not be negative.
+     * @param linger       the maximum time an exchange waits for its batch to fill up. Must not be {@code null}.
+     * @param scheduler    the scheduler of the linger timeouts. Must not be {@code null}.
+     * @param keyFunction  the function computing the batch key of an exchange. Must not be {@code null}.
+     * @param flushHandler the handler sending a flushed batch. Must not be {@code null}.
+     */
+    public JdkHttpBatcher(JdkHttpBatchEncoder encoder, int maxSize, long maxBytes, Duration linger,
+                          ScheduledExecutorService scheduler, Function<Exchange, Object> keyFunction, Consumer<List<Item>> flushHandler) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Maximum batch size cannot be less than 1");
+        }
+        if (maxBytes < 0) {
+            throw new IllegalArgumentException("Maximum batch bytes cannot be negative");
+        }
+        this.encoder = Objects.requireNonNull(encoder, "Batch encoder cannot be null");
+        this.maxSize = maxSize;
+        this.maxBytes = maxBytes;
+        this.linger = Objects.requireNonNull(linger, "Batch linger cannot be null");
+        this.scheduler = Objects.requireNonNull(scheduler, "Scheduler cannot be null");
+        this.keyFunction = Objects.requireNonNull(keyFunction, "Batch key function cannot be null");
+        this.flushHandler = Objects.requireNonNull(flushHandler, "Batch flush handler cannot be null");
+    }
+
+    /**
+     * Encodes the exchange and adds it to the current batch of its key, flushing the batch if a limit is reached.
+     *
+     * @param exchange the exchange to add.
+     * @param callback the callback to complete when the response of the batch is demultiplexed.
+     * @return {@code true} if the exchange was added, {@code false} if the batcher is closed.
+     * @throws Exception if the exchange cannot be encoded.
+     */
+    public boolean add(Exchange exchange, AsyncCallback callback) throws Exception {
+        final Object key = keyFunction.apply(exchange);
+        final Item item = new Item(exchange, callback, encoder.encodeItem(exchange));
+
+        List<Item> flushedBefore = null;
+        List<Item> flushedAfter = null;
+        synchronized (this) {
+            if (closed) {
+                return false;
+            }
+
+            Batch batch = batches.get(key);
+            if (batch != null && maxBytes > 0 && batch.bytes + item.data.length > maxBytes) {
+                flushedBefore = takeItems(key);
+                batch = null;
+            }
+            if (batch == null) {
+                batch = new Batch();
+                batches.put(key, batch);
+            }
+
+            batch.items.add(item);
+            batch.bytes += item.data.length;
+
+            if (batch.items.size() >= maxSize || (maxBytes > 0 && batch.bytes >= maxBytes)) {
+                flushedAfter = takeItems(key);
+            } else if (batch.items.size() == 1) {
+                batch.lingerFuture = scheduler.schedule(() -> flush(key), linger.toNanos(), TimeUnit.NANOSECONDS);
+            }
+        }
+
+        if (flushedBefore != null) {
+            flushHandler.accept(flushedBefore);
+        }
+        if (flushedAfter != null) {
+            flushHandler.accept(flushedAfter);
+        }
+
+        return true;
+    }
+
+    /**
+     * Flushes the current batches which are not empty.
+     */
+    public void flush() {
+        for (List<Item> flushed : takeAll(false)) {
+            flushHandler.accept(flushed);
+        }
+    }
+
+    /**
+     * Closes the batcher, so no more exchanges are added, and flushes the current batches.
+     */
+    public void close() {
+        for (List<Item> flushed : takeAll(true)) {
+            flushHandler.accept(flushed);
+        }
+    }
+
+    public synchronized int getPendingSize() {
+        int size = 0;
+        for (Batch batch : batches.values()) {
+            size += batch.items.size();
+        }
+
+        return size;
+    }
+
+    public synchronized long getPendingBytes() {
+        long bytes = 0;
+        for (Batch batch : batches.values()) {
+            bytes += batch.bytes;
+        }
+
+        return bytes;
+    }
+
+    public synchronized long getFlushCount() {
+        return flushCount;
+    }
+
+    public JdkHttpBatchEncoder getEncoder() {
+        return encoder;
+    }
+
+
+    private void flush(Object key) {
+        final List<Item> flushed;
+        synchronized (this) {
+            flushed = batches.containsKey(key) ? takeItems(key) : null;
+        }
+
+        if (flushed != null) {
+            flushHandler.accept(flushed);
+        }
+    }
+
+    private synchronized List<List<Item>> takeAll(boolean close) {
+        closed |= close;
+
+        final List<List<Item>> flushed = new ArrayList<>(batches.size());
+        for (Object key : new ArrayList<>(batches.keySet())) {
+            flushed.add(takeItems(key));
+        }
+
+        return flushed;
+    }
+
+    private List<Item> takeItems(Object key) {
+        final Batch batch = batches.remove(key);
+        if (batch.lingerFuture != null) {
+            batch.lingerFuture.cancel(false);
+        }
+        flushCount++;
+
+        return batch.items;
+    }
+
+    /**
+     * The exchanges buffered for a batch key.
+     */
+    private static final class Batch {
+
+        private final List<Item> items = new ArrayList<>();
+        private long bytes;
+        private ScheduledFuture<?> lingerFuture;
+
+    }
+
+    /**
+     * The body of a bulk request: the publisher of the encoded batch with the content type of the encoder.
+     */
+    public static final class BatchBody implements HttpRequest.BodyPublisher {
+
+        private final HttpRequest.BodyPublisher bodyPublisher;
+        private final String contentType;
+
+        public BatchBody(HttpRequest.BodyPublisher bodyPublisher, String contentType) {
+            this.bodyPublisher = Objects.requireNonNull(bodyPublisher, "Batch body publisher cannot be null");
+            this.contentType = Objects.requireNonNull(contentType, "Batch content type cannot be null");
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        @Override
+        public long contentLength() {
+            return bodyPublisher.contentLength();
+        }
+
+        @Override
+        public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+            bodyPublisher.subscribe(subscriber);
+        }
+
+    }
+
+    /**
+     * An exchange of a batch with its callback and encoded item.
+     */
+    public record Item(Exchange exchange, AsyncCallback callback, byte[] data) {
+    }
+
+}
@@ -3,29 +3,38 @@ package abs.zer0.camel.jdk.http;
 import org.apache.camel.CamelExchangeException;
 import org.apache.camel.Exchange;
 import org.apache.camel.Message;
+import org.apache.camel.NoTypeConversionAvailableException;
+import org.apache.camel.RuntimeCamelException;
 import org.apache.camel.TypeConverter;
+import org.apache.camel.converter.stream.InputStreamCache;
 import org.apache.camel.http.base.HttpHeaderFilterStrategy;
 import org.apache.camel.http.base.HttpOperationFailedException;
 import org.apache.camel.spi.HeaderFilterStrategy;
 import org.apache.camel.support.ExchangeHelper;
 import org.apache.camel.support.ObjectHelper;
+import org.apache.camel.support.SynchronizationAdapter;
 import org.apache.camel.support.builder.OutputStreamBuilder;
 import org.apache.camel.util.IOHelper;
 import org.apache.camel.util.URISupport;
 import org.apache.camel.util.UnsafeUriCharactersEncoder;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.time.Duration;
+import java.time.Instant;
 import java.util.*;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
@@ -39,16 +48,34 @@ import java.util.stream.IntStream;
 public final class JdkHttpBinding {
 
     private static final Set<String> ALLOW_RESTRICTED_HEADERS = parseAllowRestrictedHeaders();
+    private static final Set<String> REQUEST_CONTROL_HEADERS = setOfRequestControlHeaders();
 
     private final URI httpUri;
     private String httpMethod;
 
+    private static final int MAX_STATUS_CODE = 999;
+    // the largest array size the JVM allocates reliably
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
     private boolean throwExceptionOnFailure = true;
+    private JdkHttpFailureMode failureMode = JdkHttpFailureMode.EXCEPTION;
     private Set<Integer> okStatusCodes = IntStream.rangeClosed(200, 299).boxed().collect(Collectors.toUnmodifiableSet());
+    private JdkHttpStatusOutcome[] statusOutcomes = createStatusOutcomes(okStatusCodes);
     private boolean disableStreamCache = false;
     private boolean responseBodyAsByteArray = false;
+    private boolean lazyResponseHeaders = false;
+    private String streamingBodyDelimiter;
+    private int errorBodyMaxSize = 65536;
+    private long maxResponseBodySize = 0;
+    private JdkHttpResponseSizePolicy responseSizePolicy = JdkHttpResponseSizePolicy.FAIL;
+    private JdkHttpMemoryBudget memoryBudget;
+    private JdkHttpBandwidthThrottle bandwidthThrottle;
 
     private Duration responseTimeout;
+    private JdkHttpAdaptiveTimeout adaptiveTimeout;
+    private String deadlineHeader;
+    private Duration timeoutBudget;
+    private String deadlinePropagationHeader;
 
     private HeaderFilterStrategy headerFilterStrategy = new HttpHeaderFilterStrategy();
 
@@ -85,7 +112,8 @@ public final class JdkHttpBinding {
             case "PATCH":
             case "POST":
             case "PUT":
-                httpRequestBuilder.method(method, getRequestBody(exchange));
+                final HttpRequest.BodyPublisher requestBody = getRequestBody(exchange);
+                httpRequestBuilder.method(method, bandwidthThrottle != null ? bandwidthThrottle.throttle(requestBody) : requestBody);
                 break;
             case "DELETE":
             case "GET":
@@ -103,41 +131,233 @@ public final class JdkHttpBinding {
             }
         });
 
+        if (message.getBody() instanceof JdkHttpMultipartBody multipartBody) {
+            httpRequestBuilder.setHeader(JdkHttpConstants.CONTENT_TYPE, multipartBody.getContentType());
+        } else if (message.getBody() instanceof JdkHttpBatcher.BatchBody batchBody) {
+            httpRequestBuilder.setHeader(JdkHttpConstants.CONTENT_TYPE, batchBody.getContentType());
+        }
+
         final HttpClient.Version version = message.getHeader(JdkHttpConstants.HTTP_PROTOCOL_VERSION, HttpClient.Version.class);
         if (version != null) {
             httpRequestBuilder.version(version);
         }
 
-        if (responseTimeout != null) {
-            httpRequestBuilder.timeout(responseTimeout);
+        Duration timeout = adaptiveTimeout != null ? adaptiveTimeout.getTimeout() : responseTimeout;
+        final Instant deadline = resolveDeadline(exchange);
+        if (deadline != null) {
+            final Duration remaining = Duration.between(Instant.now(), deadline);
+            if (remaining.isZero() || remaining.isNegative()) {
+                throw new CamelExchangeException("Deadline of the exchange passed at " + deadline + ", the request is skipped", exchange);
+            }
+            if (timeout == null || remaining.compareTo(timeout) < 0) {
+                timeout = remaining;
+            }
+            if (deadlinePropagationHeader != null) {
+                httpRequestBuilder.setHeader(deadlinePropagationHeader, String.valueOf(remaining.toMillis()));
+            }
+        }
+        if (timeout != null) {
+            httpRequestBuilder.timeout(timeout);
         }
 
         return httpRequestBuilder.build();
     }
 
+    /**
+     * Gets the headers of the exchange which shape its HTTP request:
+     * the Camel headers selecting the URI, the method, the protocol version and the TLS identity,
+     * and the headers sent as HTTP request headers.
+     * <br/>
+     * Exchanges are batched only with exchanges having equal request headers,
+     * which are copied onto the exchange of the bulk request.
+     *
+     * @param exchange the exchange.
+     * @return the request headers by case-insensitive name.
+     */
+    public Map<String, Object> getRequestShapingHeaders(Exchange exchange) {
+        final Map<String, List<String>> requestHeaders = getRequestHeaders(exchange);
+
+        final Map<String, Object> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        for (Map.Entry<String, Object> header : exchange.getMessage().getHeaders().entrySet()) {
+            if (REQUEST_CONTROL_HEADERS.contains(header.getKey()) || requestHeaders.containsKey(header.getKey())) {
+                headers.put(header.getKey(), header.getValue());
+            }
+        }
+
+        return headers;
+    }
+
+    /**
+     * Resolves the deadline of the exchange as the earliest of
+     * the {@link JdkHttpConstants#DEADLINE} header or exchange property,
+     * the creation time of the exchange plus the budget of the {@link #setDeadlineHeader(String) deadline header},
+     * and the creation time of the exchange plus the {@link #setTimeoutBudget(Duration) timeout budget}.
+     * <br/>
+     * The resolved deadline is set as the {@link JdkHttpConstants#DEADLINE} exchange property,
+     * so it is kept by the later calls of the route.
+     *
+     * @param exchange the exchange.
+     * @return the deadline, or {@code null} if the exchange has none.
+     */
+    public Instant resolveDeadline(Exchange exchange) {
+        Instant deadline = JdkHttpHelper.parseDeadline(exchange.getMessage().getHeader(JdkHttpConstants.DEADLINE));
+        deadline = earliest(deadline, JdkHttpHelper.parseDeadline(exchange.getProperty(JdkHttpConstants.DEADLINE)));
+
+        final Instant created = Instant.ofEpochMilli(exchange.getClock().getCreated());
+        if (deadlineHeader != null) {
+            final Duration budget = JdkHttpHelper.parseTimeoutBudget(JdkHttpHelper.getHeaderIgnoreCase(exchange.getMessage(), deadlineHeader, Object.class));
+            if (budget != null) {
+                deadline = earliest(deadline, created.plus(budget));
+            }
+        }
+        if (timeoutBudget != null) {
+            deadline = earliest(deadline, created.plus(timeoutBudget));
+        }
+
+        if (deadline != null) {
+            exchange.setProperty(JdkHttpConstants.DEADLINE, deadline);
+        }
+        return deadline;
+    }
+
+    /**
+     * Applies the time remaining until the deadline of the exchange to a request built earlier,
+     * e.g. before it waited for an in-flight permit or a rate limit permit.
+     * The timeout of the request is capped by the remaining budget and the deadline propagation header, if any, is set to it again,
+     * so the request does not run past the deadline and the upstream gets the current budget.
+     *
+     * @param exchange    the exchange of the request.
+     * @param httpRequest the request built from the exchange.
+     * @return the request with the remaining budget applied, or the given request if the exchange has no deadline.
+     * @throws CamelExchangeException if the deadline of the exchange has passed.
+     */
+    public HttpRequest applyRemainingBudget(Exchange exchange, HttpRequest httpRequest) throws CamelExchangeException {
+        final Instant deadline = resolveDeadline(exchange);
+        if (deadline == null) {
+            return httpRequest;
+        }
+
+        final Duration remaining = Duration.between(Instant.now(), deadline);
+        if (remaining.isZero() || remaining.isNegative()) {
+            throw new CamelExchangeException("Deadline of the exchange passed at " + deadline + ", the request is skipped", exchange);
+        }
+
+        final HttpRequest.Builder httpRequestBuilder = HttpRequest.newBuilder(httpRequest, (name, value) -> true);
+        final Duration timeout = httpRequest.timeout().orElse(null);
+        if (timeout == null || remaining.compareTo(timeout) < 0) {
+            httpRequestBuilder.timeout(remaining);
+        }
+        if (deadlinePropagationHeader != null) {
+            httpRequestBuilder.setHeader(deadlinePropagationHeader, String.valueOf(remaining.toMillis()));
+        }
+
+        return httpRequestBuilder.build();
+    }
+
+    /**
+     * Gets the time remaining until the deadline of the exchange.
+     *
+     * @param exchange the exchange.
+     * @return the remaining {@link Duration}, which is negative if the deadline has passed, or {@code null} if the exchange has no deadline.
+     */
+    public Duration getRemainingBudget(Exchange exchange) {
+        final Instant deadline = resolveDeadline(exchange);
+        return deadline != null ? Duration.between(Instant.now(), deadline) : null;
+    }
+
+    /**
+     * Creates the handler of the response body, which is received as an {@link InputStream}.
+     * The body is paced by the bandwidth throttle, if any.
+     * The time from the creation of the handler to the response headers is recorded by the adaptive timeout, if any,
+     * so the handler should be created right before the request is sent.
+     *
+     * @return the {@link HttpResponse.BodyHandler} to send the request with.
+     */
+    public HttpResponse.BodyHandler<InputStream> createResponseBodyHandler() {
+        return createResponseBodyHandler(null, null);
+    }
+
+    /**
+     * Creates the handler of the response body like {@link #createResponseBodyHandler()},
+     * emitting the flight recorder events of the response through the tracker and marking the phases of the response in the timings.
+     *
+     * @param tracker the {@link JdkHttpFlightEvents.Tracker} of the request, or {@code null} if the events are disabled.
+     * @param timings the {@link JdkHttpPhaseTimings} of the request, or {@code null} if the phases are not timed.
+     * @return the {@link HttpResponse.BodyHandler} to send the request with.
+     */
+    public HttpResponse.BodyHandler<InputStream> createResponseBodyHandler(JdkHttpFlightEvents.Tracker tracker, JdkHttpPhaseTimings timings) {
+        final HttpResponse.BodyHandler<InputStream> throttledBodyHandler = bandwidthThrottle != null ?
+                bandwidthThrottle.throttle(HttpResponse.BodyHandlers.ofInputStream()) :
+                HttpResponse.BodyHandlers.ofInputStream();
+        final HttpResponse.BodyHandler<InputStream> trackedBodyHandler = tracker != null ? tracker.track(throttledBodyHandler) : throttledBodyHandler;
+        final HttpResponse.BodyHandler<InputStream> bodyHandler = timings != null ? timings.track(trackedBodyHandler) : trackedBodyHandler;
+        if (adaptiveTimeout == null) {
+            return bodyHandler;
+        }
+
+        final JdkHttpAdaptiveTimeout latencyRecorder = adaptiveTimeout;
+        final long sentNanos = System.nanoTime();
+        return responseInfo -> {
+            latencyRecorder.record(System.nanoTime() - sentNanos);
+            return bodyHandler.apply(responseInfo);
+        };
+    }
+
+    /**
+     * Notifies the binding that no response was received within the timeout of the request,
+     * so the adaptive timeout, if any, accounts for the slow upstream.
+     * A request whose timeout was capped by the deadline of the exchange, which has passed when it times out, is not recorded,
+     * since its timeout says nothing about the upstream.
+     *
+     * @param exchange    the exchange of the request.
+     * @param httpRequest the request which timed out.
+     */
+    public void onResponseTimeout(Exchange exchange, HttpRequest httpRequest) {
+        if (adaptiveTimeout != null) {
+            final Instant deadline = resolveDeadline(exchange);
+            if (deadline == null || deadline.isAfter(Instant.now())) {
+                adaptiveTimeout.recordTimeout(httpRequest.timeout().orElse(null));
+            }
+        }
+    }
+
     /**
      * Populates the {@link Exchange} with information from the {@link HttpResponse}.
      * It extracts the status code, headers, and body from the response and places them into the Exchange message.
      * <br/>
      * If the response status is not successful and the {@code throwExceptionOnFailure} flag is enabled,
-     * an {@link HttpOperationFailedException} will be thrown.
+     * an {@link HttpOperationFailedException} will be thrown with the response headers and the captured response body,
+     * see {@link #setErrorBodyMaxSize(int)}. The {@link #setFailureMode(JdkHttpFailureMode) failure mode} determines
+     * whether the exception is thrown with or without a stack trace, or not thrown at all.
+     * The exception without a stack trace does not capture the response body, and copies the response headers only when read.
+     * The outcome category of the status code is set as the {@link JdkHttpConstants#STATUS_OUTCOME} exchange property.
+     * <br/>
+     * A response body which is not an {@link InputStream}, such as the {@link java.nio.file.Path} of a download,
+     * is set as the message body as-is.
      *
      * @param httpResponse the HTTP response received from the server.
      * @param exchange     the Camel Exchange to be updated.
      * @throws HttpOperationFailedException if the response status indicates an error and {@code throwExceptionOnFailure} is {@code true}.
      * @throws IOException                  if an error occurs while reading the response body.
      */
-    public void httpResponseToExchange(HttpResponse<InputStream> httpResponse, Exchange exchange)
+    public void httpResponseToExchange(HttpResponse<?> httpResponse, Exchange exchange)
             throws HttpOperationFailedException, IOException {
         final Message message = exchange.getMessage();
 
         final int statusCode = httpResponse.statusCode();
         final String statusText = JdkHttpConstants.HTTP_STATUSES.get(statusCode);
-        if (!okStatusCodes.contains(statusCode) && throwExceptionOnFailure) {
+        final JdkHttpStatusOutcome statusOutcome = getStatusOutcome(statusCode);
+        exchange.setProperty(JdkHttpConstants.STATUS_OUTCOME, statusOutcome);
+        if (statusOutcome.isFailure() && throwExceptionOnFailure && failureMode != JdkHttpFailureMode.PROPERTY) {
             final String uri = httpResponse.uri().toString();
             final String location = httpResponse.headers().firstValue(JdkHttpConstants.LOCATION).orElse(null);
-
-            throw new HttpOperationFailedException(uri, statusCode, statusText, location, null, null);
+            if (failureMode == JdkHttpFailureMode.STACKLESS) {
+                // failures are frequent in this mode, so the body is discarded and the headers are copied only when read
+                discardErrorBody(httpResponse);
+                throw new JdkHttpStacklessOperationFailedException(uri, statusCode, statusText, location, httpResponse.headers());
+            }
+            throw new HttpOperationFailedException(uri, statusCode, statusText, location,
+                    getErrorHeaders(httpResponse.headers()), captureErrorBody(httpResponse));
         }
         message.setHeader(JdkHttpConstants.HTTP_RESPONSE_CODE, statusCode);
         message.setHeader(JdkHttpConstants.HTTP_RESPONSE_TEXT, statusText);
@@ -221,6 +441,38 @@ public final class JdkHttpBinding {
     public void setOkStatusCodeRanges(String okStatusCodeRanges) {
         Objects.requireNonNull(okStatusCodeRanges, "OK StatusCode ranges cannot be null");
         this.okStatusCodes = parseOkStatusCodeRanges(okStatusCodeRanges);
+        this.statusOutcomes = createStatusOutcomes(okStatusCodes);
+    }
+
+    /**
+     * Gets the outcome category of a status code.
+     * The outcome is looked up in a table precomputed from the OK status code ranges.
+     *
+     * @param statusCode the status code of a response.
+     * @return the {@link JdkHttpStatusOutcome} of the status code.
+     */
+    public JdkHttpStatusOutcome getStatusOutcome(int statusCode) {
+        return statusCode >= 0 && statusCode <= MAX_STATUS_CODE ? statusOutcomes[statusCode] : JdkHttpStatusOutcome.UNKNOWN;
+    }
+
+    /**
+     * Gets how a response with a status code which is not a success is signalled.
+     *
+     * @return the {@link JdkHttpFailureMode}.
+     */
+    public JdkHttpFailureMode getFailureMode() {
+        return failureMode;
+    }
+
+    /**
+     * Sets how a response with a status code which is not a success is signalled when {@link #throwExceptionOnFailure} is {@code true}.
+     * <br/>
+     * The default is {@link JdkHttpFailureMode#EXCEPTION}.
+     *
+     * @param failureMode the {@link JdkHttpFailureMode}. Must not be {@code null}.
+     */
+    public void setFailureMode(JdkHttpFailureMode failureMode) {
+        this.failureMode = Objects.requireNonNull(failureMode, "Failure mode cannot be null");
     }
 
     /**
@@ -264,6 +516,160 @@ public final class JdkHttpBinding {
         this.responseBodyAsByteArray = responseBodyAsByteArray;
     }
 
+    /**
+     * The flag that determines whether response headers are exposed lazily.
+     *
+     * @return {@code true} if response headers are exposed lazily, otherwise {@code false}.
+     */
+    public boolean isLazyResponseHeaders() {
+        return lazyResponseHeaders;
+    }
+
+    /**
+     * Sets the flag to expose response headers lazily.
+     * If {@code true}, the message headers are backed by the {@link java.net.http.HttpHeaders} of the response
+     * and a response header is filtered and copied only when it is accessed, see {@link JdkHttpResponseHeadersMap}.
+     * If {@code false}, all response headers are filtered and copied into the message eagerly.
+     *
+     * @param lazyResponseHeaders {@code true} to expose response headers lazily, otherwise {@code false}.
+     */
+    public void setLazyResponseHeaders(boolean lazyResponseHeaders) {
+        this.lazyResponseHeaders = lazyResponseHeaders;
+    }
+
+    /**
+     * Gets the delimiter written after each element of a streaming request body.
+     *
+     * @return the delimiter, or {@code null} if elements are not delimited.
+     */
+    public String getStreamingBodyDelimiter() {
+        return streamingBodyDelimiter;
+    }
+
+    /**
+     * Sets the delimiter written after each element of a streaming request body, e.g. a newline for NDJSON.
+     * A message body which is an {@link Iterator}, a {@link java.util.stream.Stream} or a {@link java.util.concurrent.Flow.Publisher}
+     * is sent lazily element by element, see {@link JdkHttpStreamingBodyPublisher}.
+     *
+     * @param streamingBodyDelimiter the delimiter, or {@code null} to not delimit elements.
+     */
+    public void setStreamingBodyDelimiter(String streamingBodyDelimiter) {
+        this.streamingBodyDelimiter = streamingBodyDelimiter;
+    }
+
+    /**
+     * Gets the maximum number of bytes of an error response body captured into the {@link HttpOperationFailedException}.
+     *
+     * @return the maximum number of captured bytes.
+     */
+    public int getErrorBodyMaxSize() {
+        return errorBodyMaxSize;
+    }
+
+    /**
+     * Sets the maximum number of bytes of an error response body captured into the {@link HttpOperationFailedException}.
+     * An error body within the limit is read to its end, which releases the connection back to the pool.
+     * An error body above the limit, either by its {@code Content-Length} or while reading, is closed early,
+     * which discards the connection instead of downloading the rest of the body.
+     * <br/>
+     * If set to {@code 0}, the error body is not captured and always closed early.
+     *
+     * @param errorBodyMaxSize the maximum number of captured bytes. Must not be negative.
+     */
+    public void setErrorBodyMaxSize(int errorBodyMaxSize) {
+        if (errorBodyMaxSize < 0) {
+            throw new IllegalArgumentException("Error body max size cannot be negative");
+        }
+        this.errorBodyMaxSize = errorBodyMaxSize;
+    }
+
+    /**
+     * Gets the maximum number of bytes of a response body.
+     *
+     * @return the maximum number of bytes, or {@code 0} if the size is not limited.
+     */
+    public long getMaxResponseBodySize() {
+        return maxResponseBodySize;
+    }
+
+    /**
+     * Sets the maximum number of bytes of a response body, which bounds the memory used by a single response.
+     * The {@code Content-Length} of the response is checked before the body is read,
+     * and the bytes of a chunked body are counted while it is read, in every body mode, see {@link JdkHttpBoundedInputStream}.
+     * <br/>
+     * If set to {@code 0}, the size is not limited.
+     *
+     * @param maxResponseBodySize the maximum number of bytes. Must not be negative.
+     */
+    public void setMaxResponseBodySize(long maxResponseBodySize) {
+        if (maxResponseBodySize < 0) {
+            throw new IllegalArgumentException("Maximum response body size cannot be negative");
+        }
+        this.maxResponseBodySize = maxResponseBodySize;
+    }
+
+    /**
+     * Gets what happens to a response whose body exceeds the maximum response body size.
+     *
+     * @return the {@link JdkHttpResponseSizePolicy}.
+     */
+    public JdkHttpResponseSizePolicy getResponseSizePolicy() {
+        return responseSizePolicy;
+    }
+
+    /**
+     * Sets what happens to a response whose body exceeds the maximum response body size.
+     * <br/>
+     * The default is {@link JdkHttpResponseSizePolicy#FAIL}.
+     *
+     * @param responseSizePolicy the {@link JdkHttpResponseSizePolicy}. Must not be {@code null}.
+     */
+    public void setResponseSizePolicy(JdkHttpResponseSizePolicy responseSizePolicy) {
+        this.responseSizePolicy = Objects.requireNonNull(responseSizePolicy, "Response size policy cannot be null");
+    }
+
+    /**
+     * Gets the memory budget shared by the response bodies buffered in memory.
+     *
+     * @return the {@link JdkHttpMemoryBudget}, or {@code null} if buffered response bodies are not limited.
+     */
+    public JdkHttpMemoryBudget getMemoryBudget() {
+        return memoryBudget;
+    }
+
+    /**
+     * Sets the memory budget shared by the response bodies buffered in memory.
+     * A response body which is cached or converted to a byte array reserves budget for its {@code Content-Length} before it is read,
+     * or while it is read if its length is unknown, and releases it when the exchange completes.
+     * When the budget is exhausted, the body is spooled to a {@link JdkHttpSpilledBody} or reading waits, see {@link JdkHttpMemoryBudgetPolicy}.
+     * A response body which is not cached is not buffered and does not use the budget.
+     *
+     * @param memoryBudget the {@link JdkHttpMemoryBudget}, or {@code null} to not limit buffered response bodies.
+     */
+    public void setMemoryBudget(JdkHttpMemoryBudget memoryBudget) {
+        this.memoryBudget = memoryBudget;
+    }
+
+    /**
+     * Gets the throttle pacing the request and response bodies.
+     *
+     * @return the {@link JdkHttpBandwidthThrottle}, or {@code null} if the bandwidth is not limited.
+     */
+    public JdkHttpBandwidthThrottle getBandwidthThrottle() {
+        return bandwidthThrottle;
+    }
+
+    /**
+     * Sets the throttle pacing the request and response bodies.
+     * The request body publisher is wrapped when the request is built,
+     * and the response body is paced by the handler of {@link #createResponseBodyHandler()}.
+     *
+     * @param bandwidthThrottle the {@link JdkHttpBandwidthThrottle}, or {@code null} to not limit the bandwidth.
+     */
+    public void setBandwidthThrottle(JdkHttpBandwidthThrottle bandwidthThrottle) {
+        this.bandwidthThrottle = bandwidthThrottle;
+    }
+
     /**
      * Gets the timeout for waiting an HTTP response.
      *
@@ -283,6 +689,81 @@ public final class JdkHttpBinding {
         this.responseTimeout = Objects.requireNonNull(responseTimeout, "Response timeout cannot be null");
     }
 
+    /**
+     * Gets the timeout derived from the observed latencies.
+     *
+     * @return the {@link JdkHttpAdaptiveTimeout}, or {@code null} if not set.
+     */
+    public JdkHttpAdaptiveTimeout getAdaptiveTimeout() {
+        return adaptiveTimeout;
+    }
+
+    /**
+     * Sets the timeout derived from the observed latencies, which replaces the {@link #setResponseTimeout(Duration) response timeout}.
+     *
+     * @param adaptiveTimeout the {@link JdkHttpAdaptiveTimeout}, or {@code null} to use the fixed response timeout.
+     */
+    public void setAdaptiveTimeout(JdkHttpAdaptiveTimeout adaptiveTimeout) {
+        this.adaptiveTimeout = adaptiveTimeout;
+    }
+
+    /**
+     * Gets the name of the incoming header carrying the timeout budget of the exchange.
+     *
+     * @return the header name, or {@code null} if not set.
+     */
+    public String getDeadlineHeader() {
+        return deadlineHeader;
+    }
+
+    /**
+     * Sets the name of the incoming header carrying the timeout budget of the exchange,
+     * either in milliseconds or as an ISO-8601 duration. The budget counts from the creation of the exchange.
+     *
+     * @param deadlineHeader the header name, or {@code null} to not read a budget from a header.
+     */
+    public void setDeadlineHeader(String deadlineHeader) {
+        this.deadlineHeader = deadlineHeader;
+    }
+
+    /**
+     * Gets the timeout budget of an exchange, counted from its creation.
+     *
+     * @return the {@link Duration} budget, or {@code null} if not set.
+     */
+    public Duration getTimeoutBudget() {
+        return timeoutBudget;
+    }
+
+    /**
+     * Sets the timeout budget of an exchange, counted from its creation.
+     * The time the exchange has already spent in the route is deducted from the timeout of the request,
+     * and the request is skipped if the budget is exhausted.
+     *
+     * @param timeoutBudget the {@link Duration} budget, or {@code null} for no budget.
+     */
+    public void setTimeoutBudget(Duration timeoutBudget) {
+        this.timeoutBudget = timeoutBudget;
+    }
+
+    /**
+     * Gets the name of the request header propagating the remaining budget to the upstream.
+     *
+     * @return the header name, or {@code null} if not set.
+     */
+    public String getDeadlinePropagationHeader() {
+        return deadlinePropagationHeader;
+    }
+
+    /**
+     * Sets the name of the request header propagating the remaining budget of the exchange to the upstream, in milliseconds.
+     *
+     * @param deadlinePropagationHeader the header name, or {@code null} to not propagate the budget.
+     */
+    public void setDeadlinePropagationHeader(String deadlinePropagationHeader) {
+        this.deadlinePropagationHeader = deadlinePropagationHeader;
+    }
+
     /**
      * Gets the header filtering strategy used to control which headers are propagated.
      *
@@ -304,6 +785,21 @@ public final class JdkHttpBinding {
     }
 
 
+    private static Set<String> setOfRequestControlHeaders() {
+        final Set<String> headers = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+        headers.add(JdkHttpConstants.HTTP_URI);
+        headers.add(JdkHttpConstants.HTTP_SCHEME);
+        headers.add(JdkHttpConstants.HTTP_HOST);
+        headers.add(JdkHttpConstants.HTTP_PORT);
+        headers.add(JdkHttpConstants.HTTP_PATH);
+        headers.add(JdkHttpConstants.HTTP_QUERY);
+        headers.add(JdkHttpConstants.HTTP_METHOD);
+        headers.add(JdkHttpConstants.HTTP_PROTOCOL_VERSION);
+        headers.add(JdkHttpConstants.SSL_CONTEXT_PARAMETERS);
+
+        return Collections.unmodifiableSet(headers);
+    }
+
     private static Set<String> parseAllowRestrictedHeaders() {
         final String allowRestrictedHeaders = System.getProperty("jdk.httpclient.allowRestrictedHeaders");
         if (allowRestrictedHeaders == null) {
@@ -318,6 +814,26 @@ public final class JdkHttpBinding {
         return Collections.unmodifiableSet(allowedHeaders);
     }
 
+    private static JdkHttpStatusOutcome[] createStatusOutcomes(Set<Integer> okStatusCodes) {
+        final JdkHttpStatusOutcome[] outcomes = new JdkHttpStatusOutcome[MAX_STATUS_CODE + 1];
+        for (int statusCode = 0; statusCode <= MAX_STATUS_CODE; statusCode++) {
+            if (okStatusCodes.contains(statusCode)) {
+                outcomes[statusCode] = JdkHttpStatusOutcome.SUCCESS;
+            } else {
+                outcomes[statusCode] = switch (statusCode / 100) {
+                    case 1 -> JdkHttpStatusOutcome.INFORMATIONAL;
+                    case 2 -> JdkHttpStatusOutcome.UNEXPECTED_SUCCESS;
+                    case 3 -> JdkHttpStatusOutcome.REDIRECTION;
+                    case 4 -> JdkHttpStatusOutcome.CLIENT_ERROR;
+                    case 5 -> JdkHttpStatusOutcome.SERVER_ERROR;
+                    default -> JdkHttpStatusOutcome.UNKNOWN;
+                };
+            }
+        }
+
+        return outcomes;
+    }
+
     private Set<Integer> parseOkStatusCodeRanges(String okStatusCodeRanges) {
         try {
             final Set<Integer> okStatuses = new HashSet<>();
@@ -407,16 +923,20 @@ public final class JdkHttpBinding {
         } else if (body instanceof byte[] bytes) {
             return HttpRequest.BodyPublishers.ofByteArray(bytes);
         } else if (body instanceof String str) {
-            final String contentType = JdkHttpHelper.getHeaderIgnoreCase(message, JdkHttpConstants.CONTENT_TYPE, String.class);
-            final String charsetName = (contentType != null && !contentType.isBlank()) ?
-                    IOHelper.getCharsetNameFromContentType(contentType.toLowerCase()) :
-                    ExchangeHelper.getCharsetName(exchange, true);
-
-            return HttpRequest.BodyPublishers.ofString(str, Charset.forName(charsetName));
+            return HttpRequest.BodyPublishers.ofString(str, getRequestCharset(exchange));
+        } else if (JdkHttpStreamingBodyPublisher.isStreamingSource(body)) {
+            final Charset charset = getRequestCharset(exchange);
+            final TypeConverter typeConverter = exchange.getContext().getTypeConverter();
+
+            return new JdkHttpStreamingBodyPublisher(body,
+                    element -> encodeStreamingElement(element, charset, typeConverter, exchange),
+                    streamingBodyDelimiter != null ? streamingBodyDelimiter.getBytes(charset) : null);
         }
 
         try {
-            if (body instanceof File file) {
+            if (body instanceof JdkHttpMultipartBody multipartBody) {
+                return multipartBody.toBodyPublisher();
+            } else if (body instanceof File file) {
                 return HttpRequest.BodyPublishers.ofFile(file.toPath());
             } else if (body instanceof Path path) {
                 return HttpRequest.BodyPublishers.ofFile(path);
@@ -436,6 +956,29 @@ public final class JdkHttpBinding {
         return inputStreamPublisher;
     }
 
+    private Charset getRequestCharset(Exchange exchange) {
+        final String contentType = JdkHttpHelper.getHeaderIgnoreCase(exchange.getMessage(), JdkHttpConstants.CONTENT_TYPE, String.class);
+        final String charsetName = (contentType != null && !contentType.isBlank()) ?
+                IOHelper.getCharsetNameFromContentType(contentType.toLowerCase()) :
+                ExchangeHelper.getCharsetName(exchange, true);
+
+        return Charset.forName(charsetName);
+    }
+
+    private static byte[] encodeStreamingElement(Object element, Charset charset, TypeConverter typeConverter, Exchange exchange) {
+        if (element instanceof byte[] bytes) {
+            return bytes;
+        } else if (element instanceof String str) {
+            return str.getBytes(charset);
+        }
+
+        try {
+            return typeConverter.mandatoryConvertTo(byte[].class, exchange, element);
+        } catch (NoTypeConversionAvailableException e) {
+            throw new RuntimeCamelException("Error converting streaming body element to bytes", e);
+        }
+    }
+
     private boolean getRequestExpect(Message message) {
         final String expectHeader = JdkHttpHelper.getHeaderIgnoreCase(message, JdkHttpConstants.EXPECT, String.class);
 
@@ -466,9 +1009,17 @@ public final class JdkHttpBinding {
         return filteredHeaders;
     }
 
-    private void setResponseHeaders(HttpResponse<InputStream> httpResponse, Exchange exchange) {
+    private void setResponseHeaders(HttpResponse<?> httpResponse, Exchange exchange) {
         final Message message = exchange.getMessage();
 
+        if (lazyResponseHeaders) {
+            httpResponse.headers().firstValue(JdkHttpConstants.CONTENT_TYPE).ifPresent(contentType ->
+                    exchange.setProperty(Exchange.CHARSET_NAME, IOHelper.getCharsetNameFromContentType(contentType)));
+
+            message.setHeaders(new JdkHttpResponseHeadersMap(message.getHeaders(), httpResponse.headers(), headerFilterStrategy, exchange));
+            return;
+        }
+
         for (Map.Entry<String, List<String>> header : httpResponse.headers().map().entrySet()) {
             final String headerName = header.getKey();
             final List<String> headerValues = header.getValue();
@@ -486,13 +1037,163 @@ public final class JdkHttpBinding {
         }
     }
 
-    private void setResponseBody(HttpResponse<InputStream> httpResponse, Exchange exchange)
+    private static Instant earliest(Instant first, Instant second) {
+        if (first == null) {
+            return second;
+        }
+        return second != null && second.isBefore(first) ? second : first;
+    }
+
+    static Map<String, String> getErrorHeaders(HttpHeaders httpHeaders) {
+        final Map<String, String> errorHeaders = new LinkedHashMap<>();
+        for (Map.Entry<String, List<String>> header : httpHeaders.map().entrySet()) {
+            errorHeaders.put(header.getKey(), String.join(", ", header.getValue()));
+        }
+
+        return errorHeaders;
+    }
+
+    private static void discardErrorBody(HttpResponse<?> httpResponse) throws IOException {
+        if (httpResponse.body() instanceof InputStream body) {
+            body.close();
+        }
+    }
+
+    private String captureErrorBody(HttpResponse<?> httpResponse) throws IOException {
+        if (!(httpResponse.body() instanceof InputStream body)) {
+            return null;
+        }
+
+        try (body) {
+            final long contentLength = httpResponse.headers().firstValueAsLong(JdkHttpConstants.CONTENT_LENGTH).orElse(-1);
+            if (errorBodyMaxSize == 0 || contentLength > errorBodyMaxSize) {
+                return null;
+            }
+
+            // one byte more than the limit tells a body above the limit apart from a body exactly at the limit,
+            // clamped so that a limit of Integer.MAX_VALUE does not overflow
+            final byte[] bytes = body.readNBytes(Math.max(errorBodyMaxSize, errorBodyMaxSize + 1));
+            final int length = Math.min(bytes.length, errorBodyMaxSize);
+            final Charset charset = httpResponse.headers().firstValue(JdkHttpConstants.CONTENT_TYPE)
+                    .map(IOHelper::getCharsetNameFromContentType)
+                    .filter(Charset::isSupported)
+                    .map(Charset::forName)
+                    .orElse(StandardCharsets.UTF_8);
+
+            return new String(bytes, 0, length, charset);
+        }
+    }
+
+    private InputStream limitResponseBody(HttpResponse<?> httpResponse, InputStream body) throws IOException {
+        if (maxResponseBodySize == 0) {
+            return body;
+        }
+
+        final long contentLength = httpResponse.headers().firstValueAsLong(JdkHttpConstants.CONTENT_LENGTH).orElse(-1);
+        if (contentLength > maxResponseBodySize && responseSizePolicy == JdkHttpResponseSizePolicy.FAIL) {
+            body.close();
+            throw JdkHttpBoundedInputStream.tooLarge(httpResponse.uri(), maxResponseBodySize);
+        }
+
+        return new JdkHttpBoundedInputStream(body, maxResponseBodySize, responseSizePolicy, httpResponse.uri());
+    }
+
+    private Object bufferResponseBody(HttpResponse<?> httpResponse, InputStream body, Exchange exchange) throws IOException {
+        long contentLength = httpResponse.headers().firstValueAsLong(JdkHttpConstants.CONTENT_LENGTH).orElse(-1);
+        if (contentLength >= 0 && maxResponseBodySize > 0) {
+            contentLength = Math.min(contentLength, maxResponseBodySize);
+        }
+        final boolean spillable = memoryBudget.getPolicy() == JdkHttpMemoryBudgetPolicy.SPILL;
+
+        try {
+            if (contentLength >= 0 && contentLength <= MAX_ARRAY_SIZE) {
+                // the whole body is reserved before reading, and read into an array of its exact size,
+                // which is never allocated beyond the budget since a body larger than the budget cannot be reserved
+                if (!memoryBudget.tryReserve(contentLength)) {
+                    if (spillable) {
+                        return JdkHttpSpilledBody.spill(exchange, new byte[0], 0, 0, body);
+                    }
+                    memoryBudget.reserve(contentLength);
+                }
+                releaseOnCompletion(exchange, contentLength);
+
+                final byte[] bytes = new byte[(int) contentLength];
+                final int length = body.readNBytes(bytes, 0, bytes.length);
+                return toResponseBody(bytes, length);
+            }
+
+            return bufferChunks(body, exchange, spillable);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for response memory budget");
+        } catch (IllegalStateException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    private Object bufferChunks(InputStream body, Exchange exchange, boolean spillable) throws IOException, InterruptedException {
+        final BodyBuffer buffer = new BodyBuffer();
+        final byte[] chunk = new byte[IOHelper.DEFAULT_BUFFER_SIZE];
+        long reserved = 0;
+
+        try {
+            int read;
+            while ((read = body.read(chunk)) != -1) {
+                if (!memoryBudget.tryReserve(read)) {
+                    // never waits while holding a reservation, so bodies of unknown length cannot deadlock on each other
+                    memoryBudget.release(reserved);
+                    reserved = 0;
+                    if (spillable) {
+                        buffer.write(chunk, 0, read);
+                        return JdkHttpSpilledBody.spill(exchange, buffer.array(), 0, buffer.size(), body);
+                    }
+                    memoryBudget.reserve(buffer.size() + read);
+                    reserved = buffer.size() + read;
+                } else {
+                    reserved += read;
+                }
+                buffer.write(chunk, 0, read);
+            }
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            memoryBudget.release(reserved);
+            throw e;
+        }
+
+        releaseOnCompletion(exchange, reserved);
+
+        return toResponseBody(buffer.array(), buffer.size());
+    }
+
+    private void releaseOnCompletion(Exchange exchange, long reservedBytes) {
+        exchange.getExchangeExtension().addOnCompletion(new SynchronizationAdapter() {
+            @Override
+            public void onDone(Exchange exchange) {
+                memoryBudget.release(reservedBytes);
+            }
+        });
+    }
+
+    private Object toResponseBody(byte[] bytes, int length) {
+        if (!responseBodyAsByteArray) {
+            // the stream cache reads the array in place, so the body is not copied beyond its reservation
+            return new InputStreamCache(bytes, length);
+        }
+
+        return length == bytes.length ? bytes : Arrays.copyOf(bytes, length);
+    }
+
+    private void setResponseBody(HttpResponse<?> httpResponse, Exchange exchange)
             throws IOException {
         final Message message = exchange.getMessage();
-        final InputStream body = httpResponse.body();
 
-        if (body == null) {
-            message.setBody(null);
+        if (!(httpResponse.body() instanceof InputStream responseBody)) {
+            message.setBody(httpResponse.body());
+            return;
+        }
+
+        final InputStream body = limitResponseBody(httpResponse, responseBody);
+        if (memoryBudget != null && (responseBodyAsByteArray || !disableStreamCache)) {
+            message.setBody(bufferResponseBody(httpResponse, body, exchange));
         } else if (responseBodyAsByteArray) {
             message.setBody(body.readAllBytes());
         } else if (disableStreamCache) {
@@ -504,5 +1205,15 @@ public final class JdkHttpBinding {
         }
     }
 
-}
+    /**
+     * Buffer of a response body of unknown length, giving access to its array so the body is not copied once more.
+     */
+    private static final class BodyBuffer extends ByteArrayOutputStream {
+
+        private byte[] array() {
+            return buf;
+        }
+
+    }
 
+}
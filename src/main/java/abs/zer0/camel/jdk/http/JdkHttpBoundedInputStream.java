@@ -0,0 +1,143 @@
+package abs.zer0.camel.jdk.http;
+
+import org.apache.camel.util.IOHelper;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.Objects;
+
+/**
+ * Response body stream which counts the bytes read and enforces a maximum size.
+ * <br/>
+ * When the body turns out to be larger than the maximum size, the underlying stream is closed,
+ * which cancels the rest of the transfer and discards the connection.
+ * Depending on the {@link JdkHttpResponseSizePolicy}, the read then either fails with an {@link IOException}
+ * or returns the end of the stream, so the body is truncated at the maximum size.
+ */
+public class JdkHttpBoundedInputStream extends FilterInputStream {
+
+    private final long maxSize;
+    private final JdkHttpResponseSizePolicy sizePolicy;
+    private final URI uri;
+    private long count;
+    private boolean exceeded;
+
+    /**
+     * Creates a new bounded stream.
+     *
+     * @param in         the response body stream. Must not be {@code null}.
+     * @param maxSize    the maximum number of bytes of the body. Must be greater than 0.
+     * @param sizePolicy what happens when the body exceeds the maximum size. Must not be {@code null}.
+     * @param uri        the URI of the response, used in the error message. Must not be {@code null}.
+     */
+    public JdkHttpBoundedInputStream(InputStream in, long maxSize, JdkHttpResponseSizePolicy sizePolicy, URI uri) {
+        super(Objects.requireNonNull(in, "Response body stream cannot be null"));
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Maximum response body size cannot be less than 1");
+        }
+        this.maxSize = maxSize;
+        this.sizePolicy = Objects.requireNonNull(sizePolicy, "Response size policy cannot be null");
+        this.uri = Objects.requireNonNull(uri, "HTTP URI cannot be null");
+    }
+
+    /**
+     * Creates the exception of a response body exceeding the maximum size.
+     *
+     * @param uri     the URI of the response.
+     * @param maxSize the maximum number of bytes of the body.
+     * @return the exception.
+     */
+    public static IOException tooLarge(URI uri, long maxSize) {
+        return new IOException("Response body from " + uri + " exceeds the maximum size of " + maxSize + " bytes");
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (count >= maxSize) {
+            checkExceeded();
+            return -1;
+        }
+
+        final int b = super.read();
+        if (b != -1) {
+            count++;
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (count >= maxSize) {
+            checkExceeded();
+            return -1;
+        }
+
+        final int read = super.read(b, off, (int) Math.min(len, maxSize - count));
+        if (read > 0) {
+            count += read;
+        }
+        return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        final byte[] buffer = new byte[(int) Math.min(Math.max(n, 0), 8192)];
+        long skipped = 0;
+        while (skipped < n) {
+            final int read = read(buffer, 0, (int) Math.min(buffer.length, n - skipped));
+            if (read == -1) {
+                break;
+            }
+            skipped += read;
+        }
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    /**
+     * Gets the number of bytes read so far.
+     *
+     * @return the number of bytes read.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Gets whether the body exceeded the maximum size and was cut off.
+     *
+     * @return {@code true} if the body exceeded the maximum size.
+     */
+    public boolean isExceeded() {
+        return exceeded;
+    }
+
+
+    /**
+     * Checks whether the body continues beyond the maximum size,
+     * closing the underlying stream and failing according to the policy if it does.
+     */
+    private void checkExceeded() throws IOException {
+        if (!exceeded) {
+            if (super.read() == -1) {
+                return;
+            }
+            exceeded = true;
+            IOHelper.close(in);
+        }
+
+        if (sizePolicy == JdkHttpResponseSizePolicy.FAIL) {
+            throw tooLarge(uri, maxSize);
+        }
+    }
+
+}
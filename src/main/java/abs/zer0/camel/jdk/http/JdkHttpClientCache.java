@@ -0,0 +1,205 @@
+package abs.zer0.camel.jdk.http;
+
+import org.apache.camel.support.jsse.SSLContextParameters;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.net.http.HttpClient;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Bounded LRU cache of {@link HttpClient}s keyed by TLS identity and client settings.
+ * <br/>
+ * It is used when exchanges select their {@link SSLContextParameters} at runtime,
+ * so that a single component can serve many client certificates.
+ * All cached clients share the executor of the component, which keeps the number of threads bounded
+ * regardless of the number of TLS identities.
+ * Clients which are least recently used or idle for longer than the idle timeout are evicted and shut down.
+ * The shutdown does not wait for the requests in flight, which complete on the evicted client.
+ * Before Java 21, {@link HttpClient} has no shutdown and an evicted client is released once its requests complete.
+ */
+public class JdkHttpClientCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(JdkHttpClientCache.class);
+    private static final MethodHandle SHUTDOWN = findShutdown();
+
+    private final int maxSize;
+    private final Duration idleTimeout;
+    private final LinkedHashMap<Key, Entry> clients = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * Creates a new client cache.
+     *
+     * @param maxSize     the maximum number of cached clients. Must be greater than 0.
+     * @param idleTimeout the time after which an unused client is evicted. Must not be {@code null}.
+     */
+    public JdkHttpClientCache(int maxSize, Duration idleTimeout) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Maximum client cache size cannot be less than 1");
+        }
+        this.maxSize = maxSize;
+        this.idleTimeout = Objects.requireNonNull(idleTimeout, "Client idle timeout cannot be null");
+    }
+
+    /**
+     * Gets the cached client for the given key, building a new one if there is none.
+     * The client is built outside the lock of the cache, so building a client for one key does not block the others.
+     *
+     * @param key     the TLS identity and client settings. Must not be {@code null}.
+     * @param factory the factory building a new client. Must not be {@code null}.
+     * @return the cached or newly built {@link HttpClient}.
+     * @throws GeneralSecurityException if the SSL context of the client cannot be initialized.
+     * @throws IOException              if the key or trust stores cannot be loaded.
+     */
+    public HttpClient get(Key key, ClientFactory factory) throws GeneralSecurityException, IOException {
+        Objects.requireNonNull(key, "Client cache key cannot be null");
+        Objects.requireNonNull(factory, "Client factory cannot be null");
+
+        final List<Entry> evicted = new ArrayList<>();
+        final Entry entry;
+        synchronized (clients) {
+            Entry cachedEntry = clients.get(key);
+            if (cachedEntry == null) {
+                cachedEntry = new Entry();
+                clients.put(key, cachedEntry);
+
+                final Iterator<Entry> iterator = clients.values().iterator();
+                while (clients.size() > maxSize && iterator.hasNext()) {
+                    evicted.add(iterator.next());
+                    iterator.remove();
+                }
+            }
+            cachedEntry.lastUsedNanos = System.nanoTime();
+            entry = cachedEntry;
+        }
+
+        evicted.forEach(Entry::shutdown);
+
+        return entry.getOrCreate(factory);
+    }
+
+    /**
+     * Evicts and closes the clients which have not been used within the idle timeout.
+     */
+    public void evictIdle() {
+        final long idleNanos = idleTimeout.toNanos();
+        final long now = System.nanoTime();
+
+        final List<Entry> evicted = new ArrayList<>();
+        synchronized (clients) {
+            final Iterator<Entry> iterator = clients.values().iterator();
+            while (iterator.hasNext()) {
+                final Entry entry = iterator.next();
+                if (now - entry.lastUsedNanos >= idleNanos) {
+                    evicted.add(entry);
+                    iterator.remove();
+                }
+            }
+        }
+
+        evicted.forEach(Entry::shutdown);
+    }
+
+    /**
+     * Evicts and closes all cached clients.
+     */
+    public void clear() {
+        final List<Entry> evicted;
+        synchronized (clients) {
+            evicted = new ArrayList<>(clients.values());
+            clients.clear();
+        }
+
+        evicted.forEach(Entry::shutdown);
+    }
+
+    public int size() {
+        synchronized (clients) {
+            return clients.size();
+        }
+    }
+
+    public Duration getIdleTimeout() {
+        return idleTimeout;
+    }
+
+
+    private static void shutdown(HttpClient httpClient) {
+        if (SHUTDOWN == null) {
+            return;
+        }
+        try {
+            SHUTDOWN.invoke(httpClient);
+        } catch (Throwable e) {
+            LOG.debug("Error shutting down evicted HTTP client", e);
+        }
+    }
+
+    private static MethodHandle findShutdown() {
+        try {
+            return MethodHandles.publicLookup().findVirtual(HttpClient.class, "shutdown", MethodType.methodType(void.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Builds a new client for the cache.
+     */
+    @FunctionalInterface
+    public interface ClientFactory {
+
+        HttpClient create() throws GeneralSecurityException, IOException;
+
+    }
+
+    /**
+     * The key of a cached client: the TLS identity, compared by identity of the {@link SSLContextParameters},
+     * and the endpoint settings applied when building the client.
+     */
+    public record Key(SSLContextParameters sslContextParameters,
+                      HttpClient.Version httpVersion,
+                      Duration connectTimeout,
+                      HttpClient.Redirect redirectPolicy,
+                      Integer http2Priority,
+                      String proxyHost,
+                      Integer proxyPort) {
+    }
+
+    private static final class Entry {
+
+        private volatile HttpClient httpClient;
+        private long lastUsedNanos;
+
+        /**
+         * Builds the client on first use. A client built after its entry was evicted is not shut down
+         * and is released once its requests complete.
+         */
+        private synchronized HttpClient getOrCreate(ClientFactory factory) throws GeneralSecurityException, IOException {
+            if (httpClient == null) {
+                httpClient = factory.create();
+            }
+
+            return httpClient;
+        }
+
+        private void shutdown() {
+            final HttpClient client = httpClient;
+            if (client != null) {
+                JdkHttpClientCache.shutdown(client);
+            }
+        }
+
+    }
+
+}
@@ -8,16 +8,31 @@ import org.apache.camel.support.HeaderFilterStrategyComponent;
 import org.apache.camel.support.jsse.SSLContextParameters;
 import org.apache.camel.util.URISupport;
 import org.apache.camel.util.UnsafeUriCharactersEncoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import javax.net.ssl.SSLContext;
+import java.io.IOException;
 import java.net.URI;
 import java.net.http.HttpClient;
+import java.security.GeneralSecurityException;
 import java.time.Duration;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 @Component("jdk-http")
 public class JdkHttpComponent extends HeaderFilterStrategyComponent implements SSLContextParametersAware {
 
+    private static final Logger LOG = LoggerFactory.getLogger(JdkHttpComponent.class);
+
     @Metadata(label = "advanced", defaultValue = "HTTP/1.1", description = "Requests a specific HTTP protocol version where possible." +
             " If this method is not invoked prior to building, then newly built clients will prefer HTTP/2." +
             " If set to HTTP/2, then each request will attempt to upgrade to HTTP/2." +
@@ -52,10 +67,17 @@ public class JdkHttpComponent extends HeaderFilterStrategyComponent implements S
     private Integer maxConnections;
     @Metadata(label = "security", description = "To configure security using SSLContextParameters."
             + " Important: Only one instance of org.apache.camel.support.jsse.SSLContextParameters is supported per JdkHttpComponent."
-            + " If you need to use 2 or more different instances, you need to define a new JdkHttpComponent per instance you need.")
+            + " If you need to use 2 or more different instances, you need to define a new JdkHttpComponent per instance you need,"
+            + " or select the instance per exchange with the CamelJdkHttpSslContextParameters header.")
     private SSLContextParameters sslContextParameters;
     @Metadata(label = "security", defaultValue = "false", description = "Enable usage of global SSL context parameters.")
     private boolean useGlobalSslContextParameters = false;
+    @Metadata(label = "security", defaultValue = "100", description = "The maximum number of HTTP clients cached for TLS identities selected per exchange" +
+            " with the CamelJdkHttpSslContextParameters header." +
+            " The least recently used client is evicted and closed when the cache is full.")
+    private int tlsClientCacheSize = 100;
+    @Metadata(label = "security", defaultValue = "PT10M", description = "The time after which an HTTP client cached for a TLS identity selected per exchange is evicted and closed if unused.")
+    private Duration tlsClientIdleTimeout = Duration.ofMinutes(10);
 
     @Metadata(label = "advanced", defaultValue = "NORMAL", description = "Specifies whether requests will automatically follow redirects issued by the server." +
             " Normal policy means always redirect, except from HTTPS URLs to HTTP URLs.")
@@ -73,6 +95,38 @@ public class JdkHttpComponent extends HeaderFilterStrategyComponent implements S
     @Metadata(label = "proxy", description = "Sets the proxy server port.")
     private Integer proxyPort;
 
+    @Metadata(label = "producer,advanced", defaultValue = "0", description = "The number of bytes of response bodies which all endpoints of this component may buffer in memory at the same time." +
+            " A cached or byte array response body reserves memory for its Content-Length before it is read, or while it is read if its length is unknown," +
+            " and releases it when the exchange completes." +
+            " The budget is component-wide and created on first use, so the budget options must be set before the first response is received." +
+            " Zero means no limit.")
+    private long responseMemoryBudget = 0;
+    @Metadata(label = "producer,advanced", defaultValue = "SPILL", description = "What happens to a response body when the response memory budget is exhausted." +
+            " SPILL spools the body to a file of the stream caching spool directory, encrypted with the spool cipher if set," +
+            " also when the body is converted to a byte array otherwise." +
+            " BLOCK waits for memory to be released, which slows down the callers and blocks the thread binding the response," +
+            " so asynchronous endpoints without a completion executor bind their responses on a Camel thread pool instead of the JDK HttpClient threads." +
+            " Under both policies a body larger than the whole budget is never buffered in memory: it is spooled with SPILL and fails with BLOCK.")
+    private JdkHttpMemoryBudgetPolicy responseMemoryBudgetPolicy = JdkHttpMemoryBudgetPolicy.SPILL;
+    @Metadata(label = "producer,advanced", defaultValue = "PT30S", description = "The maximum time to wait for the response memory budget before the exchange fails.")
+    private Duration responseMemoryBudgetMaxWait = Duration.ofSeconds(30);
+
+    @Metadata(label = "producer,throttling", description = "The maximum number of request and response body bytes per second transferred by all endpoints of this component together." +
+            " Applied in addition to the bandwidth limit of each endpoint. By default the bandwidth is not limited.")
+    private long totalBandwidthLimit;
+
+    private final Map<String, JdkHttpRateLimiter> originRateLimiters = new ConcurrentHashMap<>();
+    private final Map<String, JdkHttpInFlightLimiter> originInFlightLimiters = new ConcurrentHashMap<>();
+    private final Set<String> conflictingOrigins = ConcurrentHashMap.newKeySet();
+    // SSLContextParameters does not override equals, so the weak keys are compared by identity
+    private final Map<SSLContextParameters, SSLContext> sslContexts = new WeakHashMap<>();
+    private ScheduledExecutorService scheduledExecutorService;
+    private JdkHttpClientCache tlsClientCache;
+    private ExecutorService tlsClientExecutorService;
+    private ScheduledFuture<?> tlsClientEvictionFuture;
+    private JdkHttpMemoryBudget memoryBudget;
+    private JdkHttpBandwidthLimiter bandwidthLimiter;
+
 
     @Override
     protected Endpoint createEndpoint(String uri, String remaining, Map<String, Object> parameters) throws Exception {
@@ -87,6 +141,208 @@ public class JdkHttpComponent extends HeaderFilterStrategyComponent implements S
         return httpEndpoint;
     }
 
+    @Override
+    protected void doStop() throws Exception {
+        synchronized (this) {
+            if (tlsClientCache != null) {
+                tlsClientEvictionFuture.cancel(false);
+                tlsClientCache.clear();
+                getCamelContext().getExecutorServiceManager().shutdownGraceful(tlsClientExecutorService);
+                tlsClientCache = null;
+                tlsClientExecutorService = null;
+            }
+            if (scheduledExecutorService != null) {
+                // delayed sends and wait timeouts still run, so their exchanges complete
+                getCamelContext().getExecutorServiceManager().shutdownGraceful(scheduledExecutorService);
+                scheduledExecutorService = null;
+            }
+        }
+        originRateLimiters.clear();
+        originInFlightLimiters.clear();
+        conflictingOrigins.clear();
+        synchronized (sslContexts) {
+            sslContexts.clear();
+        }
+
+        super.doStop();
+    }
+
+    /**
+     * Gets the scheduler shared by all endpoints of this component for delayed and periodic tasks.
+     * The scheduler is created on first use.
+     *
+     * @return the shared {@link ScheduledExecutorService}.
+     */
+    public synchronized ScheduledExecutorService getScheduledExecutorService() {
+        if (scheduledExecutorService == null) {
+            scheduledExecutorService = getCamelContext().getExecutorServiceManager()
+                    .newSingleThreadScheduledExecutor(this, "JdkHttpScheduler");
+        }
+
+        return scheduledExecutorService;
+    }
+
+    /**
+     * Gets the memory budget shared by the response bodies buffered by all endpoints of this component.
+     * The budget is created on first use, so later changes of the budget options have no effect.
+     *
+     * @return the shared {@link JdkHttpMemoryBudget}, or {@code null} if the response memory budget is not limited.
+     */
+    public synchronized JdkHttpMemoryBudget getMemoryBudget() {
+        if (memoryBudget == null && responseMemoryBudget > 0) {
+            memoryBudget = new JdkHttpMemoryBudget(responseMemoryBudget, responseMemoryBudgetPolicy, responseMemoryBudgetMaxWait);
+        }
+
+        return memoryBudget;
+    }
+
+    /**
+     * Gets the bandwidth limiter shared by all endpoints of this component.
+     * The limiter is created on first use.
+     *
+     * @return the shared {@link JdkHttpBandwidthLimiter}, or {@code null} if the total bandwidth is not limited.
+     */
+    public synchronized JdkHttpBandwidthLimiter getBandwidthLimiter() {
+        if (bandwidthLimiter == null && totalBandwidthLimit > 0) {
+            bandwidthLimiter = new JdkHttpBandwidthLimiter(totalBandwidthLimit);
+        }
+
+        return bandwidthLimiter;
+    }
+
+    /**
+     * Gets the {@link SSLContext} built from the given {@link SSLContextParameters}.
+     * Contexts are cached by parameters identity, so endpoints sharing the same parameters load the key and trust stores once
+     * and share the TLS session cache, which allows TLS session resumption across endpoints.
+     * A context is released with its parameters, e.g. when parameters selected per exchange are no longer referenced
+     * by an exchange or by a client of the TLS client cache.
+     *
+     * @param sslContextParameters the parameters to build the context from. Must not be {@code null}.
+     * @return the cached or newly built {@link SSLContext}.
+     * @throws GeneralSecurityException if the context cannot be initialized.
+     * @throws IOException              if the key or trust stores cannot be loaded.
+     */
+    public SSLContext getSslContext(SSLContextParameters sslContextParameters) throws GeneralSecurityException, IOException {
+        Objects.requireNonNull(sslContextParameters, "Camel SSLContextParameters cannot be null");
+
+        synchronized (sslContexts) {
+            final SSLContext sslContext = sslContexts.get(sslContextParameters);
+            if (sslContext != null) {
+                return sslContext;
+            }
+        }
+
+        // the stores are loaded outside the lock, so endpoints with other parameters do not wait for this file I/O,
+        // and a context built concurrently for the same parameters is discarded for the one published first
+        final SSLContext sslContext = sslContextParameters.createSSLContext(getCamelContext());
+        synchronized (sslContexts) {
+            final SSLContext publishedSslContext = sslContexts.putIfAbsent(sslContextParameters, sslContext);
+
+            return publishedSslContext != null ? publishedSslContext : sslContext;
+        }
+    }
+
+    /**
+     * Gets the HTTP client for a TLS identity selected per exchange from the bounded client cache of this component.
+     * All cached clients share one executor managed by the Camel context.
+     *
+     * @param key     the TLS identity and client settings. Must not be {@code null}.
+     * @param factory the factory building a new client with the given executor. Must not be {@code null}.
+     * @return the cached or newly built {@link HttpClient}.
+     * @throws GeneralSecurityException if the SSL context of the client cannot be initialized.
+     * @throws IOException              if the key or trust stores cannot be loaded.
+     */
+    public HttpClient getTlsHttpClient(JdkHttpClientCache.Key key, TlsClientFactory factory) throws GeneralSecurityException, IOException {
+        final JdkHttpClientCache clientCache;
+        final ExecutorService executorService;
+        synchronized (this) {
+            if (tlsClientCache == null) {
+                tlsClientExecutorService = getCamelContext().getExecutorServiceManager().newDefaultThreadPool(this, "JdkHttpTlsClient");
+                tlsClientCache = new JdkHttpClientCache(tlsClientCacheSize, tlsClientIdleTimeout);
+
+                final long evictionNanos = Math.max(TimeUnit.SECONDS.toNanos(1), tlsClientIdleTimeout.toNanos() / 2);
+                final JdkHttpClientCache cache = tlsClientCache;
+                tlsClientEvictionFuture = getScheduledExecutorService()
+                        .scheduleWithFixedDelay(cache::evictIdle, evictionNanos, evictionNanos, TimeUnit.NANOSECONDS);
+            }
+            clientCache = tlsClientCache;
+            executorService = tlsClientExecutorService;
+        }
+
+        return clientCache.get(key, () -> factory.create(executorService));
+    }
+
+    /**
+     * Gets the rate limiter shared by all endpoints sending requests to the given origin.
+     * The limiter is created with the settings of the endpoint requesting it first,
+     * the conflicting settings of other endpoints are ignored with a warning.
+     *
+     * @param origin the origin, see {@link JdkHttpHelper#getOrigin(URI)}.
+     * @param rate   the number of permits per second.
+     * @param burst  the maximum number of permits accumulated while idle.
+     * @return the shared {@link JdkHttpRateLimiter}.
+     */
+    public JdkHttpRateLimiter getOriginRateLimiter(String origin, double rate, int burst) {
+        final JdkHttpRateLimiter rateLimiter = originRateLimiters.computeIfAbsent(origin, key -> new JdkHttpRateLimiter(rate, burst));
+        if ((rateLimiter.getConfiguredRate() != rate || rateLimiter.getBurst() != burst) && conflictingOrigins.add("rate:" + origin)) {
+            LOG.warn("Rate limit of {} per second with burst {} is ignored for origin {}, which is already limited to {} per second with burst {}",
+                    rate, burst, origin, rateLimiter.getConfiguredRate(), rateLimiter.getBurst());
+        }
+
+        return rateLimiter;
+    }
+
+    /**
+     * Gets the in-flight limiter with a fixed limit shared by all endpoints sending requests to the given origin,
+     * so the priority classes of their requests compete for the same permits.
+     * The limiter is created with the settings of the endpoint requesting it first,
+     * and a warning is logged once per origin if another endpoint requests it with another limit or with adaptive concurrency.
+     *
+     * @param origin  the origin, see {@link JdkHttpHelper#getOrigin(URI)}.
+     * @param limit   the limit of the requesting endpoint.
+     * @param factory the factory creating the limiter if there is none for the origin yet.
+     * @return the shared {@link JdkHttpInFlightLimiter}.
+     */
+    public JdkHttpInFlightLimiter getOriginInFlightLimiter(String origin, int limit, Supplier<JdkHttpInFlightLimiter> factory) {
+        final JdkHttpInFlightLimiter inFlightLimiter = originInFlightLimiters.computeIfAbsent(origin, key -> factory.get());
+        if (inFlightLimiter.isAdaptive() && conflictingOrigins.add("inflight:" + origin)) {
+            LOG.warn("In-flight limit of {} is ignored for origin {}, which is already limited by adaptive concurrency", limit, origin);
+        } else if (!inFlightLimiter.isAdaptive() && inFlightLimiter.getLimit() != limit && conflictingOrigins.add("inflight:" + origin)) {
+            LOG.warn("In-flight limit of {} is ignored for origin {}, which is already limited to {}", limit, origin, inFlightLimiter.getLimit());
+        }
+
+        return inFlightLimiter;
+    }
+
+    /**
+     * Gets the adaptive in-flight limiter shared by all endpoints sending requests to the given origin.
+     * The limiter is created with the settings of the endpoint requesting it first,
+     * and a warning is logged once per origin if another endpoint requests it with other adaptive settings or without adaptive concurrency.
+     *
+     * @param origin       the origin, see {@link JdkHttpHelper#getOrigin(URI)}.
+     * @param minLimit     the lowest limit of the requesting endpoint.
+     * @param maxLimit     the highest limit of the requesting endpoint.
+     * @param rttTolerance the round-trip time tolerance of the requesting endpoint.
+     * @param factory      the factory creating the limiter if there is none for the origin yet.
+     * @return the shared {@link JdkHttpInFlightLimiter}.
+     */
+    public JdkHttpInFlightLimiter getOriginInFlightLimiter(String origin, int minLimit, int maxLimit, double rttTolerance,
+                                                          Supplier<JdkHttpInFlightLimiter> factory) {
+        final JdkHttpInFlightLimiter inFlightLimiter = originInFlightLimiters.computeIfAbsent(origin, key -> factory.get());
+        final JdkHttpAdaptiveLimit adaptiveLimit = inFlightLimiter.getAdaptiveLimit();
+        if (adaptiveLimit == null && conflictingOrigins.add("inflight:" + origin)) {
+            LOG.warn("Adaptive concurrency is ignored for origin {}, which is already limited to {}", origin, inFlightLimiter.getLimit());
+        } else if (adaptiveLimit != null && (adaptiveLimit.getMinLimit() != minLimit || adaptiveLimit.getMaxLimit() != maxLimit
+                || adaptiveLimit.getRttTolerance() != rttTolerance) && conflictingOrigins.add("inflight:" + origin)) {
+            LOG.warn("Adaptive concurrency between {} and {} with RTT tolerance {} is ignored for origin {}," +
+                            " which is already limited between {} and {} with RTT tolerance {}",
+                    minLimit, maxLimit, rttTolerance, origin,
+                    adaptiveLimit.getMinLimit(), adaptiveLimit.getMaxLimit(), adaptiveLimit.getRttTolerance());
+        }
+
+        return inFlightLimiter;
+    }
+
 
     public HttpClient.Version getHttpVersion() {
         return httpVersion;
@@ -219,6 +475,64 @@ public class JdkHttpComponent extends HeaderFilterStrategyComponent implements S
     }
 
 
+    public int getTlsClientCacheSize() {
+        return tlsClientCacheSize;
+    }
+
+    public void setTlsClientCacheSize(int tlsClientCacheSize) {
+        if (tlsClientCacheSize < 1) {
+            throw new IllegalArgumentException("TLS client cache size cannot be less than 1");
+        }
+        this.tlsClientCacheSize = tlsClientCacheSize;
+    }
+
+    public Duration getTlsClientIdleTimeout() {
+        return tlsClientIdleTimeout;
+    }
+
+    public void setTlsClientIdleTimeout(Duration tlsClientIdleTimeout) {
+        this.tlsClientIdleTimeout = Objects.requireNonNull(tlsClientIdleTimeout, "TLS client idle timeout cannot be null");
+    }
+
+    public long getResponseMemoryBudget() {
+        return responseMemoryBudget;
+    }
+
+    public void setResponseMemoryBudget(long responseMemoryBudget) {
+        if (responseMemoryBudget < 0) {
+            throw new IllegalArgumentException("Response memory budget cannot be negative");
+        }
+        this.responseMemoryBudget = responseMemoryBudget;
+    }
+
+    public JdkHttpMemoryBudgetPolicy getResponseMemoryBudgetPolicy() {
+        return responseMemoryBudgetPolicy;
+    }
+
+    public void setResponseMemoryBudgetPolicy(JdkHttpMemoryBudgetPolicy responseMemoryBudgetPolicy) {
+        this.responseMemoryBudgetPolicy = Objects.requireNonNull(responseMemoryBudgetPolicy, "Response memory budget policy cannot be null");
+    }
+
+    public Duration getResponseMemoryBudgetMaxWait() {
+        return responseMemoryBudgetMaxWait;
+    }
+
+    public void setResponseMemoryBudgetMaxWait(Duration responseMemoryBudgetMaxWait) {
+        this.responseMemoryBudgetMaxWait = Objects.requireNonNull(responseMemoryBudgetMaxWait, "Response memory budget max wait cannot be null");
+    }
+
+    public long getTotalBandwidthLimit() {
+        return totalBandwidthLimit;
+    }
+
+    public void setTotalBandwidthLimit(long totalBandwidthLimit) {
+        if (totalBandwidthLimit < 0) {
+            throw new IllegalArgumentException("Total bandwidth limit cannot be negative");
+        }
+        this.totalBandwidthLimit = totalBandwidthLimit;
+    }
+
+
     private void setEndpointParameters(JdkHttpEndpoint httpEndpoint) {
         if (httpVersion != null) {
             httpEndpoint.setHttpVersion(httpVersion);
@@ -274,4 +588,14 @@ public class JdkHttpComponent extends HeaderFilterStrategyComponent implements S
         }
     }
 
+    /**
+     * Builds a new client for a TLS identity using the shared executor of the component.
+     */
+    @FunctionalInterface
+    public interface TlsClientFactory {
+
+        HttpClient create(ExecutorService executorService) throws GeneralSecurityException, IOException;
+
+    }
+
 }
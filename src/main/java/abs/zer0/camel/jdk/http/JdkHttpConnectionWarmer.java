@@ -0,0 +1,163 @@
+package abs.zer0.camel.jdk.http;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pre-establishes connections of a {@link HttpClient} by sending lightweight concurrent warm-up requests,
+ * so that the TCP and TLS handshakes are not paid by the first requests of the route.
+ * <br/>
+ * The responses of warm-up requests are discarded, any response status counts as a successful warm-up
+ * because the connection was established.
+ */
+public class JdkHttpConnectionWarmer {
+
+    private static final Logger LOG = LoggerFactory.getLogger(JdkHttpConnectionWarmer.class);
+
+    private final HttpClient httpClient;
+    private final HttpRequest warmUpRequest;
+    private final int connections;
+    private final Duration timeout;
+
+    private final AtomicLong lastWarmUpDuration = new AtomicLong(-1);
+    private final AtomicInteger lastWarmUpSuccessCount = new AtomicInteger();
+    private final AtomicLong warmUpFailureCount = new AtomicLong();
+    private CompletableFuture<Integer> warmUpFuture;
+    private AtomicInteger warmUpSuccessCount;
+
+    /**
+     * Creates a new connection warmer.
+     *
+     * @param httpClient    the client whose connections are warmed up. Must not be {@code null}.
+     * @param warmUpRequest the request sent over every connection. Must not be {@code null}.
+     * @param connections   the number of connections to establish. Must be greater than 0.
+     * @param timeout       the maximum time to wait for the warm-up to complete. Must not be {@code null}.
+     */
+    public JdkHttpConnectionWarmer(HttpClient httpClient, HttpRequest warmUpRequest, int connections, Duration timeout) {
+        if (connections < 1) {
+            throw new IllegalArgumentException("Number of warm-up connections cannot be less than 1");
+        }
+        this.httpClient = Objects.requireNonNull(httpClient, "HTTP client cannot be null");
+        this.warmUpRequest = Objects.requireNonNull(warmUpRequest, "Warm-up request cannot be null");
+        this.connections = connections;
+        this.timeout = Objects.requireNonNull(timeout, "Warm-up timeout cannot be null");
+    }
+
+    /**
+     * Sends the warm-up requests concurrently and waits for them to complete within the timeout.
+     * If the warm-up does not complete within the timeout, it keeps running and {@link #isWarmingUp()} returns {@code true}.
+     *
+     * @return the number of successful warm-up requests, which is the number completed so far if the warm-up timed out.
+     * @throws InterruptedException if the current thread is interrupted while waiting.
+     */
+    public int warmUp() throws InterruptedException {
+        final CompletableFuture<Integer> future;
+        final AtomicInteger successCount;
+        synchronized (this) {
+            future = warmUpAsync();
+            successCount = warmUpSuccessCount;
+        }
+        try {
+            return future.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            LOG.warn("Warm-up of {} connections to {} did not complete within {}, {} connections warmed up so far",
+                    connections, warmUpRequest.uri(), timeout, successCount.get());
+            return successCount.get();
+        }
+    }
+
+    /**
+     * Sends the warm-up requests concurrently without waiting for them.
+     * If a warm-up is still running, no requests are sent and its future is returned.
+     *
+     * @return the future completed with the number of successful warm-up requests.
+     */
+    public synchronized CompletableFuture<Integer> warmUpAsync() {
+        if (isWarmingUp()) {
+            return warmUpFuture;
+        }
+
+        final long startNanos = System.nanoTime();
+        final AtomicInteger successCount = new AtomicInteger();
+
+        final CompletableFuture<?>[] futures = new CompletableFuture<?>[connections];
+        for (int i = 0; i < connections; i++) {
+            futures[i] = httpClient.sendAsync(warmUpRequest, HttpResponse.BodyHandlers.discarding())
+                    .handle((httpResponse, throwable) -> {
+                        if (throwable == null) {
+                            successCount.incrementAndGet();
+                        } else {
+                            warmUpFailureCount.incrementAndGet();
+                            LOG.debug("Warm-up request to {} failed", warmUpRequest.uri(), throwable);
+                        }
+                        return null;
+                    });
+        }
+
+        warmUpSuccessCount = successCount;
+        warmUpFuture = CompletableFuture.allOf(futures)
+                .thenApply(ignored -> {
+                    final long durationMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+                    lastWarmUpDuration.set(durationMillis);
+                    lastWarmUpSuccessCount.set(successCount.get());
+                    LOG.debug("Warmed up {}/{} connections to {} in {} ms", successCount.get(), connections, warmUpRequest.uri(), durationMillis);
+
+                    return successCount.get();
+                });
+
+        return warmUpFuture;
+    }
+
+    /**
+     * Checks whether a warm-up is running.
+     *
+     * @return {@code true} if the requests of the last warm-up have not all completed yet.
+     */
+    public synchronized boolean isWarmingUp() {
+        return warmUpFuture != null && !warmUpFuture.isDone();
+    }
+
+    /**
+     * Gets the duration of the last completed warm-up.
+     *
+     * @return the duration in millis, or {@code -1} if no warm-up has completed yet.
+     */
+    public long getLastWarmUpDuration() {
+        return lastWarmUpDuration.get();
+    }
+
+    /**
+     * Gets the number of successful requests of the last completed warm-up.
+     *
+     * @return the number of successful warm-up requests.
+     */
+    public int getLastWarmUpSuccessCount() {
+        return lastWarmUpSuccessCount.get();
+    }
+
+    /**
+     * Gets the total number of failed warm-up requests.
+     *
+     * @return the number of failed warm-up requests.
+     */
+    public long getWarmUpFailureCount() {
+        return warmUpFailureCount.get();
+    }
+
+    public int getConnections() {
+        return connections;
+    }
+
+}
@@ -43,12 +43,48 @@ public final class JdkHttpConstants {
             " Will override existing URI set directly on the endpoint.")
     public static final String HTTP_URI = Exchange.HTTP_URI;
 
+    @Metadata(label = "producer", javaType = "Object", description = "The TLS identity to use for the request." +
+            " Either an org.apache.camel.support.jsse.SSLContextParameters instance or the name of such a bean in the registry." +
+            " Can also be set as an exchange property." +
+            " Clients per TLS identity are cached by the component.")
+    public static final String SSL_CONTEXT_PARAMETERS = "CamelJdkHttpSslContextParameters";
+    @Metadata(label = "producer", javaType = "Object", description = "The file to download the response body into when ranged download is enabled." +
+            " Either a java.nio.file.Path, a java.io.File or a file name." +
+            " If not set, a temporary file is created in the download directory.")
+    public static final String DOWNLOAD_FILE = "CamelJdkHttpDownloadFile";
+    @Metadata(label = "producer", javaType = "int", description = "The number of exchanges sent in the same bulk request when batching is enabled." +
+            " Set as an exchange property on every exchange of the batch.")
+    public static final String BATCH_SIZE = "CamelJdkHttpBatchSize";
+    @Metadata(label = "producer", javaType = "abs.zer0.camel.jdk.http.JdkHttpStatusOutcome", description = "The outcome category of the response status code," +
+            " e.g. SUCCESS for a status code within the OK status code ranges or CLIENT_ERROR for any other 4xx status code." +
+            " Set as an exchange property for every response, so routes using the PROPERTY failure mode can branch on it.")
+    public static final String STATUS_OUTCOME = "CamelJdkHttpStatusOutcome";
+    @Metadata(label = "producer", javaType = "abs.zer0.camel.jdk.http.JdkHttpPriority", description = "The priority class of the request when it waits for an in-flight permit," +
+            " either HIGH, NORMAL or LOW. Overrides the priority of the endpoint.")
+    public static final String PRIORITY = "CamelJdkHttpPriority";
+    @Metadata(label = "producer", javaType = "java.time.Instant", description = "The deadline of the exchange, either a java.time.Instant, the milliseconds since the epoch or an ISO-8601 instant." +
+            " Can be set as a header or an exchange property." +
+            " The request timeout is limited to the time remaining until the deadline and a request is skipped if the deadline has passed." +
+            " The deadline resolved by the producer is set as an exchange property, so later calls of the route share the same deadline.")
+    public static final String DEADLINE = "CamelJdkHttpDeadline";
+    @Metadata(label = "producer", javaType = "abs.zer0.camel.jdk.http.JdkHttpPhaseTimings", description = "The breakdown of the time of the request into its phases:" +
+            " building the request, queueing, waiting for the response headers, receiving the body and binding the response." +
+            " Set as an exchange property if phase timings are enabled on the endpoint.")
+    public static final String PHASE_TIMINGS = "CamelJdkHttpPhaseTimings";
+
     @Metadata(javaType = "String", description = "The HTTP Content-Type.")
     public static final String CONTENT_TYPE = Exchange.CONTENT_TYPE;
     @Metadata(javaType = "String", description = "The HTTP Content-Length.")
     public static final String CONTENT_LENGTH = Exchange.CONTENT_LENGTH;
     public static final String EXPECT = "Expect";
     public static final String LOCATION = "Location";
+    public static final String RETRY_AFTER = "Retry-After";
+    public static final String ACCEPT_RANGES = "Accept-Ranges";
+    public static final String RANGE = "Range";
+    public static final String IF_RANGE = "If-Range";
+    public static final String CONTENT_RANGE = "Content-Range";
+    public static final String ETAG = "ETag";
+    public static final String LAST_MODIFIED = "Last-Modified";
 
     @Metadata(label = "producer", javaType = "int", description = "The HTTP response code from the external server.")
     public static final String HTTP_RESPONSE_CODE = Exchange.HTTP_RESPONSE_CODE;
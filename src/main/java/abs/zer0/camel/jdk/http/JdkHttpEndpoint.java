@@ -1,25 +1,58 @@
 package abs.zer0.camel.jdk.http;
 
+import org.apache.camel.CamelExchangeException;
 import org.apache.camel.Category;
 import org.apache.camel.Consumer;
+import org.apache.camel.Exchange;
 import org.apache.camel.Processor;
 import org.apache.camel.Producer;
+import org.apache.camel.TypeConversionException;
+import org.apache.camel.api.management.ManagedAttribute;
+import org.apache.camel.api.management.ManagedResource;
 import org.apache.camel.spi.*;
 import org.apache.camel.support.DefaultEndpoint;
+import org.apache.camel.support.ExchangeHelper;
+import org.apache.camel.support.SynchronizationAdapter;
 import org.apache.camel.support.jsse.SSLContextParameters;
+import org.apache.camel.util.FileUtil;
 import org.apache.camel.util.IOHelper;
+import org.apache.camel.util.URISupport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.Closeable;
+import java.io.File;
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.net.ProxySelector;
 import java.net.URI;
 import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.security.GeneralSecurityException;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 @UriEndpoint(
         firstVersion = "4.14.0",
@@ -37,10 +70,14 @@ import java.util.concurrent.Executors;
                 "protocol=http"
         }
 )
+@ManagedResource(description = "Managed JdkHttpEndpoint")
 public class JdkHttpEndpoint extends DefaultEndpoint implements EndpointServiceLocation, HeaderFilterStrategyAware {
 
+    private static final Logger LOG = LoggerFactory.getLogger(JdkHttpEndpoint.class);
+
     @UriParam(label = "advanced", description = "To use custom JDK HttpClient.")
-    private HttpClient httpClient;
+    private volatile HttpClient httpClient;
+    private boolean httpClientCreated;
 
     @UriPath(name = "httpUri", description = "The URL of the HTTP endpoint to call.")
     @Metadata(required = true)
@@ -57,6 +94,12 @@ public class JdkHttpEndpoint extends DefaultEndpoint implements EndpointServiceL
     @UriParam(label = "producer", defaultValue = "true", description = "Option to disable throwing the HttpOperationFailedException in case of failed responses from the remote server."
             + " This allows you to get all responses regardless of the HTTP status code.")
     private Boolean throwExceptionOnFailure;
+    @UriParam(label = "producer", defaultValue = "EXCEPTION", description = "How a response with a status code which is not a success is signalled when throwExceptionOnFailure is enabled." +
+            " EXCEPTION fails the exchange with an HttpOperationFailedException." +
+            " STACKLESS fails the exchange with an HttpOperationFailedException without a stack trace, which is cheaper when failures are frequent." +
+            " It does not capture the response body either, and copies the response headers only when read." +
+            " PROPERTY does not fail the exchange, the route branches on the CamelJdkHttpStatusOutcome exchange property instead.")
+    private JdkHttpFailureMode failureMode = JdkHttpFailureMode.EXCEPTION;
     @UriParam(label = "advanced", defaultValue = "200-299", description = "The status codes which are considered a success response." +
             " The values are inclusive." +
             " Multiple ranges can be defined, separated by comma, e.g. 200-204,209,301-304." +
@@ -69,6 +112,26 @@ public class JdkHttpEndpoint extends DefaultEndpoint implements EndpointServiceL
     @UriParam(label = "producer", defaultValue = "false", description = "Determines whether or not the HTTP response body is converted to byte array or not." +
             " The producer (camel-jdk-http) will by default use InputStream for read HTTP response body.")
     private Boolean responseBodyAsByteArray;
+    @UriParam(label = "producer,advanced", defaultValue = "false", description = "Determines whether the HTTP response headers are exposed lazily." +
+            " If enabled, the message headers are backed by the response headers, which are filtered and copied only when accessed." +
+            " This reduces allocations for responses with many headers of which the route reads only a few.")
+    private boolean lazyResponseHeaders = false;
+    @UriParam(label = "producer", defaultValue = "65536", description = "The maximum number of bytes of an error response body captured into the HttpOperationFailedException." +
+            " An error body within the limit is read to its end, so the connection can be reused, and is attached to the exception with the response headers." +
+            " An error body above the limit is closed early, which discards the connection. Zero disables the capture.")
+    private int errorBodyMaxSize = 65536;
+    @UriParam(label = "producer", defaultValue = "0", description = "The maximum number of bytes of a response body, which bounds the memory used by a single response." +
+            " The Content-Length is checked before the body is read and the bytes of a chunked body are counted while it is read." +
+            " When the limit is exceeded the transfer is cancelled and the responseSizePolicy applies. Zero means no limit.")
+    private long maxResponseBodySize = 0;
+    @UriParam(label = "producer", defaultValue = "FAIL", description = "What happens to a response whose body exceeds the maxResponseBodySize." +
+            " FAIL fails the exchange with an IOException, TRUNCATE cuts the body off at the limit.")
+    private JdkHttpResponseSizePolicy responseSizePolicy = JdkHttpResponseSizePolicy.FAIL;
+    @UriParam(label = "producer", description = "The delimiter written after each element of a streaming request body, e.g. a newline for NDJSON." +
+            " A message body which is an Iterator, a java.util.stream.Stream or a java.util.concurrent.Flow.Publisher is sent chunked," +
+            " pulling and converting the elements lazily as the request is written." +
+            " The escape sequences \\n, \\r and \\t are supported. By default elements are not delimited.")
+    private String streamingBodyDelimiter;
 
     @UriParam(label = "timeout", defaultValue = "PT30S", description = "Sets the connect timeout duration for JDK HttpClient." +
             " In the case where a new connection needs to be established, if the connection cannot be established within the given duration, then HttpClient::send throws an HttpConnectTimeoutException, or HttpClient::sendAsync completes exceptionally with an HttpConnectTimeoutException." +
@@ -77,11 +140,47 @@ public class JdkHttpEndpoint extends DefaultEndpoint implements EndpointServiceL
     @UriParam(label = "timeout", defaultValue = "infinite Duration", description = "Sets a timeout for HTTP request." +
             " If the response is not received within the specified timeout then an HttpTimeoutException is thrown from HttpClient::send or HttpClient::sendAsync completes exceptionally with an HttpTimeoutException.")
     private Duration responseTimeout;
+    @UriParam(label = "advanced", defaultValue = "false", description = "Whether to set the breakdown of the time of every request into its phases as the CamelJdkHttpPhaseTimings exchange property:" +
+            " building the request, queueing, waiting for the response headers, receiving the body and binding the response.")
+    private boolean phaseTimings;
+    @UriParam(label = "advanced", description = "The time above which a request is logged at WARN level with its phase breakdown, URI and status." +
+            " The number of logged requests is limited by slowRequestSampleLimit per slowRequestSampleInterval.")
+    private Duration slowRequestThreshold;
+    @UriParam(label = "advanced", defaultValue = "10", description = "The maximum number of slow requests logged per slowRequestSampleInterval.")
+    private int slowRequestSampleLimit = 10;
+    @UriParam(label = "advanced", defaultValue = "PT1M", description = "The interval of the limit of the logged slow requests.")
+    private Duration slowRequestSampleInterval = Duration.ofMinutes(1);
+    @UriParam(label = "timeout", defaultValue = "false", description = "Whether to derive the response timeout from the observed latencies instead of the fixed responseTimeout." +
+            " The time to receive the response headers of every request is recorded in a histogram over the adaptiveTimeoutWindow," +
+            " and the timeout is the adaptiveTimeoutPercentile of these latencies times the adaptiveTimeoutMultiplier, clamped between the adaptiveTimeoutFloor and the adaptiveTimeoutCeiling." +
+            " While too few latencies are recorded within the window the last timeout is kept, which is the ceiling before the first estimate.")
+    private boolean adaptiveTimeout;
+    @UriParam(label = "timeout", defaultValue = "99.0", description = "The percentile of the observed latencies the adaptive timeout is derived from.")
+    private double adaptiveTimeoutPercentile = 99.0;
+    @UriParam(label = "timeout", defaultValue = "2.0", description = "The multiplier of the latency percentile giving the adaptive timeout.")
+    private double adaptiveTimeoutMultiplier = 2.0;
+    @UriParam(label = "timeout", defaultValue = "PT1S", description = "The lowest adaptive timeout.")
+    private Duration adaptiveTimeoutFloor = Duration.ofSeconds(1);
+    @UriParam(label = "timeout", defaultValue = "PT60S", description = "The highest adaptive timeout, which also applies until enough latencies are recorded for the first estimate.")
+    private Duration adaptiveTimeoutCeiling = Duration.ofSeconds(60);
+    @UriParam(label = "timeout", defaultValue = "PT5S", description = "The time window of the latencies the adaptive timeout is derived from." +
+            " Older latencies stop counting, so the timeout follows a latency shift of the upstream within the window.")
+    private Duration adaptiveTimeoutWindow = Duration.ofSeconds(5);
+    @UriParam(label = "timeout", description = "The name of the incoming header carrying the timeout budget of the exchange, in milliseconds or as an ISO-8601 duration." +
+            " The budget counts from the creation of the exchange, so the time already spent in the route is deducted from the timeout of the request.")
+    private String deadlineHeader;
+    @UriParam(label = "timeout", description = "The timeout budget of an exchange, counted from its creation." +
+            " The timeout of each request, including retries, is limited to the remaining budget and a request is skipped once the budget is exhausted." +
+            " The earliest of this budget, the deadlineHeader budget and the CamelJdkHttpDeadline header or property applies.")
+    private Duration timeoutBudget;
+    @UriParam(label = "timeout", description = "The name of the request header propagating the remaining budget of the exchange to the upstream, in milliseconds.")
+    private String deadlinePropagationHeader;
     @UriParam(label = "advanced", defaultValue = "20", description = "The maximum number of connections.")
     private int maxConnections = 20;
     @UriParam(label = "security", description = "To configure security using SSLContextParameters."
             + " Important: Only one instance of org.apache.camel.support.jsse.SSLContextParameters is supported per JdkHttpComponent."
-            + " If you need to use 2 or more different instances, you need to define a new JdkHttpComponent per instance you need.")
+            + " If you need to use 2 or more different instances, you need to define a new JdkHttpComponent per instance you need,"
+            + " or select the instance per exchange with the CamelJdkHttpSslContextParameters header.")
     private SSLContextParameters sslContextParameters;
 
     @UriParam(label = "advanced", defaultValue = "NORMAL", description = "Specifies whether requests will automatically follow redirects issued by the server." +
@@ -96,12 +195,181 @@ public class JdkHttpEndpoint extends DefaultEndpoint implements EndpointServiceL
     private boolean useSystemProperties = false;
     @UriParam(label = "async,advanced", defaultValue = "false", description = "To use asynchronous Camel Endpoint implementation and JDK HttpClient call.")
     private boolean async = false;
+    @UriParam(label = "async,advanced", description = "To use a custom executor to continue the route on when an asynchronous response is received." +
+            " By default the route continues on the thread of the JDK HttpClient executor which completed the response," +
+            " which competes with the I/O of the client under load." +
+            " With the BLOCK response memory budget policy of the component, a Camel thread pool is used by default instead.")
+    private ExecutorService completionExecutorService;
+    @UriParam(label = "async,advanced", description = "The id of the Camel thread pool profile to create the completion executor from," +
+            " if no completionExecutorService is set." +
+            " Virtual threads are used when enabled for Camel thread pools and supported by the JVM.")
+    private String completionThreadPoolProfile;
+    @UriParam(label = "async,advanced", defaultValue = "PT1S", description = "The interval to check the exchanges of in-flight asynchronous requests." +
+            " Requests of exchanges which are marked to stop the route, marked rollback only or interrupted are cancelled," +
+            " which releases their connection and discards the response. Zero disables the check.")
+    private Duration abandonedCheckInterval = Duration.ofSeconds(1);
+    @UriParam(label = "async,advanced", defaultValue = "PT0S", description = "The maximum time the asynchronous producer waits for in-flight requests to complete when it stops," +
+            " in addition to the graceful shutdown of the routes, which already waits for their inflight exchanges." +
+            " Requests still in flight after this time are cancelled. Zero cancels them right away.")
+    private Duration inFlightStopTimeout = Duration.ZERO;
 
     @UriParam(label = "proxy", description = "Sets the proxy server host.")
     private String proxyHost;
     @UriParam(label = "proxy", description = "Sets the proxy server port.")
     private Integer proxyPort;
 
+    @UriParam(label = "producer,throttling", description = "The maximum number of requests per second." +
+            " Requests exceeding the rate wait for a permit of the token bucket." +
+            " When the server responds with 429 or Retry-After the rate is reduced automatically and recovers gradually." +
+            " By default rate limiting is disabled.")
+    private double rateLimit;
+    @UriParam(label = "producer,throttling", defaultValue = "1", description = "The maximum number of requests which may be sent in a burst after an idle period.")
+    private int rateLimitBurst = 1;
+    @UriParam(label = "producer,throttling", defaultValue = "ENDPOINT", description = "Determines whether the rate limit is applied per endpoint" +
+            " or per origin (scheme, host and port) shared by all endpoints of the component.")
+    private JdkHttpRateLimitKey rateLimitKey = JdkHttpRateLimitKey.ENDPOINT;
+    @UriParam(label = "producer,throttling", defaultValue = "PT30S", description = "The maximum time a request waits for a rate limit permit." +
+            " If a permit is not available within this time the exchange fails.")
+    private Duration rateLimitMaxWait = Duration.ofSeconds(30);
+    @UriParam(label = "producer,throttling", description = "The maximum number of request and response body bytes per second transferred by this endpoint." +
+            " Body buffers are paced through a token bucket, delaying their delivery without blocking the threads of the HTTP client." +
+            " The totalBandwidthLimit of the component applies in addition. By default the bandwidth is not limited.")
+    private long bandwidthLimit;
+
+    @UriParam(label = "producer", description = "The maximum number of requests in flight at the same time sent by the producers of the endpoints to the same origin." +
+            " The limit is shared by all endpoints sending to the origin, so their requests are scheduled by priority class against the same permits." +
+            " The limit of an origin has the settings of the first endpoint sending to it, including the in-flight queue size, priority weights" +
+            " and earliestDeadlineFirst, and a different limit of another endpoint is ignored with a warning." +
+            " Excess exchanges are handled according to the inFlightOverflowPolicy." +
+            " By default the number of in-flight requests is not limited.")
+    private int maxInFlight;
+    @UriParam(label = "producer", defaultValue = "1000", description = "The maximum number of exchanges parked while waiting for an in-flight permit with the WAIT overflow policy.")
+    private int maxInFlightQueueSize = 1000;
+    @UriParam(label = "producer", defaultValue = "WAIT", description = "Determines what happens when the maximum number of in-flight requests is reached." +
+            " WAIT parks the exchange until a permit is released, without holding a thread in asynchronous mode and blocking the calling thread otherwise," +
+            " REJECT fails the exchange and CALLER_RUNS sends the request without a permit on the calling thread.")
+    private JdkHttpOverflowPolicy inFlightOverflowPolicy = JdkHttpOverflowPolicy.WAIT;
+    @UriParam(label = "producer", defaultValue = "PT30S", description = "The maximum time an exchange stays parked while waiting for an in-flight permit.")
+    private Duration maxInFlightWait = Duration.ofSeconds(30);
+    @UriParam(label = "producer", defaultValue = "false", description = "Whether the maximum number of in-flight requests adapts to the upstream." +
+            " The limit is shared by all endpoints sending to the same origin and is estimated from the round-trip times compared to the minimum round-trip time" +
+            " and from failed, timed out or throttled requests: it grows additively while the upstream keeps up and shrinks multiplicatively when it degrades." +
+            " Downloads and cancelled requests are not sampled." +
+            " The maxInFlight option is the highest limit, by default 1000." +
+            " The limit of an origin has the settings of the first endpoint sending to it, other settings are ignored with a warning.")
+    private boolean adaptiveConcurrency;
+    @UriParam(label = "producer", defaultValue = "1", description = "The lowest number of in-flight requests the adaptive concurrency limit may shrink to.")
+    private int adaptiveConcurrencyMinLimit = 1;
+    @UriParam(label = "producer", defaultValue = "2.0", description = "The ratio of the round-trip time to the minimum round-trip time" +
+            " above which the upstream is considered congested and the adaptive concurrency limit shrinks.")
+    private double adaptiveConcurrencyRttTolerance = 2.0;
+    @UriParam(label = "producer", defaultValue = "NORMAL", description = "The priority class of the requests of this endpoint while they wait for an in-flight permit." +
+            " Can be overridden per exchange by the CamelJdkHttpPriority header." +
+            " Parked requests are dispatched by weighted round-robin over the priority classes.")
+    private JdkHttpPriority priority = JdkHttpPriority.NORMAL;
+    @UriParam(label = "producer", defaultValue = "8,4,1", description = "The weights of the HIGH, NORMAL and LOW priority classes, separated by comma." +
+            " A class with twice the weight of another gets twice as many in-flight permits while both have parked requests, so no class is starved.")
+    private String priorityWeights = "8,4,1";
+    @UriParam(label = "producer", defaultValue = "false", description = "Whether parked requests of the same priority class are dispatched earliest deadline first," +
+            " by the deadline of their exchange, instead of in FIFO order. Requests without a deadline are dispatched after those with one, in FIFO order.")
+    private boolean earliestDeadlineFirst;
+
+    @UriParam(label = "producer,advanced", description = "The number of connections to the endpoint origin established when the endpoint starts." +
+            " Connections are pre-established by sending concurrent warm-up requests, so the first requests do not pay the TCP and TLS handshake costs." +
+            " By default warm-up is disabled.")
+    private int warmUpConnections;
+    @UriParam(label = "producer,advanced", defaultValue = "HEAD", enums = "HEAD,OPTIONS", description = "The HTTP method of the warm-up requests.")
+    private String warmUpMethod = "HEAD";
+    @UriParam(label = "producer,advanced", description = "To use a custom warm-up request instead of the warmUpMethod request to the endpoint URI.")
+    private HttpRequest warmUpRequest;
+    @UriParam(label = "producer,advanced", defaultValue = "PT30S", description = "The maximum time the endpoint start waits for the warm-up to complete.")
+    private Duration warmUpTimeout = Duration.ofSeconds(30);
+    @UriParam(label = "producer,advanced", description = "The interval to keep warm the connections while the endpoint is idle." +
+            " When no request was sent within the interval, warm-up requests are sent again." +
+            " The interval should be shorter than the idle timeout of the remote server." +
+            " Requires warmUpConnections to be set. By default keep-warm is disabled.")
+    private Duration keepWarmInterval;
+
+    @UriParam(label = "producer,batch", description = "The maximum number of exchanges sent in a single bulk request by the asynchronous producer." +
+            " Exchanges are buffered until the batch is full, exceeds batchMaxBytes or batchLinger elapses," +
+            " encoded into one request body by the batchEncoder, and the response is demultiplexed back onto every exchange." +
+            " Only exchanges with equal request headers, including the Camel headers selecting the URI and the method, are batched together," +
+            " and these headers are sent with the bulk request." +
+            " By default batching is disabled.")
+    private int batchSize;
+    @UriParam(label = "producer,batch", defaultValue = "1048576", description = "The maximum number of encoded bytes of a batch, or 0 for no limit.")
+    private long batchMaxBytes = 1024 * 1024;
+    @UriParam(label = "producer,batch", defaultValue = "PT0.1S", description = "The maximum time an exchange waits for its batch to fill up before the batch is sent.")
+    private Duration batchLinger = Duration.ofMillis(100);
+    @UriParam(label = "producer,batch", description = "To use a custom encoder of the bulk requests." +
+            " By default the exchanges are encoded as newline-delimited JSON.")
+    private JdkHttpBatchEncoder batchEncoder = new JdkHttpNdjsonBatchEncoder();
+
+    @UriParam(label = "producer,upload", defaultValue = "false", description = "Whether exchanges are appended to a long-lived chunked POST request instead of sending a request per exchange." +
+            " The endpoint keeps one streaming upload open per origin, and every exchange appends its body, followed by the streamingBodyDelimiter if set." +
+            " The upload of an origin is sent to the URI and with the headers of the exchange which opened its channel." +
+            " The upload is rotated when it reaches streamingUploadMaxBytes or streamingUploadMaxAge," +
+            " and a failed upload fails the exchanges until the next rotation, that is for streamingUploadMaxAge." +
+            " Exchanges complete once their body is handed to the HTTP client, so there is no response per exchange," +
+            " and an exchange whose body is still buffered when the upload fails is failed." +
+            " Upload channels without exchanges for streamingUploadMaxAge are closed.")
+    private boolean streamingUpload = false;
+    @UriParam(label = "producer,upload", defaultValue = "67108864", description = "The number of body bytes after which a streaming upload is rotated.")
+    private long streamingUploadMaxBytes = 64 * 1024 * 1024;
+    @UriParam(label = "producer,upload", defaultValue = "PT1M", description = "The time after which a streaming upload is rotated.")
+    private Duration streamingUploadMaxAge = Duration.ofMinutes(1);
+    @UriParam(label = "producer,upload", defaultValue = "1000", description = "The maximum number of exchange bodies buffered while the server does not accept more data.")
+    private int streamingUploadBufferSize = 1000;
+    @UriParam(label = "producer,upload", defaultValue = "PT30S", description = "The maximum time an exchange waits while the streaming upload buffer is full." +
+            " The asynchronous producer does not block a thread while waiting. If the buffer stays full for this time the exchange fails.")
+    private Duration streamingUploadMaxWait = Duration.ofSeconds(30);
+
+    @UriParam(label = "producer,download", defaultValue = "false", description = "Whether GET responses are downloaded into a file using concurrent Range requests." +
+            " The resource is probed with a HEAD request, and if the server accepts byte ranges it is split into segments requested in parallel," +
+            " otherwise, or if the server rejects the HEAD request, it is downloaded with a single request." +
+            " The message body is the java.nio.file.Path of the downloaded file.")
+    private boolean rangedDownload = false;
+    @UriParam(label = "producer,download", defaultValue = "8388608", description = "The size in bytes of a segment of a ranged download.")
+    private long downloadSegmentSize = 8 * 1024 * 1024;
+    @UriParam(label = "producer,download", defaultValue = "4", description = "The maximum number of segments of a ranged download requested at the same time.")
+    private int downloadParallelism = 4;
+    @UriParam(label = "producer,download", defaultValue = "3", description = "The number of times a segment failing with an I/O error is requested again from its last written byte.")
+    private int downloadSegmentRetries = 3;
+    @UriParam(label = "producer,download", defaultValue = "false", description = "Whether GET responses are downloaded into a file with a resumable transfer." +
+            " When the transfer fails with a transport error or timeout, the rest of the resource is requested with a Range and If-Range request" +
+            " and appended to the bytes already written, instead of restarting the download." +
+            " If the server does not support ranges, the download restarts from the first byte." +
+            " The message body is the java.nio.file.Path of the downloaded file." +
+            " Combined with rangedDownload, it applies to resources downloaded with a single request.")
+    private boolean resumableDownload = false;
+    @UriParam(label = "producer,download", defaultValue = "3", description = "The number of times a resumable download failing with an I/O error is resumed.")
+    private int downloadResumeRetries = 3;
+    @UriParam(label = "producer,download", description = "The directory of the temporary files created for downloads without the CamelJdkHttpDownloadFile header." +
+            " By default the system temporary directory is used.")
+    private String downloadDirectory;
+
+    private volatile JdkHttpRateLimiter rateLimiter;
+    private JdkHttpBandwidthLimiter bandwidthLimiter;
+    private JdkHttpBandwidthThrottle bandwidthThrottle;
+    private JdkHttpAdaptiveTimeout adaptiveTimeoutInstance;
+    private volatile JdkHttpSlowRequestSampler slowRequestSampler;
+    private volatile JdkHttpInFlightLimiter inFlightLimiter;
+    // the limiters shared through the component, resolved once per origin so their settings are checked only once
+    private final Map<String, JdkHttpInFlightLimiter> originInFlightLimiters = new ConcurrentHashMap<>();
+    private final Map<String, JdkHttpRateLimiter> originRateLimiters = new ConcurrentHashMap<>();
+    private JdkHttpConnectionWarmer connectionWarmer;
+    private ScheduledFuture<?> keepWarmFuture;
+    private ScheduledFuture<?> uploadEvictionFuture;
+    private volatile long lastRequestNanos = System.nanoTime();
+    private final Map<String, JdkHttpUploadChannel> uploadChannels = new ConcurrentHashMap<>();
+    private ExecutorService completionExecutor;
+    private boolean completionExecutorCreated;
+    private final AtomicInteger pendingCompletions = new AtomicInteger();
+    private final LongAdder completionHandoffCount = new LongAdder();
+    private final LongAdder completionHandoffNanos = new LongAdder();
+    private final AtomicLong maxCompletionHandoffNanos = new AtomicLong();
+    private final LongAdder cancelledRequestCount = new LongAdder();
+
     public JdkHttpEndpoint(String endpointUri, JdkHttpComponent component) {
         super(endpointUri, component);
         this.httpUri = URI.create(endpointUri);
@@ -110,17 +378,17 @@ public class JdkHttpEndpoint extends DefaultEndpoint implements EndpointServiceL
 
     @Override
     public Producer createProducer() throws Exception {
-        final HttpClient resolvedHttpClient = resolveHttpClient();
-        if (httpClient != resolvedHttpClient) {
-            setHttpClient(resolvedHttpClient);
-        }
-
         final JdkHttpBinding httpBinding = new JdkHttpBinding(httpUri);
         setBindingParameters(httpBinding);
 
         return async ?
-                new JdkHttpAsyncProducer(this, httpClient, httpBinding) :
-                new JdkHttpProducer(this, httpClient, httpBinding);
+                new JdkHttpAsyncProducer(this, httpBinding) :
+                new JdkHttpProducer(this, httpBinding);
+    }
+
+    @Override
+    public JdkHttpComponent getComponent() {
+        return (JdkHttpComponent) super.getComponent();
     }
 
     @Override
@@ -128,9 +396,79 @@ public class JdkHttpEndpoint extends DefaultEndpoint implements EndpointServiceL
         throw new UnsupportedOperationException("Cannot consume from http endpoint");
     }
 
+    @Override
+    protected void doStart() throws Exception {
+        super.doStart();
+
+        if (slowRequestThreshold != null) {
+            slowRequestSampler = new JdkHttpSlowRequestSampler(slowRequestThreshold, slowRequestSampleLimit, slowRequestSampleInterval);
+        }
+
+        if (completionExecutorService != null) {
+            completionExecutor = completionExecutorService;
+        } else if (completionThreadPoolProfile != null && !completionThreadPoolProfile.isBlank()) {
+            completionExecutor = getCamelContext().getExecutorServiceManager()
+                    .newThreadPool(this, "JdkHttpCompletion", completionThreadPoolProfile);
+            completionExecutorCreated = true;
+        } else if (async && isBlockingMemoryBudget()) {
+            // waiting for memory on the client threads would starve the responses which release it
+            completionExecutor = getCamelContext().getExecutorServiceManager().newDefaultThreadPool(this, "JdkHttpCompletion");
+            completionExecutorCreated = true;
+        }
+
+        if (streamingUpload) {
+            // a channel without writes for the maximum age has no open upload left, so it is closed and removed
+            final long maxAgeNanos = streamingUploadMaxAge.toNanos();
+            uploadEvictionFuture = getComponent().getScheduledExecutorService().scheduleWithFixedDelay(
+                    this::evictIdleUploadChannels, maxAgeNanos, maxAgeNanos, TimeUnit.NANOSECONDS);
+        }
+
+        if (warmUpConnections > 0) {
+            connectionWarmer = new JdkHttpConnectionWarmer(getOrCreateHttpClient(), createWarmUpRequest(), warmUpConnections, warmUpTimeout);
+            final int successCount = connectionWarmer.warmUp();
+            // a timed out warm-up is logged by the warmer
+            if (!connectionWarmer.isWarmingUp()) {
+                LOG.info("Warmed up {}/{} connections to {} in {} ms",
+                        successCount, warmUpConnections, httpUri, connectionWarmer.getLastWarmUpDuration());
+            }
+
+            if (keepWarmInterval != null && !keepWarmInterval.isZero()) {
+                final long intervalNanos = keepWarmInterval.toNanos();
+                keepWarmFuture = getComponent().getScheduledExecutorService().scheduleWithFixedDelay(() -> {
+                    if (System.nanoTime() - lastRequestNanos >= intervalNanos && !connectionWarmer.isWarmingUp()) {
+                        connectionWarmer.warmUpAsync();
+                    }
+                }, intervalNanos, intervalNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
     @Override
     protected void doStop() throws Exception {
-        closeHttpClient();
+        if (keepWarmFuture != null) {
+            keepWarmFuture.cancel(false);
+            keepWarmFuture = null;
+        }
+        if (uploadEvictionFuture != null) {
+            uploadEvictionFuture.cancel(false);
+            uploadEvictionFuture = null;
+        }
+        uploadChannels.values().forEach(JdkHttpUploadChannel::close);
+        uploadChannels.clear();
+        originInFlightLimiters.clear();
+        originRateLimiters.clear();
+        if (completionExecutorCreated) {
+            getCamelContext().getExecutorServiceManager().shutdownGraceful(completionExecutor);
+            completionExecutorCreated = false;
+        }
+        completionExecutor = null;
+        synchronized (this) {
+            closeHttpClient();
+            if (httpClientCreated) {
+                httpClient = null;
+                httpClientCreated = false;
+            }
+        }
         super.doStop();
     }
 
@@ -153,12 +491,76 @@ public class JdkHttpEndpoint extends DefaultEndpoint implements EndpointServiceL
         return httpClient;
     }
 
+    /**
+     * Gets the HTTP client of this endpoint, building it on first use.
+     * The client is built lazily on the first request rather than on producer creation,
+     * so that endpoints which are never called do not pay for loading key stores and starting executors.
+     *
+     * @return the {@link HttpClient}.
+     * @throws GeneralSecurityException if the SSL context cannot be initialized.
+     * @throws IOException              if the key or trust stores cannot be loaded.
+     */
+    public HttpClient getOrCreateHttpClient() throws GeneralSecurityException, IOException {
+        HttpClient resolvedHttpClient = httpClient;
+        if (resolvedHttpClient == null) {
+            synchronized (this) {
+                resolvedHttpClient = httpClient;
+                if (resolvedHttpClient == null) {
+                    resolvedHttpClient = createHttpClient();
+                    httpClient = resolvedHttpClient;
+                    httpClientCreated = true;
+                }
+            }
+        }
+
+        return resolvedHttpClient;
+    }
+
+    /**
+     * Resolves the HTTP client for the given exchange.
+     * If the exchange selects a TLS identity with the {@link JdkHttpConstants#SSL_CONTEXT_PARAMETERS} header or exchange property,
+     * the client for that identity is taken from the client cache of the component,
+     * otherwise the client of this endpoint is used.
+     *
+     * @param exchange the exchange to send.
+     * @return the {@link HttpClient} to send the exchange with.
+     * @throws GeneralSecurityException if the SSL context cannot be initialized.
+     * @throws IOException              if the key or trust stores cannot be loaded.
+     * @throws IllegalArgumentException if the selected TLS identity cannot be resolved.
+     */
+    public HttpClient resolveHttpClient(Exchange exchange) throws GeneralSecurityException, IOException {
+        Object tlsIdentity = exchange.getMessage().getHeader(JdkHttpConstants.SSL_CONTEXT_PARAMETERS);
+        if (tlsIdentity == null) {
+            tlsIdentity = exchange.getProperty(JdkHttpConstants.SSL_CONTEXT_PARAMETERS);
+        }
+        if (tlsIdentity == null) {
+            return getOrCreateHttpClient();
+        }
+
+        final SSLContextParameters exchangeSslContextParameters;
+        if (tlsIdentity instanceof SSLContextParameters parameters) {
+            exchangeSslContextParameters = parameters;
+        } else {
+            final String name = exchange.getContext().getTypeConverter().convertTo(String.class, exchange, tlsIdentity);
+            exchangeSslContextParameters = getCamelContext().getRegistry().lookupByNameAndType(name, SSLContextParameters.class);
+            if (exchangeSslContextParameters == null) {
+                throw new IllegalArgumentException("SSLContextParameters not found in registry: " + name);
+            }
+        }
+
+        final JdkHttpClientCache.Key key = new JdkHttpClientCache.Key(exchangeSslContextParameters,
+                httpVersion, connectTimeout, redirectPolicy, http2Priority, proxyHost, proxyPort);
+
+        return getComponent().getTlsHttpClient(key, executor -> createHttpClient(exchangeSslContextParameters, executor));
+    }
+
     public synchronized void setHttpClient(HttpClient httpClient) {
         Objects.requireNonNull(httpClient, "HTTP client cannot be null");
         if (this.httpClient != null) {
             closeHttpClient();
         }
         this.httpClient = httpClient;
+        this.httpClientCreated = false;
     }
 
     public URI getHttpUri() {
@@ -195,6 +597,14 @@ public class JdkHttpEndpoint extends DefaultEndpoint implements EndpointServiceL
         this.throwExceptionOnFailure = throwExceptionOnFailure;
     }
 
+    public JdkHttpFailureMode getFailureMode() {
+        return failureMode;
+    }
+
+    public void setFailureMode(JdkHttpFailureMode failureMode) {
+        this.failureMode = Objects.requireNonNull(failureMode, "Failure mode cannot be null");
+    }
+
     public String getOkStatusCodeRanges() {
         return okStatusCodeRanges;
     }
@@ -219,6 +629,55 @@ public class JdkHttpEndpoint extends DefaultEndpoint implements EndpointServiceL
         this.responseBodyAsByteArray = responseBodyAsByteArray;
     }
 
+    public boolean isLazyResponseHeaders() {
+        return lazyResponseHeaders;
+    }
+
+    public void setLazyResponseHeaders(boolean lazyResponseHeaders) {
+        this.lazyResponseHeaders = lazyResponseHeaders;
+    }
+
+    public int getErrorBodyMaxSize() {
+        return errorBodyMaxSize;
+    }
+
+    public void setErrorBodyMaxSize(int errorBodyMaxSize) {
+        if (errorBodyMaxSize < 0) {
+            throw new IllegalArgumentException("Error body max size cannot be negative");
+        }
+        this.errorBodyMaxSize = errorBodyMaxSize;
+    }
+
+    public long getMaxResponseBodySize() {
+        return maxResponseBodySize;
+    }
+
+    public void setMaxResponseBodySize(long maxResponseBodySize) {
+        if (maxResponseBodySize < 0) {
+            throw new IllegalArgumentException("Maximum response body size cannot be negative");
+        }
+        this.maxResponseBodySize = maxResponseBodySize;
+    }
+
+    public JdkHttpResponseSizePolicy getResponseSizePolicy() {
+        return responseSizePolicy;
+    }
+
+    public void setResponseSizePolicy(JdkHttpResponseSizePolicy responseSizePolicy) {
+        this.responseSizePolicy = Objects.requireNonNull(responseSizePolicy, "Response size policy cannot be null");
+    }
+
+    public String getStreamingBodyDelimiter() {
+        return streamingBodyDelimiter;
+    }
+
+    public void setStreamingBodyDelimiter(String streamingBodyDelimiter) {
+        this.streamingBodyDelimiter = Objects.requireNonNull(streamingBodyDelimiter, "Streaming body delimiter cannot be null")
+                .replace("\\n", "\n")
+                .replace("\\r", "\r")
+                .replace("\\t", "\t");
+    }
+
     public Duration getConnectTimeout() {
         return connectTimeout;
     }
@@ -235,6 +694,119 @@ public class JdkHttpEndpoint extends DefaultEndpoint implements EndpointServiceL
         this.responseTimeout = Objects.requireNonNull(responseTimeout, "Response timeout cannot be null");
     }
 
+    public boolean isPhaseTimings() {
+        return phaseTimings;
+    }
+
+    public void setPhaseTimings(boolean phaseTimings) {
+        this.phaseTimings = phaseTimings;
+    }
+
+    public Duration getSlowRequestThreshold() {
+        return slowRequestThreshold;
+    }
+
+    public void setSlowRequestThreshold(Duration slowRequestThreshold) {
+        this.slowRequestThreshold = Objects.requireNonNull(slowRequestThreshold, "Slow request threshold cannot be null");
+    }
+
+    public int getSlowRequestSampleLimit() {
+        return slowRequestSampleLimit;
+    }
+
+    public void setSlowRequestSampleLimit(int slowRequestSampleLimit) {
+        if (slowRequestSampleLimit < 1) {
+            throw new IllegalArgumentException("Slow request sample limit cannot be less than 1");
+        }
+        this.slowRequestSampleLimit = slowRequestSampleLimit;
+    }
+
+    public Duration getSlowRequestSampleInterval() {
+        return slowRequestSampleInterval;
+    }
+
+    public void setSlowRequestSampleInterval(Duration slowRequestSampleInterval) {
+        this.slowRequestSampleInterval = Objects.requireNonNull(slowRequestSampleInterval, "Slow request sample interval cannot be null");
+    }
+
+    public boolean isAdaptiveTimeout() {
+        return adaptiveTimeout;
+    }
+
+    public void setAdaptiveTimeout(boolean adaptiveTimeout) {
+        this.adaptiveTimeout = adaptiveTimeout;
+    }
+
+    public double getAdaptiveTimeoutPercentile() {
+        return adaptiveTimeoutPercentile;
+    }
+
+    public void setAdaptiveTimeoutPercentile(double adaptiveTimeoutPercentile) {
+        if (adaptiveTimeoutPercentile <= 0 || adaptiveTimeoutPercentile > 100) {
+            throw new IllegalArgumentException("Adaptive timeout percentile must be greater than 0 and not greater than 100");
+        }
+        this.adaptiveTimeoutPercentile = adaptiveTimeoutPercentile;
+    }
+
+    public double getAdaptiveTimeoutMultiplier() {
+        return adaptiveTimeoutMultiplier;
+    }
+
+    public void setAdaptiveTimeoutMultiplier(double adaptiveTimeoutMultiplier) {
+        if (adaptiveTimeoutMultiplier < 1) {
+            throw new IllegalArgumentException("Adaptive timeout multiplier cannot be less than 1");
+        }
+        this.adaptiveTimeoutMultiplier = adaptiveTimeoutMultiplier;
+    }
+
+    public Duration getAdaptiveTimeoutFloor() {
+        return adaptiveTimeoutFloor;
+    }
+
+    public void setAdaptiveTimeoutFloor(Duration adaptiveTimeoutFloor) {
+        this.adaptiveTimeoutFloor = Objects.requireNonNull(adaptiveTimeoutFloor, "Adaptive timeout floor cannot be null");
+    }
+
+    public Duration getAdaptiveTimeoutCeiling() {
+        return adaptiveTimeoutCeiling;
+    }
+
+    public void setAdaptiveTimeoutCeiling(Duration adaptiveTimeoutCeiling) {
+        this.adaptiveTimeoutCeiling = Objects.requireNonNull(adaptiveTimeoutCeiling, "Adaptive timeout ceiling cannot be null");
+    }
+
+    public Duration getAdaptiveTimeoutWindow() {
+        return adaptiveTimeoutWindow;
+    }
+
+    public void setAdaptiveTimeoutWindow(Duration adaptiveTimeoutWindow) {
+        this.adaptiveTimeoutWindow = Objects.requireNonNull(adaptiveTimeoutWindow, "Adaptive timeout window cannot be null");
+    }
+
+    public String getDeadlineHeader() {
+        return deadlineHeader;
+    }
+
+    public void setDeadlineHeader(String deadlineHeader) {
+        this.deadlineHeader = deadlineHeader;
+    }
+
+    public Duration getTimeoutBudget() {
+        return timeoutBudget;
+    }
+
+    public void setTimeoutBudget(Duration timeoutBudget) {
+        this.timeoutBudget = Objects.requireNonNull(timeoutBudget, "Timeout budget cannot be null");
+    }
+
+    public String getDeadlinePropagationHeader() {
+        return deadlinePropagationHeader;
+    }
+
+    public void setDeadlinePropagationHeader(String deadlinePropagationHeader) {
+        this.deadlinePropagationHeader = deadlinePropagationHeader;
+    }
+
     public int getMaxConnections() {
         return maxConnections;
     }
@@ -299,6 +871,38 @@ public class JdkHttpEndpoint extends DefaultEndpoint implements EndpointServiceL
         this.async = async;
     }
 
+    public ExecutorService getCompletionExecutorService() {
+        return completionExecutorService;
+    }
+
+    public void setCompletionExecutorService(ExecutorService completionExecutorService) {
+        this.completionExecutorService = Objects.requireNonNull(completionExecutorService, "Completion executor cannot be null");
+    }
+
+    public Duration getAbandonedCheckInterval() {
+        return abandonedCheckInterval;
+    }
+
+    public void setAbandonedCheckInterval(Duration abandonedCheckInterval) {
+        this.abandonedCheckInterval = Objects.requireNonNull(abandonedCheckInterval, "Abandoned check interval cannot be null");
+    }
+
+    public Duration getInFlightStopTimeout() {
+        return inFlightStopTimeout;
+    }
+
+    public void setInFlightStopTimeout(Duration inFlightStopTimeout) {
+        this.inFlightStopTimeout = Objects.requireNonNull(inFlightStopTimeout, "In-flight stop timeout cannot be null");
+    }
+
+    public String getCompletionThreadPoolProfile() {
+        return completionThreadPoolProfile;
+    }
+
+    public void setCompletionThreadPoolProfile(String completionThreadPoolProfile) {
+        this.completionThreadPoolProfile = Objects.requireNonNull(completionThreadPoolProfile, "Completion thread pool profile cannot be null");
+    }
+
     public String getProxyHost() {
         return proxyHost;
     }
@@ -316,23 +920,963 @@ public class JdkHttpEndpoint extends DefaultEndpoint implements EndpointServiceL
         this.proxyPort = proxyPort;
     }
 
+    public double getRateLimit() {
+        return rateLimit;
+    }
+
+    public void setRateLimit(double rateLimit) {
+        if (rateLimit < 0) {
+            throw new IllegalArgumentException("Rate limit cannot be negative");
+        }
+        this.rateLimit = rateLimit;
+    }
+
+    public int getRateLimitBurst() {
+        return rateLimitBurst;
+    }
+
+    public void setRateLimitBurst(int rateLimitBurst) {
+        if (rateLimitBurst < 1) {
+            throw new IllegalArgumentException("Rate limit burst cannot be less than 1");
+        }
+        this.rateLimitBurst = rateLimitBurst;
+    }
+
+    public JdkHttpRateLimitKey getRateLimitKey() {
+        return rateLimitKey;
+    }
+
+    public void setRateLimitKey(JdkHttpRateLimitKey rateLimitKey) {
+        this.rateLimitKey = Objects.requireNonNull(rateLimitKey, "Rate limit key cannot be null");
+    }
+
+    public long getBandwidthLimit() {
+        return bandwidthLimit;
+    }
+
+    public void setBandwidthLimit(long bandwidthLimit) {
+        if (bandwidthLimit < 0) {
+            throw new IllegalArgumentException("Bandwidth limit cannot be negative");
+        }
+        this.bandwidthLimit = bandwidthLimit;
+    }
+
+    public Duration getRateLimitMaxWait() {
+        return rateLimitMaxWait;
+    }
+
+    public void setRateLimitMaxWait(Duration rateLimitMaxWait) {
+        this.rateLimitMaxWait = Objects.requireNonNull(rateLimitMaxWait, "Rate limit max wait cannot be null");
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    public void setMaxInFlight(int maxInFlight) {
+        if (maxInFlight < 0) {
+            throw new IllegalArgumentException("Maximum number of in-flight requests cannot be negative");
+        }
+        this.maxInFlight = maxInFlight;
+    }
+
+    public int getMaxInFlightQueueSize() {
+        return maxInFlightQueueSize;
+    }
+
+    public void setMaxInFlightQueueSize(int maxInFlightQueueSize) {
+        if (maxInFlightQueueSize < 0) {
+            throw new IllegalArgumentException("Maximum in-flight queue size cannot be negative");
+        }
+        this.maxInFlightQueueSize = maxInFlightQueueSize;
+    }
+
+    public JdkHttpOverflowPolicy getInFlightOverflowPolicy() {
+        return inFlightOverflowPolicy;
+    }
+
+    public void setInFlightOverflowPolicy(JdkHttpOverflowPolicy inFlightOverflowPolicy) {
+        this.inFlightOverflowPolicy = Objects.requireNonNull(inFlightOverflowPolicy, "In-flight overflow policy cannot be null");
+    }
+
+    public boolean isAdaptiveConcurrency() {
+        return adaptiveConcurrency;
+    }
+
+    public void setAdaptiveConcurrency(boolean adaptiveConcurrency) {
+        this.adaptiveConcurrency = adaptiveConcurrency;
+    }
+
+    public int getAdaptiveConcurrencyMinLimit() {
+        return adaptiveConcurrencyMinLimit;
+    }
+
+    public void setAdaptiveConcurrencyMinLimit(int adaptiveConcurrencyMinLimit) {
+        if (adaptiveConcurrencyMinLimit < 1) {
+            throw new IllegalArgumentException("Adaptive concurrency minimum limit cannot be less than 1");
+        }
+        this.adaptiveConcurrencyMinLimit = adaptiveConcurrencyMinLimit;
+    }
+
+    public double getAdaptiveConcurrencyRttTolerance() {
+        return adaptiveConcurrencyRttTolerance;
+    }
+
+    public void setAdaptiveConcurrencyRttTolerance(double adaptiveConcurrencyRttTolerance) {
+        if (adaptiveConcurrencyRttTolerance <= 1) {
+            throw new IllegalArgumentException("Adaptive concurrency RTT tolerance must be greater than 1");
+        }
+        this.adaptiveConcurrencyRttTolerance = adaptiveConcurrencyRttTolerance;
+    }
+
+    public JdkHttpPriority getPriority() {
+        return priority;
+    }
+
+    public void setPriority(JdkHttpPriority priority) {
+        this.priority = Objects.requireNonNull(priority, "Priority cannot be null");
+    }
+
+    public String getPriorityWeights() {
+        return priorityWeights;
+    }
+
+    public void setPriorityWeights(String priorityWeights) {
+        Objects.requireNonNull(priorityWeights, "Priority weights cannot be null");
+        parsePriorityWeights(priorityWeights);
+        this.priorityWeights = priorityWeights;
+    }
+
+    public boolean isEarliestDeadlineFirst() {
+        return earliestDeadlineFirst;
+    }
+
+    public void setEarliestDeadlineFirst(boolean earliestDeadlineFirst) {
+        this.earliestDeadlineFirst = earliestDeadlineFirst;
+    }
+
+    public Duration getMaxInFlightWait() {
+        return maxInFlightWait;
+    }
+
+    public void setMaxInFlightWait(Duration maxInFlightWait) {
+        this.maxInFlightWait = Objects.requireNonNull(maxInFlightWait, "Maximum in-flight wait cannot be null");
+    }
+
+    @ManagedAttribute(description = "The number of response body bytes currently buffered in memory by all endpoints of the component")
+    public long getResponseMemoryBudgetUsage() {
+        final JdkHttpMemoryBudget memoryBudget = getComponent().getMemoryBudget();
+        return memoryBudget != null ? memoryBudget.getUsed() : 0;
+    }
+
+    @ManagedAttribute(description = "The highest number of response body bytes buffered in memory at the same time by all endpoints of the component")
+    public long getResponseMemoryBudgetHighWaterMark() {
+        final JdkHttpMemoryBudget memoryBudget = getComponent().getMemoryBudget();
+        return memoryBudget != null ? memoryBudget.getHighWaterMark() : 0;
+    }
+
+    @ManagedAttribute(description = "The total number of body bytes transferred through the bandwidth limit of this endpoint")
+    public synchronized long getBandwidthBytes() {
+        return bandwidthLimiter != null ? bandwidthLimiter.getBytes() : 0;
+    }
+
+    @ManagedAttribute(description = "The total time in millis body buffers were delayed by the bandwidth limit of this endpoint")
+    public synchronized long getBandwidthThrottleTime() {
+        return bandwidthLimiter != null ? TimeUnit.NANOSECONDS.toMillis(bandwidthLimiter.getThrottleNanos()) : 0;
+    }
+
+    @ManagedAttribute(description = "The effective rate in bytes per second of the last completed throttled body transfer of this endpoint, of any exchange")
+    public synchronized long getLastThrottledTransferRate() {
+        return bandwidthThrottle != null ? bandwidthThrottle.getLastTransferRate() : 0;
+    }
+
+    @ManagedAttribute(description = "The response timeout in millis currently applied to the requests, which changes over time with the adaptive timeout")
+    public long getEffectiveResponseTimeout() {
+        final JdkHttpAdaptiveTimeout currentAdaptiveTimeout = resolveAdaptiveTimeout();
+        if (currentAdaptiveTimeout != null) {
+            return currentAdaptiveTimeout.getTimeout().toMillis();
+        }
+        return responseTimeout != null ? responseTimeout.toMillis() : 0;
+    }
+
+    @ManagedAttribute(description = "The maximum number of requests in flight, which changes over time with adaptive concurrency")
+    public int getInFlightLimit() {
+        return inFlightLimiter != null ? inFlightLimiter.getLimit() : 0;
+    }
+
+    @ManagedAttribute(description = "The mean time in millis HIGH priority exchanges waited for an in-flight permit")
+    public long getHighPriorityMeanWaitTime() {
+        return inFlightLimiter != null ? inFlightLimiter.getMeanWaitTime(JdkHttpPriority.HIGH) : 0;
+    }
+
+    @ManagedAttribute(description = "The mean time in millis NORMAL priority exchanges waited for an in-flight permit")
+    public long getNormalPriorityMeanWaitTime() {
+        return inFlightLimiter != null ? inFlightLimiter.getMeanWaitTime(JdkHttpPriority.NORMAL) : 0;
+    }
+
+    @ManagedAttribute(description = "The mean time in millis LOW priority exchanges waited for an in-flight permit")
+    public long getLowPriorityMeanWaitTime() {
+        return inFlightLimiter != null ? inFlightLimiter.getMeanWaitTime(JdkHttpPriority.LOW) : 0;
+    }
+
+    @ManagedAttribute(description = "The number of HIGH priority exchanges parked while waiting for an in-flight permit")
+    public int getHighPriorityQueueSize() {
+        return inFlightLimiter != null ? inFlightLimiter.getQueueSize(JdkHttpPriority.HIGH) : 0;
+    }
+
+    @ManagedAttribute(description = "The number of NORMAL priority exchanges parked while waiting for an in-flight permit")
+    public int getNormalPriorityQueueSize() {
+        return inFlightLimiter != null ? inFlightLimiter.getQueueSize(JdkHttpPriority.NORMAL) : 0;
+    }
+
+    @ManagedAttribute(description = "The number of LOW priority exchanges parked while waiting for an in-flight permit")
+    public int getLowPriorityQueueSize() {
+        return inFlightLimiter != null ? inFlightLimiter.getQueueSize(JdkHttpPriority.LOW) : 0;
+    }
+
+    @ManagedAttribute(description = "The number of requests currently in flight")
+    public int getInFlightCount() {
+        return inFlightLimiter != null ? inFlightLimiter.getInFlight() : 0;
+    }
+
+    @ManagedAttribute(description = "The number of exchanges parked while waiting for an in-flight permit")
+    public int getInFlightQueueSize() {
+        return inFlightLimiter != null ? inFlightLimiter.getQueueSize() : 0;
+    }
+
+    @ManagedAttribute(description = "The number of exchanges which waited for an in-flight permit")
+    public long getInFlightWaitCount() {
+        return inFlightLimiter != null ? inFlightLimiter.getWaitCount() : 0;
+    }
+
+    @ManagedAttribute(description = "The total time in millis exchanges waited for an in-flight permit")
+    public long getInFlightTotalWaitTime() {
+        return inFlightLimiter != null ? inFlightLimiter.getTotalWaitTime() : 0;
+    }
+
+    @ManagedAttribute(description = "The maximum time in millis an exchange waited for an in-flight permit")
+    public long getInFlightMaxWaitTime() {
+        return inFlightLimiter != null ? inFlightLimiter.getMaxWaitTime() : 0;
+    }
+
+    @ManagedAttribute(description = "The number of exchanges rejected because no in-flight permit was available and the queue was full or the overflow policy rejects")
+    public long getInFlightRejectedCount() {
+        return inFlightLimiter != null ? inFlightLimiter.getRejectedCount() : 0;
+    }
+
+    @ManagedAttribute(description = "The number of parked exchanges which did not get an in-flight permit within the maximum wait time")
+    public long getInFlightTimedOutCount() {
+        return inFlightLimiter != null ? inFlightLimiter.getTimedOutCount() : 0;
+    }
+
+    public int getWarmUpConnections() {
+        return warmUpConnections;
+    }
+
+    public void setWarmUpConnections(int warmUpConnections) {
+        if (warmUpConnections < 0) {
+            throw new IllegalArgumentException("Number of warm-up connections cannot be negative");
+        }
+        this.warmUpConnections = warmUpConnections;
+    }
+
+    public String getWarmUpMethod() {
+        return warmUpMethod;
+    }
+
+    public void setWarmUpMethod(String warmUpMethod) {
+        this.warmUpMethod = Objects.requireNonNull(warmUpMethod, "Warm-up method cannot be null")
+                .trim()
+                .toUpperCase();
+    }
+
+    public HttpRequest getWarmUpRequest() {
+        return warmUpRequest;
+    }
+
+    public void setWarmUpRequest(HttpRequest warmUpRequest) {
+        this.warmUpRequest = Objects.requireNonNull(warmUpRequest, "Warm-up request cannot be null");
+    }
+
+    public Duration getWarmUpTimeout() {
+        return warmUpTimeout;
+    }
+
+    public void setWarmUpTimeout(Duration warmUpTimeout) {
+        this.warmUpTimeout = Objects.requireNonNull(warmUpTimeout, "Warm-up timeout cannot be null");
+    }
+
+    public Duration getKeepWarmInterval() {
+        return keepWarmInterval;
+    }
+
+    public void setKeepWarmInterval(Duration keepWarmInterval) {
+        this.keepWarmInterval = Objects.requireNonNull(keepWarmInterval, "Keep-warm interval cannot be null");
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        if (batchSize < 0) {
+            throw new IllegalArgumentException("Batch size cannot be negative");
+        }
+        this.batchSize = batchSize;
+    }
+
+    public long getBatchMaxBytes() {
+        return batchMaxBytes;
+    }
+
+    public void setBatchMaxBytes(long batchMaxBytes) {
+        if (batchMaxBytes < 0) {
+            throw new IllegalArgumentException("Maximum batch bytes cannot be negative");
+        }
+        this.batchMaxBytes = batchMaxBytes;
+    }
+
+    public Duration getBatchLinger() {
+        return batchLinger;
+    }
+
+    public void setBatchLinger(Duration batchLinger) {
+        this.batchLinger = Objects.requireNonNull(batchLinger, "Batch linger cannot be null");
+    }
+
+    public JdkHttpBatchEncoder getBatchEncoder() {
+        return batchEncoder;
+    }
+
+    public void setBatchEncoder(JdkHttpBatchEncoder batchEncoder) {
+        this.batchEncoder = Objects.requireNonNull(batchEncoder, "Batch encoder cannot be null");
+    }
+
+    public boolean isStreamingUpload() {
+        return streamingUpload;
+    }
+
+    public void setStreamingUpload(boolean streamingUpload) {
+        this.streamingUpload = streamingUpload;
+    }
+
+    public long getStreamingUploadMaxBytes() {
+        return streamingUploadMaxBytes;
+    }
+
+    public void setStreamingUploadMaxBytes(long streamingUploadMaxBytes) {
+        if (streamingUploadMaxBytes < 1) {
+            throw new IllegalArgumentException("Maximum streaming upload bytes cannot be less than 1");
+        }
+        this.streamingUploadMaxBytes = streamingUploadMaxBytes;
+    }
+
+    public Duration getStreamingUploadMaxAge() {
+        return streamingUploadMaxAge;
+    }
+
+    public void setStreamingUploadMaxAge(Duration streamingUploadMaxAge) {
+        this.streamingUploadMaxAge = Objects.requireNonNull(streamingUploadMaxAge, "Maximum streaming upload age cannot be null");
+    }
+
+    public int getStreamingUploadBufferSize() {
+        return streamingUploadBufferSize;
+    }
+
+    public void setStreamingUploadBufferSize(int streamingUploadBufferSize) {
+        if (streamingUploadBufferSize < 1) {
+            throw new IllegalArgumentException("Streaming upload buffer size cannot be less than 1");
+        }
+        this.streamingUploadBufferSize = streamingUploadBufferSize;
+    }
+
+    public Duration getStreamingUploadMaxWait() {
+        return streamingUploadMaxWait;
+    }
+
+    public void setStreamingUploadMaxWait(Duration streamingUploadMaxWait) {
+        this.streamingUploadMaxWait = Objects.requireNonNull(streamingUploadMaxWait, "Maximum streaming upload wait cannot be null");
+    }
+
+    public boolean isRangedDownload() {
+        return rangedDownload;
+    }
+
+    public void setRangedDownload(boolean rangedDownload) {
+        this.rangedDownload = rangedDownload;
+    }
+
+    public long getDownloadSegmentSize() {
+        return downloadSegmentSize;
+    }
+
+    public void setDownloadSegmentSize(long downloadSegmentSize) {
+        if (downloadSegmentSize < 1) {
+            throw new IllegalArgumentException("Download segment size cannot be less than 1");
+        }
+        this.downloadSegmentSize = downloadSegmentSize;
+    }
+
+    public int getDownloadParallelism() {
+        return downloadParallelism;
+    }
+
+    public void setDownloadParallelism(int downloadParallelism) {
+        if (downloadParallelism < 1) {
+            throw new IllegalArgumentException("Download parallelism cannot be less than 1");
+        }
+        this.downloadParallelism = downloadParallelism;
+    }
+
+    public int getDownloadSegmentRetries() {
+        return downloadSegmentRetries;
+    }
 
-    private synchronized HttpClient resolveHttpClient() throws GeneralSecurityException, IOException {
-        if (httpClient != null) {
-            return httpClient;
+    public void setDownloadSegmentRetries(int downloadSegmentRetries) {
+        if (downloadSegmentRetries < 0) {
+            throw new IllegalArgumentException("Download segment retries cannot be negative");
         }
+        this.downloadSegmentRetries = downloadSegmentRetries;
+    }
+
+    public boolean isResumableDownload() {
+        return resumableDownload;
+    }
+
+    public void setResumableDownload(boolean resumableDownload) {
+        this.resumableDownload = resumableDownload;
+    }
+
+    public int getDownloadResumeRetries() {
+        return downloadResumeRetries;
+    }
+
+    public void setDownloadResumeRetries(int downloadResumeRetries) {
+        if (downloadResumeRetries < 0) {
+            throw new IllegalArgumentException("Download resume retries cannot be negative");
+        }
+        this.downloadResumeRetries = downloadResumeRetries;
+    }
+
+    public String getDownloadDirectory() {
+        return downloadDirectory;
+    }
+
+    public void setDownloadDirectory(String downloadDirectory) {
+        this.downloadDirectory = Objects.requireNonNull(downloadDirectory, "Download directory cannot be null");
+    }
+
+    @ManagedAttribute(description = "The duration in millis of the last completed connection warm-up")
+    public long getLastWarmUpDuration() {
+        return connectionWarmer != null ? connectionWarmer.getLastWarmUpDuration() : -1;
+    }
+
+    @ManagedAttribute(description = "The number of connections successfully warmed up by the last completed warm-up")
+    public int getLastWarmUpSuccessCount() {
+        return connectionWarmer != null ? connectionWarmer.getLastWarmUpSuccessCount() : 0;
+    }
+
+    @ManagedAttribute(description = "The total number of failed warm-up requests")
+    public long getWarmUpFailureCount() {
+        return connectionWarmer != null ? connectionWarmer.getWarmUpFailureCount() : 0;
+    }
+
+    @ManagedAttribute(description = "The total number of body bytes appended to streaming uploads")
+    public long getStreamingUploadBytes() {
+        return uploadChannels.values().stream().mapToLong(JdkHttpUploadChannel::getBytesWritten).sum();
+    }
+
+    @ManagedAttribute(description = "The total number of rotated streaming uploads")
+    public long getStreamingUploadRotationCount() {
+        return uploadChannels.values().stream().mapToLong(JdkHttpUploadChannel::getRotationCount).sum();
+    }
+
+    @ManagedAttribute(description = "The total number of failed streaming uploads")
+    public long getStreamingUploadFailureCount() {
+        return uploadChannels.values().stream().mapToLong(JdkHttpUploadChannel::getFailureCount).sum();
+    }
+
+    @ManagedAttribute(description = "The number of completions handed off to the completion executor which have not started yet")
+    public int getPendingCompletionCount() {
+        return pendingCompletions.get();
+    }
+
+    @ManagedAttribute(description = "The total number of completions handed off to the completion executor")
+    public long getCompletionHandoffCount() {
+        return completionHandoffCount.sum();
+    }
+
+    @ManagedAttribute(description = "The mean time in micros from receiving a response until the route continues on the completion executor")
+    public long getMeanCompletionHandoffTime() {
+        final long count = completionHandoffCount.sum();
+        return count > 0 ? TimeUnit.NANOSECONDS.toMicros(completionHandoffNanos.sum() / count) : 0;
+    }
+
+    @ManagedAttribute(description = "The maximum time in micros from receiving a response until the route continues on the completion executor")
+    public long getMaxCompletionHandoffTime() {
+        return TimeUnit.NANOSECONDS.toMicros(maxCompletionHandoffNanos.get());
+    }
+
+    @ManagedAttribute(description = "The total number of in-flight requests cancelled because their exchange was abandoned or the producer stopped")
+    public long getCancelledRequestCount() {
+        return cancelledRequestCount.sum();
+    }
+
+    @ManagedAttribute(description = "The total number of requests slower than the slow request threshold")
+    public long getSlowRequestCount() {
+        final JdkHttpSlowRequestSampler sampler = slowRequestSampler;
+        return sampler != null ? sampler.getSlowCount() : 0;
+    }
+
+    @ManagedAttribute(description = "The total number of slow requests not logged because of the slow request sample limit")
+    public long getSuppressedSlowRequestCount() {
+        final JdkHttpSlowRequestSampler sampler = slowRequestSampler;
+        return sampler != null ? sampler.getSuppressedCount() : 0;
+    }
+
+    @ManagedAttribute(description = "The method, URI, status and phase breakdown of the last logged slow request")
+    public String getLastSlowRequest() {
+        final JdkHttpSlowRequestSampler sampler = slowRequestSampler;
+        return sampler != null ? sampler.getLastSample() : null;
+    }
+
+    /**
+     * Creates the timings of the phases of a request, if the phases of the requests of this endpoint are timed.
+     *
+     * @return the {@link JdkHttpPhaseTimings}, or {@code null} if neither the phase timings nor the slow request sampler are enabled.
+     */
+    public JdkHttpPhaseTimings createPhaseTimings() {
+        return phaseTimings || slowRequestSampler != null ? new JdkHttpPhaseTimings() : null;
+    }
+
+    /**
+     * Records the timings of a completed request: sets them as the {@link JdkHttpConstants#PHASE_TIMINGS} exchange property
+     * if enabled, and samples them by the slow request sampler.
+     *
+     * @param exchange the exchange of the request.
+     * @param timings  the timings of the request, or {@code null} if the phases are not timed.
+     */
+    public void onPhaseTimings(Exchange exchange, JdkHttpPhaseTimings timings) {
+        if (timings == null) {
+            return;
+        }
+
+        if (phaseTimings) {
+            exchange.setProperty(JdkHttpConstants.PHASE_TIMINGS, timings);
+        }
+        final JdkHttpSlowRequestSampler sampler = slowRequestSampler;
+        if (sampler != null) {
+            sampler.sample(URISupport.sanitizeUri(getEndpointUri()), timings);
+        }
+    }
+
+    /**
+     * Records that an in-flight request is cancelled by a producer of this endpoint.
+     */
+    public void onRequestCancelled() {
+        cancelledRequestCount.increment();
+    }
+
+    /**
+     * Runs the completion of an asynchronous response, which continues the route of the exchange.
+     * If a completion executor is configured, the completion is handed off to it,
+     * otherwise it runs on the calling thread of the JDK HttpClient.
+     * If the completion executor rejects the completion, it runs on the calling thread as well.
+     *
+     * @param completion the completion to run.
+     */
+    public void runCompletion(Runnable completion) {
+        final ExecutorService executor = completionExecutor;
+        if (executor == null) {
+            completion.run();
+            return;
+        }
+
+        final long handoffStartNanos = System.nanoTime();
+        pendingCompletions.incrementAndGet();
+        final Runnable handoff = () -> {
+            pendingCompletions.decrementAndGet();
+            final long handoffNanos = System.nanoTime() - handoffStartNanos;
+            completionHandoffCount.increment();
+            completionHandoffNanos.add(handoffNanos);
+            maxCompletionHandoffNanos.accumulateAndGet(handoffNanos, Math::max);
+
+            completion.run();
+        };
+
+        try {
+            executor.execute(handoff);
+        } catch (RejectedExecutionException e) {
+            LOG.debug("Completion executor rejected the completion, running it on the calling thread", e);
+            handoff.run();
+        }
+    }
+
+    /**
+     * Gets the executor dispatching the requests which were parked for an in-flight permit,
+     * so the thread releasing the permit, usually a thread of the JDK HttpClient, does not send the next request inline.
+     * It also delivers the body buffers delayed by the bandwidth throttle.
+     * This is the executor of the HTTP client of this endpoint, otherwise the completion executor,
+     * otherwise the common {@link ForkJoinPool}.
+     *
+     * @return the dispatch {@link Executor}.
+     */
+    public Executor getDispatchExecutor() {
+        final HttpClient client = httpClient;
+        final Optional<Executor> clientExecutor = client != null ? client.executor() : Optional.empty();
+        if (clientExecutor.isPresent()) {
+            return clientExecutor.get();
+        }
+        final ExecutorService executor = completionExecutor;
+
+        return executor != null ? executor : ForkJoinPool.commonPool();
+    }
+
+    /**
+     * Records that a request is sent by a producer of this endpoint, so that keep-warm requests are sent only while idle.
+     */
+    public void onRequestSent() {
+        lastRequestNanos = System.nanoTime();
+    }
+
+    /**
+     * Appends the body of the exchange to the streaming upload to the URI of the given request
+     * and waits until the body is handed to the HTTP client.
+     *
+     * @param httpClient  the client to send the uploads with.
+     * @param httpRequest the request built for the exchange, whose URI, headers and version are used for the uploads.
+     * @param exchange    the exchange to append.
+     * @throws CamelExchangeException if the upload buffer stays full for the maximum wait.
+     * @throws IOException            if the upload failed.
+     * @throws Exception              if the body cannot be converted to bytes.
+     * @see #uploadAsync(HttpClient, HttpRequest, Exchange)
+     */
+    public void upload(HttpClient httpClient, HttpRequest httpRequest, Exchange exchange) throws Exception {
+        try {
+            uploadAsync(httpClient, httpRequest, exchange).get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw new IOException("Streaming upload to " + httpRequest.uri() + " failed", e.getCause());
+        }
+    }
+
+    /**
+     * Appends the body of the exchange to the streaming upload to the origin of the given request,
+     * opening the upload channel for that origin on first use with the URI and the headers of the request.
+     * The body is followed by the streaming body delimiter if set.
+     *
+     * @param httpClient  the client to send the uploads with.
+     * @param httpRequest the request built for the exchange, whose URI, headers and version are used for the uploads.
+     * @param exchange    the exchange to append.
+     * @return the {@link CompletableFuture} completed once the body is handed to the HTTP client.
+     * It fails with a {@link CamelExchangeException} if the upload buffer stays full for the maximum wait,
+     * and with an {@link IOException} if the upload failed.
+     * @throws Exception if the body cannot be converted to bytes.
+     */
+    public CompletableFuture<Void> uploadAsync(HttpClient httpClient, HttpRequest httpRequest, Exchange exchange) throws Exception {
+        byte[] payload = exchange.getMessage().getMandatoryBody(byte[].class);
+        if (streamingBodyDelimiter != null && !streamingBodyDelimiter.isEmpty()) {
+            final byte[] delimiter = streamingBodyDelimiter.getBytes(ExchangeHelper.getCharsetName(exchange, true));
+            final byte[] delimitedPayload = Arrays.copyOf(payload, payload.length + delimiter.length);
+            System.arraycopy(delimiter, 0, delimitedPayload, payload.length, delimiter.length);
+            payload = delimitedPayload;
+        }
+
+        final String origin = JdkHttpHelper.getOrigin(httpRequest.uri());
+        onRequestSent();
+        // the write, which may open the upload and hand payloads to the client, runs outside of the mapping,
+        // and a channel evicted between its lookup and the write is replaced by a new one
+        CompletableFuture<Void> written;
+        while (true) {
+            final JdkHttpUploadChannel uploadChannel = uploadChannels.computeIfAbsent(origin, key -> createUploadChannel(httpClient, httpRequest));
+            written = uploadChannel.write(payload, streamingUploadMaxWait);
+            if (!written.isCompletedExceptionally() || !uploadChannel.isClosed() || !isRunAllowed()) {
+                break;
+            }
+            uploadChannels.remove(origin, uploadChannel);
+        }
+
+        final CompletableFuture<Void> uploaded = new CompletableFuture<>();
+        written.whenComplete((unused, throwable) -> {
+            if (throwable == null) {
+                uploaded.complete(null);
+            } else if (throwable instanceof TimeoutException) {
+                uploaded.completeExceptionally(new CamelExchangeException(throwable.getMessage(), exchange, throwable));
+            } else {
+                uploaded.completeExceptionally(throwable);
+            }
+        });
+
+        return uploaded;
+    }
+
+    private JdkHttpUploadChannel createUploadChannel(HttpClient httpClient, HttpRequest httpRequest) {
+        final HttpRequest.Builder requestTemplate = HttpRequest.newBuilder(httpRequest.uri());
+        httpRequest.headers().map().forEach((name, values) -> values.forEach(value -> requestTemplate.header(name, value)));
+        httpRequest.version().ifPresent(requestTemplate::version);
+
+        final JdkHttpUploadChannel uploadChannel = new JdkHttpUploadChannel(httpClient, requestTemplate.build(), streamingUploadMaxBytes,
+                streamingUploadMaxAge, streamingUploadBufferSize, getComponent().getScheduledExecutorService());
+        uploadChannel.setBandwidthThrottle(resolveBandwidthThrottle());
+
+        return uploadChannel;
+    }
+
+    private void evictIdleUploadChannels() {
+        for (String origin : uploadChannels.keySet()) {
+            uploadChannels.computeIfPresent(origin, (key, uploadChannel) -> uploadChannel.closeIfIdle(streamingUploadMaxAge) ? null : uploadChannel);
+        }
+    }
+
+    /**
+     * Determines whether the given request is sent as a ranged or resumable download into a file.
+     *
+     * @param httpRequest the request to send.
+     * @return {@code true} if ranged or resumable download is enabled and the request is a {@code GET} request.
+     */
+    public boolean isDownload(HttpRequest httpRequest) {
+        return (rangedDownload || resumableDownload) && "GET".equals(httpRequest.method());
+    }
+
+    /**
+     * Downloads the resource of the given request into the file of the exchange.
+     * The file is taken from the {@link JdkHttpConstants#DOWNLOAD_FILE} header,
+     * otherwise a temporary file is created in the download directory which is deleted if the exchange fails.
+     *
+     * @param httpClient  the client to send the requests with.
+     * @param httpRequest the {@code GET} request of the resource.
+     * @param exchange    the exchange to download for.
+     * @return the future completed with the response having the downloaded file as body.
+     * @throws IOException if the temporary file cannot be created.
+     */
+    public CompletableFuture<HttpResponse<Path>> downloadAsync(HttpClient httpClient, HttpRequest httpRequest, Exchange exchange)
+            throws IOException {
+        final JdkHttpRangedDownloader downloader = new JdkHttpRangedDownloader(httpClient,
+                downloadParallelism, downloadSegmentSize, downloadSegmentRetries, resumableDownload ? downloadResumeRetries : 0);
+        downloader.setBandwidthThrottle(resolveBandwidthThrottle());
+        final Path downloadFile = resolveDownloadFile(exchange);
+
+        return rangedDownload ?
+                downloader.download(httpRequest, downloadFile) :
+                downloader.downloadResumable(httpRequest, downloadFile);
+    }
+
+    /**
+     * Downloads the resource of the given request into the file of the exchange and waits for the download to complete.
+     *
+     * @param httpClient  the client to send the requests with.
+     * @param httpRequest the {@code GET} request of the resource.
+     * @param exchange    the exchange to download for.
+     * @return the response having the downloaded file as body.
+     * @throws IOException          if the download fails.
+     * @throws InterruptedException if interrupted while waiting for the download.
+     * @see #downloadAsync(HttpClient, HttpRequest, Exchange)
+     */
+    public HttpResponse<Path> download(HttpClient httpClient, HttpRequest httpRequest, Exchange exchange)
+            throws IOException, InterruptedException {
+        final CompletableFuture<HttpResponse<Path>> download = downloadAsync(httpClient, httpRequest, exchange);
+        try {
+            return download.get();
+        } catch (InterruptedException e) {
+            download.cancel(true);
+            throw e;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException cause) {
+                throw cause;
+            } else if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IOException("Download of " + httpRequest.uri() + " failed", e.getCause());
+        }
+    }
+
+    /**
+     * Resolves the limiter of concurrent in-flight requests shared by all endpoints sending requests to the origin of the URI,
+     * so requests of different endpoints are scheduled by their priority classes against the same permits.
+     *
+     * @param uri the URI of the request.
+     * @return the {@link JdkHttpInFlightLimiter}, or {@code null} if the number of in-flight requests is not limited.
+     */
+    public JdkHttpInFlightLimiter resolveInFlightLimiter(URI uri) {
+        if (!adaptiveConcurrency && maxInFlight <= 0) {
+            return null;
+        }
+
+        final String origin = JdkHttpHelper.getOrigin(uri);
+        final JdkHttpInFlightLimiter originInFlightLimiter = originInFlightLimiters.get(origin);
+        if (originInFlightLimiter != null) {
+            return originInFlightLimiter;
+        }
+
+        return originInFlightLimiters.computeIfAbsent(origin, key -> {
+            final JdkHttpInFlightLimiter limiter = getOriginInFlightLimiter(key);
+            // the metrics of the endpoint report the limiter of an origin it sends to, the first one unless requests race
+            if (inFlightLimiter == null) {
+                inFlightLimiter = limiter;
+            }
+
+            return limiter;
+        });
+    }
+
+    /**
+     * Resolves the rate limiter to use for a request to the given URI.
+     *
+     * @param uri the request URI.
+     * @return the {@link JdkHttpRateLimiter}, or {@code null} if rate limiting is disabled.
+     */
+    public JdkHttpRateLimiter resolveRateLimiter(URI uri) {
+        if (rateLimit <= 0) {
+            return null;
+        }
+        if (rateLimitKey == JdkHttpRateLimitKey.ORIGIN) {
+            final String origin = JdkHttpHelper.getOrigin(uri);
+            final JdkHttpRateLimiter originRateLimiter = originRateLimiters.get(origin);
+
+            return originRateLimiter != null ? originRateLimiter :
+                    originRateLimiters.computeIfAbsent(origin, key -> getComponent().getOriginRateLimiter(key, rateLimit, rateLimitBurst));
+        }
+
+        final JdkHttpRateLimiter currentRateLimiter = rateLimiter;
+        if (currentRateLimiter != null) {
+            return currentRateLimiter;
+        }
+        synchronized (this) {
+            if (rateLimiter == null) {
+                rateLimiter = new JdkHttpRateLimiter(rateLimit, rateLimitBurst);
+            }
+
+            return rateLimiter;
+        }
+    }
+
+    /**
+     * Resolves the throttle pacing the bodies transferred by this endpoint,
+     * combining the bandwidth limiter of this endpoint and the one shared by all endpoints of the component.
+     *
+     * @return the {@link JdkHttpBandwidthThrottle}, or {@code null} if the bandwidth is not limited.
+     */
+    public synchronized JdkHttpBandwidthThrottle resolveBandwidthThrottle() {
+        if (bandwidthThrottle == null) {
+            final List<JdkHttpBandwidthLimiter> limiters = new ArrayList<>(2);
+            if (bandwidthLimit > 0) {
+                bandwidthLimiter = new JdkHttpBandwidthLimiter(bandwidthLimit);
+                limiters.add(bandwidthLimiter);
+            }
+            final JdkHttpBandwidthLimiter componentBandwidthLimiter = getComponent().getBandwidthLimiter();
+            if (componentBandwidthLimiter != null) {
+                limiters.add(componentBandwidthLimiter);
+            }
+
+            if (!limiters.isEmpty()) {
+                // resolved on every delivery, as the HTTP client and its executor may be created after the throttle
+                bandwidthThrottle = new JdkHttpBandwidthThrottle(limiters, getComponent().getScheduledExecutorService(),
+                        command -> getDispatchExecutor().execute(command));
+            }
+        }
+
+        return bandwidthThrottle;
+    }
+
+    /**
+     * Resolves the timeout derived from the latencies observed by this endpoint, creating it on first use.
+     *
+     * @return the {@link JdkHttpAdaptiveTimeout}, or {@code null} if the adaptive timeout is disabled.
+     */
+    public synchronized JdkHttpAdaptiveTimeout resolveAdaptiveTimeout() {
+        if (adaptiveTimeout && adaptiveTimeoutInstance == null) {
+            adaptiveTimeoutInstance = new JdkHttpAdaptiveTimeout(adaptiveTimeoutWindow, adaptiveTimeoutPercentile, adaptiveTimeoutMultiplier,
+                    adaptiveTimeoutFloor, adaptiveTimeoutCeiling);
+        }
+
+        return adaptiveTimeoutInstance;
+    }
+
+    /**
+     * Resolves the priority class of the request of the exchange, from the {@link JdkHttpConstants#PRIORITY} header or the priority of this endpoint.
+     *
+     * @param exchange the exchange.
+     * @return the {@link JdkHttpPriority}.
+     * @throws CamelExchangeException if the header is not a priority class.
+     */
+    public JdkHttpPriority resolvePriority(Exchange exchange) throws CamelExchangeException {
+        final JdkHttpPriority exchangePriority;
+        try {
+            exchangePriority = exchange.getMessage().getHeader(JdkHttpConstants.PRIORITY, JdkHttpPriority.class);
+        } catch (TypeConversionException e) {
+            throw new CamelExchangeException("Priority header is not one of " + Arrays.toString(JdkHttpPriority.values()) + ": " +
+                    exchange.getMessage().getHeader(JdkHttpConstants.PRIORITY), exchange, e);
+        }
+
+        return exchangePriority != null ? exchangePriority : priority;
+    }
+
+
+    private boolean isBlockingMemoryBudget() {
+        final JdkHttpMemoryBudget memoryBudget = getComponent().getMemoryBudget();
+        return memoryBudget != null && memoryBudget.getPolicy() == JdkHttpMemoryBudgetPolicy.BLOCK;
+    }
+
+    private JdkHttpInFlightLimiter getOriginInFlightLimiter(String origin) {
+        if (!adaptiveConcurrency) {
+            return getComponent().getOriginInFlightLimiter(origin, maxInFlight,
+                    () -> configureInFlightLimiter(new JdkHttpInFlightLimiter(maxInFlight, maxInFlightQueueSize)));
+        }
+
+        final int maxLimit = Math.max(adaptiveConcurrencyMinLimit, maxInFlight > 0 ? maxInFlight : 1000);
+        return getComponent().getOriginInFlightLimiter(origin, adaptiveConcurrencyMinLimit, maxLimit, adaptiveConcurrencyRttTolerance,
+                () -> configureInFlightLimiter(new JdkHttpInFlightLimiter(
+                        new JdkHttpAdaptiveLimit(adaptiveConcurrencyMinLimit, maxLimit, adaptiveConcurrencyRttTolerance), maxInFlightQueueSize)));
+    }
+
+    private JdkHttpInFlightLimiter configureInFlightLimiter(JdkHttpInFlightLimiter limiter) {
+        limiter.setPriorityWeights(parsePriorityWeights(priorityWeights));
+        limiter.setEarliestDeadlineFirst(earliestDeadlineFirst);
+
+        return limiter;
+    }
+
+    private static int[] parsePriorityWeights(String priorityWeights) {
+        final String[] values = priorityWeights.split(",");
+        if (values.length != JdkHttpPriority.values().length) {
+            throw new IllegalArgumentException("Priority weights must have " + JdkHttpPriority.values().length + " values: " + priorityWeights);
+        }
+
+        final int[] weights = new int[values.length];
+        try {
+            for (int i = 0; i < values.length; i++) {
+                weights[i] = Integer.parseInt(values[i].trim());
+                if (weights[i] < 1) {
+                    throw new IllegalArgumentException("Priority weight cannot be less than 1: " + priorityWeights);
+                }
+            }
+        } catch (NumberFormatException nfe) {
+            throw new IllegalArgumentException("Priority weights has invalid format: " + priorityWeights, nfe);
+        }
+
+        return weights;
+    }
+
+    private HttpClient createHttpClient() throws GeneralSecurityException, IOException {
         if (useSystemProperties) {
             return HttpClient.newHttpClient();
         }
 
+        return createHttpClient(sslContextParameters, Executors.newFixedThreadPool(maxConnections));
+    }
+
+    private HttpClient createHttpClient(SSLContextParameters sslContextParameters, Executor executor)
+            throws GeneralSecurityException, IOException {
         final HttpClient.Builder httpClientBuilder = HttpClient.newBuilder()
                 .version(httpVersion)
                 .connectTimeout(connectTimeout)
-                .executor(Executors.newFixedThreadPool(maxConnections))
+                .executor(executor)
                 .followRedirects(redirectPolicy);
 
         if (sslContextParameters != null && getCamelContext() != null) {
-            httpClientBuilder.sslContext(sslContextParameters.createSSLContext(getCamelContext()));
+            httpClientBuilder.sslContext(getComponent().getSslContext(sslContextParameters));
         }
 
         if (http2Priority != null && httpVersion == HttpClient.Version.HTTP_2) {
@@ -347,6 +1891,40 @@ public class JdkHttpEndpoint extends DefaultEndpoint implements EndpointServiceL
         return httpClientBuilder.build();
     }
 
+    private HttpRequest createWarmUpRequest() {
+        if (warmUpRequest != null) {
+            return warmUpRequest;
+        }
+
+        return HttpRequest.newBuilder(httpUri)
+                .method(warmUpMethod, HttpRequest.BodyPublishers.noBody())
+                .timeout(warmUpTimeout)
+                .build();
+    }
+
+    private Path resolveDownloadFile(Exchange exchange) throws IOException {
+        final Object downloadFile = exchange.getMessage().getHeader(JdkHttpConstants.DOWNLOAD_FILE);
+        if (downloadFile instanceof Path path) {
+            return path;
+        } else if (downloadFile instanceof File file) {
+            return file.toPath();
+        } else if (downloadFile != null) {
+            return Path.of(downloadFile.toString());
+        }
+
+        final Path tempFile = downloadDirectory != null ?
+                Files.createTempFile(Path.of(downloadDirectory), "jdk-http-", ".download") :
+                Files.createTempFile("jdk-http-", ".download");
+        exchange.getExchangeExtension().addOnCompletion(new SynchronizationAdapter() {
+            @Override
+            public void onFailure(Exchange exchange) {
+                FileUtil.deleteFile(tempFile.toFile());
+            }
+        });
+
+        return tempFile;
+    }
+
     private void setBindingParameters(JdkHttpBinding httpBinding) {
         if (httpMethod != null && !httpMethod.isBlank()) {
             httpBinding.setHttpMethod(httpMethod);
@@ -355,6 +1933,7 @@ public class JdkHttpEndpoint extends DefaultEndpoint implements EndpointServiceL
         if (throwExceptionOnFailure != null) {
             httpBinding.setThrowExceptionOnFailure(throwExceptionOnFailure);
         }
+        httpBinding.setFailureMode(failureMode);
         if (okStatusCodeRanges != null && !okStatusCodeRanges.isBlank()) {
             httpBinding.setOkStatusCodeRanges(okStatusCodeRanges);
         }
@@ -364,10 +1943,23 @@ public class JdkHttpEndpoint extends DefaultEndpoint implements EndpointServiceL
         if (responseBodyAsByteArray != null) {
             httpBinding.setResponseBodyAsByteArray(responseBodyAsByteArray);
         }
+        httpBinding.setLazyResponseHeaders(lazyResponseHeaders);
+        httpBinding.setErrorBodyMaxSize(errorBodyMaxSize);
+        httpBinding.setMemoryBudget(getComponent().getMemoryBudget());
+        httpBinding.setBandwidthThrottle(resolveBandwidthThrottle());
+        httpBinding.setMaxResponseBodySize(maxResponseBodySize);
+        httpBinding.setResponseSizePolicy(responseSizePolicy);
+        if (streamingBodyDelimiter != null) {
+            httpBinding.setStreamingBodyDelimiter(streamingBodyDelimiter);
+        }
 
         if (responseTimeout != null) {
             httpBinding.setResponseTimeout(responseTimeout);
         }
+        httpBinding.setAdaptiveTimeout(resolveAdaptiveTimeout());
+        httpBinding.setDeadlineHeader(deadlineHeader);
+        httpBinding.setTimeoutBudget(timeoutBudget);
+        httpBinding.setDeadlinePropagationHeader(deadlinePropagationHeader);
 
         if (headerFilterStrategy != null) {
             httpBinding.setHeaderFilterStrategy(headerFilterStrategy);
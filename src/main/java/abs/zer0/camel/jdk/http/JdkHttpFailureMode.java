@@ -0,0 +1,30 @@
+package abs.zer0.camel.jdk.http;
+
+/**
+ * Determines how a response with a status code which is not a success is signalled when {@code throwExceptionOnFailure} is enabled.
+ * <br/>
+ * The outcome of every response is also set as the {@link JdkHttpConstants#STATUS_OUTCOME} exchange property.
+ *
+ * @see JdkHttpStatusOutcome
+ */
+public enum JdkHttpFailureMode {
+
+    /**
+     * The exchange fails with an {@link org.apache.camel.http.base.HttpOperationFailedException}.
+     */
+    EXCEPTION,
+
+    /**
+     * The exchange fails with a {@link JdkHttpStacklessOperationFailedException},
+     * an {@link org.apache.camel.http.base.HttpOperationFailedException} without a stack trace.
+     * The response body is not captured, and the response headers are copied only when read.
+     */
+    STACKLESS,
+
+    /**
+     * The exchange does not fail. The response is set on the message as for a success,
+     * so the route can branch on the {@link JdkHttpConstants#STATUS_OUTCOME} exchange property.
+     */
+    PROPERTY
+
+}
@@ -0,0 +1,247 @@
+package abs.zer0.camel.jdk.http;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import org.apache.camel.util.URISupport;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CompletionException;
+
+/**
+ * JDK Flight Recorder events of the HTTP requests sent by the producers.
+ * <br/>
+ * Every request emits a {@link RequestBuilt} event when the request is built from the exchange,
+ * a {@link RequestSent} event when it is handed to the {@link java.net.http.HttpClient},
+ * a {@link HeadersReceived} event when the response headers arrive and a {@link BodyComplete} event when the response body is fully received,
+ * or a {@link RequestFailed} event when the request fails.
+ * The events carry the endpoint, the method, the URI template of the endpoint and the URI of the request without its query,
+ * so the time spent in the client can be tied to the endpoint and correlated with GC and thread events of the same recording.
+ * <br/>
+ * The events are enabled by default and can be configured in the settings of a recording by their names,
+ * e.g. {@code abs.zer0.camel.jdk.http.HeadersReceived}.
+ * While all events are disabled, the producers do not allocate a {@link Tracker}, so the cost is a few field reads per request.
+ */
+public final class JdkHttpFlightEvents {
+
+    private static final RequestSent REQUEST_SENT = new RequestSent();
+    private static final HeadersReceived HEADERS_RECEIVED = new HeadersReceived();
+    private static final BodyComplete BODY_COMPLETE = new BodyComplete();
+    private static final RequestFailed REQUEST_FAILED = new RequestFailed();
+
+    /**
+     * Commits the event of a built request. The event must have been begun before the request was built.
+     *
+     * @param event       the event begun before building the request.
+     * @param endpoint    the endpoint of the request.
+     * @param httpRequest the built request.
+     */
+    public static void commitRequestBuilt(RequestBuilt event, JdkHttpEndpoint endpoint, HttpRequest httpRequest) {
+        if (event.shouldCommit()) {
+            event.populate(endpoint, httpRequest);
+            event.requestBytes = getRequestBytes(httpRequest);
+            event.commit();
+        }
+    }
+
+    /**
+     * Emits the event of a request handed to the client and starts tracking its response.
+     *
+     * @param endpoint    the endpoint of the request.
+     * @param httpRequest the request.
+     * @return the {@link Tracker} of the response, or {@code null} if all the response events are disabled.
+     */
+    public static Tracker onRequestSent(JdkHttpEndpoint endpoint, HttpRequest httpRequest) {
+        if (!REQUEST_SENT.isEnabled() && !HEADERS_RECEIVED.isEnabled() && !BODY_COMPLETE.isEnabled() && !REQUEST_FAILED.isEnabled()) {
+            return null;
+        }
+
+        final RequestSent event = new RequestSent();
+        if (event.shouldCommit()) {
+            event.populate(endpoint, httpRequest);
+            event.requestBytes = getRequestBytes(httpRequest);
+            event.commit();
+        }
+
+        return new Tracker(endpoint, httpRequest);
+    }
+
+
+    private static long getRequestBytes(HttpRequest httpRequest) {
+        return httpRequest.bodyPublisher().map(HttpRequest.BodyPublisher::contentLength).orElse(0L);
+    }
+
+    private JdkHttpFlightEvents() {
+    }
+
+    /**
+     * Tracks the response of a request, emitting its events as the response is received.
+     */
+    public static final class Tracker {
+
+        private final JdkHttpEndpoint endpoint;
+        private final HttpRequest httpRequest;
+        private final HeadersReceived headersEvent = new HeadersReceived();
+        private final RequestFailed failedEvent = new RequestFailed();
+        private BodyComplete bodyEvent;
+
+        private Tracker(JdkHttpEndpoint endpoint, HttpRequest httpRequest) {
+            this.endpoint = endpoint;
+            this.httpRequest = httpRequest;
+            headersEvent.begin();
+            failedEvent.begin();
+        }
+
+        /**
+         * Wraps the handler of the response body to emit the events of the headers and of the body.
+         *
+         * @param bodyHandler the handler of the response body.
+         * @param <T>         the type of the response body.
+         * @return the wrapping {@link HttpResponse.BodyHandler}.
+         */
+        public <T> HttpResponse.BodyHandler<T> track(HttpResponse.BodyHandler<T> bodyHandler) {
+            return responseInfo -> {
+                onHeadersReceived(responseInfo.statusCode());
+                return new JdkHttpObservedBodySubscriber<>(bodyHandler.apply(responseInfo),
+                        responseBytes -> onBodyComplete(responseInfo.statusCode(), responseBytes), this::onFailed);
+            };
+        }
+
+        /**
+         * Emits the event of a failed request.
+         *
+         * @param throwable the failure.
+         */
+        public void onFailed(Throwable throwable) {
+            if (failedEvent.shouldCommit()) {
+                final Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable;
+                failedEvent.populate(endpoint, httpRequest);
+                failedEvent.failure = cause.getClass().getName();
+                failedEvent.message = cause.getMessage();
+                failedEvent.commit();
+            }
+        }
+
+        private void onHeadersReceived(int statusCode) {
+            if (headersEvent.shouldCommit()) {
+                headersEvent.populate(endpoint, httpRequest);
+                headersEvent.status = statusCode;
+                headersEvent.commit();
+            }
+            bodyEvent = new BodyComplete();
+            bodyEvent.begin();
+        }
+
+        private void onBodyComplete(int statusCode, long responseBytes) {
+            if (bodyEvent.shouldCommit()) {
+                bodyEvent.populate(endpoint, httpRequest);
+                bodyEvent.status = statusCode;
+                bodyEvent.responseBytes = responseBytes;
+                bodyEvent.commit();
+            }
+        }
+
+    }
+
+    /**
+     * The fields shared by the events of a request.
+     */
+    @Category({"Apache Camel", "JDK HTTP"})
+    @StackTrace(false)
+    abstract static class HttpRequestEvent extends Event {
+
+        @Label("Endpoint")
+        @Description("The URI of the Camel endpoint, with sensitive options masked")
+        String endpoint;
+
+        @Label("Method")
+        String method;
+
+        @Label("URI Template")
+        @Description("The HTTP URI configured on the endpoint, before dynamic URI and path headers are applied")
+        String uriTemplate;
+
+        @Label("URI")
+        @Description("The URI of the request without its query")
+        String uri;
+
+        void populate(JdkHttpEndpoint endpoint, HttpRequest httpRequest) {
+            this.endpoint = URISupport.sanitizeUri(endpoint.getEndpointUri());
+            this.method = httpRequest.method();
+            this.uriTemplate = endpoint.getHttpUri() != null ? URISupport.sanitizeUri(endpoint.getHttpUri().toString()) : null;
+
+            final URI requestUri = httpRequest.uri();
+            this.uri = requestUri.getScheme() + "://" + requestUri.getRawAuthority() + (requestUri.getRawPath() != null ? requestUri.getRawPath() : "");
+        }
+
+    }
+
+    @Name("abs.zer0.camel.jdk.http.RequestBuilt")
+    @Label("HTTP Request Built")
+    @Description("An HTTP request built from an exchange, with the time spent building it")
+    public static final class RequestBuilt extends HttpRequestEvent {
+
+        @Label("Request Bytes")
+        @Description("The length of the request body, or -1 if unknown")
+        @DataAmount
+        long requestBytes;
+
+    }
+
+    @Name("abs.zer0.camel.jdk.http.RequestSent")
+    @Label("HTTP Request Sent")
+    @Description("An HTTP request handed to the HTTP client")
+    public static final class RequestSent extends HttpRequestEvent {
+
+        @Label("Request Bytes")
+        @Description("The length of the request body, or -1 if unknown")
+        @DataAmount
+        long requestBytes;
+
+    }
+
+    @Name("abs.zer0.camel.jdk.http.HeadersReceived")
+    @Label("HTTP Headers Received")
+    @Description("The response headers of an HTTP request, with the time from sending the request")
+    public static final class HeadersReceived extends HttpRequestEvent {
+
+        @Label("Status")
+        int status;
+
+    }
+
+    @Name("abs.zer0.camel.jdk.http.BodyComplete")
+    @Label("HTTP Body Complete")
+    @Description("The response body of an HTTP request fully received, with the time from the response headers")
+    public static final class BodyComplete extends HttpRequestEvent {
+
+        @Label("Status")
+        int status;
+
+        @Label("Response Bytes")
+        @DataAmount
+        long responseBytes;
+
+    }
+
+    @Name("abs.zer0.camel.jdk.http.RequestFailed")
+    @Label("HTTP Request Failed")
+    @Description("An HTTP request which failed, with the time from sending the request")
+    public static final class RequestFailed extends HttpRequestEvent {
+
+        @Label("Failure")
+        @Description("The class of the exception")
+        String failure;
+
+        @Label("Message")
+        String message;
+
+    }
+
+}
@@ -5,7 +5,17 @@ import org.apache.camel.util.UnsafeUriCharactersEncoder;
 
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Date;
 import java.util.Objects;
+import java.util.concurrent.CompletionException;
 
 /**
  * Helper class for the JDK HTTP component.
@@ -139,6 +149,138 @@ public final class JdkHttpHelper {
         );
     }
 
+    /**
+     * Gets the origin of the URI, i.e. scheme, host and port.
+     * The default port of the scheme is used when the URI does not contain a port.
+     *
+     * @param uri The URI to get the origin from.
+     * @return The origin in the form {@code scheme://host:port}.
+     */
+    public static String getOrigin(URI uri) {
+        Objects.requireNonNull(uri, "HTTP URI cannot be null");
+
+        final String scheme = uri.getScheme() != null ? uri.getScheme().toLowerCase() : "http";
+        int port = uri.getPort();
+        if (port == -1) {
+            port = "https".equals(scheme) ? 443 : 80;
+        }
+
+        return scheme + "://" + (uri.getHost() != null ? uri.getHost().toLowerCase() : "") + ":" + port;
+    }
+
+    /**
+     * Parses the value of the {@code Retry-After} header.
+     * Both the delay in seconds and the HTTP-date forms are supported.
+     *
+     * @param retryAfter The header value.
+     * @return The delay, or null if the value is absent or invalid.
+     */
+    public static Duration parseRetryAfter(String retryAfter) {
+        if (retryAfter == null || retryAfter.isBlank()) {
+            return null;
+        }
+
+        final String trimmed = retryAfter.trim();
+        try {
+            return Duration.ofSeconds(Math.max(0, Long.parseLong(trimmed)));
+        } catch (NumberFormatException nfe) {
+            try {
+                final ZonedDateTime date = ZonedDateTime.parse(trimmed, DateTimeFormatter.RFC_1123_DATE_TIME);
+                final Duration delay = Duration.between(Instant.now(), date.toInstant());
+
+                return delay.isNegative() ? Duration.ZERO : delay;
+            } catch (DateTimeParseException dtpe) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Parses a timeout budget.
+     * A number or a string of digits is a number of milliseconds, any other string is an ISO-8601 duration such as {@code PT2.5S}.
+     *
+     * @param budget The budget value.
+     * @return The budget, or null if the value is absent or invalid.
+     */
+    public static Duration parseTimeoutBudget(Object budget) {
+        if (budget instanceof Duration duration) {
+            return duration;
+        } else if (budget instanceof Number number) {
+            return Duration.ofMillis(number.longValue());
+        } else if (budget == null || budget.toString().isBlank()) {
+            return null;
+        }
+
+        final String trimmed = budget.toString().trim();
+        try {
+            return Duration.ofMillis(Long.parseLong(trimmed));
+        } catch (NumberFormatException nfe) {
+            try {
+                return Duration.parse(trimmed);
+            } catch (DateTimeParseException dtpe) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Parses an absolute deadline.
+     * A number or a string of digits is a number of milliseconds since the epoch, any other string is an ISO-8601 instant.
+     *
+     * @param deadline The deadline value.
+     * @return The deadline, or null if the value is absent or invalid.
+     */
+    public static Instant parseDeadline(Object deadline) {
+        if (deadline instanceof Instant instant) {
+            return instant;
+        } else if (deadline instanceof Date date) {
+            return date.toInstant();
+        } else if (deadline instanceof Number number) {
+            return Instant.ofEpochMilli(number.longValue());
+        } else if (deadline == null || deadline.toString().isBlank()) {
+            return null;
+        }
+
+        final String trimmed = deadline.toString().trim();
+        try {
+            return Instant.ofEpochMilli(Long.parseLong(trimmed));
+        } catch (NumberFormatException nfe) {
+            try {
+                return Instant.parse(trimmed);
+            } catch (DateTimeParseException dtpe) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Determines whether the failure of a request is a timeout waiting for the response, as opposed to a connect timeout.
+     *
+     * @param throwable the failure, possibly wrapped in a {@link java.util.concurrent.CompletionException}.
+     * @return {@code true} if the response was not received within the timeout of the request.
+     */
+    public static boolean isResponseTimeout(Throwable throwable) {
+        final Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable;
+        return cause instanceof HttpTimeoutException && !(cause instanceof HttpConnectTimeoutException);
+    }
+
+    /**
+     * Determines whether the outcome of a request signals an overloaded upstream to the adaptive concurrency limit:
+     * the request failed, or the upstream throttled it with HTTP 429, 503 or 504.
+     *
+     * @param httpResponse the response, or {@code null} if the request failed.
+     * @param throwable    the failure, or {@code null} if a response was received.
+     * @return {@code true} if the request is dropped.
+     */
+    public static boolean isDropped(HttpResponse<?> httpResponse, Throwable throwable) {
+        if (throwable != null) {
+            return true;
+        }
+
+        final int statusCode = httpResponse.statusCode();
+        return statusCode == 429 || statusCode == 503 || statusCode == 504;
+    }
+
     private JdkHttpHelper() {
     }
 
@@ -0,0 +1,482 @@
+package abs.zer0.camel.jdk.http;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Limits the number of concurrent in-flight requests.
+ * <br/>
+ * Requests which cannot get a permit immediately may be parked in a bounded queue.
+ * A parked request does not hold a thread: the thread releasing a permit hands it over directly to the next parked request,
+ * whose task is run on the executor given when it was parked, so the release does not send the next request inline.
+ * Parked requests which are not resumed within the maximum wait time are timed out on the given scheduler.
+ * <br/>
+ * With a {@link JdkHttpAdaptiveLimit}, the limit is adjusted from the outcome of every request reported by {@link #onSample(long, boolean)}.
+ * <br/>
+ * Parked requests are queued per {@link JdkHttpPriority}. A released permit goes to the next request of the priority class chosen
+ * by smooth weighted round-robin over the non-empty classes, so each class gets a share of the permits proportional to its weight.
+ * Within a class, requests are dispatched in FIFO order, or earliest deadline first by the deadline of their exchange,
+ * where requests without a deadline come after those with one, in FIFO order.
+ */
+public class JdkHttpInFlightLimiter {
+
+    private static final JdkHttpPriority[] PRIORITIES = JdkHttpPriority.values();
+
+    private final int maxQueueSize;
+    private final JdkHttpAdaptiveLimit adaptiveLimit;
+    private final List<Queue<Waiter>> waiters = newQueues(false);
+    private final int[] weights = {8, 4, 1};
+    private final int[] credits = new int[PRIORITIES.length];
+    private int waiterCount;
+    private long waiterSequence;
+
+    private int limit;
+    private int inFlight;
+
+    private final LongAdder waitCount = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final LongAdder rejectedCount = new LongAdder();
+    private final LongAdder timedOutCount = new LongAdder();
+    private final LongAdder[] waitCountByPriority = newAdders();
+    private final LongAdder[] waitNanosByPriority = newAdders();
+
+    /**
+     * Creates a new in-flight limiter.
+     *
+     * @param limit        the maximum number of in-flight requests. Must be greater than 0.
+     * @param maxQueueSize the maximum number of parked requests. Must not be negative.
+     */
+    public JdkHttpInFlightLimiter(int limit, int maxQueueSize) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Maximum number of in-flight requests cannot be less than 1");
+        }
+        if (maxQueueSize < 0) {
+            throw new IllegalArgumentException("Maximum in-flight queue size cannot be negative");
+        }
+        this.limit = limit;
+        this.maxQueueSize = maxQueueSize;
+        this.adaptiveLimit = null;
+    }
+
+    /**
+     * Creates a new in-flight limiter whose limit adapts to the upstream.
+     *
+     * @param adaptiveLimit the estimator of the limit. Must not be {@code null}.
+     * @param maxQueueSize  the maximum number of parked requests. Must not be negative.
+     */
+    public JdkHttpInFlightLimiter(JdkHttpAdaptiveLimit adaptiveLimit, int maxQueueSize) {
+        if (maxQueueSize < 0) {
+            throw new IllegalArgumentException("Maximum in-flight queue size cannot be negative");
+        }
+        this.adaptiveLimit = Objects.requireNonNull(adaptiveLimit, "Adaptive limit cannot be null");
+        this.limit = adaptiveLimit.getLimit();
+        this.maxQueueSize = maxQueueSize;
+    }
+
+    /**
+     * Acquires a permit if one is available immediately.
+     *
+     * @return {@code true} if the permit was acquired, otherwise {@code false}.
+     */
+    public synchronized boolean tryAcquire() {
+        if (inFlight < limit) {
+            inFlight++;
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Acquires a permit if one is available immediately, otherwise parks the task until a permit is released.
+     * The task is run with the permit held, either by the calling thread or later by the thread releasing a permit.
+     *
+     * @param onPermit  the task to run once the permit is acquired. Must not be {@code null}.
+     * @param onTimeout the task to run if no permit is acquired within the maximum wait time. Must not be {@code null}.
+     * @param maxWait   the maximum time to wait for a permit. Must not be {@code null}.
+     * @param scheduler the scheduler used to time out parked tasks. Must not be {@code null}.
+     * @return {@code true} if the task was run or parked, {@code false} if the queue is full.
+     */
+    public boolean acquire(Runnable onPermit, Runnable onTimeout, Duration maxWait, ScheduledExecutorService scheduler) {
+        return acquire(onPermit, onTimeout, maxWait, scheduler, JdkHttpPriority.NORMAL, null, null);
+    }
+
+    /**
+     * Acquires a permit if one is available immediately, otherwise parks the task in the queue of its priority class
+     * until a permit is handed over to it.
+     * The task is run with the permit held, either by the calling thread or later on the given executor once a permit is handed over.
+     *
+     * @param onPermit  the task to run once the permit is acquired. Must not be {@code null}.
+     * @param onTimeout the task to run if no permit is acquired within the maximum wait time. Must not be {@code null}.
+     * @param maxWait   the maximum time to wait for a permit. Must not be {@code null}.
+     * @param scheduler the scheduler used to time out parked tasks. Must not be {@code null}.
+     * @param priority  the priority class of the task. Must not be {@code null}.
+     * @param deadline  the deadline of the exchange, used for earliest deadline first ordering, or {@code null} if it has none.
+     * @param executor  the executor running a parked task once a permit is handed over,
+     *                  or {@code null} to run it on the thread releasing the permit.
+     * @return {@code true} if the task was run or parked, {@code false} if the queue is full.
+     */
+    public boolean acquire(Runnable onPermit, Runnable onTimeout, Duration maxWait, ScheduledExecutorService scheduler, JdkHttpPriority priority,
+                           Instant deadline, Executor executor) {
+        Objects.requireNonNull(onPermit, "Permit task cannot be null");
+        Objects.requireNonNull(onTimeout, "Timeout task cannot be null");
+        Objects.requireNonNull(priority, "Priority cannot be null");
+
+        final Waiter waiter;
+        synchronized (this) {
+            if (inFlight < limit) {
+                inFlight++;
+                waiter = null;
+            } else if (waiterCount >= maxQueueSize) {
+                rejectedCount.increment();
+                return false;
+            } else {
+                waiter = new Waiter(onPermit, onTimeout, priority, deadline, waiterSequence++, executor);
+                waiters.get(priority.ordinal()).offer(waiter);
+                waiterCount++;
+            }
+        }
+
+        if (waiter == null) {
+            onPermit.run();
+        } else {
+            waiter.timeoutFuture = scheduler.schedule(() -> timeout(waiter), maxWait.toNanos(), TimeUnit.NANOSECONDS);
+        }
+
+        return true;
+    }
+
+    /**
+     * Acquires a permit, parking the calling thread in the queue of its priority class until a permit is handed over to it.
+     *
+     * @param maxWait   the maximum time to wait for a permit. Must not be {@code null}.
+     * @param scheduler the scheduler used to time out the parked thread. Must not be {@code null}.
+     * @param priority  the priority class of the calling thread. Must not be {@code null}.
+     * @param deadline  the deadline of the exchange, used for earliest deadline first ordering, or {@code null} if it has none.
+     * @return {@code true} if the permit was acquired, {@code false} if the queue is full or no permit is acquired within the maximum wait time.
+     * @throws InterruptedException if the calling thread is interrupted while waiting.
+     */
+    public boolean acquire(Duration maxWait, ScheduledExecutorService scheduler, JdkHttpPriority priority, Instant deadline)
+            throws InterruptedException {
+        final CompletableFuture<Boolean> permit = new CompletableFuture<>();
+        // a permit handed over after the thread stopped waiting is released again
+        final boolean parked = acquire(() -> {
+            if (!permit.complete(true)) {
+                release();
+            }
+        }, () -> permit.complete(false), maxWait, scheduler, priority, deadline, null);
+        if (!parked) {
+            return false;
+        }
+
+        try {
+            return permit.get();
+        } catch (InterruptedException e) {
+            if (!permit.complete(false) && permit.join()) {
+                release();
+            }
+            throw e;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Releases a permit.
+     * If there is a parked task, the permit is handed over to it and the task is run on its executor.
+     */
+    public void release() {
+        final Waiter next;
+        synchronized (this) {
+            if (inFlight > limit) {
+                inFlight--;
+                return;
+            }
+
+            next = pollWaiter();
+            if (next == null) {
+                inFlight--;
+                return;
+            }
+        }
+
+        next.resume();
+    }
+
+    /**
+     * Reports the outcome of a request holding a permit, before the permit is released.
+     * If the limit is adaptive, it is updated and parked tasks are resumed when the limit grows.
+     *
+     * @param rttNanos the round-trip time of the request in nanoseconds.
+     * @param dropped  whether the request failed, timed out or was throttled by the upstream.
+     */
+    public void onSample(long rttNanos, boolean dropped) {
+        if (adaptiveLimit != null) {
+            setLimit(adaptiveLimit.update(rttNanos, dropped, getInFlight()));
+        }
+    }
+
+    /**
+     * Sets the maximum number of in-flight requests.
+     * When the limit grows, parked tasks are resumed up to the new limit.
+     * When it shrinks, requests already in flight complete and their permits are not handed over until the number of in-flight requests drops below the new limit.
+     *
+     * @param limit the maximum number of in-flight requests. Must be greater than 0.
+     */
+    public void setLimit(int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Maximum number of in-flight requests cannot be less than 1");
+        }
+
+        final List<Waiter> resumed = new ArrayList<>();
+        synchronized (this) {
+            this.limit = limit;
+            while (inFlight < limit && waiterCount > 0) {
+                inFlight++;
+                resumed.add(pollWaiter());
+            }
+        }
+
+        resumed.forEach(Waiter::resume);
+    }
+
+    /**
+     * Records that a request was rejected without being parked.
+     */
+    public void reject() {
+        rejectedCount.increment();
+    }
+
+    public synchronized int getLimit() {
+        return limit;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    /**
+     * Sets the weights of the priority classes, in the order {@link JdkHttpPriority#HIGH}, {@link JdkHttpPriority#NORMAL}, {@link JdkHttpPriority#LOW}.
+     * A class with twice the weight of another gets twice as many permits while both have parked requests.
+     * <br/>
+     * The default weights are 8, 4 and 1.
+     *
+     * @param weights the weight of each priority class. Each must be greater than 0.
+     */
+    public synchronized void setPriorityWeights(int... weights) {
+        if (weights.length != PRIORITIES.length) {
+            throw new IllegalArgumentException("Priority weights must have " + PRIORITIES.length + " values");
+        }
+        for (int weight : weights) {
+            if (weight < 1) {
+                throw new IllegalArgumentException("Priority weight cannot be less than 1");
+            }
+        }
+        System.arraycopy(weights, 0, this.weights, 0, weights.length);
+    }
+
+    /**
+     * Sets whether parked requests of the same priority class are dispatched earliest deadline first instead of in FIFO order.
+     * Must be set before requests are parked.
+     *
+     * @param earliestDeadlineFirst {@code true} to dispatch earliest deadline first, {@code false} for FIFO order.
+     */
+    public synchronized void setEarliestDeadlineFirst(boolean earliestDeadlineFirst) {
+        if (waiterCount > 0) {
+            throw new IllegalStateException("Queue order cannot be changed while requests are parked");
+        }
+        final List<Queue<Waiter>> queues = newQueues(earliestDeadlineFirst);
+        for (int i = 0; i < queues.size(); i++) {
+            waiters.set(i, queues.get(i));
+        }
+    }
+
+    public synchronized int getQueueSize() {
+        return waiterCount;
+    }
+
+    public synchronized int getQueueSize(JdkHttpPriority priority) {
+        return waiters.get(priority.ordinal()).size();
+    }
+
+    public long getWaitCount(JdkHttpPriority priority) {
+        return waitCountByPriority[priority.ordinal()].sum();
+    }
+
+    /**
+     * Gets the mean time requests of the given priority class waited for a permit.
+     *
+     * @param priority the priority class.
+     * @return the mean wait time in millis, or {@code 0} if no request of the class waited.
+     */
+    public long getMeanWaitTime(JdkHttpPriority priority) {
+        final long count = waitCountByPriority[priority.ordinal()].sum();
+        return count > 0 ? TimeUnit.NANOSECONDS.toMillis(waitNanosByPriority[priority.ordinal()].sum() / count) : 0;
+    }
+
+    public boolean isAdaptive() {
+        return adaptiveLimit != null;
+    }
+
+    public JdkHttpAdaptiveLimit getAdaptiveLimit() {
+        return adaptiveLimit;
+    }
+
+    public int getMaxQueueSize() {
+        return maxQueueSize;
+    }
+
+    public long getWaitCount() {
+        return waitCount.sum();
+    }
+
+    public long getTotalWaitTime() {
+        return TimeUnit.NANOSECONDS.toMillis(totalWaitNanos.sum());
+    }
+
+    public long getMaxWaitTime() {
+        return TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get());
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+
+    /**
+     * Gets the number of parked requests which did not get a permit within their maximum wait time.
+     *
+     * @return the number of timed out requests.
+     */
+    public long getTimedOutCount() {
+        return timedOutCount.sum();
+    }
+
+
+    private void timeout(Waiter waiter) {
+        final boolean removed;
+        synchronized (this) {
+            removed = waiters.get(waiter.priority.ordinal()).remove(waiter);
+            if (removed) {
+                waiterCount--;
+            }
+        }
+
+        if (removed) {
+            timedOutCount.increment();
+            waiter.onTimeout.run();
+        }
+    }
+
+    /**
+     * Polls the next waiter by smooth weighted round-robin over the non-empty priority classes.
+     */
+    private Waiter pollWaiter() {
+        if (waiterCount == 0) {
+            return null;
+        }
+
+        int selected = -1;
+        int totalWeight = 0;
+        for (int i = 0; i < credits.length; i++) {
+            if (!waiters.get(i).isEmpty()) {
+                credits[i] += weights[i];
+                totalWeight += weights[i];
+                if (selected == -1 || credits[i] > credits[selected]) {
+                    selected = i;
+                }
+            } else {
+                credits[i] = 0;
+            }
+        }
+        credits[selected] -= totalWeight;
+        waiterCount--;
+
+        return waiters.get(selected).poll();
+    }
+
+    private static List<Queue<Waiter>> newQueues(boolean earliestDeadlineFirst) {
+        final Comparator<Waiter> order = Comparator.comparing((Waiter waiter) -> waiter.deadline, Comparator.nullsLast(Comparator.naturalOrder()))
+                .thenComparingLong(waiter -> waiter.sequence);
+        final List<Queue<Waiter>> queues = new ArrayList<>(PRIORITIES.length);
+        for (int i = 0; i < PRIORITIES.length; i++) {
+            queues.add(earliestDeadlineFirst ? new PriorityQueue<>(order) : new ArrayDeque<>());
+        }
+
+        return queues;
+    }
+
+    private static LongAdder[] newAdders() {
+        final LongAdder[] adders = new LongAdder[PRIORITIES.length];
+        for (int i = 0; i < adders.length; i++) {
+            adders[i] = new LongAdder();
+        }
+
+        return adders;
+    }
+
+    private void recordWait(JdkHttpPriority priority, long waitNanos) {
+        waitCountByPriority[priority.ordinal()].increment();
+        waitNanosByPriority[priority.ordinal()].add(waitNanos);
+        waitCount.increment();
+        totalWaitNanos.add(waitNanos);
+        maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+    }
+
+    private final class Waiter {
+
+        private final Runnable onPermit;
+        private final Runnable onTimeout;
+        private final JdkHttpPriority priority;
+        private final long parkedNanos = System.nanoTime();
+        private final Instant deadline;
+        private final long sequence;
+        private final Executor executor;
+        private volatile Future<?> timeoutFuture;
+
+        private Waiter(Runnable onPermit, Runnable onTimeout, JdkHttpPriority priority, Instant deadline, long sequence, Executor executor) {
+            this.onPermit = onPermit;
+            this.onTimeout = onTimeout;
+            this.priority = priority;
+            this.deadline = deadline;
+            this.sequence = sequence;
+            this.executor = executor;
+        }
+
+        private void resume() {
+            final Future<?> future = timeoutFuture;
+            if (future != null) {
+                future.cancel(false);
+            }
+            recordWait(priority, System.nanoTime() - parkedNanos);
+
+            if (executor == null) {
+                onPermit.run();
+                return;
+            }
+            try {
+                executor.execute(onPermit);
+            } catch (RejectedExecutionException e) {
+                onPermit.run();
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,163 @@
+package abs.zer0.camel.jdk.http;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram of latencies over a sliding time window.
+ * <br/>
+ * Latencies are counted in microseconds in log-linear buckets: eight buckets per power of two,
+ * so a percentile is accurate to within 12.5% and at most a few hundred counters are kept regardless of the number of samples.
+ * Latencies above about nineteen hours are counted in the last bucket.
+ * <br/>
+ * The window is divided into slots which are recycled as time advances,
+ * so samples older than the window stop counting and the percentiles follow a latency shift within the window.
+ * A slot is reset by the first sample of its new period without locking;
+ * samples recorded concurrently with the reset may be lost, which is acceptable for an estimate.
+ */
+public class JdkHttpLatencyHistogram {
+
+    private static final int SLOTS = 5;
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 36;
+    private static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+    private final long slotNanos;
+    private final Slot[] slots = new Slot[SLOTS];
+
+    /**
+     * Creates a new latency histogram.
+     *
+     * @param window the time window of the samples. Must not be {@code null} and must be at least a millisecond per slot.
+     */
+    public JdkHttpLatencyHistogram(Duration window) {
+        Objects.requireNonNull(window, "Latency histogram window cannot be null");
+        this.slotNanos = window.toNanos() / SLOTS;
+        if (slotNanos < TimeUnit.MILLISECONDS.toNanos(1)) {
+            throw new IllegalArgumentException("Latency histogram window cannot be less than " + SLOTS + "ms");
+        }
+        for (int i = 0; i < SLOTS; i++) {
+            slots[i] = new Slot();
+        }
+    }
+
+    /**
+     * Records a latency sample.
+     *
+     * @param latencyNanos the latency in nanoseconds. Negative values are counted as 0.
+     */
+    public void record(long latencyNanos) {
+        final long period = Math.floorDiv(System.nanoTime(), slotNanos);
+        final Slot slot = slots[Math.floorMod(period, SLOTS)];
+
+        final long slotPeriod = slot.period.get();
+        if (slotPeriod < period && slot.period.compareAndSet(slotPeriod, period)) {
+            for (int i = 0; i < BUCKETS; i++) {
+                slot.counts.set(i, 0);
+            }
+            slot.total.set(0);
+        }
+
+        slot.counts.incrementAndGet(bucketOf(TimeUnit.NANOSECONDS.toMicros(Math.max(0, latencyNanos))));
+        slot.total.incrementAndGet();
+    }
+
+    /**
+     * Gets the number of samples within the window.
+     *
+     * @return the number of samples.
+     */
+    public long getCount() {
+        final long period = Math.floorDiv(System.nanoTime(), slotNanos);
+        long count = 0;
+        for (Slot slot : slots) {
+            if (isCurrent(slot, period)) {
+                count += slot.total.get();
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Gets the latency below which the given percentage of the samples within the window fall.
+     * The value is the upper bound of the bucket of the percentile, so it does not underestimate the latency.
+     *
+     * @param percentile the percentile, between 0 and 100.
+     * @return the latency in nanoseconds, or {@code -1} if there are no samples within the window.
+     */
+    public long getValueAtPercentile(double percentile) {
+        final long period = Math.floorDiv(System.nanoTime(), slotNanos);
+        final long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (Slot slot : slots) {
+            if (isCurrent(slot, period)) {
+                for (int i = 0; i < BUCKETS; i++) {
+                    final long count = slot.counts.get(i);
+                    counts[i] += count;
+                    total += count;
+                }
+            }
+        }
+        if (total == 0) {
+            return -1;
+        }
+
+        final long rank = Math.max(1, (long) Math.ceil(total * Math.min(100, Math.max(0, percentile)) / 100));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return TimeUnit.MICROSECONDS.toNanos(upperBoundOf(i));
+            }
+        }
+
+        return TimeUnit.MICROSECONDS.toNanos(upperBoundOf(BUCKETS - 1));
+    }
+
+
+    private static boolean isCurrent(Slot slot, long period) {
+        final long slotPeriod = slot.period.get();
+        return slotPeriod <= period && slotPeriod > period - SLOTS;
+    }
+
+    private static int bucketOf(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) micros;
+        }
+
+        final int exponent = Math.min(MAX_EXPONENT, 63 - Long.numberOfLeadingZeros(micros));
+        final int subBucket = exponent == MAX_EXPONENT && micros >= 1L << (MAX_EXPONENT + 1) ?
+                SUB_BUCKETS - 1 :
+                (int) (micros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    private static long upperBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket + 1;
+        }
+
+        final int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        final int subBucket = bucket % SUB_BUCKETS;
+
+        return (long) (SUB_BUCKETS + subBucket + 1) << (exponent - SUB_BUCKET_BITS);
+    }
+
+    /**
+     * The counters of one period of the window.
+     */
+    private static final class Slot {
+
+        private final AtomicLong period = new AtomicLong(Long.MIN_VALUE);
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+        private final AtomicLong total = new AtomicLong();
+
+    }
+
+}
@@ -0,0 +1,114 @@
+package abs.zer0.camel.jdk.http;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Memory budget for the response bodies buffered by all endpoints of a component.
+ * <br/>
+ * A response body reserves capacity for its whole {@code Content-Length} before it is read into memory,
+ * or chunk by chunk while it is read if its length is unknown, and releases it when its exchange completes.
+ * When the budget is exhausted, the {@link JdkHttpMemoryBudgetPolicy} determines whether the body is spooled to disk
+ * or reading waits until capacity is released. A body never waits while it holds a reservation:
+ * it releases what it reserved before waiting for the whole amount, so bodies cannot deadlock on each other.
+ * A body larger than the whole budget is never buffered in memory: it is spooled to disk or fails, whatever the budget use.
+ */
+public class JdkHttpMemoryBudget {
+
+    private final long capacity;
+    private final JdkHttpMemoryBudgetPolicy policy;
+    private final Duration maxWait;
+
+    private long used;
+    private long highWaterMark;
+
+    /**
+     * Creates a new memory budget.
+     *
+     * @param capacity the number of bytes which can be buffered at the same time. Must be greater than 0.
+     * @param policy   what happens to a body when the budget is exhausted. Must not be {@code null}.
+     * @param maxWait  the maximum time to wait for capacity. Must not be {@code null}.
+     */
+    public JdkHttpMemoryBudget(long capacity, JdkHttpMemoryBudgetPolicy policy, Duration maxWait) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Memory budget cannot be less than 1");
+        }
+        this.capacity = capacity;
+        this.policy = Objects.requireNonNull(policy, "Memory budget policy cannot be null");
+        this.maxWait = Objects.requireNonNull(maxWait, "Memory budget max wait cannot be null");
+    }
+
+    /**
+     * Reserves capacity for the given number of bytes if it is available, without waiting.
+     * A reservation larger than the whole budget is never available.
+     *
+     * @param bytes the number of bytes to reserve.
+     * @return {@code true} if the capacity was reserved.
+     */
+    public synchronized boolean tryReserve(long bytes) {
+        if (used + bytes > capacity) {
+            return false;
+        }
+
+        used += bytes;
+        highWaterMark = Math.max(highWaterMark, used);
+
+        return true;
+    }
+
+    /**
+     * Reserves capacity for the given number of bytes, waiting up to the maximum wait time for capacity to be released.
+     * The caller must not hold a reservation while calling this method.
+     *
+     * @param bytes the number of bytes to reserve.
+     * @throws InterruptedException  if interrupted while waiting for capacity.
+     * @throws IllegalStateException if the bytes exceed the whole budget, or no capacity was released within the maximum wait time.
+     */
+    public synchronized void reserve(long bytes) throws InterruptedException {
+        if (bytes > capacity) {
+            throw new IllegalStateException("Response body of " + bytes + " bytes exceeds the response memory budget of " + capacity + " bytes");
+        }
+
+        final long deadline = System.nanoTime() + maxWait.toNanos();
+        while (used + bytes > capacity) {
+            final long remainingNanos = deadline - System.nanoTime();
+            if (remainingNanos <= 0) {
+                throw new IllegalStateException("Response memory budget of " + capacity + " bytes is exhausted, no memory released within " + maxWait);
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, remainingNanos);
+        }
+
+        used += bytes;
+        highWaterMark = Math.max(highWaterMark, used);
+    }
+
+    /**
+     * Releases capacity reserved earlier.
+     *
+     * @param bytes the number of bytes to release.
+     */
+    public synchronized void release(long bytes) {
+        if (bytes > 0) {
+            used = Math.max(0, used - bytes);
+            notifyAll();
+        }
+    }
+
+    public long getCapacity() {
+        return capacity;
+    }
+
+    public JdkHttpMemoryBudgetPolicy getPolicy() {
+        return policy;
+    }
+
+    public synchronized long getUsed() {
+        return used;
+    }
+
+    public synchronized long getHighWaterMark() {
+        return highWaterMark;
+    }
+
+}
@@ -0,0 +1,25 @@
+package abs.zer0.camel.jdk.http;
+
+/**
+ * Determines what happens to a response body which cannot be buffered in memory because the memory budget is exhausted.
+ *
+ * @see JdkHttpMemoryBudget
+ */
+public enum JdkHttpMemoryBudgetPolicy {
+
+    /**
+     * The response body is spooled to a file of the stream caching spool directory, encrypted with the spool cipher if set,
+     * which is deleted when the exchange completes.
+     * A spooled body is a {@link org.apache.camel.StreamCache}, even if the response body is converted to a byte array otherwise.
+     */
+    SPILL,
+
+    /**
+     * Reading the response body waits until enough memory is released, which slows down the caller,
+     * or fails after the maximum wait time. A response body larger than the whole budget fails immediately.
+     * Asynchronous endpoints without a completion executor bind their responses on a Camel thread pool,
+     * so the wait does not block the threads of the JDK HttpClient delivering the responses which release memory.
+     */
+    BLOCK
+
+}
@@ -0,0 +1,310 @@
+package abs.zer0.camel.jdk.http;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.InputStream;
+import java.net.http.HttpRequest;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Message body of a {@code multipart/form-data} request.
+ * <br/>
+ * The body is converted into a {@link HttpRequest.BodyPublisher} which streams every part lazily, one after another:
+ * files are read in chunks by {@link HttpRequest.BodyPublishers#ofFile(Path)}
+ * and streams by {@link HttpRequest.BodyPublishers#ofInputStream(Supplier)},
+ * so nothing is buffered beyond a fixed-size chunk regardless of the size of the parts.
+ * If the sizes of all parts are known, the {@code Content-Length} of the request is computed,
+ * otherwise the request is sent chunked.
+ * <br/>
+ * The {@code Content-Type} header of the request, including the boundary, is set by {@link JdkHttpBinding}.
+ *
+ * <pre>{@code
+ * JdkHttpMultipartBody body = JdkHttpMultipartBody.builder()
+ *         .addText("description", "monthly report")
+ *         .addFile("report", Path.of("report.pdf"), "application/pdf")
+ *         .build();
+ * }</pre>
+ */
+public final class JdkHttpMultipartBody {
+
+    private static final byte[] CRLF = "\r\n".getBytes(StandardCharsets.US_ASCII);
+
+    private final String boundary;
+    private final List<Part> parts;
+
+    private JdkHttpMultipartBody(String boundary, List<Part> parts) {
+        this.boundary = boundary;
+        this.parts = Collections.unmodifiableList(parts);
+    }
+
+    /**
+     * Creates a new builder of a multipart body with a random boundary.
+     *
+     * @return the new {@link Builder}.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Gets the boundary separating the parts.
+     *
+     * @return the boundary.
+     */
+    public String getBoundary() {
+        return boundary;
+    }
+
+    /**
+     * Gets the value of the {@code Content-Type} header of the request.
+     *
+     * @return the content type including the boundary.
+     */
+    public String getContentType() {
+        return "multipart/form-data; boundary=" + boundary;
+    }
+
+    /**
+     * Gets the parts of the body.
+     *
+     * @return an unmodifiable {@link List} of parts.
+     */
+    public List<Part> getParts() {
+        return parts;
+    }
+
+    /**
+     * Creates the publisher streaming the encoded body.
+     * Each call creates a new publisher, but parts created from an {@link InputStream} can be published only once.
+     *
+     * @return the {@link HttpRequest.BodyPublisher} of the encoded body.
+     * @throws FileNotFoundException if the file of a part does not exist.
+     */
+    public HttpRequest.BodyPublisher toBodyPublisher() throws FileNotFoundException {
+        final List<HttpRequest.BodyPublisher> publishers = new ArrayList<>(parts.size() * 3 + 1);
+        for (Part part : parts) {
+            publishers.add(HttpRequest.BodyPublishers.ofByteArray(part.encodeHeader(boundary)));
+            publishers.add(part.toBodyPublisher());
+            publishers.add(HttpRequest.BodyPublishers.ofByteArray(CRLF));
+        }
+        publishers.add(HttpRequest.BodyPublishers.ofString("--" + boundary + "--\r\n", StandardCharsets.US_ASCII));
+
+        return HttpRequest.BodyPublishers.concat(publishers.toArray(HttpRequest.BodyPublisher[]::new));
+    }
+
+    /**
+     * A single part of a multipart body.
+     */
+    public static final class Part {
+
+        private final String name;
+        private final String fileName;
+        private final String contentType;
+        private final Object content;
+        private final long contentLength;
+
+        private Part(String name, String fileName, String contentType, Object content, long contentLength) {
+            this.name = Objects.requireNonNull(name, "Part name cannot be null");
+            this.fileName = fileName;
+            this.contentType = contentType;
+            this.content = Objects.requireNonNull(content, "Part content cannot be null");
+            this.contentLength = contentLength;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getFileName() {
+            return fileName;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        private byte[] encodeHeader(String boundary) {
+            final StringBuilder header = new StringBuilder(128)
+                    .append("--").append(boundary).append("\r\n")
+                    .append("Content-Disposition: form-data; name=\"").append(escape(name)).append('"');
+            if (fileName != null) {
+                header.append("; filename=\"").append(escape(fileName)).append('"');
+            }
+            header.append("\r\n");
+            if (contentType != null) {
+                header.append(JdkHttpConstants.CONTENT_TYPE).append(": ").append(contentType).append("\r\n");
+            }
+            header.append("\r\n");
+
+            return header.toString().getBytes(StandardCharsets.UTF_8);
+        }
+
+        @SuppressWarnings("unchecked")
+        private HttpRequest.BodyPublisher toBodyPublisher() throws FileNotFoundException {
+            if (content instanceof byte[] bytes) {
+                return HttpRequest.BodyPublishers.ofByteArray(bytes);
+            } else if (content instanceof Path path) {
+                return HttpRequest.BodyPublishers.ofFile(path);
+            }
+
+            final HttpRequest.BodyPublisher streamPublisher = HttpRequest.BodyPublishers.ofInputStream((Supplier<InputStream>) content);
+
+            return contentLength >= 0 ?
+                    HttpRequest.BodyPublishers.fromPublisher(streamPublisher, contentLength) :
+                    streamPublisher;
+        }
+
+        private static String escape(String value) {
+            return value.replace("\"", "%22")
+                    .replace("\r", "%0D")
+                    .replace("\n", "%0A");
+        }
+
+    }
+
+    /**
+     * Builder of a multipart body.
+     */
+    public static final class Builder {
+
+        private final List<Part> parts = new ArrayList<>();
+        private String boundary = UUID.randomUUID().toString().replace("-", "");
+
+        private Builder() {
+        }
+
+        /**
+         * Sets the boundary separating the parts. By default, a random boundary is used.
+         *
+         * @param boundary the boundary. Must not be {@code null}.
+         * @return this builder.
+         */
+        public Builder boundary(String boundary) {
+            this.boundary = Objects.requireNonNull(boundary, "Multipart boundary cannot be null");
+            return this;
+        }
+
+        /**
+         * Adds a text field encoded with UTF-8.
+         *
+         * @param name  the field name. Must not be {@code null}.
+         * @param value the field value. Must not be {@code null}.
+         * @return this builder.
+         */
+        public Builder addText(String name, String value) {
+            return addText(name, value, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Adds a text field.
+         *
+         * @param name    the field name. Must not be {@code null}.
+         * @param value   the field value. Must not be {@code null}.
+         * @param charset the charset to encode the value. Must not be {@code null}.
+         * @return this builder.
+         */
+        public Builder addText(String name, String value, Charset charset) {
+            Objects.requireNonNull(value, "Part value cannot be null");
+            Objects.requireNonNull(charset, "Part charset cannot be null");
+
+            final byte[] bytes = value.getBytes(charset);
+            final String contentType = StandardCharsets.UTF_8.equals(charset) ? null : "text/plain; charset=" + charset.name();
+            parts.add(new Part(name, null, contentType, bytes, bytes.length));
+            return this;
+        }
+
+        /**
+         * Adds a part with the given bytes as content.
+         *
+         * @param name        the part name. Must not be {@code null}.
+         * @param bytes       the content. Must not be {@code null}.
+         * @param fileName    the file name, or {@code null}.
+         * @param contentType the content type, or {@code null}.
+         * @return this builder.
+         */
+        public Builder addBytes(String name, byte[] bytes, String fileName, String contentType) {
+            Objects.requireNonNull(bytes, "Part content cannot be null");
+            parts.add(new Part(name, fileName, contentType, bytes, bytes.length));
+            return this;
+        }
+
+        /**
+         * Adds a file part. The file name is taken from the path.
+         *
+         * @param name        the part name. Must not be {@code null}.
+         * @param path        the file. Must not be {@code null}.
+         * @param contentType the content type, or {@code null}.
+         * @return this builder.
+         */
+        public Builder addFile(String name, Path path, String contentType) {
+            Objects.requireNonNull(path, "Part file cannot be null");
+            parts.add(new Part(name, path.getFileName().toString(), contentType, path, path.toFile().length()));
+            return this;
+        }
+
+        /**
+         * Adds a file part. The file name is taken from the file.
+         *
+         * @param name        the part name. Must not be {@code null}.
+         * @param file        the file. Must not be {@code null}.
+         * @param contentType the content type, or {@code null}.
+         * @return this builder.
+         */
+        public Builder addFile(String name, File file, String contentType) {
+            Objects.requireNonNull(file, "Part file cannot be null");
+            return addFile(name, file.toPath(), contentType);
+        }
+
+        /**
+         * Adds a part with the content read from a stream.
+         * The stream is opened when the part is published and is read in chunks.
+         *
+         * @param name           the part name. Must not be {@code null}.
+         * @param streamSupplier the supplier of the content stream. Must not be {@code null}.
+         * @param fileName       the file name, or {@code null}.
+         * @param contentType    the content type, or {@code null}.
+         * @param contentLength  the length of the content, or {@code -1} if unknown.
+         * @return this builder.
+         */
+        public Builder addStream(String name, Supplier<? extends InputStream> streamSupplier, String fileName,
+                                 String contentType, long contentLength) {
+            Objects.requireNonNull(streamSupplier, "Part stream supplier cannot be null");
+            parts.add(new Part(name, fileName, contentType, streamSupplier, contentLength));
+            return this;
+        }
+
+        /**
+         * Adds a part with the content read from a stream, which can be published only once.
+         *
+         * @param name          the part name. Must not be {@code null}.
+         * @param stream        the content stream. Must not be {@code null}.
+         * @param fileName      the file name, or {@code null}.
+         * @param contentType   the content type, or {@code null}.
+         * @param contentLength the length of the content, or {@code -1} if unknown.
+         * @return this builder.
+         */
+        public Builder addStream(String name, InputStream stream, String fileName, String contentType, long contentLength) {
+            Objects.requireNonNull(stream, "Part stream cannot be null");
+            return addStream(name, () -> stream, fileName, contentType, contentLength);
+        }
+
+        /**
+         * Builds the multipart body.
+         *
+         * @return the new {@link JdkHttpMultipartBody}.
+         */
+        public JdkHttpMultipartBody build() {
+            return new JdkHttpMultipartBody(boundary, new ArrayList<>(parts));
+        }
+
+    }
+
+}
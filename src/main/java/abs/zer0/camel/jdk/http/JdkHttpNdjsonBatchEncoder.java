@@ -0,0 +1,83 @@
+package abs.zer0.camel.jdk.http;
+
+import org.apache.camel.CamelExchangeException;
+import org.apache.camel.Exchange;
+import org.apache.camel.Message;
+
+import java.net.http.HttpRequest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Batch encoder for newline-delimited JSON bulk APIs.
+ * <br/>
+ * Every exchange is encoded as one line of the request body, converting the message body to bytes without its trailing line break.
+ * The response body must have one line per exchange, in the order of the exchanges, and each exchange receives its line as body.
+ * A response with another number of lines fails the whole batch, as its lines cannot be matched to the exchanges.
+ * <br/>
+ * The headers of the bulk response, including the response code, describe the bulk request as a whole
+ * and are copied unchanged to every exchange of the batch.
+ */
+public class JdkHttpNdjsonBatchEncoder implements JdkHttpBatchEncoder {
+
+    private static final byte NEWLINE = '\n';
+
+    @Override
+    public String getContentType() {
+        return "application/x-ndjson";
+    }
+
+    @Override
+    public byte[] encodeItem(Exchange exchange) throws Exception {
+        final byte[] body = exchange.getMessage().getMandatoryBody(byte[].class);
+
+        int length = body.length;
+        while (length > 0 && (body[length - 1] == NEWLINE || body[length - 1] == '\r')) {
+            length--;
+        }
+
+        final byte[] item = new byte[length + 1];
+        System.arraycopy(body, 0, item, 0, length);
+        item[length] = NEWLINE;
+
+        return item;
+    }
+
+    @Override
+    public HttpRequest.BodyPublisher encodeBatch(List<byte[]> items) {
+        final List<HttpRequest.BodyPublisher> publishers = new ArrayList<>(items.size());
+        for (byte[] item : items) {
+            publishers.add(HttpRequest.BodyPublishers.ofByteArray(item));
+        }
+
+        return HttpRequest.BodyPublishers.concat(publishers.toArray(HttpRequest.BodyPublisher[]::new));
+    }
+
+    @Override
+    public void decode(Exchange batchExchange, List<Exchange> exchanges) throws Exception {
+        final Message batchMessage = batchExchange.getMessage();
+        final String responseBody = batchMessage.getBody(String.class);
+
+        final List<String> lines = new ArrayList<>(exchanges.size());
+        if (responseBody != null) {
+            for (String line : responseBody.split("\r?\n")) {
+                if (!line.isEmpty()) {
+                    lines.add(line);
+                }
+            }
+        }
+        if (lines.size() != exchanges.size()) {
+            throw new CamelExchangeException("Bulk response has " + lines.size() + " lines for a batch of " + exchanges.size() + " exchanges", batchExchange);
+        }
+
+        for (int i = 0; i < exchanges.size(); i++) {
+            final Message message = exchanges.get(i).getMessage();
+            for (Map.Entry<String, Object> header : batchMessage.getHeaders().entrySet()) {
+                message.setHeader(header.getKey(), header.getValue());
+            }
+            message.setBody(lines.get(i));
+        }
+    }
+
+}
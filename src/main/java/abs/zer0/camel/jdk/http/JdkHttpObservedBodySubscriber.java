@@ -0,0 +1,68 @@
+package abs.zer0.camel.jdk.http;
+
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+/**
+ * Body subscriber counting the bytes of a response body and notifying when the body is fully received or fails,
+ * before passing the signal to the wrapped subscriber.
+ *
+ * @param <T> the type of the response body.
+ */
+class JdkHttpObservedBodySubscriber<T> implements HttpResponse.BodySubscriber<T> {
+
+    private final HttpResponse.BodySubscriber<T> bodySubscriber;
+    private final LongConsumer onComplete;
+    private final Consumer<Throwable> onError;
+    private long bytes;
+
+    /**
+     * Creates a new observed body subscriber.
+     *
+     * @param bodySubscriber the wrapped subscriber. Must not be {@code null}.
+     * @param onComplete     receives the number of body bytes when the body is fully received. Must not be {@code null}.
+     * @param onError        receives the failure of the body. Must not be {@code null}.
+     */
+    JdkHttpObservedBodySubscriber(HttpResponse.BodySubscriber<T> bodySubscriber, LongConsumer onComplete, Consumer<Throwable> onError) {
+        this.bodySubscriber = Objects.requireNonNull(bodySubscriber, "Body subscriber cannot be null");
+        this.onComplete = Objects.requireNonNull(onComplete, "Completion listener cannot be null");
+        this.onError = Objects.requireNonNull(onError, "Error listener cannot be null");
+    }
+
+    @Override
+    public CompletionStage<T> getBody() {
+        return bodySubscriber.getBody();
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        bodySubscriber.onSubscribe(subscription);
+    }
+
+    @Override
+    public void onNext(List<ByteBuffer> item) {
+        for (ByteBuffer buffer : item) {
+            bytes += buffer.remaining();
+        }
+        bodySubscriber.onNext(item);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        onError.accept(throwable);
+        bodySubscriber.onError(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+        onComplete.accept(bytes);
+        bodySubscriber.onComplete();
+    }
+
+}
@@ -0,0 +1,26 @@
+package abs.zer0.camel.jdk.http;
+
+/**
+ * Determines what happens to an exchange when the maximum number of in-flight requests is reached.
+ *
+ * @see JdkHttpInFlightLimiter
+ */
+public enum JdkHttpOverflowPolicy {
+
+    /**
+     * The exchange is parked in a bounded queue and is resumed when an earlier request completes, or fails after the maximum wait time.
+     * An asynchronous producer does not hold a thread while the exchange is parked, a synchronous producer blocks the calling thread.
+     */
+    WAIT,
+
+    /**
+     * The exchange fails immediately.
+     */
+    REJECT,
+
+    /**
+     * The request is sent synchronously on the calling thread without a permit, which slows down the caller.
+     */
+    CALLER_RUNS
+
+}
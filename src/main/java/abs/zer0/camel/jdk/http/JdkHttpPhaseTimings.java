@@ -0,0 +1,184 @@
+package abs.zer0.camel.jdk.http;
+
+import java.net.URI;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Monotonic timestamps of the phases of a single HTTP request, from {@link System#nanoTime()}.
+ * <br/>
+ * The phases are:
+ * <ul>
+ *     <li>build: building the request from the exchange in {@link JdkHttpBinding#httpRequestFromExchange};</li>
+ *     <li>queue: waiting for an in-flight permit, a rate limit permit or the executor until the request is handed to the client;</li>
+ *     <li>headers: waiting for the response headers;</li>
+ *     <li>body: receiving the response body, if it was fully received while the response was bound to the exchange;</li>
+ *     <li>bind: binding the response to the exchange after the body was received, e.g. caching the body stream.</li>
+ * </ul>
+ * A phase which was not reached, e.g. because the request failed or the body is streamed to the route, has no duration.
+ *
+ * @see JdkHttpConstants#PHASE_TIMINGS
+ */
+public class JdkHttpPhaseTimings {
+
+    private final long startNanos = System.nanoTime();
+    private volatile long builtNanos;
+    private volatile long sentNanos;
+    private volatile long headersNanos;
+    private volatile long bodyNanos;
+    private volatile long boundNanos;
+
+    private volatile String method;
+    private volatile URI uri;
+    private volatile int status;
+    private volatile long responseBytes = -1;
+    private volatile Throwable failure;
+
+    /**
+     * Marks the request as built.
+     *
+     * @param method the method of the request.
+     * @param uri    the URI of the request.
+     */
+    public void onBuilt(String method, URI uri) {
+        this.method = method;
+        this.uri = uri;
+        builtNanos = System.nanoTime();
+    }
+
+    /**
+     * Marks the request as handed to the client.
+     */
+    public void onSent() {
+        sentNanos = System.nanoTime();
+    }
+
+    /**
+     * Marks the response headers as received, unless already marked.
+     *
+     * @param status the status code of the response.
+     */
+    public void onHeaders(int status) {
+        if (headersNanos == 0) {
+            this.status = status;
+            headersNanos = System.nanoTime();
+        }
+    }
+
+    /**
+     * Marks the response body as fully received.
+     *
+     * @param responseBytes the number of bytes of the response body.
+     */
+    public void onBody(long responseBytes) {
+        this.responseBytes = responseBytes;
+        bodyNanos = System.nanoTime();
+    }
+
+    /**
+     * Marks the response as bound to the exchange.
+     */
+    public void onBound() {
+        boundNanos = System.nanoTime();
+    }
+
+    /**
+     * Marks the request as failed.
+     *
+     * @param failure the failure.
+     */
+    public void onFailed(Throwable failure) {
+        this.failure = failure;
+        boundNanos = System.nanoTime();
+    }
+
+    /**
+     * Wraps the handler of the response body to mark the headers and the body.
+     *
+     * @param bodyHandler the handler of the response body.
+     * @param <T>         the type of the response body.
+     * @return the wrapping {@link HttpResponse.BodyHandler}.
+     */
+    public <T> HttpResponse.BodyHandler<T> track(HttpResponse.BodyHandler<T> bodyHandler) {
+        return responseInfo -> {
+            onHeaders(responseInfo.statusCode());
+            return new JdkHttpObservedBodySubscriber<>(bodyHandler.apply(responseInfo), this::onBody, throwable -> {
+            });
+        };
+    }
+
+    public Duration getBuildTime() {
+        return between(startNanos, builtNanos);
+    }
+
+    public Duration getQueueTime() {
+        return between(builtNanos, sentNanos);
+    }
+
+    public Duration getHeadersTime() {
+        return between(sentNanos, headersNanos);
+    }
+
+    public Duration getBodyTime() {
+        return isBodyReceivedWhileBinding() ? between(headersNanos, bodyNanos) : null;
+    }
+
+    public Duration getBindTime() {
+        return between(isBodyReceivedWhileBinding() ? bodyNanos : headersNanos, boundNanos);
+    }
+
+    public Duration getTotalTime() {
+        return between(startNanos, boundNanos != 0 ? boundNanos : System.nanoTime());
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public URI getUri() {
+        return uri;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public long getResponseBytes() {
+        return responseBytes;
+    }
+
+    public Throwable getFailure() {
+        return failure;
+    }
+
+    /**
+     * Formats the breakdown of the phases, e.g. {@code build=0.4ms queue=12.0ms headers=85.3ms body=3.1ms bind=0.2ms total=101.0ms}.
+     *
+     * @return the breakdown of the phases.
+     */
+    @Override
+    public String toString() {
+        return "build=" + format(getBuildTime()) +
+                " queue=" + format(getQueueTime()) +
+                " headers=" + format(getHeadersTime()) +
+                " body=" + format(getBodyTime()) +
+                " bind=" + format(getBindTime()) +
+                " total=" + format(getTotalTime());
+    }
+
+
+    private boolean isBodyReceivedWhileBinding() {
+        final long body = bodyNanos;
+        return body != 0 && (boundNanos == 0 || body - boundNanos <= 0);
+    }
+
+    private static Duration between(long fromNanos, long toNanos) {
+        return fromNanos != 0 && toNanos != 0 ? Duration.ofNanos(Math.max(0, toNanos - fromNanos)) : null;
+    }
+
+    private static String format(Duration duration) {
+        return duration != null ? String.format(Locale.ROOT, "%.1fms", duration.toNanos() / 1_000_000.0) : "-";
+    }
+
+}
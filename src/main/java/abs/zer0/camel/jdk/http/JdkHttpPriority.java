@@ -0,0 +1,28 @@
+package abs.zer0.camel.jdk.http;
+
+/**
+ * The priority class of a request waiting for an in-flight permit.
+ * <br/>
+ * Parked requests are dispatched by weighted round-robin over the priority classes,
+ * so higher priorities are dispatched first while lower priorities still get their share and are not starved.
+ *
+ * @see JdkHttpInFlightLimiter
+ */
+public enum JdkHttpPriority {
+
+    /**
+     * Latency sensitive traffic, e.g. user-facing calls.
+     */
+    HIGH,
+
+    /**
+     * Regular traffic.
+     */
+    NORMAL,
+
+    /**
+     * Background traffic, e.g. batch backfills.
+     */
+    LOW
+
+}
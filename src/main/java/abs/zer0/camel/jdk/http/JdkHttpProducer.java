@@ -1,39 +1,181 @@
 package abs.zer0.camel.jdk.http;
 
+import org.apache.camel.CamelExchangeException;
 import org.apache.camel.Exchange;
 import org.apache.camel.support.DefaultProducer;
 import org.apache.camel.support.SynchronizationAdapter;
 import org.apache.camel.util.IOHelper;
 
 import java.io.Closeable;
-import java.io.InputStream;
+import java.io.IOException;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Objects;
 
 public class JdkHttpProducer extends DefaultProducer {
 
-    private final HttpClient httpClient;
     private final JdkHttpBinding httpBinding;
 
-    public JdkHttpProducer(JdkHttpEndpoint endpoint, HttpClient httpClient, JdkHttpBinding httpBinding) {
+    public JdkHttpProducer(JdkHttpEndpoint endpoint, JdkHttpBinding httpBinding) {
         super(endpoint);
-        this.httpClient = Objects.requireNonNull(httpClient, "HTTP client cannot be null");
         this.httpBinding = Objects.requireNonNull(httpBinding, "JdkHttpBinding cannot be null");
     }
 
+    @Override
+    public JdkHttpEndpoint getEndpoint() {
+        return (JdkHttpEndpoint) super.getEndpoint();
+    }
+
     @Override
     public void process(Exchange exchange) throws Exception {
-        final HttpResponse<InputStream> httpResponse;
+        final JdkHttpPhaseTimings timings = getEndpoint().createPhaseTimings();
+        if (timings == null) {
+            process(exchange, null);
+            return;
+        }
+
+        try {
+            process(exchange, timings);
+            timings.onBound();
+        } catch (Exception e) {
+            timings.onFailed(e);
+            throw e;
+        } finally {
+            getEndpoint().onPhaseTimings(exchange, timings);
+        }
+    }
+
+    private void process(Exchange exchange, JdkHttpPhaseTimings timings) throws Exception {
+        final HttpRequest httpRequest;
+        final JdkHttpPriority priority;
+        try {
+            priority = getEndpoint().resolvePriority(exchange);
+            final JdkHttpFlightEvents.RequestBuilt builtEvent = new JdkHttpFlightEvents.RequestBuilt();
+            builtEvent.begin();
+            httpRequest = httpBinding.httpRequestFromExchange(exchange);
+            JdkHttpFlightEvents.commitRequestBuilt(builtEvent, getEndpoint(), httpRequest);
+            if (timings != null) {
+                timings.onBuilt(httpRequest.method(), httpRequest.uri());
+            }
+            if (getEndpoint().isStreamingUpload()) {
+                getEndpoint().upload(getEndpoint().resolveHttpClient(exchange), httpRequest, exchange);
+                closeRequestBody(exchange);
+                return;
+            }
+        } catch (Exception e) {
+            closeRequestBody(exchange);
+            throw e;
+        }
+
+        final JdkHttpInFlightLimiter inFlightLimiter = getEndpoint().resolveInFlightLimiter(httpRequest.uri());
+        final boolean permit;
+        try {
+            permit = inFlightLimiter != null && acquirePermit(exchange, inFlightLimiter, priority);
+        } catch (Exception e) {
+            closeRequestBody(exchange);
+            throw e;
+        }
         try {
-            final HttpRequest httpRequest = httpBinding.httpRequestFromExchange(exchange);
-            httpResponse = httpClient.send(httpRequest, HttpResponse.BodyHandlers.ofInputStream());
+            send(exchange, httpRequest, permit ? inFlightLimiter : null, timings);
         } finally {
-            final Object body = exchange.getMessage().getBody();
-            if (body instanceof Closeable closeable) {
-                IOHelper.close(closeable);
+            if (permit) {
+                inFlightLimiter.release();
+            }
+        }
+    }
+
+    /**
+     * Acquires an in-flight permit according to the overflow policy of the endpoint.
+     *
+     * @return {@code true} if a permit was acquired, {@code false} if the request is sent without one with the CALLER_RUNS policy.
+     */
+    private boolean acquirePermit(Exchange exchange, JdkHttpInFlightLimiter inFlightLimiter, JdkHttpPriority priority) throws Exception {
+        if (inFlightLimiter.tryAcquire()) {
+            return true;
+        }
+
+        switch (getEndpoint().getInFlightOverflowPolicy()) {
+            case CALLER_RUNS:
+                return false;
+            case REJECT:
+                inFlightLimiter.reject();
+                throw new CamelExchangeException("Maximum number of in-flight requests is reached: " + inFlightLimiter.getLimit(), exchange);
+            default:
+                final Instant deadline = httpBinding.resolveDeadline(exchange);
+                final Duration remaining = deadline != null ? Duration.between(Instant.now(), deadline) : null;
+                final Duration maxWait = remaining != null && remaining.compareTo(getEndpoint().getMaxInFlightWait()) < 0 ?
+                        remaining : getEndpoint().getMaxInFlightWait();
+                if (!inFlightLimiter.acquire(maxWait, getEndpoint().getComponent().getScheduledExecutorService(), priority, deadline)) {
+                    throw new CamelExchangeException("In-flight permit is not available within " + maxWait, exchange);
+                }
+                return true;
+        }
+    }
+
+    private void send(Exchange exchange, HttpRequest builtRequest, JdkHttpInFlightLimiter inFlightLimiter, JdkHttpPhaseTimings timings)
+            throws Exception {
+        HttpRequest httpRequest = builtRequest;
+        final HttpResponse<?> httpResponse;
+        final JdkHttpRateLimiter rateLimiter;
+        try {
+            rateLimiter = getEndpoint().resolveRateLimiter(httpRequest.uri());
+            if (rateLimiter != null) {
+                // the wait ends with the deadline of the exchange, after which the request timeout and propagated budget are recomputed
+                final Duration maxWait = getEndpoint().getRateLimitMaxWait();
+                final Duration remaining = httpBinding.getRemainingBudget(exchange);
+                if (remaining != null && remaining.compareTo(maxWait) < 0) {
+                    if (!rateLimiter.acquire(remaining)) {
+                        throw new CamelExchangeException("Rate limit permit is not available before the deadline of the exchange, the request is skipped", exchange);
+                    }
+                } else if (!rateLimiter.acquire(maxWait)) {
+                    throw new CamelExchangeException("Rate limit permit is not available within " + maxWait, exchange);
+                }
+            }
+            if (rateLimiter != null || inFlightLimiter != null) {
+                httpRequest = httpBinding.applyRemainingBudget(exchange, httpRequest);
+            }
+
+            getEndpoint().onRequestSent();
+            final HttpClient httpClient = getEndpoint().resolveHttpClient(exchange);
+            if (timings != null) {
+                timings.onSent();
+            }
+            final JdkHttpFlightEvents.Tracker tracker = JdkHttpFlightEvents.onRequestSent(getEndpoint(), httpRequest);
+            // a download spans several requests, so it is not sampled by the adaptive limit
+            final boolean sampled = inFlightLimiter != null && !getEndpoint().isDownload(httpRequest);
+            final long sentNanos = System.nanoTime();
+            try {
+                httpResponse = getEndpoint().isDownload(httpRequest) ?
+                        getEndpoint().download(httpClient, httpRequest, exchange) :
+                        httpClient.send(httpRequest, httpBinding.createResponseBodyHandler(tracker, timings));
+                if (timings != null) {
+                    timings.onHeaders(httpResponse.statusCode());
+                }
+            } catch (IOException | InterruptedException e) {
+                if (tracker != null) {
+                    tracker.onFailed(e);
+                }
+                if (JdkHttpHelper.isResponseTimeout(e)) {
+                    httpBinding.onResponseTimeout(exchange, httpRequest);
+                }
+                if (sampled && !(e instanceof InterruptedException)) {
+                    inFlightLimiter.onSample(System.nanoTime() - sentNanos, JdkHttpHelper.isDropped(null, e));
+                }
+                throw e;
+            }
+            if (sampled) {
+                inFlightLimiter.onSample(System.nanoTime() - sentNanos, JdkHttpHelper.isDropped(httpResponse, null));
             }
+        } finally {
+            closeRequestBody(exchange);
+        }
+
+        if (rateLimiter != null) {
+            rateLimiter.onResponse(httpResponse.statusCode(), JdkHttpHelper.parseRetryAfter(
+                    httpResponse.headers().firstValue(JdkHttpConstants.RETRY_AFTER).orElse(null)));
         }
 
         try {
@@ -44,10 +186,19 @@ public class JdkHttpProducer extends DefaultProducer {
                 public void onDone(Exchange exchange) {
                     super.onDone(exchange);
 
-                    IOHelper.close(httpResponse.body());
+                    if (httpResponse.body() instanceof Closeable closeable) {
+                        IOHelper.close(closeable);
+                    }
                 }
             });
         }
     }
 
+    private static void closeRequestBody(Exchange exchange) {
+        final Object body = exchange.getMessage().getBody();
+        if (body instanceof Closeable closeable) {
+            IOHelper.close(closeable);
+        }
+    }
+
 }
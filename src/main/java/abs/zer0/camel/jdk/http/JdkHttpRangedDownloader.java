@@ -0,0 +1,653 @@
+package abs.zer0.camel.jdk.http;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.net.ssl.SSLSession;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Downloads a resource into a file using concurrent {@code Range} requests.
+ * <br/>
+ * The resource is probed with a {@code HEAD} request first.
+ * If the server accepts byte ranges and reports the {@code Content-Length}, the file is pre-allocated
+ * and split into segments which are requested concurrently through the same {@link HttpClient}.
+ * Every segment is written at its offset with positional {@link FileChannel} writes,
+ * and a segment failing with a transport error is requested again from the last written byte.
+ * The {@code Content-Range} of every segment response must match the requested range and the length of the probe,
+ * and a segment must receive exactly its bytes, otherwise the download fails and the segments in flight are cancelled.
+ * Requests carry {@code If-Range} with the validator of the probe, so a resource changing during the download
+ * fails the download instead of mixing versions.
+ * <br/>
+ * If the server does not support ranges or rejects the probe, e.g. a presigned {@code GET} URL answering {@code 403}
+ * or a server answering {@code 405} to {@code HEAD}, the resource is downloaded with a single request.
+ * A single request transfer can be resumed: when it fails with a transport error or timeout,
+ * the rest of the resource is requested with {@code Range: bytes=N-} and {@code If-Range} and appended to the bytes already written.
+ * If the server does not support ranges, the resource changed or the {@code Content-Range} of the resumed response
+ * does not start at the next byte of the resource of the same length, the transfer restarts from the first byte.
+ */
+public class JdkHttpRangedDownloader {
+
+    private static final Logger LOG = LoggerFactory.getLogger(JdkHttpRangedDownloader.class);
+
+    private final HttpClient httpClient;
+    private final int parallelism;
+    private final long segmentSize;
+    private final int segmentRetries;
+    private final int resumeRetries;
+    private JdkHttpBandwidthThrottle bandwidthThrottle;
+
+    /**
+     * Creates a new ranged downloader.
+     *
+     * @param httpClient     the client to send the requests with. Must not be {@code null}.
+     * @param parallelism    the maximum number of concurrent segment requests. Must be greater than 0.
+     * @param segmentSize    the size of a segment in bytes. Must be greater than 0.
+     * @param segmentRetries the number of retries of a failed segment. Must not be negative.
+     * @param resumeRetries  the number of times a failed single request transfer is resumed. Must not be negative.
+     */
+    public JdkHttpRangedDownloader(HttpClient httpClient, int parallelism, long segmentSize, int segmentRetries, int resumeRetries) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Download parallelism cannot be less than 1");
+        }
+        if (segmentSize < 1) {
+            throw new IllegalArgumentException("Download segment size cannot be less than 1");
+        }
+        if (segmentRetries < 0) {
+            throw new IllegalArgumentException("Download segment retries cannot be negative");
+        }
+        if (resumeRetries < 0) {
+            throw new IllegalArgumentException("Download resume retries cannot be negative");
+        }
+        this.httpClient = Objects.requireNonNull(httpClient, "HTTP client cannot be null");
+        this.parallelism = parallelism;
+        this.segmentSize = segmentSize;
+        this.segmentRetries = segmentRetries;
+        this.resumeRetries = resumeRetries;
+    }
+
+    /**
+     * Downloads the resource of the given request into the target file.
+     * <br/>
+     * The returned response has the status and headers of the probe for a ranged download,
+     * or of the last request of a single request transfer otherwise, and the target file as body.
+     * If the probe response is not successful, the resource is downloaded with a single request, whose response is returned.
+     *
+     * @param httpRequest the {@code GET} request of the resource. Must not be {@code null}.
+     * @param target      the file to write the resource into. Must not be {@code null}.
+     * @return the future completed with the response of the downloaded resource.
+     */
+    public CompletableFuture<HttpResponse<Path>> download(HttpRequest httpRequest, Path target) {
+        Objects.requireNonNull(httpRequest, "HTTP request cannot be null");
+        Objects.requireNonNull(target, "Download target cannot be null");
+
+        final HttpRequest probeRequest = HttpRequest.newBuilder(httpRequest, (name, value) -> true)
+                .method("HEAD", HttpRequest.BodyPublishers.noBody())
+                .build();
+
+        return httpClient.sendAsync(probeRequest, HttpResponse.BodyHandlers.discarding())
+                .thenCompose(probeResponse -> {
+                    if (probeResponse.statusCode() < 200 || probeResponse.statusCode() > 299) {
+                        LOG.debug("Downloading {} with a single request (probe status: {})", httpRequest.uri(), probeResponse.statusCode());
+                        return downloadResumable(httpRequest, target);
+                    }
+
+                    final long contentLength = probeResponse.headers().firstValueAsLong(JdkHttpConstants.CONTENT_LENGTH).orElse(-1);
+                    final boolean acceptRanges = acceptsRanges(probeResponse.headers());
+                    if (!acceptRanges || contentLength <= segmentSize) {
+                        LOG.debug("Downloading {} with a single request (accept ranges: {}, content length: {})",
+                                httpRequest.uri(), acceptRanges, contentLength);
+                        return downloadResumable(httpRequest, target);
+                    }
+
+                    return downloadSegments(httpRequest, target, contentLength, validatorOf(probeResponse.headers()))
+                            .thenApply(ignored -> (HttpResponse<Path>) new DownloadResponse(probeResponse, target));
+                });
+    }
+
+    /**
+     * Downloads the resource of the given request into the target file with a single request,
+     * resuming the transfer from the last written byte when it fails with a transport error or timeout.
+     * <br/>
+     * The transfer is resumed with {@code Range: bytes=N-} and {@code If-Range} with the validator of the first response
+     * if that response accepted byte ranges, otherwise the resource is requested again from the first byte.
+     * A server answering the resumed request with the full resource or with another range restarts the transfer from the first byte as well.
+     * <br/>
+     * The returned response has the status and headers of the response which sent the resource from its first byte
+     * and the target file as body, so a transfer completed by a resumed request is reported as {@code 200} with the headers of the full resource.
+     * If the status of the last request is not successful, the response has its status and headers and no body.
+     *
+     * @param httpRequest the {@code GET} request of the resource. Must not be {@code null}.
+     * @param target      the file to write the resource into. Must not be {@code null}.
+     * @return the future completed with the response of the downloaded resource.
+     */
+    public CompletableFuture<HttpResponse<Path>> downloadResumable(HttpRequest httpRequest, Path target) {
+        Objects.requireNonNull(httpRequest, "HTTP request cannot be null");
+        Objects.requireNonNull(target, "Download target cannot be null");
+
+        final FileChannel channel;
+        try {
+            channel = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        final Transfer transfer = new Transfer(channel);
+        return transfer(httpRequest, httpRequest, target, transfer, resumeRetries)
+                .whenComplete((ignored, throwable) -> {
+                    try {
+                        channel.close();
+                    } catch (IOException e) {
+                        LOG.debug("Error closing download file {}", target, e);
+                    }
+                });
+    }
+
+    public JdkHttpBandwidthThrottle getBandwidthThrottle() {
+        return bandwidthThrottle;
+    }
+
+    /**
+     * Sets the throttle pacing the bodies of the segment and transfer responses.
+     *
+     * @param bandwidthThrottle the {@link JdkHttpBandwidthThrottle}, or {@code null} to not limit the bandwidth.
+     */
+    public void setBandwidthThrottle(JdkHttpBandwidthThrottle bandwidthThrottle) {
+        this.bandwidthThrottle = bandwidthThrottle;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public long getSegmentSize() {
+        return segmentSize;
+    }
+
+    public int getSegmentRetries() {
+        return segmentRetries;
+    }
+
+    public int getResumeRetries() {
+        return resumeRetries;
+    }
+
+    /**
+     * Gets the validator of the resource to send in {@code If-Range}: the strong {@code ETag} if present,
+     * otherwise {@code Last-Modified}.
+     *
+     * @param headers the response headers describing the resource.
+     * @return the validator, or {@code null} if the response has none.
+     */
+    static String validatorOf(HttpHeaders headers) {
+        final Optional<String> etag = headers.firstValue(JdkHttpConstants.ETAG)
+                .filter(value -> !value.startsWith("W/"));
+        return etag.orElseGet(() -> headers.firstValue(JdkHttpConstants.LAST_MODIFIED).orElse(null));
+    }
+
+    /**
+     * Determines whether the server accepts byte range requests of the resource.
+     *
+     * @param headers the response headers describing the resource.
+     * @return {@code true} if the {@code Accept-Ranges} header contains {@code bytes}.
+     */
+    static boolean acceptsRanges(HttpHeaders headers) {
+        return headers.allValues(JdkHttpConstants.ACCEPT_RANGES)
+                .stream()
+                .anyMatch("bytes"::equalsIgnoreCase);
+    }
+
+    /**
+     * Parses the {@code Content-Range} header of a partial response, e.g. {@code bytes 0-499/1234}.
+     *
+     * @param headers the headers of the partial response.
+     * @return the {@link ContentRange}, or {@code null} if the header is missing or is not a satisfied byte range.
+     */
+    static ContentRange contentRangeOf(HttpHeaders headers) {
+        final String value = headers.firstValue(JdkHttpConstants.CONTENT_RANGE).orElse(null);
+        if (value == null || !value.regionMatches(true, 0, "bytes ", 0, 6)) {
+            return null;
+        }
+
+        final int dash = value.indexOf('-', 6);
+        final int slash = value.indexOf('/', dash + 1);
+        if (dash < 0 || slash < 0) {
+            return null;
+        }
+        try {
+            final long start = Long.parseLong(value.substring(6, dash).trim());
+            final long end = Long.parseLong(value.substring(dash + 1, slash).trim());
+            final String length = value.substring(slash + 1).trim();
+
+            return new ContentRange(start, end, "*".equals(length) ? -1 : Long.parseLong(length));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Creates the request of the given byte range of the resource.
+     *
+     * @param httpRequest the request of the resource.
+     * @param start       the first byte of the range.
+     * @param end         the last byte of the range, inclusive, or {@code -1} for the rest of the resource.
+     * @param validator   the validator to send in {@code If-Range}, or {@code null}.
+     * @return the range request.
+     */
+    static HttpRequest rangeRequest(HttpRequest httpRequest, long start, long end, String validator) {
+        final HttpRequest.Builder builder = HttpRequest.newBuilder(httpRequest, (name, value) -> true)
+                .setHeader(JdkHttpConstants.RANGE, "bytes=" + start + "-" + (end >= 0 ? end : ""));
+        if (validator != null) {
+            builder.setHeader(JdkHttpConstants.IF_RANGE, validator);
+        }
+
+        return builder.build();
+    }
+
+
+    private CompletableFuture<Void> downloadSegments(HttpRequest httpRequest, Path target, long contentLength, String validator) {
+        final FileChannel channel;
+        try {
+            channel = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            channel.write(ByteBuffer.allocate(1), contentLength - 1);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        final SegmentedTransfer transfer = new SegmentedTransfer(channel, contentLength, validator);
+        for (long start = 0; start < contentLength; start += segmentSize) {
+            transfer.segments.add(new Segment(start, Math.min(start + segmentSize, contentLength) - 1));
+        }
+        LOG.debug("Downloading {} bytes of {} in {} segments with parallelism {}",
+                contentLength, httpRequest.uri(), transfer.segments.size(), parallelism);
+
+        final CompletableFuture<?>[] workers = new CompletableFuture<?>[Math.min(parallelism, transfer.segments.size())];
+        for (int i = 0; i < workers.length; i++) {
+            workers[i] = nextSegment(httpRequest, transfer);
+        }
+
+        return CompletableFuture.allOf(workers)
+                .handle((ignored, throwable) -> {
+                    try {
+                        channel.close();
+                    } catch (IOException e) {
+                        LOG.debug("Error closing download file {}", target, e);
+                    }
+                    // the segments cancelled by the first failure fail as well, so the first failure is reported
+                    final Throwable failure = transfer.failure != null ? transfer.failure : throwable;
+                    if (failure != null) {
+                        throw failure instanceof CompletionException completionException ? completionException : new CompletionException(failure);
+                    }
+                    return null;
+                });
+    }
+
+    private CompletableFuture<Void> nextSegment(HttpRequest httpRequest, SegmentedTransfer transfer) {
+        final Segment segment = transfer.failed.get() ? null : transfer.segments.poll();
+        if (segment == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        return fetchSegment(httpRequest, transfer, segment, segmentRetries)
+                .whenComplete((ignored, throwable) -> {
+                    if (throwable != null) {
+                        transfer.fail(throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable);
+                    }
+                })
+                .thenCompose(ignored -> nextSegment(httpRequest, transfer));
+    }
+
+    private CompletableFuture<Void> fetchSegment(HttpRequest httpRequest, SegmentedTransfer transfer, Segment segment, int retriesLeft) {
+        final long start = segment.start + segment.written;
+        final HttpRequest segmentRequest = rangeRequest(httpRequest, start, segment.end, transfer.validator);
+
+        final CompletableFuture<HttpResponse<Void>> responseFuture = httpClient.sendAsync(segmentRequest, throttle(responseInfo ->
+                responseInfo.statusCode() == 206 && transfer.matches(contentRangeOf(responseInfo.headers()), start, segment.end) ?
+                        new FileRangeSubscriber(transfer.channel, start, segment.end + 1, segment) :
+                        HttpResponse.BodySubscribers.replacing(null)));
+        transfer.inFlight.add(responseFuture);
+        if (transfer.failed.get()) {
+            responseFuture.cancel(true);
+        }
+
+        return responseFuture
+                .whenComplete((ignored, throwable) -> transfer.inFlight.remove(responseFuture))
+                .thenAccept(response -> {
+                    if (response.statusCode() != 206) {
+                        throw new CompletionException(new RangeNotHonoredException(
+                                "Server did not honor range request of " + httpRequest.uri() + ": status " + response.statusCode()));
+                    }
+                    final ContentRange contentRange = contentRangeOf(response.headers());
+                    if (!transfer.matches(contentRange, start, segment.end)) {
+                        throw new CompletionException(new RangeNotHonoredException(
+                                "Server sent range " + response.headers().firstValue(JdkHttpConstants.CONTENT_RANGE).orElse(null) +
+                                        " of " + httpRequest.uri() + " instead of bytes " + start + "-" + segment.end + "/" + transfer.contentLength));
+                    }
+                    if (segment.start + segment.written != segment.end + 1) {
+                        throw new CompletionException(new IOException("Segment " + segment.start + "-" + segment.end + " of " + httpRequest.uri() +
+                                " ended after " + segment.written + " of " + (segment.end - segment.start + 1) + " bytes"));
+                    }
+                })
+                .handle((ignored, throwable) -> {
+                    final Throwable cause = throwable instanceof CompletionException ? throwable.getCause() : throwable;
+                    if (cause == null) {
+                        return CompletableFuture.<Void>completedFuture(null);
+                    }
+                    if (retriesLeft > 0 && cause instanceof IOException && !(cause instanceof RangeNotHonoredException) && !transfer.failed.get()) {
+                        LOG.debug("Retrying segment {}-{} of {} from byte {}",
+                                segment.start, segment.end, httpRequest.uri(), segment.start + segment.written, cause);
+                        return fetchSegment(httpRequest, transfer, segment, retriesLeft - 1);
+                    }
+                    return CompletableFuture.<Void>failedFuture(cause);
+                })
+                .thenCompose(future -> future);
+    }
+
+    private CompletableFuture<HttpResponse<Path>> transfer(HttpRequest httpRequest, HttpRequest transferRequest, Path target,
+                                                           Transfer transfer, int retriesLeft) {
+        final boolean resumed = transferRequest != httpRequest;
+
+        return httpClient.sendAsync(transferRequest, throttle(responseInfo -> transfer.subscribe(responseInfo, resumed)))
+                .handle((response, throwable) -> {
+                    final Throwable cause = throwable instanceof CompletionException ? throwable.getCause() : throwable;
+                    if (cause == null && transfer.rangeMismatch) {
+                        transfer.rangeMismatch = false;
+                        final RangeNotHonoredException mismatch = new RangeNotHonoredException("Server sent range " +
+                                response.headers().firstValue(JdkHttpConstants.CONTENT_RANGE).orElse(null) + " of " + httpRequest.uri() +
+                                " instead of bytes " + transfer.segment.written + "-/" + transfer.length);
+                        if (retriesLeft > 0) {
+                            LOG.debug("Restarting download of {} from the first byte", httpRequest.uri(), mismatch);
+                            return transfer(httpRequest, httpRequest, target, transfer, retriesLeft - 1);
+                        }
+                        return CompletableFuture.<HttpResponse<Path>>failedFuture(mismatch);
+                    }
+                    if (cause == null) {
+                        return transfer.complete(response, target);
+                    }
+                    if (retriesLeft > 0 && cause instanceof IOException) {
+                        final long written = transfer.segment.written;
+                        if (transfer.rangesAccepted && transfer.validator != null && written > 0) {
+                            LOG.debug("Resuming download of {} from byte {}", httpRequest.uri(), written, cause);
+                            return transfer(httpRequest, rangeRequest(httpRequest, written, -1, transfer.validator),
+                                    target, transfer, retriesLeft - 1);
+                        }
+                        LOG.debug("Restarting download of {} which does not support resuming", httpRequest.uri(), cause);
+                        return transfer(httpRequest, httpRequest, target, transfer, retriesLeft - 1);
+                    }
+                    return CompletableFuture.<HttpResponse<Path>>failedFuture(cause);
+                })
+                .thenCompose(future -> future);
+    }
+
+    private <T> HttpResponse.BodyHandler<T> throttle(HttpResponse.BodyHandler<T> bodyHandler) {
+        return bandwidthThrottle != null ? bandwidthThrottle.throttle(bodyHandler) : bodyHandler;
+    }
+
+    /**
+     * State of a single request transfer: the file, the number of bytes written, the validator to resume with
+     * and the response which sent the resource from its first byte.
+     */
+    private static final class Transfer {
+
+        private final FileChannel channel;
+        private final Segment segment = new Segment(0, -1);
+        private volatile String validator;
+        private volatile boolean rangesAccepted;
+        private volatile long length = -1;
+        private volatile int statusCode;
+        private volatile HttpHeaders headers;
+        private volatile boolean rangeMismatch;
+
+        private Transfer(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        private HttpResponse.BodySubscriber<Void> subscribe(HttpResponse.ResponseInfo responseInfo, boolean resumed) {
+            final int responseStatusCode = responseInfo.statusCode();
+            if (resumed && responseStatusCode == 206) {
+                final ContentRange contentRange = contentRangeOf(responseInfo.headers());
+                if (contentRange == null || contentRange.start() != segment.written || (length >= 0 && contentRange.length() != length)) {
+                    rangeMismatch = true;
+                    return HttpResponse.BodySubscribers.replacing(null);
+                }
+                return new FileRangeSubscriber(channel, segment.written, -1, segment);
+            } else if (responseStatusCode < 200 || responseStatusCode > 299) {
+                return HttpResponse.BodySubscribers.replacing(null);
+            }
+
+            if (resumed) {
+                LOG.debug("Server sent the full resource instead of the requested range, restarting from the first byte");
+            }
+            validator = validatorOf(responseInfo.headers());
+            rangesAccepted = acceptsRanges(responseInfo.headers());
+            length = responseInfo.headers().firstValueAsLong(JdkHttpConstants.CONTENT_LENGTH).orElse(-1);
+            statusCode = responseStatusCode;
+            headers = responseInfo.headers();
+            segment.written = 0;
+
+            return new FileRangeSubscriber(channel, 0, -1, segment);
+        }
+
+        private CompletableFuture<HttpResponse<Path>> complete(HttpResponse<Void> response, Path target) {
+            final int responseStatusCode = response.statusCode();
+            if (responseStatusCode < 200 || responseStatusCode > 299) {
+                return CompletableFuture.<HttpResponse<Path>>completedFuture(new DownloadResponse(response, null));
+            }
+
+            try {
+                channel.truncate(segment.written);
+            } catch (IOException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+
+            // a resumed transfer is reported as the full resource rather than as its last partial response
+            return CompletableFuture.<HttpResponse<Path>>completedFuture(new DownloadResponse(response, target, statusCode, headers));
+        }
+
+    }
+
+    /**
+     * State of a segmented download: the file, the segments left, the validator and the segment requests in flight.
+     */
+    private static final class SegmentedTransfer {
+
+        private final FileChannel channel;
+        private final long contentLength;
+        private final String validator;
+        private final Queue<Segment> segments = new ConcurrentLinkedQueue<>();
+        private final Set<CompletableFuture<?>> inFlight = ConcurrentHashMap.newKeySet();
+        private final AtomicBoolean failed = new AtomicBoolean();
+        private volatile Throwable failure;
+
+        private SegmentedTransfer(FileChannel channel, long contentLength, String validator) {
+            this.channel = channel;
+            this.contentLength = contentLength;
+            this.validator = validator;
+        }
+
+        /**
+         * Checks whether the range of a partial response is the requested range of the resource of the probed length.
+         */
+        private boolean matches(ContentRange contentRange, long start, long end) {
+            return contentRange != null && contentRange.start() == start && contentRange.end() == end && contentRange.length() == contentLength;
+        }
+
+        /**
+         * Fails the download, so no further segment is requested, and cancels the segment requests in flight.
+         *
+         * @param cause the failure of the segment.
+         */
+        private void fail(Throwable cause) {
+            if (failed.compareAndSet(false, true)) {
+                failure = cause;
+                inFlight.forEach(future -> future.cancel(true));
+            }
+        }
+
+    }
+
+    /**
+     * A satisfied byte range of a partial response.
+     *
+     * @param start  the first byte of the range.
+     * @param end    the last byte of the range, inclusive.
+     * @param length the length of the resource, or {@code -1} if unknown.
+     */
+    record ContentRange(long start, long end, long length) {
+    }
+
+    /**
+     * Response of a download: the response describing the resource with the downloaded file as body,
+     * and the status and headers reported for the resource.
+     */
+    private record DownloadResponse(HttpResponse<Void> response, Path body, int statusCode, HttpHeaders headers) implements HttpResponse<Path> {
+
+        private DownloadResponse(HttpResponse<Void> response, Path body) {
+            this(response, body, response.statusCode(), response.headers());
+        }
+
+        @Override
+        public HttpRequest request() {
+            return response.request();
+        }
+
+        @Override
+        public Optional<HttpResponse<Path>> previousResponse() {
+            return Optional.empty();
+        }
+
+        @Override
+        public Optional<SSLSession> sslSession() {
+            return response.sslSession();
+        }
+
+        @Override
+        public URI uri() {
+            return response.uri();
+        }
+
+        @Override
+        public HttpClient.Version version() {
+            return response.version();
+        }
+
+    }
+
+    /**
+     * Thrown when a server responds to a range request with anything else than {@code 206 Partial Content},
+     * e.g. because the resource changed and {@code If-Range} did not match.
+     */
+    static final class RangeNotHonoredException extends IOException {
+
+        private static final long serialVersionUID = 1L;
+
+        RangeNotHonoredException(String message) {
+            super(message);
+        }
+
+    }
+
+    /**
+     * A byte range of the resource and the number of its bytes already written.
+     */
+    static final class Segment {
+
+        private final long start;
+        private final long end;
+        private volatile long written;
+
+        Segment(long start, long end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        long getWritten() {
+            return written;
+        }
+
+    }
+
+    /**
+     * Body subscriber writing the received bytes at consecutive positions of a file channel.
+     * A body longer than the limit fails without writing past the limit, so it does not overwrite the next segment.
+     */
+    static final class FileRangeSubscriber implements HttpResponse.BodySubscriber<Void> {
+
+        private final FileChannel channel;
+        private final long limit;
+        private final Segment segment;
+        private final CompletableFuture<Void> result = new CompletableFuture<>();
+        private long position;
+        private Flow.Subscription subscription;
+
+        FileRangeSubscriber(FileChannel channel, long position, long limit, Segment segment) {
+            this.channel = channel;
+            this.position = position;
+            this.limit = limit;
+            this.segment = segment;
+        }
+
+        @Override
+        public CompletableFuture<Void> getBody() {
+            return result;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(1);
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> items) {
+            try {
+                for (ByteBuffer item : items) {
+                    if (limit >= 0 && item.remaining() > limit - position) {
+                        throw new RangeNotHonoredException("Server sent more bytes than requested, up to byte " + (limit - 1));
+                    }
+                    while (item.hasRemaining()) {
+                        final int written = channel.write(item, position);
+                        position += written;
+                        segment.written += written;
+                    }
+                }
+                subscription.request(1);
+            } catch (IOException e) {
+                subscription.cancel();
+                result.completeExceptionally(e);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            result.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            result.complete(null);
+        }
+
+    }
+
+}
@@ -0,0 +1,21 @@
+package abs.zer0.camel.jdk.http;
+
+/**
+ * Determines which requests share the same rate limiter.
+ *
+ * @see JdkHttpRateLimiter
+ */
+public enum JdkHttpRateLimitKey {
+
+    /**
+     * All requests sent by the endpoint share one rate limiter.
+     */
+    ENDPOINT,
+
+    /**
+     * All requests sent to the same origin (scheme, host and port) share one rate limiter
+     * across all endpoints of the component.
+     */
+    ORIGIN
+
+}
@@ -0,0 +1,159 @@
+package abs.zer0.camel.jdk.http;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket rate limiter used by the JDK HTTP producers.
+ * <br/>
+ * Permits are handed out as reservations: a caller that cannot get a token immediately still reserves one
+ * and is told how long to wait for it, so waiting callers are served in FIFO order.
+ * The synchronous producer waits by parking the calling thread, while the asynchronous producer
+ * schedules the request to be sent once the reservation becomes due.
+ * <br/>
+ * When the remote server signals throttling (HTTP 429 or {@code Retry-After}), the current rate is halved
+ * and no tokens are issued until the {@code Retry-After} delay elapses.
+ * Afterward the rate recovers additively back to the configured rate.
+ */
+public class JdkHttpRateLimiter {
+
+    private static final long RECOVERY_DELAY_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final double RECOVERY_STEP = 0.1;
+    private static final double MIN_RATE_FRACTION = 0.05;
+
+    private final double configuredRate;
+    private final double burst;
+
+    private double rate;
+    private double tokens;
+    private long lastRefillNanos;
+    private long lastThrottleNanos;
+
+    /**
+     * Creates a new rate limiter.
+     *
+     * @param rate  the number of permits per second. Must be greater than 0.
+     * @param burst the maximum number of permits accumulated while idle. Must be greater than 0.
+     */
+    public JdkHttpRateLimiter(double rate, int burst) {
+        if (rate <= 0) {
+            throw new IllegalArgumentException("Rate limit must be greater than 0");
+        }
+        if (burst < 1) {
+            throw new IllegalArgumentException("Rate limit burst cannot be less than 1");
+        }
+        this.configuredRate = rate;
+        this.burst = burst;
+        this.rate = rate;
+        this.tokens = burst;
+        this.lastRefillNanos = System.nanoTime();
+        this.lastThrottleNanos = lastRefillNanos;
+    }
+
+    /**
+     * Reserves a permit if it becomes available within the given maximum wait time.
+     *
+     * @param maxWait the maximum time to wait for a permit. Must not be {@code null}.
+     * @return the time in nanoseconds the caller must wait before using the permit,
+     * {@code 0} if the permit is available immediately, or {@code -1} if no permit could be reserved.
+     */
+    public synchronized long reserve(Duration maxWait) {
+        final long now = System.nanoTime();
+        refill(now);
+
+        final long waitNanos = Math.max(0, lastRefillNanos - now) +
+                (tokens >= 1 ? 0 : (long) Math.ceil((1 - tokens) / rate * TimeUnit.SECONDS.toNanos(1)));
+        if (waitNanos > maxWait.toNanos()) {
+            return -1;
+        }
+
+        tokens -= 1;
+
+        return waitNanos;
+    }
+
+    /**
+     * Acquires a permit, parking the current thread until it becomes available.
+     *
+     * @param maxWait the maximum time to wait for a permit. Must not be {@code null}.
+     * @return {@code true} if the permit was acquired, {@code false} if it is not available within the maximum wait time.
+     * @throws InterruptedException if the current thread is interrupted while waiting.
+     */
+    public boolean acquire(Duration maxWait) throws InterruptedException {
+        final long waitNanos = reserve(maxWait);
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+
+        return waitNanos >= 0;
+    }
+
+    /**
+     * Adapts the rate to the response of the remote server.
+     * A {@code 429 Too Many Requests} response or any response carrying {@code Retry-After}
+     * halves the current rate and pauses the bucket for the requested delay.
+     *
+     * @param statusCode the HTTP response status code.
+     * @param retryAfter the {@code Retry-After} delay, or {@code null} if not present.
+     */
+    public synchronized void onResponse(int statusCode, Duration retryAfter) {
+        if (statusCode != 429 && retryAfter == null) {
+            return;
+        }
+
+        final long now = System.nanoTime();
+        refill(now);
+
+        rate = Math.max(rate / 2, configuredRate * MIN_RATE_FRACTION);
+        tokens = Math.min(tokens, 0);
+        lastThrottleNanos = now;
+        if (retryAfter != null && !retryAfter.isNegative()) {
+            lastRefillNanos = Math.max(lastRefillNanos, now + retryAfter.toNanos());
+        }
+    }
+
+    /**
+     * Gets the configured number of permits per second.
+     *
+     * @return the configured rate.
+     */
+    public double getConfiguredRate() {
+        return configuredRate;
+    }
+
+    /**
+     * Gets the maximum number of permits accumulated while idle.
+     *
+     * @return the burst.
+     */
+    public int getBurst() {
+        return (int) burst;
+    }
+
+    /**
+     * Gets the current number of permits per second, which is lower than the configured rate
+     * while the limiter is recovering from throttling.
+     *
+     * @return the current rate.
+     */
+    public synchronized double getRate() {
+        return rate;
+    }
+
+
+    private void refill(long now) {
+        final long elapsedNanos = now - lastRefillNanos;
+        if (elapsedNanos <= 0) {
+            return;
+        }
+
+        final double elapsedSeconds = (double) elapsedNanos / TimeUnit.SECONDS.toNanos(1);
+        if (rate < configuredRate && now - lastThrottleNanos > RECOVERY_DELAY_NANOS) {
+            rate = Math.min(configuredRate, rate + configuredRate * RECOVERY_STEP * elapsedSeconds);
+        }
+
+        tokens = Math.min(burst, tokens + elapsedSeconds * rate);
+        lastRefillNanos = now;
+    }
+
+}
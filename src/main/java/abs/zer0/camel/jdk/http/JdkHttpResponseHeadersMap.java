@@ -0,0 +1,370 @@
+package abs.zer0.camel.jdk.http;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.spi.HeaderFilterStrategy;
+import org.apache.camel.util.CaseInsensitiveMap;
+
+import java.net.http.HttpHeaders;
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Case-insensitive Camel headers map which exposes the headers of an HTTP response lazily.
+ * <br/>
+ * The map holds the headers the message had before the response was received,
+ * and looks up response headers in the backing {@link HttpHeaders} on first access.
+ * The {@link HeaderFilterStrategy} is applied when a response header is accessed,
+ * multi-valued headers are copied into a mutable list as when the headers are copied eagerly, and header names are interned.
+ * Operations which need all headers, such as iteration or size, copy the remaining response headers into the map once.
+ * <br/>
+ * As with eagerly copied headers, a response header replaces a message header with the same name.
+ */
+public class JdkHttpResponseHeadersMap extends CaseInsensitiveMap {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient HttpHeaders httpHeaders;
+    private final transient HeaderFilterStrategy headerFilterStrategy;
+    private final transient Exchange exchange;
+    private transient Set<String> resolvedNames;
+
+    /**
+     * Creates a new lazy headers map.
+     *
+     * @param headers              the current headers of the message. Must not be {@code null}.
+     * @param httpHeaders          the headers of the HTTP response. Must not be {@code null}.
+     * @param headerFilterStrategy the strategy to filter response headers. Must not be {@code null}.
+     * @param exchange             the exchange the response belongs to. Must not be {@code null}.
+     */
+    public JdkHttpResponseHeadersMap(Map<String, Object> headers, HttpHeaders httpHeaders,
+                                     HeaderFilterStrategy headerFilterStrategy, Exchange exchange) {
+        super(Objects.requireNonNull(headers, "Headers cannot be null"));
+        this.httpHeaders = Objects.requireNonNull(httpHeaders, "HTTP headers cannot be null");
+        this.headerFilterStrategy = Objects.requireNonNull(headerFilterStrategy, "Camel HeaderFilterStrategy cannot be null");
+        this.exchange = Objects.requireNonNull(exchange, "Camel Exchange cannot be null");
+        this.resolvedNames = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+    }
+
+    @Override
+    public Object get(Object key) {
+        resolve(key);
+        return super.get(key);
+    }
+
+    @Override
+    public Object getOrDefault(Object key, Object defaultValue) {
+        resolve(key);
+        return super.getOrDefault(key, defaultValue);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        resolve(key);
+        return super.containsKey(key);
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        markResolved(key);
+        return super.put(key, value);
+    }
+
+    @Override
+    public Object putIfAbsent(String key, Object value) {
+        resolve(key);
+        return super.putIfAbsent(key, value);
+    }
+
+    @Override
+    public Object remove(Object key) {
+        markResolved(key);
+        return super.remove(key);
+    }
+
+    @Override
+    public boolean remove(Object key, Object value) {
+        resolve(key);
+        return super.remove(key, value);
+    }
+
+    @Override
+    public Object replace(String key, Object value) {
+        resolve(key);
+        return super.replace(key, value);
+    }
+
+    @Override
+    public boolean replace(String key, Object oldValue, Object newValue) {
+        resolve(key);
+        return super.replace(key, oldValue, newValue);
+    }
+
+    @Override
+    public Object computeIfAbsent(String key, Function<? super String, ?> mappingFunction) {
+        resolve(key);
+        return super.computeIfAbsent(key, mappingFunction);
+    }
+
+    @Override
+    public Object computeIfPresent(String key, BiFunction<? super String, ? super Object, ?> remappingFunction) {
+        resolve(key);
+        return super.computeIfPresent(key, remappingFunction);
+    }
+
+    @Override
+    public Object compute(String key, BiFunction<? super String, ? super Object, ?> remappingFunction) {
+        resolve(key);
+        return super.compute(key, remappingFunction);
+    }
+
+    @Override
+    public Object merge(String key, Object value, BiFunction<? super Object, ? super Object, ?> remappingFunction) {
+        resolve(key);
+        return super.merge(key, value, remappingFunction);
+    }
+
+    @Override
+    public void putAll(Map<? extends String, ?> map) {
+        materialize();
+        super.putAll(map);
+    }
+
+    @Override
+    public void clear() {
+        resolvedNames = null;
+        super.clear();
+    }
+
+    @Override
+    public int size() {
+        materialize();
+        return super.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        materialize();
+        return super.isEmpty();
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        materialize();
+        return super.containsValue(value);
+    }
+
+    @Override
+    public Set<Map.Entry<String, Object>> entrySet() {
+        materialize();
+        return super.entrySet();
+    }
+
+    @Override
+    public Set<String> keySet() {
+        materialize();
+        return super.keySet();
+    }
+
+    @Override
+    public Collection<Object> values() {
+        materialize();
+        return super.values();
+    }
+
+    @Override
+    public NavigableSet<String> navigableKeySet() {
+        materialize();
+        return super.navigableKeySet();
+    }
+
+    @Override
+    public NavigableSet<String> descendingKeySet() {
+        materialize();
+        return super.descendingKeySet();
+    }
+
+    @Override
+    public NavigableMap<String, Object> descendingMap() {
+        materialize();
+        return super.descendingMap();
+    }
+
+    @Override
+    public NavigableMap<String, Object> subMap(String fromKey, boolean fromInclusive, String toKey, boolean toInclusive) {
+        materialize();
+        return super.subMap(fromKey, fromInclusive, toKey, toInclusive);
+    }
+
+    @Override
+    public SortedMap<String, Object> subMap(String fromKey, String toKey) {
+        materialize();
+        return super.subMap(fromKey, toKey);
+    }
+
+    @Override
+    public NavigableMap<String, Object> headMap(String toKey, boolean inclusive) {
+        materialize();
+        return super.headMap(toKey, inclusive);
+    }
+
+    @Override
+    public SortedMap<String, Object> headMap(String toKey) {
+        materialize();
+        return super.headMap(toKey);
+    }
+
+    @Override
+    public NavigableMap<String, Object> tailMap(String fromKey, boolean inclusive) {
+        materialize();
+        return super.tailMap(fromKey, inclusive);
+    }
+
+    @Override
+    public SortedMap<String, Object> tailMap(String fromKey) {
+        materialize();
+        return super.tailMap(fromKey);
+    }
+
+    @Override
+    public String firstKey() {
+        materialize();
+        return super.firstKey();
+    }
+
+    @Override
+    public String lastKey() {
+        materialize();
+        return super.lastKey();
+    }
+
+    @Override
+    public Map.Entry<String, Object> firstEntry() {
+        materialize();
+        return super.firstEntry();
+    }
+
+    @Override
+    public Map.Entry<String, Object> lastEntry() {
+        materialize();
+        return super.lastEntry();
+    }
+
+    @Override
+    public Map.Entry<String, Object> pollFirstEntry() {
+        materialize();
+        return super.pollFirstEntry();
+    }
+
+    @Override
+    public Map.Entry<String, Object> pollLastEntry() {
+        materialize();
+        return super.pollLastEntry();
+    }
+
+    @Override
+    public Map.Entry<String, Object> lowerEntry(String key) {
+        materialize();
+        return super.lowerEntry(key);
+    }
+
+    @Override
+    public String lowerKey(String key) {
+        materialize();
+        return super.lowerKey(key);
+    }
+
+    @Override
+    public Map.Entry<String, Object> floorEntry(String key) {
+        materialize();
+        return super.floorEntry(key);
+    }
+
+    @Override
+    public String floorKey(String key) {
+        materialize();
+        return super.floorKey(key);
+    }
+
+    @Override
+    public Map.Entry<String, Object> ceilingEntry(String key) {
+        materialize();
+        return super.ceilingEntry(key);
+    }
+
+    @Override
+    public String ceilingKey(String key) {
+        materialize();
+        return super.ceilingKey(key);
+    }
+
+    @Override
+    public Map.Entry<String, Object> higherEntry(String key) {
+        materialize();
+        return super.higherEntry(key);
+    }
+
+    @Override
+    public String higherKey(String key) {
+        materialize();
+        return super.higherKey(key);
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super String, ? super Object> action) {
+        materialize();
+        super.forEach(action);
+    }
+
+    @Override
+    public void replaceAll(BiFunction<? super String, ? super Object, ?> function) {
+        materialize();
+        super.replaceAll(function);
+    }
+
+    @Override
+    public Object clone() {
+        materialize();
+        return new CaseInsensitiveMap(this);
+    }
+
+
+    private void markResolved(Object key) {
+        if (resolvedNames != null && key instanceof String name) {
+            resolvedNames.add(name);
+        }
+    }
+
+    private void resolve(Object key) {
+        if (resolvedNames == null || !(key instanceof String name) || !resolvedNames.add(name)) {
+            return;
+        }
+
+        final List<String> headerValues = httpHeaders.allValues(name);
+        if (!headerValues.isEmpty()) {
+            putResponseHeader(name, headerValues);
+        }
+    }
+
+    private void materialize() {
+        if (resolvedNames == null) {
+            return;
+        }
+
+        for (Map.Entry<String, List<String>> header : httpHeaders.map().entrySet()) {
+            if (resolvedNames.add(header.getKey())) {
+                putResponseHeader(header.getKey(), header.getValue());
+            }
+        }
+        resolvedNames = null;
+    }
+
+    private void putResponseHeader(String name, List<String> headerValues) {
+        final Object camelHeaderValue = headerValues.size() == 1 ? headerValues.get(0) : new ArrayList<>(headerValues);
+        if (!headerFilterStrategy.applyFilterToExternalHeaders(name, camelHeaderValue, exchange)) {
+            super.put(name.intern(), camelHeaderValue);
+        }
+    }
+
+}
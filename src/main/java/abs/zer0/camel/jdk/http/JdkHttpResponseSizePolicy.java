@@ -0,0 +1,22 @@
+package abs.zer0.camel.jdk.http;
+
+/**
+ * Determines what happens to a response whose body exceeds the maximum response body size.
+ * In both cases the response body is closed as soon as the limit is exceeded, which cancels the rest of the transfer.
+ *
+ * @see JdkHttpBoundedInputStream
+ */
+public enum JdkHttpResponseSizePolicy {
+
+    /**
+     * The exchange fails with an {@link java.io.IOException}.
+     * A response whose {@code Content-Length} exceeds the limit fails before its body is read.
+     */
+    FAIL,
+
+    /**
+     * The response body is cut off at the limit and the exchange continues with the truncated body.
+     */
+    TRUNCATE
+
+}
@@ -0,0 +1,107 @@
+package abs.zer0.camel.jdk.http;
+
+import org.apache.camel.util.URISupport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Logs the phase breakdown of the requests slower than a threshold, at most a given number of times per interval.
+ * <br/>
+ * Requests over the threshold beyond the limit of the interval are only counted,
+ * so the slow tail is visible without logging every request when the upstream is slow as a whole.
+ * The breakdown of the last logged request is kept.
+ *
+ * @see JdkHttpPhaseTimings
+ */
+public class JdkHttpSlowRequestSampler {
+
+    private static final Logger LOG = LoggerFactory.getLogger(JdkHttpSlowRequestSampler.class);
+
+    private final long thresholdNanos;
+    private final int maxSamples;
+    private final long intervalNanos;
+
+    private long intervalStartNanos = System.nanoTime();
+    private int intervalSamples;
+    private volatile String lastSample;
+
+    private final AtomicLong slowCount = new AtomicLong();
+    private final AtomicLong suppressedCount = new AtomicLong();
+
+    /**
+     * Creates a new slow request sampler.
+     *
+     * @param threshold  the time above which a request is slow. Must not be {@code null}.
+     * @param maxSamples the maximum number of slow requests logged per interval. Must be greater than 0.
+     * @param interval   the interval of the limit. Must not be {@code null}.
+     */
+    public JdkHttpSlowRequestSampler(Duration threshold, int maxSamples, Duration interval) {
+        if (maxSamples < 1) {
+            throw new IllegalArgumentException("Maximum slow request samples cannot be less than 1");
+        }
+        this.thresholdNanos = Objects.requireNonNull(threshold, "Slow request threshold cannot be null").toNanos();
+        this.maxSamples = maxSamples;
+        this.intervalNanos = Objects.requireNonNull(interval, "Slow request sample interval cannot be null").toNanos();
+    }
+
+    /**
+     * Samples the timings of a completed request, logging them if the request is slow and the limit allows it.
+     *
+     * @param endpointUri the sanitized URI of the endpoint.
+     * @param timings     the timings of the request.
+     * @return {@code true} if the request was logged.
+     */
+    public boolean sample(String endpointUri, JdkHttpPhaseTimings timings) {
+        final Duration totalTime = timings.getTotalTime();
+        if (totalTime.toNanos() < thresholdNanos) {
+            return false;
+        }
+
+        slowCount.incrementAndGet();
+        if (!tryAcquire()) {
+            suppressedCount.incrementAndGet();
+            return false;
+        }
+
+        final String sample = timings.getMethod() + " " + (timings.getUri() != null ? URISupport.sanitizeUri(timings.getUri().toString()) : null) +
+                (timings.getFailure() != null ? " failed with " + timings.getFailure() : " returned " + timings.getStatus()) +
+                " in " + totalTime.toMillis() + "ms: " + timings;
+        lastSample = sample;
+        LOG.warn("Slow HTTP request on {}: {}", endpointUri, sample);
+
+        return true;
+    }
+
+    public long getSlowCount() {
+        return slowCount.get();
+    }
+
+    public long getSuppressedCount() {
+        return suppressedCount.get();
+    }
+
+    public String getLastSample() {
+        return lastSample;
+    }
+
+
+    private synchronized boolean tryAcquire() {
+        final long now = System.nanoTime();
+        if (now - intervalStartNanos >= intervalNanos) {
+            intervalStartNanos = now;
+            intervalSamples = 0;
+        }
+
+        if (intervalSamples >= maxSamples) {
+            return false;
+        }
+        intervalSamples++;
+
+        return true;
+    }
+
+}
@@ -0,0 +1,171 @@
+package abs.zer0.camel.jdk.http;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.StreamCache;
+import org.apache.camel.converter.stream.CipherPair;
+import org.apache.camel.spi.StreamCachingStrategy;
+import org.apache.camel.support.SynchronizationAdapter;
+import org.apache.camel.util.FileUtil;
+import org.apache.camel.util.IOHelper;
+
+import javax.crypto.CipherInputStream;
+import javax.crypto.CipherOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.util.Objects;
+
+/**
+ * Response body spilled to a file because the response memory budget is exhausted.
+ * <br/>
+ * The file is created in the spool directory of the {@link StreamCachingStrategy} of the Camel context,
+ * and is encrypted with its spool cipher if one is set, as the files spooled by Camel's stream caching are.
+ * The file is deleted when the exchange completes.
+ */
+public final class JdkHttpSpilledBody extends InputStream implements StreamCache {
+
+    private final File file;
+    private final CipherPair cipherPair;
+    private final long length;
+    private InputStream stream;
+    private long position;
+
+    private JdkHttpSpilledBody(File file, CipherPair cipherPair, long length) {
+        this.file = file;
+        this.cipherPair = cipherPair;
+        this.length = length;
+    }
+
+    /**
+     * Writes the given bytes followed by the rest of the body into a new spill file of the exchange.
+     *
+     * @param exchange the exchange of the body. Must not be {@code null}.
+     * @param buffered the bytes of the body already read.
+     * @param offset   the offset of the bytes already read.
+     * @param count    the number of bytes already read.
+     * @param body     the rest of the body. Must not be {@code null}.
+     * @return the spilled body.
+     * @throws IOException if the body cannot be read or written.
+     */
+    public static JdkHttpSpilledBody spill(Exchange exchange, byte[] buffered, int offset, int count, InputStream body) throws IOException {
+        Objects.requireNonNull(exchange, "Exchange cannot be null");
+        Objects.requireNonNull(body, "Response body stream cannot be null");
+
+        final StreamCachingStrategy strategy = exchange.getContext().getStreamCachingStrategy();
+        final CipherPair cipherPair;
+        try {
+            cipherPair = strategy.getSpoolCipher() != null ? new CipherPair(strategy.getSpoolCipher()) : null;
+        } catch (GeneralSecurityException e) {
+            throw new IOException("Cannot create the spool cipher " + strategy.getSpoolCipher(), e);
+        }
+
+        final File file = createFile(strategy.getSpoolDirectory());
+        exchange.getExchangeExtension().addOnCompletion(new SynchronizationAdapter() {
+            @Override
+            public void onDone(Exchange exchange) {
+                FileUtil.deleteFile(file);
+            }
+        });
+
+        long length = count;
+        OutputStream spillStream = Files.newOutputStream(file.toPath());
+        try {
+            if (cipherPair != null) {
+                spillStream = new CipherOutputStream(spillStream, cipherPair.getEncryptor());
+            }
+            spillStream.write(buffered, offset, count);
+            length += body.transferTo(spillStream);
+        } finally {
+            IOHelper.close(spillStream);
+        }
+
+        return new JdkHttpSpilledBody(file, cipherPair, length);
+    }
+
+    @Override
+    public int read() throws IOException {
+        final int read = getStream().read();
+        if (read != -1) {
+            position++;
+        }
+
+        return read;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int count) throws IOException {
+        final int read = getStream().read(bytes, offset, count);
+        if (read > 0) {
+            position += read;
+        }
+
+        return read;
+    }
+
+    @Override
+    public void close() {
+        IOHelper.close(stream);
+        stream = null;
+    }
+
+    @Override
+    public void reset() {
+        close();
+        position = 0;
+    }
+
+    @Override
+    public void writeTo(OutputStream os) throws IOException {
+        try (InputStream in = open()) {
+            in.transferTo(os);
+        }
+    }
+
+    @Override
+    public StreamCache copy(Exchange exchange) {
+        return new JdkHttpSpilledBody(file, cipherPair, length);
+    }
+
+    @Override
+    public boolean inMemory() {
+        return false;
+    }
+
+    @Override
+    public long length() {
+        return length;
+    }
+
+    @Override
+    public long position() {
+        return position;
+    }
+
+
+    private static File createFile(File spoolDirectory) throws IOException {
+        if (spoolDirectory == null) {
+            return Files.createTempFile("jdk-http-", ".body").toFile();
+        }
+
+        final Path directory = Files.createDirectories(spoolDirectory.toPath());
+        return Files.createTempFile(directory, "jdk-http-", ".body").toFile();
+    }
+
+    private InputStream getStream() throws IOException {
+        if (stream == null) {
+            stream = open();
+        }
+
+        return stream;
+    }
+
+    private InputStream open() throws IOException {
+        final InputStream in = Files.newInputStream(file.toPath());
+        return cipherPair != null ? new CipherInputStream(in, cipherPair.createDecryptor()) : in;
+    }
+
+}
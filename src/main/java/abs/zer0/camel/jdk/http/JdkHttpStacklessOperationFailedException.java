@@ -0,0 +1,66 @@
+package abs.zer0.camel.jdk.http;
+
+import org.apache.camel.http.base.HttpOperationFailedException;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.net.http.HttpHeaders;
+import java.util.Map;
+
+/**
+ * An {@link HttpOperationFailedException} which does not fill in its stack trace.
+ * <br/>
+ * Used by the {@link JdkHttpFailureMode#STACKLESS} failure mode, where failed responses are a normal outcome
+ * and capturing the stack trace of every failure is a significant cost.
+ * For the same reason, the response headers are copied only when read and the response body is not captured.
+ * Error handlers matching {@link HttpOperationFailedException} still apply.
+ */
+public class JdkHttpStacklessOperationFailedException extends HttpOperationFailedException {
+
+    private static final long serialVersionUID = 1L;
+
+    private transient HttpHeaders httpHeaders;
+    private Map<String, String> responseHeaders;
+
+    public JdkHttpStacklessOperationFailedException(String uri, int statusCode, String statusText, String location,
+                                                    Map<String, String> responseHeaders, String responseBody) {
+        super(uri, statusCode, statusText, location, responseHeaders, responseBody);
+        this.responseHeaders = responseHeaders;
+    }
+
+    /**
+     * Creates a new exception whose response headers are copied from the given headers on first read.
+     *
+     * @param uri         the URI of the request.
+     * @param statusCode  the status code of the response.
+     * @param statusText  the status text of the response.
+     * @param location    the redirect location, if any.
+     * @param httpHeaders the headers of the response.
+     */
+    public JdkHttpStacklessOperationFailedException(String uri, int statusCode, String statusText, String location, HttpHeaders httpHeaders) {
+        super(uri, statusCode, statusText, location, null, null);
+        this.httpHeaders = httpHeaders;
+    }
+
+    @Override
+    public synchronized Map<String, String> getResponseHeaders() {
+        if (responseHeaders == null && httpHeaders != null) {
+            responseHeaders = JdkHttpBinding.getErrorHeaders(httpHeaders);
+            httpHeaders = null;
+        }
+
+        return responseHeaders;
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        getResponseHeaders();
+        out.defaultWriteObject();
+    }
+
+}
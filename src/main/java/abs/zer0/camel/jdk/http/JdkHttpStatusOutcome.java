@@ -0,0 +1,56 @@
+package abs.zer0.camel.jdk.http;
+
+/**
+ * The outcome category of an HTTP response, set as the {@link JdkHttpConstants#STATUS_OUTCOME} exchange property.
+ * <br/>
+ * A status code within the OK status code ranges is a {@link #SUCCESS}, any other status code is categorized by its class.
+ *
+ * @see JdkHttpFailureMode
+ */
+public enum JdkHttpStatusOutcome {
+
+    /**
+     * The status code is within the OK status code ranges.
+     */
+    SUCCESS,
+
+    /**
+     * A 1xx status code outside the OK status code ranges.
+     */
+    INFORMATIONAL,
+
+    /**
+     * A 2xx status code outside the OK status code ranges.
+     */
+    UNEXPECTED_SUCCESS,
+
+    /**
+     * A 3xx status code outside the OK status code ranges.
+     */
+    REDIRECTION,
+
+    /**
+     * A 4xx status code outside the OK status code ranges.
+     */
+    CLIENT_ERROR,
+
+    /**
+     * A 5xx status code outside the OK status code ranges.
+     */
+    SERVER_ERROR,
+
+    /**
+     * A status code outside the OK status code ranges and outside the classes defined by HTTP.
+     */
+    UNKNOWN;
+
+    /**
+     * Gets whether the response is a failure, i.e. its status code is not within the OK status code ranges.
+     *
+     * @return {@code true} if the outcome is not {@link #SUCCESS}.
+     */
+    public boolean isFailure() {
+        return this != SUCCESS;
+    }
+
+}
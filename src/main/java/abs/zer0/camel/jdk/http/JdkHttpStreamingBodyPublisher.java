@@ -0,0 +1,242 @@
+package abs.zer0.camel.jdk.http;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.http.HttpRequest;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Request body publisher which pulls the elements of an {@link Iterator}, a {@link Stream} or a {@link Flow.Publisher} lazily.
+ * <br/>
+ * Each element is encoded into bytes and followed by the optional delimiter, e.g. a newline for NDJSON.
+ * Elements are pulled only as the HTTP client requests data, so the memory used stays constant regardless of the number of elements.
+ * The length of the body is unknown, so the request is sent chunked.
+ * <br/>
+ * The source can be published only once.
+ */
+public class JdkHttpStreamingBodyPublisher implements HttpRequest.BodyPublisher {
+
+    private static final Logger LOG = LoggerFactory.getLogger(JdkHttpStreamingBodyPublisher.class);
+
+    private final Object source;
+    private final Function<Object, byte[]> elementEncoder;
+    private final byte[] delimiter;
+    private final AtomicBoolean subscribed = new AtomicBoolean();
+
+    /**
+     * Creates a new streaming body publisher.
+     *
+     * @param source         the {@link Iterator}, {@link Stream} or {@link Flow.Publisher} of the elements. Must not be {@code null}.
+     * @param elementEncoder the function encoding an element into bytes. Must not be {@code null}.
+     * @param delimiter      the bytes written after each element, or {@code null} for none.
+     * @throws IllegalArgumentException if the source is not supported.
+     */
+    public JdkHttpStreamingBodyPublisher(Object source, Function<Object, byte[]> elementEncoder, byte[] delimiter) {
+        Objects.requireNonNull(source, "Streaming body source cannot be null");
+        if (!isStreamingSource(source)) {
+            throw new IllegalArgumentException("Unsupported streaming body source: " + source.getClass().getName());
+        }
+        this.source = source;
+        this.elementEncoder = Objects.requireNonNull(elementEncoder, "Element encoder cannot be null");
+        this.delimiter = delimiter != null ? delimiter : new byte[0];
+    }
+
+    /**
+     * Determines whether the given message body can be streamed by this publisher.
+     *
+     * @param body the message body.
+     * @return {@code true} if the body is an {@link Iterator}, a {@link Stream} or a {@link Flow.Publisher}.
+     */
+    public static boolean isStreamingSource(Object body) {
+        return body instanceof Iterator<?> || body instanceof Stream<?> || body instanceof Flow.Publisher<?>;
+    }
+
+    @Override
+    public long contentLength() {
+        return -1;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+        Objects.requireNonNull(subscriber, "Subscriber cannot be null");
+
+        if (!subscribed.compareAndSet(false, true)) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+            subscriber.onError(new IllegalStateException("Streaming request body can be published only once"));
+            return;
+        }
+
+        if (source instanceof Flow.Publisher<?> publisher) {
+            publisher.subscribe(new ElementSubscriber(subscriber));
+        } else {
+            final Iterator<?> iterator = source instanceof Stream<?> stream ? stream.iterator() : (Iterator<?>) source;
+            subscriber.onSubscribe(new IteratorSubscription(iterator, subscriber));
+        }
+    }
+
+
+    private ByteBuffer encode(Object element) {
+        final byte[] bytes = elementEncoder.apply(element);
+        if (delimiter.length == 0) {
+            return ByteBuffer.wrap(bytes);
+        }
+
+        final ByteBuffer buffer = ByteBuffer.allocate(bytes.length + delimiter.length)
+                .put(bytes)
+                .put(delimiter);
+        return buffer.flip();
+    }
+
+    private void closeSource() {
+        if (source instanceof AutoCloseable autoCloseable) {
+            try {
+                autoCloseable.close();
+            } catch (Exception e) {
+                LOG.debug("Error closing streaming body source", e);
+            }
+        }
+    }
+
+    /**
+     * Subscription pulling elements from an iterator on demand.
+     * Demand signalled while elements are being pulled is served by the thread already pulling.
+     */
+    private final class IteratorSubscription implements Flow.Subscription {
+
+        private final Iterator<?> iterator;
+        private final Flow.Subscriber<? super ByteBuffer> subscriber;
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicInteger pending = new AtomicInteger();
+        private volatile boolean done;
+
+        private IteratorSubscription(Iterator<?> iterator, Flow.Subscriber<? super ByteBuffer> subscriber) {
+            this.iterator = iterator;
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                fail(new IllegalArgumentException("Requested demand must be positive: " + n));
+                return;
+            }
+            demand.getAndAccumulate(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added);
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            if (!done) {
+                done = true;
+                closeSource();
+            }
+        }
+
+        private void drain() {
+            if (pending.getAndIncrement() != 0) {
+                return;
+            }
+
+            do {
+                try {
+                    while (!done && demand.get() > 0) {
+                        if (!iterator.hasNext()) {
+                            done = true;
+                            closeSource();
+                            subscriber.onComplete();
+                            return;
+                        }
+                        final ByteBuffer buffer = encode(iterator.next());
+                        demand.decrementAndGet();
+                        subscriber.onNext(buffer);
+                    }
+                } catch (RuntimeException e) {
+                    fail(e);
+                    return;
+                }
+            } while (pending.decrementAndGet() != 0);
+        }
+
+        private void fail(Throwable throwable) {
+            if (!done) {
+                done = true;
+                closeSource();
+                subscriber.onError(throwable);
+            }
+        }
+
+    }
+
+    /**
+     * Subscriber encoding the elements of an upstream publisher, passing the demand of the HTTP client through.
+     */
+    private final class ElementSubscriber implements Flow.Subscriber<Object> {
+
+        private final Flow.Subscriber<? super ByteBuffer> subscriber;
+        private Flow.Subscription subscription;
+        private boolean done;
+
+        private ElementSubscriber(Flow.Subscriber<? super ByteBuffer> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscriber.onSubscribe(subscription);
+        }
+
+        @Override
+        public void onNext(Object element) {
+            if (done) {
+                return;
+            }
+
+            final ByteBuffer buffer;
+            try {
+                buffer = encode(element);
+            } catch (RuntimeException e) {
+                done = true;
+                subscription.cancel();
+                subscriber.onError(e);
+                return;
+            }
+            subscriber.onNext(buffer);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            if (!done) {
+                done = true;
+                subscriber.onError(throwable);
+            }
+        }
+
+        @Override
+        public void onComplete() {
+            if (!done) {
+                done = true;
+                subscriber.onComplete();
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,439 @@
+package abs.zer0.camel.jdk.http;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Long-lived chunked upload which many exchanges append their payloads to.
+ * <br/>
+ * The channel keeps a single streaming request open and writes every payload into its body.
+ * The request is rotated when its body reaches the maximum number of bytes or the maximum age:
+ * the body is completed, its response is checked, and the next payload opens a new request.
+ * A failed upload, either a transport error or a response which is not successful, fails every write until the next rotation,
+ * that is for the maximum age, so that the routes see the failure.
+ * <br/>
+ * A write completes once its payload is handed to the HTTP client. A payload still buffered when its upload fails or is cancelled
+ * fails its write, so no payload whose write completed is dropped by the channel.
+ * Payloads are buffered until the HTTP client requests them. When the buffer is full because the server is slow,
+ * further writes wait for space up to the given time without blocking a thread, which applies back-pressure to the route.
+ */
+public class JdkHttpUploadChannel implements Closeable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(JdkHttpUploadChannel.class);
+
+    private final HttpClient httpClient;
+    private final HttpRequest requestTemplate;
+    private final long maxBytes;
+    private final Duration maxAge;
+    private final int bufferSize;
+    private final ScheduledExecutorService scheduler;
+    private JdkHttpBandwidthThrottle bandwidthThrottle;
+
+    private final Object lock = new Object();
+    private Upload current;
+    private Throwable failure;
+    private boolean closed;
+    private long lastWriteNanos = System.nanoTime();
+
+    private final AtomicLong bytesWritten = new AtomicLong();
+    private final AtomicLong rotationCount = new AtomicLong();
+    private final AtomicLong failureCount = new AtomicLong();
+
+    /**
+     * Creates a new upload channel.
+     *
+     * @param httpClient      the client to send the uploads with. Must not be {@code null}.
+     * @param requestTemplate the request whose URI, headers and version are used for every upload. Must not be {@code null}.
+     * @param maxBytes        the number of body bytes after which an upload is rotated. Must be greater than 0.
+     * @param maxAge          the time after which an upload is rotated. Must not be {@code null}.
+     * @param bufferSize      the maximum number of payloads buffered while the client is not ready. Must be greater than 0.
+     * @param scheduler       the scheduler of the time based rotation and of the write timeouts. Must not be {@code null}.
+     */
+    public JdkHttpUploadChannel(HttpClient httpClient, HttpRequest requestTemplate, long maxBytes, Duration maxAge,
+                                int bufferSize, ScheduledExecutorService scheduler) {
+        if (maxBytes < 1) {
+            throw new IllegalArgumentException("Maximum upload bytes cannot be less than 1");
+        }
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("Upload buffer size cannot be less than 1");
+        }
+        this.httpClient = Objects.requireNonNull(httpClient, "HTTP client cannot be null");
+        this.requestTemplate = Objects.requireNonNull(requestTemplate, "Upload request template cannot be null");
+        this.maxBytes = maxBytes;
+        this.maxAge = Objects.requireNonNull(maxAge, "Maximum upload age cannot be null");
+        this.bufferSize = bufferSize;
+        this.scheduler = Objects.requireNonNull(scheduler, "Scheduler cannot be null");
+    }
+
+    /**
+     * Appends the payload to the current upload, opening a new upload if there is none.
+     * Never blocks: while the buffer is full, the payload waits for space up to the given maximum wait.
+     *
+     * @param payload the bytes to append. Must not be {@code null}.
+     * @param maxWait the maximum time to wait for buffer space. Must not be {@code null}.
+     * @return the {@link CompletableFuture} completed once the payload is handed to the HTTP client.
+     * It fails with a {@link TimeoutException} if the buffer stays full for the maximum wait,
+     * and with an {@link IOException} if the channel is closed, a previous upload failed since the last rotation,
+     * or the upload fails before the payload is handed to the client.
+     */
+    public CompletableFuture<Void> write(byte[] payload, Duration maxWait) {
+        Objects.requireNonNull(payload, "Upload payload cannot be null");
+        Objects.requireNonNull(maxWait, "Maximum wait cannot be null");
+
+        final Upload upload;
+        final CompletableFuture<Void> written;
+        synchronized (lock) {
+            if (closed) {
+                return CompletableFuture.failedFuture(new IOException("Streaming upload to " + requestTemplate.uri() + " is closed"));
+            }
+            if (failure != null) {
+                return CompletableFuture.failedFuture(new IOException("Streaming upload to " + requestTemplate.uri() + " failed", failure));
+            }
+
+            if (current == null || current.response.isDone()) {
+                current = open();
+            }
+            upload = current;
+            written = upload.offer(ByteBuffer.wrap(payload), maxWait, scheduler);
+            bytesWritten.addAndGet(payload.length);
+            lastWriteNanos = System.nanoTime();
+
+            if (upload.bytes >= maxBytes) {
+                rotate(upload);
+            }
+        }
+        // the payload is handed to the client outside the lock, so a slow subscriber does not stall the other writers
+        upload.drain();
+
+        return written;
+    }
+
+    /**
+     * Completes the current upload and forgets the failure of a previous upload. A new upload is opened by the next write.
+     */
+    public void rotate() {
+        final Upload upload;
+        synchronized (lock) {
+            failure = null;
+            upload = current;
+            if (upload != null) {
+                rotate(upload);
+            }
+        }
+        if (upload != null) {
+            upload.drain();
+        }
+    }
+
+    /**
+     * Closes the channel if it has no open upload and no payload was written for the given time.
+     *
+     * @param idleTime the time without writes after which the channel is idle.
+     * @return {@code true} if the channel was idle and is now closed.
+     */
+    public boolean closeIfIdle(Duration idleTime) {
+        synchronized (lock) {
+            if (closed || current != null || System.nanoTime() - lastWriteNanos < idleTime.toNanos()) {
+                return false;
+            }
+            closed = true;
+        }
+        LOG.debug("Closed idle streaming upload channel to {}", requestTemplate.uri());
+
+        return true;
+    }
+
+    /**
+     * Completes the current upload and rejects further writes.
+     */
+    @Override
+    public void close() {
+        final Upload upload;
+        synchronized (lock) {
+            closed = true;
+            upload = current;
+            if (upload != null) {
+                rotate(upload);
+            }
+        }
+        if (upload != null) {
+            upload.drain();
+        }
+    }
+
+    public boolean isClosed() {
+        synchronized (lock) {
+            return closed;
+        }
+    }
+
+    public JdkHttpBandwidthThrottle getBandwidthThrottle() {
+        return bandwidthThrottle;
+    }
+
+    /**
+     * Sets the throttle pacing the bodies of the uploads opened afterwards.
+     *
+     * @param bandwidthThrottle the {@link JdkHttpBandwidthThrottle}, or {@code null} to not limit the bandwidth.
+     */
+    public void setBandwidthThrottle(JdkHttpBandwidthThrottle bandwidthThrottle) {
+        this.bandwidthThrottle = bandwidthThrottle;
+    }
+
+    public long getBytesWritten() {
+        return bytesWritten.get();
+    }
+
+    public long getRotationCount() {
+        return rotationCount.get();
+    }
+
+    public long getFailureCount() {
+        return failureCount.get();
+    }
+
+
+    private Upload open() {
+        final Upload upload = new Upload(bufferSize);
+        final HttpRequest httpRequest = HttpRequest.newBuilder(requestTemplate, (name, value) -> true)
+                .POST(bandwidthThrottle != null ? bandwidthThrottle.throttle(upload) : upload)
+                .build();
+
+        LOG.debug("Opening streaming upload to {}", httpRequest.uri());
+        upload.response = httpClient.sendAsync(httpRequest, HttpResponse.BodyHandlers.discarding())
+                .whenComplete((httpResponse, throwable) -> onResponse(upload, httpResponse, throwable));
+        scheduler.schedule(() -> {
+            synchronized (lock) {
+                if (current != upload) {
+                    return;
+                }
+                rotate(upload);
+            }
+            upload.drain();
+        }, maxAge.toNanos(), TimeUnit.NANOSECONDS);
+
+        return upload;
+    }
+
+    private void rotate(Upload upload) {
+        upload.close();
+        current = null;
+        rotationCount.incrementAndGet();
+    }
+
+    private void onResponse(Upload upload, HttpResponse<Void> httpResponse, Throwable throwable) {
+        final Throwable uploadFailure;
+        if (throwable != null) {
+            uploadFailure = throwable;
+        } else if (httpResponse.statusCode() < 200 || httpResponse.statusCode() > 299) {
+            uploadFailure = new IOException("Streaming upload to " + httpResponse.uri() + " failed with status " + httpResponse.statusCode());
+        } else {
+            LOG.debug("Streaming upload of {} bytes to {} completed", upload.bytes, httpResponse.uri());
+            // fails the payloads the server did not read before responding, if any
+            upload.fail(new IOException("Streaming upload to " + httpResponse.uri() + " completed before its body was sent"));
+            return;
+        }
+
+        failureCount.incrementAndGet();
+        LOG.warn("Streaming upload of {} bytes to {} failed: {}", upload.bytes, requestTemplate.uri(), uploadFailure.getMessage());
+        upload.fail(uploadFailure);
+        synchronized (lock) {
+            failure = uploadFailure;
+            if (current == upload) {
+                current = null;
+            }
+        }
+        // the failure is kept until the next rotation, which is when the failed upload would have been rotated at the latest
+        scheduler.schedule(() -> {
+            synchronized (lock) {
+                if (failure == uploadFailure) {
+                    failure = null;
+                }
+            }
+        }, maxAge.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * A payload of an upload and its write.
+     */
+    private static final class Payload {
+
+        private final ByteBuffer buffer;
+        private final CompletableFuture<Void> written = new CompletableFuture<>();
+        private ScheduledFuture<?> timeout;
+
+        private Payload(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+    }
+
+    /**
+     * The body of a single upload request, publishing the buffered payloads on demand.
+     * Payloads offered while the buffer is full wait for space, and enter the buffer as the client takes the buffered ones.
+     */
+    private static final class Upload implements HttpRequest.BodyPublisher, Flow.Subscription {
+
+        private final int bufferSize;
+        private final Deque<Payload> buffer = new ArrayDeque<>();
+        private final Deque<Payload> waiters = new ArrayDeque<>();
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicInteger pending = new AtomicInteger();
+        private volatile Flow.Subscriber<? super ByteBuffer> subscriber;
+        private boolean closed;
+        private boolean done;
+        private Throwable failure;
+        private volatile long bytes;
+        private CompletableFuture<HttpResponse<Void>> response;
+
+        private Upload(int bufferSize) {
+            this.bufferSize = bufferSize;
+        }
+
+        @Override
+        public long contentLength() {
+            return -1;
+        }
+
+        @Override
+        public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+            if (this.subscriber != null) {
+                subscriber.onSubscribe(this);
+                subscriber.onError(new IllegalStateException("Streaming upload can be published only once"));
+                return;
+            }
+            this.subscriber = subscriber;
+            subscriber.onSubscribe(this);
+            drain();
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                cancel();
+                return;
+            }
+            demand.getAndAccumulate(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added);
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            fail(new IOException("Streaming upload was cancelled by the HTTP client"));
+        }
+
+        private synchronized CompletableFuture<Void> offer(ByteBuffer payload, Duration maxWait, ScheduledExecutorService scheduler) {
+            if (done) {
+                return CompletableFuture.failedFuture(new IOException("Streaming upload failed before the payload was sent", failure));
+            }
+
+            final Payload entry = new Payload(payload);
+            if (buffer.size() < bufferSize) {
+                buffer.add(entry);
+            } else {
+                waiters.add(entry);
+                entry.timeout = scheduler.schedule(() -> expire(entry, maxWait), maxWait.toNanos(), TimeUnit.NANOSECONDS);
+            }
+            bytes += payload.remaining();
+
+            return entry.written;
+        }
+
+        private void expire(Payload entry, Duration maxWait) {
+            synchronized (this) {
+                if (!waiters.remove(entry)) {
+                    return;
+                }
+                bytes -= entry.buffer.remaining();
+            }
+            entry.written.completeExceptionally(new TimeoutException("Streaming upload buffer is not available within " + maxWait));
+        }
+
+        private synchronized void close() {
+            closed = true;
+        }
+
+        private void fail(Throwable cause) {
+            final List<Payload> dropped;
+            synchronized (this) {
+                if (done) {
+                    return;
+                }
+                done = true;
+                failure = cause;
+                dropped = new ArrayList<>(buffer);
+                dropped.addAll(waiters);
+                buffer.clear();
+                waiters.clear();
+            }
+
+            for (Payload entry : dropped) {
+                if (entry.timeout != null) {
+                    entry.timeout.cancel(false);
+                }
+                entry.written.completeExceptionally(new IOException("Streaming upload failed before the payload was sent", cause));
+            }
+        }
+
+        private void drain() {
+            final Flow.Subscriber<? super ByteBuffer> currentSubscriber = subscriber;
+            if (currentSubscriber == null || pending.getAndIncrement() != 0) {
+                return;
+            }
+
+            do {
+                while (demand.get() > 0) {
+                    final Payload entry;
+                    synchronized (this) {
+                        entry = done ? null : buffer.poll();
+                        final Payload waiter = entry != null ? waiters.poll() : null;
+                        if (waiter != null) {
+                            waiter.timeout.cancel(false);
+                            buffer.add(waiter);
+                        }
+                    }
+                    if (entry == null) {
+                        break;
+                    }
+                    demand.decrementAndGet();
+                    currentSubscriber.onNext(entry.buffer);
+                    entry.written.complete(null);
+                }
+
+                final boolean complete;
+                synchronized (this) {
+                    complete = !done && closed && buffer.isEmpty() && waiters.isEmpty();
+                    if (complete) {
+                        done = true;
+                    }
+                }
+                if (complete) {
+                    currentSubscriber.onComplete();
+                }
+            } while (pending.decrementAndGet() != 0);
+        }
+
+    }
+
+}
@@ -0,0 +1,159 @@
+package abs.zer0.camel.jdk.http;
+
+import org.apache.camel.CamelExchangeException;
+import org.apache.camel.Exchange;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.support.DefaultExchange;
+import org.apache.camel.test.AvailablePortFinder;
+import org.apache.camel.test.junit5.CamelTestSupport;
+import org.apache.camel.util.StopWatch;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that the remaining budget of an exchange is recomputed when its request is sent,
+ * so a request waiting for an in-flight permit neither runs past the deadline nor propagates a stale budget.
+ */
+public class JdkHttpDeadlineTest extends CamelTestSupport {
+
+    private static final Logger LOG = LoggerFactory.getLogger(JdkHttpDeadlineTest.class);
+
+    private static final String BUDGET_HEADER = "X-Budget";
+
+    private final int port = AvailablePortFinder.getNextAvailable();
+
+    @Test
+    public void testRemainingBudgetCapsTimeout() throws Exception {
+        final JdkHttpBinding binding = newBinding();
+        final Exchange exchange = new DefaultExchange(context);
+        exchange.setProperty(JdkHttpConstants.DEADLINE, Instant.now().plusMillis(500));
+
+        final HttpRequest httpRequest = binding.applyRemainingBudget(exchange, newRequest(Duration.ofSeconds(30)));
+
+        final Duration timeout = httpRequest.timeout().orElseThrow();
+        assertTrue(timeout.compareTo(Duration.ofMillis(500)) <= 0, "Timeout " + timeout + " exceeds the remaining budget");
+        final long propagated = Long.parseLong(httpRequest.headers().firstValue(BUDGET_HEADER).orElseThrow());
+        assertTrue(propagated > 0 && propagated <= 500, "Propagated budget " + propagated + " ms");
+        assertEquals(List.of("kept"), httpRequest.headers().allValues("X-Other"));
+    }
+
+    @Test
+    public void testShorterTimeoutIsKept() throws Exception {
+        final JdkHttpBinding binding = newBinding();
+        final Exchange exchange = new DefaultExchange(context);
+        exchange.getMessage().setHeader(JdkHttpConstants.DEADLINE, Instant.now().plusSeconds(10).toEpochMilli());
+
+        final HttpRequest httpRequest = binding.applyRemainingBudget(exchange, newRequest(Duration.ofSeconds(1)));
+
+        assertEquals(Duration.ofSeconds(1), httpRequest.timeout().orElseThrow());
+        final List<String> propagated = httpRequest.headers().allValues(BUDGET_HEADER);
+        assertEquals(1, propagated.size(), "The propagated budget replaces the stale one");
+        assertTrue(Long.parseLong(propagated.get(0)) <= 10000);
+    }
+
+    @Test
+    public void testPassedDeadlineSkipsRequest() {
+        final JdkHttpBinding binding = newBinding();
+        final Exchange exchange = new DefaultExchange(context);
+        exchange.setProperty(JdkHttpConstants.DEADLINE, Instant.now().minusMillis(1));
+
+        assertThrows(CamelExchangeException.class, () -> binding.applyRemainingBudget(exchange, newRequest(Duration.ofSeconds(30))));
+    }
+
+    @Test
+    public void testRequestWithoutDeadlineIsUnchanged() throws Exception {
+        final JdkHttpBinding binding = newBinding();
+        final HttpRequest httpRequest = newRequest(Duration.ofSeconds(30));
+
+        assertSame(httpRequest, binding.applyRemainingBudget(new DefaultExchange(context), httpRequest));
+    }
+
+    @Test
+    public void testBudgetIsPropagated() {
+        final String body = template.requestBody(
+                "jdk-http:http://localhost:" + port + "/budget?timeoutBudget=PT5S&deadlinePropagationHeader=" + BUDGET_HEADER, null, String.class);
+
+        final long propagated = Long.parseLong(body);
+        assertTrue(propagated > 0 && propagated <= 5000, "Propagated budget " + propagated + " ms");
+    }
+
+    @Test
+    public void testQueuedRequestPropagatesRemainingBudget() throws Exception {
+        final String uri = "jdk-http:http://localhost:" + port + "/slow-budget?async=true&maxInFlight=1&timeoutBudget=PT5S&deadlinePropagationHeader=" + BUDGET_HEADER;
+        template.requestBody(uri, null, String.class);
+
+        final Future<Exchange> first = template.asyncSend(uri, exchange -> { });
+        final Future<Exchange> second = template.asyncSend(uri, exchange -> { });
+        final long firstBudget = Long.parseLong(first.get(10, TimeUnit.SECONDS).getMessage().getBody(String.class));
+        final long secondBudget = Long.parseLong(second.get(10, TimeUnit.SECONDS).getMessage().getBody(String.class));
+        LOG.info("Propagated {} ms for the first request and {} ms for the queued request", firstBudget, secondBudget);
+
+        assertTrue(Math.abs(firstBudget - secondBudget) >= 300,
+                "The budget of the queued request must be recomputed after waiting for the permit");
+    }
+
+    @Test
+    public void testQueuedRequestFailsAtDeadline() throws Exception {
+        final String uri = "jdk-http:http://localhost:" + port + "/slow?async=true&maxInFlight=1&maxInFlightWait=PT30S&timeoutBudget=PT1S";
+        final StopWatch watch = new StopWatch();
+
+        final Future<Exchange> first = template.asyncSend(uri, exchange -> { });
+        final Future<Exchange> second = template.asyncSend(uri, exchange -> { });
+        final Exception firstFailure = first.get(10, TimeUnit.SECONDS).getException();
+        final Exception secondFailure = second.get(10, TimeUnit.SECONDS).getException();
+        final long elapsedMillis = watch.taken();
+        LOG.info("Both requests failed after {} ms", elapsedMillis);
+
+        assertNotNull(firstFailure);
+        assertNotNull(secondFailure);
+        assertTrue(elapsedMillis < 2500, "The queued request must fail at the deadline, not after the maximum in-flight wait");
+    }
+
+    @Override
+    protected RouteBuilder createRouteBuilder() {
+        return new RouteBuilder() {
+            @Override
+            public void configure() {
+                from("undertow:http://localhost:" + port + "/budget").routeId("budget")
+                        .setBody(header(BUDGET_HEADER));
+                from("undertow:http://localhost:" + port + "/slow-budget").routeId("slow-budget")
+                        .delay(500)
+                        .setBody(header(BUDGET_HEADER));
+                from("undertow:http://localhost:" + port + "/slow").routeId("slow")
+                        .delay(3000)
+                        .setBody(constant("Late"));
+            }
+        };
+    }
+
+
+    private JdkHttpBinding newBinding() {
+        final JdkHttpBinding binding = new JdkHttpBinding(URI.create("http://localhost:" + port + "/budget"));
+        binding.setDeadlinePropagationHeader(BUDGET_HEADER);
+        return binding;
+    }
+
+    private HttpRequest newRequest(Duration timeout) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/budget"))
+                .timeout(timeout)
+                .header(BUDGET_HEADER, "60000")
+                .header("X-Other", "kept")
+                .build();
+    }
+
+}
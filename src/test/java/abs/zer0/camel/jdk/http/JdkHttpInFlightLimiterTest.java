@@ -0,0 +1,265 @@
+package abs.zer0.camel.jdk.http;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the permits, the parking and the dispatch order of {@link JdkHttpInFlightLimiter}.
+ */
+public class JdkHttpInFlightLimiterTest {
+
+    private static final Duration LONG_WAIT = Duration.ofSeconds(30);
+
+    private ScheduledExecutorService scheduler;
+    private ExecutorService executor;
+
+    @BeforeEach
+    public void setUp() {
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        scheduler.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testPermitsAreLimited() {
+        final JdkHttpInFlightLimiter limiter = new JdkHttpInFlightLimiter(2, 0);
+
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+        assertEquals(2, limiter.getInFlight());
+
+        limiter.release();
+        assertEquals(1, limiter.getInFlight());
+        assertTrue(limiter.tryAcquire());
+    }
+
+    @Test
+    public void testReleaseHandsOverPermitToParkedTask() {
+        final JdkHttpInFlightLimiter limiter = new JdkHttpInFlightLimiter(1, 1);
+        final List<String> events = new ArrayList<>();
+        assertTrue(limiter.tryAcquire());
+
+        assertTrue(limiter.acquire(() -> events.add("permit"), () -> events.add("timeout"), LONG_WAIT, scheduler));
+        assertEquals(1, limiter.getQueueSize());
+        assertFalse(limiter.acquire(() -> events.add("rejected"), () -> events.add("timeout"), LONG_WAIT, scheduler),
+                "The queue is full");
+        assertEquals(1, limiter.getRejectedCount());
+
+        limiter.release();
+        assertEquals(List.of("permit"), events);
+        assertEquals(1, limiter.getInFlight(), "The permit is handed over, not released");
+        assertEquals(0, limiter.getQueueSize());
+        assertEquals(1, limiter.getWaitCount());
+
+        limiter.release();
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    public void testParkedTaskTimesOut() throws Exception {
+        final JdkHttpInFlightLimiter limiter = new JdkHttpInFlightLimiter(1, 1);
+        final CountDownLatch timedOut = new CountDownLatch(1);
+        assertTrue(limiter.tryAcquire());
+
+        assertTrue(limiter.acquire(() -> { }, timedOut::countDown, Duration.ofMillis(50), scheduler));
+        assertTrue(timedOut.await(5, TimeUnit.SECONDS));
+        assertEquals(1, limiter.getTimedOutCount());
+        assertEquals(0, limiter.getQueueSize());
+
+        limiter.release();
+        assertEquals(0, limiter.getInFlight(), "A timed out task does not get the permit");
+    }
+
+    @Test
+    public void testParkedTaskRunsOnItsExecutor() throws Exception {
+        final JdkHttpInFlightLimiter limiter = new JdkHttpInFlightLimiter(1, 1);
+        final CountDownLatch resumed = new CountDownLatch(1);
+        final List<Thread> threads = Collections.synchronizedList(new ArrayList<>());
+        assertTrue(limiter.tryAcquire());
+
+        assertTrue(limiter.acquire(() -> {
+            threads.add(Thread.currentThread());
+            resumed.countDown();
+        }, () -> { }, LONG_WAIT, scheduler, JdkHttpPriority.NORMAL, null, executor));
+        limiter.release();
+
+        assertTrue(resumed.await(5, TimeUnit.SECONDS));
+        assertFalse(threads.contains(Thread.currentThread()), "The releasing thread must not run the parked task");
+    }
+
+    @Test
+    public void testPriorityClassesShareTheirWeights() {
+        final JdkHttpInFlightLimiter limiter = new JdkHttpInFlightLimiter(1, 100);
+        final List<JdkHttpPriority> dispatched = new ArrayList<>();
+        assertTrue(limiter.tryAcquire());
+        for (JdkHttpPriority priority : JdkHttpPriority.values()) {
+            for (int i = 0; i < 20; i++) {
+                assertTrue(limiter.acquire(() -> dispatched.add(priority), () -> { }, LONG_WAIT, scheduler, priority, null, null));
+            }
+        }
+
+        for (int i = 0; i < 13; i++) {
+            limiter.release();
+        }
+
+        assertEquals(8, Collections.frequency(dispatched, JdkHttpPriority.HIGH));
+        assertEquals(4, Collections.frequency(dispatched, JdkHttpPriority.NORMAL));
+        assertEquals(1, Collections.frequency(dispatched, JdkHttpPriority.LOW), "The lowest class must not be starved");
+        assertEquals(8, limiter.getWaitCount(JdkHttpPriority.HIGH));
+    }
+
+    @Test
+    public void testEarliestDeadlineFirst() {
+        final JdkHttpInFlightLimiter limiter = new JdkHttpInFlightLimiter(1, 10);
+        limiter.setEarliestDeadlineFirst(true);
+        final List<String> dispatched = new ArrayList<>();
+        final Instant now = Instant.now();
+        assertTrue(limiter.tryAcquire());
+
+        park(limiter, dispatched, "none", null);
+        park(limiter, dispatched, "late", now.plusSeconds(20));
+        park(limiter, dispatched, "none2", null);
+        park(limiter, dispatched, "early", now.plusSeconds(10));
+        for (int i = 0; i < 4; i++) {
+            limiter.release();
+        }
+
+        assertEquals(List.of("early", "late", "none", "none2"), dispatched);
+    }
+
+    @Test
+    public void testFifoOrderByDefault() {
+        final JdkHttpInFlightLimiter limiter = new JdkHttpInFlightLimiter(1, 10);
+        final List<String> dispatched = new ArrayList<>();
+        final Instant now = Instant.now();
+        assertTrue(limiter.tryAcquire());
+
+        park(limiter, dispatched, "late", now.plusSeconds(20));
+        park(limiter, dispatched, "early", now.plusSeconds(10));
+        for (int i = 0; i < 2; i++) {
+            limiter.release();
+        }
+
+        assertEquals(List.of("late", "early"), dispatched);
+
+        park(limiter, dispatched, "parked", null);
+        assertThrows(IllegalStateException.class, () -> limiter.setEarliestDeadlineFirst(true),
+                "The queue order cannot change while requests are parked");
+    }
+
+    @Test
+    public void testBlockingAcquireGetsReleasedPermit() throws Exception {
+        final JdkHttpInFlightLimiter limiter = new JdkHttpInFlightLimiter(1, 1);
+        assertTrue(limiter.tryAcquire());
+
+        final Future<Boolean> acquired = executor.submit(() -> limiter.acquire(LONG_WAIT, scheduler, JdkHttpPriority.NORMAL, null));
+        awaitQueueSize(limiter, 1);
+        limiter.release();
+
+        assertTrue(acquired.get(5, TimeUnit.SECONDS));
+        assertEquals(1, limiter.getInFlight());
+    }
+
+    @Test
+    public void testBlockingAcquireTimesOut() throws Exception {
+        final JdkHttpInFlightLimiter limiter = new JdkHttpInFlightLimiter(1, 1);
+        assertTrue(limiter.tryAcquire());
+
+        assertFalse(limiter.acquire(Duration.ofMillis(50), scheduler, JdkHttpPriority.NORMAL, null));
+        assertEquals(0, limiter.getQueueSize());
+        assertEquals(1, limiter.getTimedOutCount());
+        assertFalse(limiter.acquire(Duration.ofMillis(50), scheduler, JdkHttpPriority.NORMAL, null));
+    }
+
+    @Test
+    public void testInterruptedBlockingAcquireGivesBackLatePermit() throws Exception {
+        final JdkHttpInFlightLimiter limiter = new JdkHttpInFlightLimiter(1, 1);
+        assertTrue(limiter.tryAcquire());
+
+        final List<Throwable> failures = Collections.synchronizedList(new ArrayList<>());
+        final Thread waiting = new Thread(() -> {
+            try {
+                limiter.acquire(LONG_WAIT, scheduler, JdkHttpPriority.NORMAL, null);
+            } catch (Throwable t) {
+                failures.add(t);
+            }
+        });
+        waiting.start();
+        awaitQueueSize(limiter, 1);
+        waiting.interrupt();
+        waiting.join(TimeUnit.SECONDS.toMillis(5));
+        assertEquals(1, failures.size());
+        assertInstanceOf(InterruptedException.class, failures.get(0));
+
+        limiter.release();
+        assertEquals(0, limiter.getInFlight(), "The permit handed over to the interrupted thread must be released");
+        assertTrue(limiter.tryAcquire());
+    }
+
+    @Test
+    public void testGrowingLimitResumesParkedTasks() {
+        final JdkHttpInFlightLimiter limiter = new JdkHttpInFlightLimiter(1, 10);
+        final List<String> dispatched = new ArrayList<>();
+        assertTrue(limiter.tryAcquire());
+        park(limiter, dispatched, "first", null);
+        park(limiter, dispatched, "second", null);
+
+        limiter.setLimit(3);
+        assertEquals(List.of("first", "second"), dispatched);
+        assertEquals(3, limiter.getInFlight());
+
+        limiter.setLimit(1);
+        limiter.release();
+        limiter.release();
+        assertEquals(1, limiter.getInFlight());
+        assertFalse(limiter.tryAcquire(), "No permit is available until the requests in flight drop below the limit");
+    }
+
+    @Test
+    public void testAdaptiveLimitShrinksOnDroppedRequest() {
+        final JdkHttpInFlightLimiter limiter = new JdkHttpInFlightLimiter(new JdkHttpAdaptiveLimit(1, 100, 2.0), 0);
+        assertEquals(20, limiter.getLimit());
+
+        limiter.onSample(TimeUnit.MILLISECONDS.toNanos(1), true);
+        assertEquals(14, limiter.getLimit());
+    }
+
+
+    private void park(JdkHttpInFlightLimiter limiter, List<String> dispatched, String name, Instant deadline) {
+        assertTrue(limiter.acquire(() -> dispatched.add(name), () -> { }, LONG_WAIT, scheduler, JdkHttpPriority.NORMAL, deadline, null));
+    }
+
+    private static void awaitQueueSize(JdkHttpInFlightLimiter limiter, int size) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (limiter.getQueueSize() != size) {
+            assertTrue(System.nanoTime() < deadline, "The thread was not parked");
+            Thread.sleep(10);
+        }
+    }
+
+}
@@ -0,0 +1,83 @@
+package abs.zer0.camel.jdk.http;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the reservations of {@link JdkHttpMemoryBudget}.
+ */
+public class JdkHttpMemoryBudgetTest {
+
+    @Test
+    public void testTryReserveWithinCapacity() {
+        final JdkHttpMemoryBudget budget = new JdkHttpMemoryBudget(100, JdkHttpMemoryBudgetPolicy.SPILL, Duration.ZERO);
+
+        assertTrue(budget.tryReserve(60));
+        assertTrue(budget.tryReserve(40));
+        assertFalse(budget.tryReserve(1));
+        assertEquals(100, budget.getUsed());
+
+        budget.release(60);
+        assertEquals(40, budget.getUsed());
+        assertEquals(100, budget.getHighWaterMark());
+        assertTrue(budget.tryReserve(60));
+    }
+
+    @Test
+    public void testBodyLargerThanBudgetIsNeverReserved() {
+        final JdkHttpMemoryBudget budget = new JdkHttpMemoryBudget(100, JdkHttpMemoryBudgetPolicy.BLOCK, Duration.ofSeconds(30));
+
+        assertFalse(budget.tryReserve(101), "A body larger than the budget must not be reserved even if the budget is unused");
+        final IllegalStateException e = assertThrows(IllegalStateException.class, () -> budget.reserve(101));
+        assertEquals("Response body of 101 bytes exceeds the response memory budget of 100 bytes", e.getMessage());
+        assertEquals(0, budget.getUsed());
+    }
+
+    @Test
+    public void testReserveWaitsForRelease() throws Exception {
+        final JdkHttpMemoryBudget budget = new JdkHttpMemoryBudget(100, JdkHttpMemoryBudgetPolicy.BLOCK, Duration.ofSeconds(30));
+        assertTrue(budget.tryReserve(80));
+
+        final CompletableFuture<Void> reserved = CompletableFuture.runAsync(() -> {
+            try {
+                budget.reserve(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        });
+        Thread.sleep(100);
+        assertFalse(reserved.isDone(), "The reservation must wait while the budget is exhausted");
+
+        budget.release(80);
+        reserved.get(5, TimeUnit.SECONDS);
+        assertEquals(50, budget.getUsed());
+    }
+
+    @Test
+    public void testReserveTimesOut() {
+        final JdkHttpMemoryBudget budget = new JdkHttpMemoryBudget(100, JdkHttpMemoryBudgetPolicy.BLOCK, Duration.ofMillis(50));
+        assertTrue(budget.tryReserve(80));
+
+        assertThrows(IllegalStateException.class, () -> budget.reserve(50));
+        assertEquals(80, budget.getUsed());
+    }
+
+    @Test
+    public void testReleaseDoesNotGoBelowZero() {
+        final JdkHttpMemoryBudget budget = new JdkHttpMemoryBudget(100, JdkHttpMemoryBudgetPolicy.SPILL, Duration.ZERO);
+        assertTrue(budget.tryReserve(10));
+
+        budget.release(20);
+        assertEquals(0, budget.getUsed());
+    }
+
+}
@@ -0,0 +1,141 @@
+package abs.zer0.camel.jdk.http;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.Message;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.test.AvailablePortFinder;
+import org.apache.camel.test.junit5.CamelTestSupport;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the ranged download against an upstream serving byte ranges,
+ * and the fallback to a single {@code GET} when the {@code HEAD} probe is rejected.
+ */
+public class JdkHttpRangedDownloadTest extends CamelTestSupport {
+
+    private static final int SEGMENT_SIZE = 16 * 1024;
+
+    private final int port = AvailablePortFinder.getNextAvailable();
+    private final byte[] resource = newResource(5 * SEGMENT_SIZE + 123);
+    private final Map<String, AtomicInteger> requestCounts = new ConcurrentHashMap<>();
+    private final List<String> ranges = new CopyOnWriteArrayList<>();
+
+    @Test
+    public void testResourceIsDownloadedInSegments() throws Exception {
+        final Path downloaded = download("ranged");
+
+        assertArrayEquals(resource, Files.readAllBytes(downloaded));
+        assertEquals(1, requestCount("ranged", "HEAD"));
+        assertEquals(6, ranges.size(), "Every segment must be requested with a range: " + ranges);
+        assertTrue(ranges.contains("bytes=0-16383"));
+    }
+
+    @Test
+    public void testRejectedProbeFallsBackToSingleGet() throws Exception {
+        final Path downloaded = download("presigned");
+
+        assertArrayEquals(resource, Files.readAllBytes(downloaded));
+        assertEquals(1, requestCount("presigned", "HEAD"));
+        assertEquals(1, requestCount("presigned", "GET"), "The resource must be downloaded with a single request");
+        assertTrue(ranges.isEmpty());
+    }
+
+    @Test
+    public void testUnsupportedProbeFallsBackToSingleGet() throws Exception {
+        final Path downloaded = download("no-head");
+
+        assertArrayEquals(resource, Files.readAllBytes(downloaded));
+        assertEquals(1, requestCount("no-head", "GET"));
+    }
+
+    @Override
+    protected RouteBuilder createRouteBuilder() {
+        return new RouteBuilder() {
+            @Override
+            public void configure() {
+                from("undertow:http://localhost:" + port + "/ranged").routeId("ranged")
+                        .process(exchange -> serve(exchange, "ranged", 200));
+                from("undertow:http://localhost:" + port + "/presigned").routeId("presigned")
+                        .process(exchange -> serve(exchange, "presigned", 403));
+                from("undertow:http://localhost:" + port + "/no-head").routeId("no-head")
+                        .process(exchange -> serve(exchange, "no-head", 405));
+            }
+        };
+    }
+
+
+    private Path download(String path) {
+        final Exchange exchange = template.request("jdk-http:http://localhost:" + port + "/" + path +
+                "?rangedDownload=true&downloadSegmentSize=" + SEGMENT_SIZE, null);
+        if (exchange.getException() != null) {
+            throw new AssertionError("Download of " + path + " failed", exchange.getException());
+        }
+
+        return exchange.getMessage().getBody(Path.class);
+    }
+
+    private int requestCount(String path, String method) {
+        final AtomicInteger count = requestCounts.get(path + " " + method);
+        return count != null ? count.get() : 0;
+    }
+
+    /**
+     * Serves the resource, answering {@code HEAD} with the given status and honoring {@code Range} only when it is 200.
+     */
+    private void serve(Exchange exchange, String path, int headStatus) {
+        final Message message = exchange.getMessage();
+        final String method = message.getHeader(Exchange.HTTP_METHOD, String.class);
+        final String range = message.getHeader("Range", String.class);
+        requestCounts.computeIfAbsent(path + " " + method, key -> new AtomicInteger()).incrementAndGet();
+        message.removeHeaders("*");
+
+        if ("HEAD".equals(method)) {
+            message.setHeader(Exchange.HTTP_RESPONSE_CODE, headStatus);
+            if (headStatus == 200) {
+                message.setHeader("Accept-Ranges", "bytes");
+                message.setHeader("ETag", "\"v1\"");
+                message.setBody(resource);
+            } else {
+                message.setBody(null);
+            }
+            return;
+        }
+
+        if (range != null && headStatus == 200) {
+            ranges.add(range);
+            final String[] bounds = range.substring("bytes=".length()).split("-");
+            final int start = Integer.parseInt(bounds[0]);
+            final int end = bounds.length > 1 ? Integer.parseInt(bounds[1]) : resource.length - 1;
+            message.setHeader(Exchange.HTTP_RESPONSE_CODE, 206);
+            message.setHeader("Content-Range", "bytes " + start + "-" + end + "/" + resource.length);
+            message.setHeader("ETag", "\"v1\"");
+            message.setBody(Arrays.copyOfRange(resource, start, end + 1));
+        } else {
+            message.setHeader(Exchange.HTTP_RESPONSE_CODE, 200);
+            message.setBody(resource);
+        }
+    }
+
+    private static byte[] newResource(int length) {
+        final byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) (i * 31 + i / 256);
+        }
+
+        return bytes;
+    }
+
+}
@@ -0,0 +1,75 @@
+package abs.zer0.camel.jdk.http;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the reservations of {@link JdkHttpRateLimiter} and its reaction to throttling by the upstream.
+ */
+public class JdkHttpRateLimiterTest {
+
+    private static final Duration LONG_WAIT = Duration.ofSeconds(30);
+
+    @Test
+    public void testBurstThenWait() {
+        final JdkHttpRateLimiter limiter = new JdkHttpRateLimiter(10, 3);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, limiter.reserve(LONG_WAIT), "The burst is available immediately");
+        }
+        final long firstWait = limiter.reserve(LONG_WAIT);
+        final long secondWait = limiter.reserve(LONG_WAIT);
+        assertTrue(firstWait > 0 && firstWait <= TimeUnit.MILLISECONDS.toNanos(100), "Waited " + firstWait + " ns");
+        assertTrue(secondWait > firstWait, "Reservations are served in FIFO order");
+    }
+
+    @Test
+    public void testReserveBeyondMaxWait() {
+        final JdkHttpRateLimiter limiter = new JdkHttpRateLimiter(1, 1);
+        assertEquals(0, limiter.reserve(LONG_WAIT));
+
+        assertEquals(-1, limiter.reserve(Duration.ofMillis(100)), "The next permit is due in about one second");
+        assertTrue(limiter.reserve(LONG_WAIT) > 0, "A rejected reservation does not consume a permit");
+    }
+
+    @Test
+    public void testAcquireWaitsForPermit() throws Exception {
+        final JdkHttpRateLimiter limiter = new JdkHttpRateLimiter(20, 1);
+        assertTrue(limiter.acquire(LONG_WAIT));
+
+        final long startNanos = System.nanoTime();
+        assertTrue(limiter.acquire(LONG_WAIT));
+        assertTrue(System.nanoTime() - startNanos >= TimeUnit.MILLISECONDS.toNanos(40));
+        assertFalse(limiter.acquire(Duration.ZERO), "No permit is available without waiting");
+    }
+
+    @Test
+    public void testTooManyRequestsHalvesRate() {
+        final JdkHttpRateLimiter limiter = new JdkHttpRateLimiter(10, 5);
+
+        limiter.onResponse(200, null);
+        assertEquals(10, limiter.getRate());
+
+        limiter.onResponse(429, null);
+        assertEquals(5, limiter.getRate());
+        assertTrue(limiter.reserve(LONG_WAIT) > 0, "Throttling drops the accumulated burst");
+        assertEquals(10, limiter.getConfiguredRate());
+    }
+
+    @Test
+    public void testRetryAfterPausesLimiter() {
+        final JdkHttpRateLimiter limiter = new JdkHttpRateLimiter(100, 5);
+
+        limiter.onResponse(503, Duration.ofSeconds(2));
+        assertEquals(50, limiter.getRate());
+        assertEquals(-1, limiter.reserve(Duration.ofSeconds(1)), "No permit is issued before the Retry-After delay elapses");
+        assertTrue(limiter.reserve(LONG_WAIT) >= TimeUnit.SECONDS.toNanos(1));
+    }
+
+}
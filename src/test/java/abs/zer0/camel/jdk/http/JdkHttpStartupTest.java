@@ -0,0 +1,92 @@
+package abs.zer0.camel.jdk.http;
+
+import org.apache.camel.BindToRegistry;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.support.jsse.SSLContextParameters;
+import org.apache.camel.test.AvailablePortFinder;
+import org.apache.camel.test.junit5.CamelTestSupport;
+import org.apache.camel.util.StopWatch;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Measures the startup of many HTTPS endpoints sharing one {@link SSLContextParameters},
+ * whose clients must not be built before the first request.
+ */
+public class JdkHttpStartupTest extends CamelTestSupport {
+
+    private static final Logger LOG = LoggerFactory.getLogger(JdkHttpStartupTest.class);
+
+    private static final int ENDPOINTS = 300;
+
+    private final int port = AvailablePortFinder.getNextAvailable();
+
+    @BindToRegistry("ssl")
+    private final SSLContextParameters sslContextParameters = new SSLContextParameters();
+
+    @Test
+    public void testStartupDoesNotBuildClients() throws Exception {
+        final StopWatch watch = new StopWatch();
+        context.addRoutes(new RouteBuilder() {
+            @Override
+            public void configure() {
+                for (int i = 0; i < ENDPOINTS; i++) {
+                    from("direct:tls" + i)
+                            .to("jdk-http:https://localhost:" + port + "/tls/" + i + "?sslContextParameters=#ssl");
+                }
+            }
+        });
+        final long startupMillis = watch.taken();
+        LOG.info("Started {} HTTPS endpoints in {} ms", ENDPOINTS, startupMillis);
+
+        for (int i = 0; i < ENDPOINTS; i++) {
+            final JdkHttpEndpoint endpoint = context.getEndpoint(
+                    "jdk-http:https://localhost:" + port + "/tls/" + i + "?sslContextParameters=#ssl", JdkHttpEndpoint.class);
+            assertNull(endpoint.getHttpClient(), "Client must not be built before the first request");
+        }
+    }
+
+    @Test
+    public void testSslContextIsSharedByParameters() throws Exception {
+        final JdkHttpComponent component = context.getComponent("jdk-http", JdkHttpComponent.class);
+
+        final long startNanos = System.nanoTime();
+        final Object first = component.getSslContext(sslContextParameters);
+        final long builtNanos = System.nanoTime();
+        for (int i = 1; i < ENDPOINTS; i++) {
+            assertSame(first, component.getSslContext(sslContextParameters));
+        }
+        final long cachedNanos = (System.nanoTime() - builtNanos) / (ENDPOINTS - 1);
+        LOG.info("Built the SSLContext in {} us, then got it from the cache in {} us on average",
+                TimeUnit.NANOSECONDS.toMicros(builtNanos - startNanos), TimeUnit.NANOSECONDS.toMicros(cachedNanos));
+    }
+
+    @Test
+    public void testClientIsBuiltOnFirstRequest() {
+        final JdkHttpEndpoint endpoint = context.getEndpoint("jdk-http:http://localhost:" + port + "/hello", JdkHttpEndpoint.class);
+        assertNull(endpoint.getHttpClient());
+
+        assertEquals("Hello", template.requestBody(endpoint, null, String.class));
+        assertNotNull(endpoint.getHttpClient());
+    }
+
+    @Override
+    protected RouteBuilder createRouteBuilder() {
+        return new RouteBuilder() {
+            @Override
+            public void configure() {
+                from("undertow:http://localhost:" + port + "/hello").routeId("hello")
+                        .setBody(constant("Hello"));
+            }
+        };
+    }
+
+}